@@ -0,0 +1,125 @@
+package Asgn3;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * custom Java Flight Recorder events for analysis hot paths
+ * events cost next to nothing unless a recording is running:
+ * begin()/commit() are no-ops when disabled, and no event records a stack trace
+ * record with: java -XX:StartFlightRecording=filename=analysis.jfr ... then summarize with JfrSummary
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public final class AnalysisEvents {
+
+    // common category for all events
+    static final String CATEGORY = "GH Repo Analyzer";
+
+    /**
+     * no instances
+     */
+    private AnalysisEvents() {
+    }
+
+    /**
+     * one pipeline stage (see AnalysisProfile)
+     */
+    @Name("Asgn3.Stage")
+    @Label("Analysis Stage")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class StageEvent extends Event {
+        @Label("Stage")
+        String stage;
+        @Label("Items")
+        int items;
+    }
+
+    /**
+     * one file pulled from GH (per-file API call or archive entry)
+     */
+    @Name("Asgn3.FileFetch")
+    @Label("File Fetch")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class FileFetchEvent extends Event {
+        @Label("Path")
+        String path;
+        @Label("Source")
+        @Description("api or archive")
+        String source;
+        @Label("Size")
+        @DataAmount
+        long bytes;
+    }
+
+    /**
+     * lexing (comment/string stripping) of one file
+     */
+    @Name("Asgn3.FileLex")
+    @Label("File Lexing")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class FileLexEvent extends Event {
+        @Label("File")
+        String file;
+        @Label("Characters")
+        int chars;
+    }
+
+    /**
+     * relationship analysis (singleton, fields, methods) of one class
+     */
+    @Name("Asgn3.ClassAnalysis")
+    @Label("Class Analysis")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class ClassAnalysisEvent extends Event {
+        @Label("Class")
+        String className;
+        @Label("Body Characters")
+        int chars;
+    }
+
+    /**
+     * one FieldAnalyzer / MethodAnalyzer scan over a class body
+     */
+    @Name("Asgn3.BodyScan")
+    @Label("Body Scan")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class BodyScanEvent extends Event {
+        @Label("Scan")
+        @Description("fields, temporaryUsages or singletonUsages")
+        String scan;
+        @Label("Body Characters")
+        int chars;
+        @Label("Matches")
+        int matches;
+    }
+
+    /**
+     * PlantUML rendering of a diagram image
+     */
+    @Name("Asgn3.DiagramRender")
+    @Label("Diagram Render")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class DiagramRenderEvent extends Event {
+        @Label("Source Characters")
+        int sourceChars;
+        @Label("Width")
+        int width;
+        @Label("Height")
+        int height;
+        @Label("Success")
+        boolean success;
+    }
+
+}
@@ -0,0 +1,120 @@
+package Asgn3;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * process wide registry of analysis stage costs
+ * every analysis gets its own profile from here (returned with its result, see GHRepoAnalyzed.getProfile),
+ * finished stages are folded into cumulative totals and the totals are published over JMX (jconsole / JFR / any JMX scraper)
+ * nothing here belongs to one analysis, so concurrent analyses (history, watch mode, workspace, server) never mix
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class AnalysisMetrics implements AnalysisMetricsMXBean {
+
+    // config
+    public static final String OBJECT_NAME = "Asgn3:type=AnalysisMetrics";
+
+    // shared instance (registered on first use)
+    private static AnalysisMetrics instance;
+
+    // fields
+    private long analysisCount = 0;
+    private final Map<String, Long> totalWallNanos = new TreeMap<>();
+    private final Map<String, Long> totalCpuNanos = new TreeMap<>();
+    private final Map<String, Long> totalAllocatedBytes = new TreeMap<>();
+    private final Map<String, Long> totalItems = new TreeMap<>();
+
+    // logger
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisMetrics.class);
+
+    /**
+     * gets shared registry, registering it with the platform MBean server the first time
+     * @return shared registry
+     */
+    public static synchronized AnalysisMetrics getInstance() {
+
+        if (instance == null) {
+            instance = new AnalysisMetrics();
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(instance, new ObjectName(OBJECT_NAME));
+            } catch (JMException e) {
+                logger.warn("Could not register {} MBean: {}", OBJECT_NAME, e.getMessage());
+            }
+        }
+        return instance;
+
+    }
+
+    /**
+     * starts a new profile; its stages feed this registry
+     * @return empty profile, owned by the caller (attach it to the analysis it measures)
+     */
+    public AnalysisProfile newProfile() {
+
+        synchronized (this) {
+            analysisCount++;
+        }
+        return new AnalysisProfile(this::record);
+
+    }
+
+    // counters
+    @Override
+    public synchronized long getAnalysisCount() { return analysisCount; }
+
+    // cumulative
+    @Override
+    public synchronized Map<String, Long> getTotalStageWallMillis() { return millis(totalWallNanos); }
+    @Override
+    public synchronized Map<String, Long> getTotalStageCpuMillis() { return millis(totalCpuNanos); }
+    @Override
+    public synchronized Map<String, Long> getTotalStageAllocatedBytes() { return new TreeMap<>(totalAllocatedBytes); }
+    @Override
+    public synchronized Map<String, Long> getTotalStageItems() { return new TreeMap<>(totalItems); }
+
+    /**
+     * clears cumulative counters
+     */
+    @Override
+    public synchronized void reset() {
+        analysisCount = 0;
+        totalWallNanos.clear();
+        totalCpuNanos.clear();
+        totalAllocatedBytes.clear();
+        totalItems.clear();
+    }
+
+    /**
+     * helper function to fold a finished stage into the totals
+     * @param stage finished stage
+     */
+    private synchronized void record(AnalysisProfile.Stage stage) {
+        totalWallNanos.merge(stage.name(), stage.wallNanos(), Long::sum);
+        if (stage.cpuNanos() >= 0) {
+            totalCpuNanos.merge(stage.name(), stage.cpuNanos(), Long::sum);
+        }
+        if (stage.allocatedBytes() >= 0) {
+            totalAllocatedBytes.merge(stage.name(), stage.allocatedBytes(), Long::sum);
+        }
+        totalItems.merge(stage.name(), (long) stage.items(), Long::sum);
+    }
+
+    /**
+     * helper function to convert nanosecond totals
+     * @param nanos stage name mapped to nanoseconds
+     * @return stage name mapped to milliseconds
+     */
+    private static Map<String, Long> millis(Map<String, Long> nanos) {
+        Map<String, Long> millis = new TreeMap<>();
+        nanos.forEach((name, value) -> millis.put(name, value / 1_000_000));
+        return millis;
+    }
+
+}
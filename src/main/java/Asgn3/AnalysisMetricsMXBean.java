@@ -0,0 +1,29 @@
+package Asgn3;
+import java.util.Map;
+
+/**
+ * JMX view of analysis stage costs (registered as Asgn3:type=AnalysisMetrics)
+ * attributes sum every analysis since start/reset (analyses run concurrently, so there is no single "last" one;
+ * the costs of one analysis are its own profile, see GHRepoAnalyzed.getProfile)
+ * maps are keyed by stage name (see AnalysisProfile)
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public interface AnalysisMetricsMXBean {
+
+    // counters
+    long getAnalysisCount();
+
+    // cumulative
+    Map<String, Long> getTotalStageWallMillis();
+    Map<String, Long> getTotalStageCpuMillis();
+    Map<String, Long> getTotalStageAllocatedBytes();
+    Map<String, Long> getTotalStageItems();
+
+    /**
+     * clears cumulative counters
+     */
+    void reset();
+
+}
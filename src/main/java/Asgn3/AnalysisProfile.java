@@ -0,0 +1,204 @@
+package Asgn3;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * per-stage cost of one analysis run: wall time, CPU time, allocated bytes and item count
+ * CPU time and allocations are measured on the thread that runs the stage
+ * (work handed to other threads, e.g. concurrent file fetches, only shows up as wall time)
+ * stages are kept in the order they finished, and each one is also emitted as a JFR event (AnalysisEvents)
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class AnalysisProfile {
+
+    // stage names
+    public static final String LISTING = "listing";
+    public static final String FETCHING = "fetching";
+    public static final String LEXING = "lexing";
+    public static final String FILE_METRICS = "fileMetrics";
+    public static final String EXTRACTION = "extraction";
+    public static final String SIGNATURES = "signatures";
+    public static final String BODIES = "bodies";
+    public static final String RELATIONSHIPS = "relationships";
+    public static final String CLASS_METRICS = "classMetrics";
+    public static final String METRICS = "metrics";
+    public static final String UML = "uml";
+
+    // JVM probes (allocation counter is a HotSpot extension, -1 if unavailable)
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final com.sun.management.ThreadMXBean HOTSPOT_THREADS =
+            (THREADS instanceof com.sun.management.ThreadMXBean hotspot && hotspot.isThreadAllocatedMemorySupported())
+                    ? hotspot : null;
+
+    // fields
+    private final List<Stage> stages = new ArrayList<>();
+    private final Consumer<Stage> listener;
+
+    /**
+     * cost of a single finished stage
+     * @param name stage name
+     * @param wallNanos elapsed time
+     * @param cpuNanos CPU time of the measuring thread (-1 if unsupported)
+     * @param allocatedBytes bytes allocated by the measuring thread (-1 if unsupported)
+     * @param items number of things processed (files, classes, ...)
+     */
+    public record Stage(String name, long wallNanos, long cpuNanos, long allocatedBytes, int items) {
+    }
+
+    /**
+     * measures one stage; closing it records the stage
+     */
+    public final class Timer implements AutoCloseable {
+
+        // fields
+        private final String name;
+        private final long wallStart = System.nanoTime();
+        private final long cpuStart = cpuTime();
+        private final long allocStart = allocatedBytes();
+        private final AnalysisEvents.StageEvent event = new AnalysisEvents.StageEvent();
+        private int items = 0;
+
+        /**
+         * constructor
+         * @param name stage name
+         */
+        private Timer(String name) {
+            this.name = name;
+            event.begin();
+        }
+
+        /**
+         * sets number of items processed by this stage
+         * @param items item count
+         */
+        public void items(int items) {
+            this.items = items;
+        }
+
+        /**
+         * stops measuring and records the stage
+         */
+        @Override
+        public void close() {
+            if (event.shouldCommit()) {
+                event.stage = name;
+                event.items = items;
+                event.commit();
+            }
+            long cpuEnd = cpuTime();
+            long allocEnd = allocatedBytes();
+            add(new Stage(name,
+                    System.nanoTime() - wallStart,
+                    (cpuStart < 0 || cpuEnd < 0) ? -1 : cpuEnd - cpuStart,
+                    (allocStart < 0 || allocEnd < 0) ? -1 : allocEnd - allocStart,
+                    items));
+        }
+    }
+
+    /**
+     * constructor (stages are only kept locally)
+     */
+    public AnalysisProfile() {
+        this(null);
+    }
+
+    /**
+     * constructor
+     * @param listener notified of every finished stage (may be null)
+     */
+    public AnalysisProfile(Consumer<Stage> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * starts measuring a stage on the current thread
+     * @param name stage name
+     * @return timer to close when the stage is done
+     */
+    public Timer start(String name) {
+        return new Timer(name);
+    }
+
+    /**
+     * gets all finished stages
+     * @return stages in finishing order
+     */
+    public synchronized List<Stage> getStages() {
+        return List.copyOf(stages);
+    }
+
+    /**
+     * gets a finished stage by name
+     * @param name stage name
+     * @return stage, or null if it has not run
+     */
+    public synchronized Stage getStage(String name) {
+        for (Stage stage : stages) {
+            if (stage.name().equals(name)) { return stage; }
+        }
+        return null;
+    }
+
+    /**
+     * sums wall time of all finished stages
+     * @return nanoseconds
+     */
+    public synchronized long getTotalWallNanos() {
+        long total = 0;
+        for (Stage stage : stages) {
+            total += stage.wallNanos();
+        }
+        return total;
+    }
+
+    /**
+     * table of all stages for logging
+     * @return one line per stage
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder table = new StringBuilder(String.format("%-14s %10s %10s %12s %8s%n", "stage", "wall ms", "cpu ms", "alloc KB", "items"));
+        for (Stage stage : stages) {
+            table.append(String.format("%-14s %10.2f %10.2f %12d %8d%n",
+                    stage.name(),
+                    stage.wallNanos() / 1e6,
+                    stage.cpuNanos() < 0 ? -1.0 : stage.cpuNanos() / 1e6,
+                    stage.allocatedBytes() < 0 ? -1 : stage.allocatedBytes() / 1024,
+                    stage.items()));
+        }
+        return table.toString();
+    }
+
+    /**
+     * helper function to record a finished stage
+     * @param stage finished stage
+     */
+    private void add(Stage stage) {
+        synchronized (this) {
+            stages.add(stage);
+        }
+        if (listener != null) { listener.accept(stage); }
+    }
+
+    /**
+     * helper function to read CPU time of current thread
+     * @return nanoseconds, or -1 if unsupported
+     */
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * helper function to read bytes allocated by current thread
+     * @return bytes, or -1 if unsupported
+     */
+    private static long allocatedBytes() {
+        return (HOTSPOT_THREADS != null) ? HOTSPOT_THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+}
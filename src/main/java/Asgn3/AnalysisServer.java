@@ -0,0 +1,628 @@
+package Asgn3;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import net.sourceforge.plantuml.FileFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * embedded HTTP server mode: analyses as a shared service for dashboards
+ * GET /analyze?url=<GH folder URL> --> file and class metrics as JSON
+ * GET /uml?url=<GH folder URL>&format=svg|png --> rendered class diagram
+ * GET /stats --> cache and pool counters as JSON
+ * requests run on virtual threads; analyses and renders run on a bounded worker pool
+ * concurrent requests for the same URL (URLs include the ref) share one analysis, finished analyses are kept in an LRU cache
+ * when every worker is busy and the queue is full, requests are turned away with 503 + Retry-After instead of piling up
+ * failures: bad request --> 400, GH request failed --> 502, analysis / render failed --> 500
+ * binds to loopback only unless a host is given (there is no authentication)
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class AnalysisServer implements Closeable {
+
+    // config
+    public static final int DEFAULT_PORT = 8080;
+    public static final String DEFAULT_HOST = "127.0.0.1";
+    public static final int DEFAULT_QUEUE = 64;
+    public static final int DEFAULT_CACHE = 256;
+    public static final long DEFAULT_MAX_AGE_MS = TimeUnit.MINUTES.toMillis(10);  // branches move, results go stale
+
+    // components
+    private final GHRepoAnalyzer analyzer;
+    private final HttpServer server;
+    private final ThreadPoolExecutor workers;
+    private final Map<String, CompletableFuture<Result>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Result> cache;  // access ordered (LRU), guarded by itself
+    private final long maxAgeMillis;
+
+    // counters
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    // logger
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisServer.class);
+
+    /**
+     * counters since start
+     * @param requests requests received
+     * @param hits analyses served from the cache
+     * @param misses analyses started
+     * @param coalesced requests that joined an analysis or render already in progress
+     * @param rejected requests turned away because the pool was saturated
+     * @param failed requests that ended in an error (bad URL, GH failure, ...)
+     * @param cached analyses in the cache
+     * @param active tasks running on the worker pool
+     * @param queued tasks waiting for a worker
+     */
+    public record Stats(long requests, long hits, long misses, long coalesced, long rejected, long failed,
+                        int cached, int active, int queued) {}
+
+    /**
+     * a task run once per key
+     * @param future task result
+     * @param joined true if the task was already running or done (started by an earlier request)
+     * @param <T> result type
+     */
+    private record Task<T>(CompletableFuture<T> future, boolean joined) {}
+
+    /**
+     * an analysis served to a request
+     * @param result analysis and its rendered forms
+     * @param cache how it was served: HIT, COALESCED or MISS
+     */
+    private record Served(Result result, String cache) {}
+
+    /**
+     * one cached analysis, plus its rendered forms (created on first request)
+     */
+    private static final class Result {
+
+        // fields
+        final GHRepoAnalyzed analysis;
+        final long createdMillis;
+        final Map<FileFormat, CompletableFuture<byte[]>> images = new ConcurrentHashMap<>();
+        private byte[] json;
+
+        /**
+         * constructor
+         * @param analysis finished analysis
+         */
+        Result(GHRepoAnalyzed analysis) {
+            this.analysis = analysis;
+            this.createdMillis = System.currentTimeMillis();
+        }
+
+        /**
+         * gets the JSON form (serialized once)
+         * @param url GH folder URL
+         * @return UTF-8 JSON
+         */
+        synchronized byte[] json(String url) {
+            if (json == null) { json = toJson(url, analysis).getBytes(StandardCharsets.UTF_8); }
+            return json;
+        }
+    }
+
+    /**
+     * constructor, bound to loopback (server is not started yet, see start)
+     * @param analyzer analyzer shared by all requests
+     * @param port TCP port (0 for any free port)
+     * @param threads analyses / renders running at the same time
+     * @param queue analyses / renders allowed to wait for a worker before requests are rejected
+     * @param cacheSize analyses kept in the LRU cache
+     * @param maxAgeMillis cached analyses older than this are analyzed again
+     * @throws IOException if the port cannot be bound
+     */
+    public AnalysisServer(GHRepoAnalyzer analyzer, int port, int threads, int queue, int cacheSize, long maxAgeMillis) throws IOException {
+        this(analyzer, DEFAULT_HOST, port, threads, queue, cacheSize, maxAgeMillis);
+    }
+
+    /**
+     * constructor (server is not started yet, see start)
+     * @param analyzer analyzer shared by all requests
+     * @param host address to bind (0.0.0.0 for every interface)
+     * @param port TCP port (0 for any free port)
+     * @param threads analyses / renders running at the same time
+     * @param queue analyses / renders allowed to wait for a worker before requests are rejected
+     * @param cacheSize analyses kept in the LRU cache
+     * @param maxAgeMillis cached analyses older than this are analyzed again
+     * @throws IOException if the port cannot be bound
+     */
+    public AnalysisServer(GHRepoAnalyzer analyzer, String host, int port, int threads, int queue, int cacheSize,
+                          long maxAgeMillis) throws IOException {
+
+        // initialize components
+        this.analyzer = analyzer;
+        this.maxAgeMillis = maxAgeMillis;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+                return size() > cacheSize;
+            }
+        };
+
+        // bounded pool: saturation shows up as RejectedExecutionException (--> 503)
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, queue)),
+                task -> {
+                    Thread thread = new Thread(task, "analysis-worker-" + workerCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        // cheap handlers on virtual threads (they mostly wait on the workers)
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/analyze", exchange -> handle(exchange, this::analyzeRoute));
+        server.createContext("/uml", exchange -> handle(exchange, this::umlRoute));
+        server.createContext("/stats", exchange -> handle(exchange, this::statsRoute));
+
+    }
+
+    /**
+     * starts serving
+     */
+    public void start() {
+        server.start();
+        logger.info("Analysis server listening on {}:{}", server.getAddress().getHostString(), getPort());
+    }
+
+    /**
+     * gets the port the server is bound to
+     * @return TCP port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * gets the counters
+     * @return counters since start
+     */
+    public Stats getStats() {
+        int cached;
+        synchronized (cache) { cached = cache.size(); }
+        return new Stats(requests.get(), hits.get(), misses.get(), coalesced.get(), rejected.get(), failed.get(),
+                cached, workers.getActiveCount(), workers.getQueue().size());
+    }
+
+    /**
+     * stops serving and drops running analyses
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdownNow();
+        if (server.getExecutor() instanceof ExecutorService executor) { executor.shutdownNow(); }
+    }
+
+    /**
+     * command line entry point (see Main --server)
+     * usage: [port=8080] [threads=cores] [queue=64] [cacheSize=256] [host=127.0.0.1]
+     * @param args optional port, threads, queue, cache size and bind address
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int queue = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_QUEUE;
+        int cacheSize = (args.length > 3) ? Integer.parseInt(args[3]) : DEFAULT_CACHE;
+        String host = (args.length > 4) ? args[4] : DEFAULT_HOST;
+
+        EnvLoader.loadEnv(".env");
+        GHOperations ghOperations = new GHOperations(System.getProperty("GH_TOKEN"));
+        new AnalysisServer(new GHRepoAnalyzer(ghOperations), host, port, threads, queue, cacheSize, DEFAULT_MAX_AGE_MS).start();
+
+    }
+
+    /**
+     * one route: turns a request into (status, content type, body)
+     */
+    private interface Route {
+        Response serve(Map<String, String> query) throws Exception;
+    }
+
+    /**
+     * one response
+     * @param status HTTP status
+     * @param contentType content type
+     * @param body body
+     * @param cache X-Cache header value (null for none)
+     */
+    private record Response(int status, String contentType, byte[] body, String cache) {}
+
+    /**
+     * helper function to answer a request (GET only), mapping failures to status codes
+     * @param exchange request / response
+     * @param route route handler
+     * @throws IOException if the response cannot be written
+     */
+    private void handle(HttpExchange exchange, Route route) throws IOException {
+
+        requests.incrementAndGet();
+        Response response;
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                response = error(405, "GET only");
+            } else {
+                response = route.serve(query(exchange.getRequestURI().getRawQuery()));
+            }
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            response = error(503, "Server busy, retry later");
+        } catch (IllegalArgumentException e) {
+            failed.incrementAndGet();
+            response = error(400, e.getMessage());
+        } catch (IOException e) {
+            // only GH fetches throw IOException (renders report theirs as UncheckedIOException)
+            failed.incrementAndGet();
+            response = error(502, "GH request failed: " + e.getMessage());
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            logger.warn("Request {} failed: {}", exchange.getRequestURI(), e.toString());
+            response = error(500, String.valueOf(e.getMessage()));
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", response.contentType());
+        if (response.cache() != null) { exchange.getResponseHeaders().set("X-Cache", response.cache()); }
+        exchange.sendResponseHeaders(response.status(), response.body().length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response.body());
+        }
+
+    }
+
+    /**
+     * GET /analyze?url=...
+     * @param query query parameters
+     * @return metrics as JSON
+     * @throws Exception if the analysis fails or the pool is saturated
+     */
+    private Response analyzeRoute(Map<String, String> query) throws Exception {
+        String url = url(query);
+        Served served = lookup(url);
+        return new Response(200, "application/json; charset=utf-8", served.result().json(url), served.cache());
+    }
+
+    /**
+     * GET /uml?url=...&format=svg|png
+     * @param query query parameters
+     * @return rendered diagram
+     * @throws Exception if the analysis or rendering fails, or the pool is saturated
+     */
+    private Response umlRoute(Map<String, String> query) throws Exception {
+
+        String format = query.getOrDefault("format", "svg").toLowerCase();
+        FileFormat fileFormat = switch (format) {
+            case "svg" -> FileFormat.SVG;
+            case "png" -> FileFormat.PNG;
+            default -> throw new IllegalArgumentException("Unknown format: " + format + " (svg or png)");
+        };
+
+        String url = url(query);
+        Served served = lookup(url);
+        Result result = served.result();
+        Task<byte[]> render = coalesce(result.images, fileFormat, () -> render(result.analysis.getUmlSource(), fileFormat), true);
+        byte[] image = await(render.future());
+        return new Response(200, (fileFormat == FileFormat.SVG) ? "image/svg+xml" : "image/png", image, served.cache());
+
+    }
+
+    /**
+     * GET /stats
+     * @param query query parameters (unused)
+     * @return counters as JSON
+     */
+    private Response statsRoute(Map<String, String> query) {
+        Stats stats = getStats();
+        String json = String.format("{\"requests\":%d,\"hits\":%d,\"misses\":%d,\"coalesced\":%d,\"rejected\":%d,\"failed\":%d,"
+                        + "\"cached\":%d,\"active\":%d,\"queued\":%d}",
+                stats.requests(), stats.hits(), stats.misses(), stats.coalesced(), stats.rejected(), stats.failed(),
+                stats.cached(), stats.active(), stats.queued());
+        return new Response(200, "application/json; charset=utf-8", json.getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    /**
+     * helper function to get an analysis: from the cache, from an analysis in progress, or by starting one
+     * @param url GH folder URL
+     * @return analysis and how it was served
+     * @throws Exception if the analysis fails or the pool is saturated
+     */
+    private Served lookup(String url) throws Exception {
+
+        Result cached = cached(url);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return new Served(cached, "HIT");
+        }
+
+        Task<Result> analysis = coalesce(inFlight, url, () -> {
+            Result fresh = cached(url);  // finished between the cache check and this task
+            if (fresh == null) {
+                misses.incrementAndGet();
+                fresh = new Result(analyzer.analyzeFiles(url));
+                synchronized (cache) { cache.put(url, fresh); }
+            }
+            return fresh;
+        }, false);
+        return new Served(await(analysis.future()), analysis.joined() ? "COALESCED" : "MISS");
+
+    }
+
+    /**
+     * helper function to read the cache
+     * @param url GH folder URL
+     * @return fresh cached analysis (null if none or too old)
+     */
+    private Result cached(String url) {
+        synchronized (cache) {
+            Result result = cache.get(url);
+            if (result != null && System.currentTimeMillis() - result.createdMillis > maxAgeMillis) {
+                cache.remove(url);
+                return null;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * helper function to run a task once per key on the worker pool: the first caller submits it, later callers share it
+     * @param futures tasks in progress (and, if kept, finished) by key
+     * @param key task key
+     * @param task task
+     * @param keep true to keep the finished result in futures, false to remove it once done (failures are never kept)
+     * @return task (fails with RejectedExecutionException if the pool is saturated)
+     * @param <K> key type
+     * @param <T> result type
+     */
+    private <K, T> Task<T> coalesce(Map<K, CompletableFuture<T>> futures, K key, Callable<T> task, boolean keep) {
+
+        CompletableFuture<T> created = new CompletableFuture<>();
+        CompletableFuture<T> existing = futures.putIfAbsent(key, created);
+
+        if (existing != null) {
+            if (!existing.isDone()) { coalesced.incrementAndGet(); }
+            return new Task<>(existing, true);
+        }
+
+        try {
+            workers.execute(() -> {
+                try {
+                    created.complete(task.call());
+                    if (!keep) { futures.remove(key, created); }
+                } catch (Exception e) {
+                    futures.remove(key, created);
+                    created.completeExceptionally(e);
+                } catch (Error e) {
+                    futures.remove(key, created);
+                    created.completeExceptionally(e);  // don't leave requests waiting, but let the worker report it
+                    throw e;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            futures.remove(key, created);
+            created.completeExceptionally(e);  // requests that joined in the meantime are turned away too
+        }
+        return new Task<>(created, false);
+
+    }
+
+    /**
+     * helper function to render a diagram, reporting failures as render failures (500) rather than GH failures (502)
+     * @param umlSource PlantUML source
+     * @param fileFormat image format
+     * @return image bytes
+     */
+    private static byte[] render(String umlSource, FileFormat fileFormat) {
+        try {
+            return PlantUMLGenerator.render(umlSource, fileFormat);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Render failed: " + e.getMessage(), e);
+        } catch (StackOverflowError e) {
+            throw new IllegalStateException("Render failed: diagram too deeply nested", e);  // known PlantUML limit (see UMLPanel)
+        }
+    }
+
+    /**
+     * helper function to wait for a task and rethrow its failure
+     * @param future task
+     * @return task result
+     * @throws Exception task failure
+     * @param <T> result type
+     */
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) { throw cause; }
+            if (e.getCause() instanceof Error cause) { throw cause; }
+            throw e;
+        }
+    }
+
+    /**
+     * helper function to read and validate the url parameter
+     * @param query query parameters
+     * @return GH folder URL
+     */
+    private static String url(Map<String, String> query) {
+        String url = query.getOrDefault("url", "").trim();
+        if (!url.startsWith("https://github.com/") || !url.contains("/tree/")) {
+            throw new IllegalArgumentException("Expected url=https://github.com/<GH USER>/<REPO NAME>/tree/<BRANCH>/<folder(s)...>");
+        }
+        return url;
+    }
+
+    /**
+     * helper function to parse a query string
+     * @param rawQuery raw (encoded) query, may be null
+     * @return decoded parameters
+     */
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) { return params; }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = (eq < 0) ? pair : pair.substring(0, eq);
+            String value = (eq < 0) ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    /**
+     * helper function to build an error response
+     * @param status HTTP status
+     * @param message error message
+     * @return JSON error
+     */
+    private static Response error(int status, String message) {
+        byte[] body = ("{\"error\":" + quote(message) + "}").getBytes(StandardCharsets.UTF_8);
+        return new Response(status, "application/json; charset=utf-8", body, null);
+    }
+
+    /**
+     * helper function to serialize an analysis
+     * @param url GH folder URL
+     * @param analysis analysis
+     * @return JSON
+     */
+    static String toJson(String url, GHRepoAnalyzed analysis) {
+
+        StringBuilder out = new StringBuilder(256 + 160 * (analysis.getFileMetrics().size() + analysis.getClassMetrics().size()));
+        out.append("{\"url\":").append(quote(url)).append(",\"A\":").append(number(analysis.getA()));
+
+        // files
+        out.append(",\"files\":[");
+        FileMetricsStore files = analysis.getFileMetrics();
+        for (int i = 0; i < files.size(); i++) {
+            if (i > 0) { out.append(','); }
+            out.append("{\"name\":").append(quote(files.getName(i)))
+                    .append(",\"size\":").append(files.getSize(i))
+                    .append(",\"complexity\":").append(files.getComplexity(i))
+                    .append(",\"metrics\":");
+            appendMetrics(out, files.getMetrics(i));
+            out.append('}');
+        }
+
+        // classes
+        out.append("],\"classes\":[");
+        boolean first = true;
+        for (ClassLevelMetrics metrics : analysis.getClassMetricsList()) {
+            if (!first) { out.append(','); }
+            first = false;
+            out.append("{\"name\":").append(quote(metrics.getClassName()))
+                    .append(",\"type\":").append(quote(metrics.getClassType()))
+                    .append(",\"singleton\":").append(metrics.isSingleton())
+                    .append(",\"Ca\":").append(metrics.getCa())
+                    .append(",\"Ce\":").append(metrics.getCe())
+                    .append(",\"A\":").append(number(metrics.getA()))
+                    .append(",\"I\":").append(number(metrics.getI()))
+                    .append(",\"D\":").append(number(metrics.getD()))
+                    .append(",\"extends\":");
+            appendNames(out, metrics.getExtendsClasses());
+            out.append(",\"implements\":");
+            appendNames(out, metrics.getImplementsInterfaces());
+            out.append(",\"metrics\":");
+            appendMetrics(out, metrics.getMetrics());
+            out.append('}');
+        }
+        return out.append("]}").toString();
+
+    }
+
+    /**
+     * helper function to write a metric map as a JSON object
+     * @param out destination
+     * @param metrics metric names mapped to values
+     */
+    private static void appendMetrics(StringBuilder out, Map<String, Double> metrics) {
+        out.append('{');
+        boolean first = true;
+        for (Map.Entry<String, Double> metric : metrics.entrySet()) {
+            if (!first) { out.append(','); }
+            first = false;
+            out.append(quote(metric.getKey())).append(':').append(number(metric.getValue()));
+        }
+        out.append('}');
+    }
+
+    /**
+     * helper function to write names as a JSON array
+     * @param out destination
+     * @param names names
+     */
+    private static void appendNames(StringBuilder out, List<String> names) {
+        out.append('[');
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0) { out.append(','); }
+            out.append(quote(names.get(i)));
+        }
+        out.append(']');
+    }
+
+    /**
+     * helper function to write a JSON number (NaN and infinities become null)
+     * @param value value
+     * @return JSON number
+     */
+    private static String number(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) { return "null"; }
+        return (value == Math.rint(value) && Math.abs(value) < 1e15) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    /**
+     * helper function to write a JSON string
+     * @param value text (null becomes JSON null)
+     * @return quoted and escaped text
+     */
+    private static String quote(String value) {
+        if (value == null) { return "null"; }
+        StringBuilder out = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) { out.append(String.format("\\u%04x", (int) c)); } else { out.append(c); }
+                }
+            }
+        }
+        return out.append('"').toString();
+    }
+
+}
@@ -0,0 +1,211 @@
+package Asgn3;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * command line load test for AnalysisServer
+ * usage: java -cp <jar> Asgn3.AnalysisServerBenchmark [clients=64] [requests=2000] [folders=40] [filesPerFolder=40] [threads=cores] [queue=16] [cacheSize=32]
+ * synthetic folders are served as zipballs by a local stand-in for the GH API (see WorkspaceBenchmark), so no token is needed
+ * phase 1 --> every client asks for the same uncached folder at once (should be one analysis, one download)
+ * phase 2 --> clients send a skewed mix of folders (a few are popular, most are not), reports latency percentiles,
+ * how requests were served (HIT / COALESCED / MISS) and how many were turned away (503)
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class AnalysisServerBenchmark {
+
+    /**
+     * entry point
+     * @param args clients, requests, folders, files per folder, worker threads, queue, cache size (all optional)
+     * @throws Exception if a server cannot start or a client fails
+     */
+    public static void main(String[] args) throws Exception {
+
+        int clients = intArg(args, 0, 64);
+        int requests = intArg(args, 1, 2000);
+        int folders = intArg(args, 2, 40);
+        int filesPerFolder = intArg(args, 3, 40);
+        int threads = intArg(args, 4, Runtime.getRuntime().availableProcessors());
+        int queue = intArg(args, 5, 16);
+        int cacheSize = intArg(args, 6, 32);
+
+        // one synthetic repo per folder (every miss downloads)
+        Map<String, byte[]> zipballs = new ConcurrentHashMap<>();
+        List<String> urls = new ArrayList<>();
+        for (int folder = 0; folder < folders; folder++) {
+            zipballs.put("repo" + folder, WorkspaceBenchmark.zipball(folder, folder, folder + 1, filesPerFolder));
+            urls.add("https://github.com/bench/repo" + folder + "/tree/main/services/svc" + folder);
+        }
+        HttpServer gh = WorkspaceBenchmark.serveZipballs(zipballs);
+        GHOperations ghOperations = new GHOperations(null, new GHApiClient(URI.create("http://127.0.0.1:" + gh.getAddress().getPort()), null));
+
+        GHRepoAnalyzer analyzer = new GHRepoAnalyzer(ghOperations);
+        analyzer.setBulkFetch(true);  // the stub only serves zipballs (no folder listing)
+
+        AnalysisServer server = new AnalysisServer(analyzer, 0, threads, queue, cacheSize, AnalysisServer.DEFAULT_MAX_AGE_MS);
+        server.start();
+        String base = "http://127.0.0.1:" + server.getPort() + "/analyze?url=";
+
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder().executor(clientThreads).build()) {
+
+            System.out.printf("%d clients, %d requests over %d folders x %d files; %d workers, queue %d, cache %d%n%n",
+                    clients, requests, folders, filesPerFolder, threads, queue, cacheSize);
+
+            // phase 1: thundering herd on one cold folder
+            Counts herd = new Counts();
+            long start = System.nanoTime();
+            run(clientThreads, clients, clients, i -> send(client, base + encode(urls.get(0)), herd));
+            System.out.printf("herd: %d requests in %.1f ms, %s, downloads %d%n", clients, (System.nanoTime() - start) / 1e6,
+                    herd, ghOperations.getArchiveDownloads());
+
+            // phase 2: skewed mix (squared uniform --> low folder numbers are requested far more often)
+            Counts mix = new Counts();
+            long[] latencies = new long[requests];
+            AtomicInteger next = new AtomicInteger();
+            start = System.nanoTime();
+            run(clientThreads, clients, requests, i -> {
+                Random random = new Random(i);
+                double u = random.nextDouble();
+                String url = urls.get((int) (u * u * folders));
+                long sent = System.nanoTime();
+                send(client, base + encode(url), mix);
+                latencies[next.getAndIncrement()] = System.nanoTime() - sent;
+            });
+            long wall = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            System.out.printf("mix:  %d requests in %.1f ms (%.0f req/s), %s, downloads %d%n", requests, wall / 1e6,
+                    requests / (wall / 1e9), mix, ghOperations.getArchiveDownloads());
+            System.out.printf("      latency ms  p50 %.1f  p95 %.1f  p99 %.1f  max %.1f%n", percentile(latencies, 0.50),
+                    percentile(latencies, 0.95), percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6);
+            System.out.println("      server " + server.getStats());
+
+        } finally {
+            server.close();
+            gh.stop(0);
+        }
+
+    }
+
+    /**
+     * responses by outcome
+     */
+    private static class Counts {
+
+        // fields
+        private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+        /**
+         * counts one response
+         * @param outcome status code plus X-Cache header
+         */
+        void add(String outcome) {
+            counts.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            counts.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+                if (out.length() > 0) { out.append(", "); }
+                out.append(entry.getKey()).append(' ').append(entry.getValue().sum());
+            });
+            return out.toString();
+        }
+    }
+
+    /**
+     * one client request (throws on transport errors)
+     */
+    private interface Request {
+        void send(int i) throws Exception;
+    }
+
+    /**
+     * helper function to send requests from a fixed number of concurrent clients
+     * @param clientThreads client threads
+     * @param clients concurrent clients
+     * @param total requests to send
+     * @param request sends request i
+     * @throws Exception if a request fails
+     */
+    private static void run(ExecutorService clientThreads, int clients, int total, Request request) throws Exception {
+        AtomicInteger remaining = new AtomicInteger(total);
+        List<Future<?>> running = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            running.add(clientThreads.submit(() -> {
+                for (int i = remaining.decrementAndGet(); i >= 0; i = remaining.decrementAndGet()) {
+                    request.send(i);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> client : running) {
+            client.get();
+        }
+    }
+
+    /**
+     * helper function to send one GET and count its outcome
+     * @param client HTTP client
+     * @param uri request URI
+     * @param counts receives "status cache" (e.g. "200 HIT", "503 -")
+     * @throws IOException if the request fails
+     * @throws InterruptedException if interrupted
+     */
+    private static void send(HttpClient client, String uri, Counts counts) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(uri)).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        counts.add(response.statusCode() + " " + response.headers().firstValue("X-Cache").orElse("-"));
+    }
+
+    /**
+     * helper function to read a percentile from sorted latencies
+     * @param sorted latencies in ns, ascending
+     * @param p percentile (0 to 1)
+     * @return latency in ms
+     */
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))] / 1e6;
+    }
+
+    /**
+     * helper function to encode a query value
+     * @param value value
+     * @return URL encoded value
+     */
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * helper function to read an optional int argument
+     * @param args arguments
+     * @param i position
+     * @param fallback value if missing
+     * @return value
+     */
+    private static int intArg(String[] args, int i, int fallback) {
+        return (args.length > i) ? Integer.parseInt(args[i]) : fallback;
+    }
+
+}
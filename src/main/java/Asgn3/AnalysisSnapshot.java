@@ -0,0 +1,476 @@
+package Asgn3;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * compact binary snapshot of a GHRepoAnalyzed (file metrics, class metrics, relationship edges, file paths)
+ * the file is memory mapped on open, only the header is read up front; strings and records are decoded on first access
+ * (so looking up one class in a snapshot of a huge repo only touches that class' bytes)
+ *
+ * layout (big endian, offsets are absolute):
+ *   header --> magic "A3SN", version, A, counts, section offsets
+ *   strings --> int offset per string (+1 end offset), then UTF-8 data (every name / type / path is stored once)
+ *   files --> int offset per file (sorted by name), then records: name, size, complexity, extra metrics
+ *   classes --> int offset per class (sorted by name), then records: name, type, flags, I, D, Ca, Ce, 6 edge lists, extra metrics
+ *   paths --> varint string ids
+ * counts, string ids and edge lists are varints, I / D / metric values are doubles
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class AnalysisSnapshot {
+
+    // format
+    private static final int MAGIC = 0x4133534E;  // "A3SN"
+    public static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 * 4 + 4 * 5;
+
+    // class flags
+    private static final int ABSTRACT = 1;
+    private static final int SINGLETON = 2;
+
+    // fields
+    private final ByteBuffer buffer;
+    private final double A;
+    private final int stringCount;
+    private final int fileCount;
+    private final int classCount;
+    private final int pathCount;
+    private final int stringIndex;
+    private final int fileIndex;
+    private final int classIndex;
+    private final int pathSection;
+    private final String[] strings;  // decoded lazily
+
+    /**
+     * constructor (reads the header only)
+     * @param buffer snapshot bytes
+     * @throws IOException if the bytes are not a snapshot or use a newer version
+     */
+    private AnalysisSnapshot(ByteBuffer buffer) throws IOException {
+
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an analysis snapshot");
+        }
+        int version = buffer.getInt(4);
+        if (version > VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " (expected " + VERSION + " or older)");
+        }
+
+        // header
+        A = buffer.getDouble(8);
+        stringCount = buffer.getInt(16);
+        fileCount = buffer.getInt(20);
+        classCount = buffer.getInt(24);
+        pathCount = buffer.getInt(28);
+        stringIndex = buffer.getInt(32);
+        fileIndex = buffer.getInt(40);
+        classIndex = buffer.getInt(44);
+        pathSection = buffer.getInt(48);
+        strings = new String[stringCount];
+
+        // section offsets must stay inside the file
+        for (int offset : new int[] {stringIndex, buffer.getInt(36), fileIndex, classIndex, pathSection}) {
+            if (offset < HEADER_SIZE || offset > buffer.limit()) {
+                throw new IOException("Corrupt snapshot: section offset " + offset + " out of range");
+            }
+        }
+
+    }
+
+    /**
+     * opens a snapshot file (memory mapped, nothing but the header is decoded yet)
+     * @param file snapshot file
+     * @return snapshot
+     * @throws IOException if file cannot be read or is not a snapshot
+     */
+    public static AnalysisSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new AnalysisSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * reads a snapshot from bytes already in memory
+     * @param bytes snapshot bytes
+     * @return snapshot
+     * @throws IOException if bytes are not a snapshot
+     */
+    public static AnalysisSnapshot wrap(byte[] bytes) throws IOException {
+        return new AnalysisSnapshot(ByteBuffer.wrap(bytes));
+    }
+
+    // getters
+    public double getA() { return A; }
+    public int getFileCount() { return fileCount; }
+    public int getClassCount() { return classCount; }
+    public int getPathCount() { return pathCount; }
+
+    /**
+     * decodes one file's metrics
+     * @param i file index (files are sorted by name)
+     * @return file metrics
+     */
+    public FileLevelMetrics getFileMetrics(int i) {
+
+        Cursor in = new Cursor(buffer.getInt(fileIndex + 4 * i));
+        FileLevelMetrics file = new FileLevelMetrics(string(in.varint()));
+        file.setSize(in.varint());
+        file.setComplexity(in.varint());
+        for (int m = in.varint(); m > 0; m--) {
+            file.setMetric(string(in.varint()), in.float64());
+        }
+        return file;
+
+    }
+
+    /**
+     * decodes one class' metrics
+     * @param i class index (classes are sorted by name)
+     * @return class metrics
+     */
+    public ClassLevelMetrics getClassMetrics(int i) {
+
+        Cursor in = new Cursor(buffer.getInt(classIndex + 4 * i));
+        ClassLevelMetrics metrics = new ClassLevelMetrics(string(in.varint()));
+        int type = in.varint();
+        metrics.setClassType(type == 0 ? null : string(type - 1));
+        int flags = in.varint();
+        metrics.setAbstract((flags & ABSTRACT) != 0);
+        metrics.setSingleton((flags & SINGLETON) != 0);
+        metrics.setI(in.float64());
+        metrics.setD(in.float64());
+        metrics.setCa(in.varint());
+        metrics.setCe(in.varint());
+
+        // relationship edges (same order as written)
+        for (int n = in.varint(); n > 0; n--) { metrics.addExtends(string(in.varint())); }
+        for (int n = in.varint(); n > 0; n--) { metrics.addImplements(string(in.varint())); }
+        for (int n = in.varint(); n > 0; n--) { metrics.addAssociation(string(in.varint())); }
+        for (int n = in.varint(); n > 0; n--) { metrics.addDependency(string(in.varint())); }
+        for (int n = in.varint(); n > 0; n--) { metrics.addComposition(string(in.varint())); }
+        for (int n = in.varint(); n > 0; n--) { metrics.addAggregation(string(in.varint())); }
+
+        for (int m = in.varint(); m > 0; m--) {
+            metrics.setMetric(string(in.varint()), in.float64());
+        }
+        return metrics;
+
+    }
+
+    /**
+     * finds a class by name without decoding the others (binary search over the sorted class index)
+     * @param className class name
+     * @return class metrics, or null if the snapshot has no such class
+     */
+    public ClassLevelMetrics findClass(String className) {
+        int low = 0;
+        int high = classCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int compare = string(new Cursor(buffer.getInt(classIndex + 4 * mid)).varint()).compareTo(className);
+            if (compare == 0) { return getClassMetrics(mid); }
+            if (compare < 0) { low = mid + 1; } else { high = mid - 1; }
+        }
+        return null;
+    }
+
+    /**
+     * decodes the file paths
+     * @return paths (sorted)
+     */
+    public List<String> getFilePaths() {
+        List<String> paths = new ArrayList<>(pathCount);
+        Cursor in = new Cursor(pathSection);
+        for (int i = 0; i < pathCount; i++) {
+            paths.add(string(in.varint()));
+        }
+        return paths;
+    }
+
+    /**
+     * decodes the whole snapshot into an analysis (what the GUI displays)
+     * @return analysis
+     */
+    public GHRepoAnalyzed toAnalysis() {
+
+        // file rows are decoded straight into the columns (already sorted by name)
+        FileMetricsStore.Builder fileMetrics = new FileMetricsStore.Builder(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            Cursor in = new Cursor(buffer.getInt(fileIndex + 4 * i));
+            String name = string(in.varint());
+            int size = in.varint();
+            int complexity = in.varint();
+            int row = fileMetrics.addFile(name, size, complexity);
+            for (int m = in.varint(); m > 0; m--) {
+                fileMetrics.setMetric(row, string(in.varint()), in.float64());
+            }
+        }
+
+        Map<String, ClassLevelMetrics> classMetrics = new TreeMap<>();
+        for (int i = 0; i < classCount; i++) {
+            ClassLevelMetrics metrics = getClassMetrics(i);
+            classMetrics.put(metrics.getClassName(), metrics);
+        }
+
+        return new GHRepoAnalyzed(fileMetrics.build(), classMetrics, A, getFilePaths(), null, new AnalysisProfile());
+
+    }
+
+    /**
+     * writes an analysis as a snapshot file
+     * @param analysis analysis to save
+     * @param file destination (replaced if it exists)
+     * @throws IOException if file cannot be written
+     */
+    public static void write(GHRepoAnalyzed analysis, Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            write(analysis, out);
+        }
+    }
+
+    /**
+     * writes an analysis as a snapshot
+     * @param analysis analysis to save
+     * @param out destination (not closed)
+     * @throws IOException if writing fails
+     */
+    public static void write(GHRepoAnalyzed analysis, OutputStream out) throws IOException {
+
+        StringTable table = new StringTable();
+
+        // records first (fills the string table)
+        ByteArrayOutputStream files = new ByteArrayOutputStream();
+        FileMetricsStore fileMetrics = analysis.getFileMetrics();
+        int[] fileOffsets = new int[fileMetrics.size()];
+        for (int f = 0; f < fileMetrics.size(); f++) {
+            fileOffsets[f] = files.size();
+            varint(files, table.id(fileMetrics.getName(f)));
+            varint(files, fileMetrics.getSize(f));
+            varint(files, fileMetrics.getComplexity(f));
+            writeMetrics(files, table, fileMetrics.getMetrics(f));
+        }
+
+        ByteArrayOutputStream classes = new ByteArrayOutputStream();
+        int[] classOffsets = new int[analysis.getClassMetrics().size()];
+        int c = 0;
+        for (ClassLevelMetrics metrics : analysis.getClassMetricsList()) {
+            classOffsets[c++] = classes.size();
+            varint(classes, table.id(metrics.getClassName()));
+            varint(classes, metrics.getClassType() == null ? 0 : table.id(metrics.getClassType()) + 1);
+            varint(classes, (metrics.getA() == 1.0 ? ABSTRACT : 0) | (metrics.isSingleton() ? SINGLETON : 0));
+            float64(classes, metrics.getI());
+            float64(classes, metrics.getD());
+            varint(classes, metrics.getCa());
+            varint(classes, metrics.getCe());
+            writeEdges(classes, table, metrics.getExtendsClasses());
+            writeEdges(classes, table, metrics.getImplementsInterfaces());
+            writeEdges(classes, table, metrics.getAssociations());
+            writeEdges(classes, table, metrics.getDependencies());
+            writeEdges(classes, table, metrics.getCompositions());
+            writeEdges(classes, table, metrics.getAggregations());
+            writeMetrics(classes, table, metrics.getMetrics());
+        }
+
+        ByteArrayOutputStream paths = new ByteArrayOutputStream();  // count is in the header
+        for (String path : analysis.getFilePaths()) {
+            varint(paths, table.id(path));
+        }
+
+        // string data
+        ByteArrayOutputStream stringData = new ByteArrayOutputStream();
+        int[] stringOffsets = new int[table.strings.size() + 1];
+        int s = 0;
+        for (String string : table.strings) {
+            stringOffsets[s++] = stringData.size();
+            stringData.writeBytes(string.getBytes(StandardCharsets.UTF_8));
+        }
+        stringOffsets[s] = stringData.size();
+
+        // section offsets
+        int stringIndex = HEADER_SIZE;
+        int stringDataStart = stringIndex + 4 * stringOffsets.length;
+        int fileIndex = stringDataStart + stringData.size();
+        int fileData = fileIndex + 4 * fileOffsets.length;
+        int classIndex = fileData + files.size();
+        int classData = classIndex + 4 * classOffsets.length;
+        int pathSection = classData + classes.size();
+
+        // header
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeDouble(analysis.getA());
+        data.writeInt(table.strings.size());
+        data.writeInt(fileOffsets.length);
+        data.writeInt(classOffsets.length);
+        data.writeInt(analysis.getFilePaths().size());
+        data.writeInt(stringIndex);
+        data.writeInt(stringDataStart);
+        data.writeInt(fileIndex);
+        data.writeInt(classIndex);
+        data.writeInt(pathSection);
+
+        // sections
+        for (int offset : stringOffsets) { data.writeInt(stringDataStart + offset); }
+        stringData.writeTo(data);
+        for (int offset : fileOffsets) { data.writeInt(fileData + offset); }
+        files.writeTo(data);
+        for (int offset : classOffsets) { data.writeInt(classData + offset); }
+        classes.writeTo(data);
+        paths.writeTo(data);
+        data.flush();
+
+    }
+
+    /**
+     * helper function to get a string by id (decoded once, then cached)
+     * @param id string id
+     * @return string
+     */
+    private String string(int id) {
+        String string = strings[id];
+        if (string == null) {
+            int start = buffer.getInt(stringIndex + 4 * id);
+            int end = buffer.getInt(stringIndex + 4 * (id + 1));
+            byte[] bytes = new byte[end - start];
+            buffer.get(start, bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+            strings[id] = string;  // racing threads decode the same value, harmless
+        }
+        return string;
+    }
+
+    /**
+     * read position in the mapped buffer (absolute reads only, so snapshots can be read from several threads)
+     */
+    private class Cursor {
+
+        // fields
+        int position;
+
+        /**
+         * constructor
+         * @param position start offset
+         */
+        Cursor(int position) {
+            this.position = position;
+        }
+
+        /**
+         * reads an unsigned varint (7 bits per byte, high bit set on all but the last byte)
+         * @return value
+         */
+        int varint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get(position++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) { return value; }
+            }
+        }
+
+        /**
+         * reads a double
+         * @return value
+         */
+        double float64() {
+            double value = buffer.getDouble(position);
+            position += 8;
+            return value;
+        }
+    }
+
+    /**
+     * string ids in order of first use
+     */
+    private static class StringTable {
+
+        // fields
+        final List<String> strings = new ArrayList<>();
+        final Map<String, Integer> ids = new HashMap<>();
+
+        /**
+         * gets (or assigns) a string's id
+         * @param string string
+         * @return id
+         */
+        int id(String string) {
+            Integer id = ids.get(string);
+            if (id == null) {
+                id = strings.size();
+                strings.add(string);
+                ids.put(string, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * helper function to write a list of strings as varint ids (count first)
+     * @param out destination
+     * @param table string table
+     * @param names strings
+     */
+    private static void writeEdges(ByteArrayOutputStream out, StringTable table, List<String> names) {
+        varint(out, names.size());
+        for (String name : names) {
+            varint(out, table.id(name));
+        }
+    }
+
+    /**
+     * helper function to write additional metrics (count, then name id + value)
+     * @param out destination
+     * @param table string table
+     * @param metrics metric names mapped to values
+     */
+    private static void writeMetrics(ByteArrayOutputStream out, StringTable table, Map<String, Double> metrics) {
+        varint(out, metrics.size());
+        for (Map.Entry<String, Double> metric : metrics.entrySet()) {
+            varint(out, table.id(metric.getKey()));
+            float64(out, metric.getValue());
+        }
+    }
+
+    /**
+     * helper function to write an unsigned varint
+     * @param out destination
+     * @param value non-negative value
+     */
+    private static void varint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * helper function to write a double (big endian)
+     * @param out destination
+     * @param value value
+     */
+    private static void float64(ByteArrayOutputStream out, double value) {
+        long bits = Double.doubleToLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (bits >>> shift));
+        }
+    }
+
+}
@@ -1,6 +1,9 @@
 package Asgn3;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 /**
  *  object that represents a single java class and its class level metrics:
@@ -10,6 +13,7 @@ import java.util.List;
  * D -->distance (|A + I - 1|)
  * Ca --> afferent coupling (incoming dependencies)
  * Ce --> efferent coupling (outgoing dependencies)
+ * plus any metrics registered with the MetricEngine (WMC, LCOM, RFC, DIT, NOC, fan-in/out, ...)
  *
  * @author Megan Fung
  *  @version 1.0
@@ -31,6 +35,7 @@ public class ClassLevelMetrics {
     private final List<String> compositions = new ArrayList<>();
     private final List<String> aggregations = new ArrayList<>();
     private boolean isSingleton = false;
+    private final SortedMap<String, Double> metrics = new TreeMap<>();  // additional metrics by name
 
     /**
      * constructor
@@ -45,6 +50,31 @@ public class ClassLevelMetrics {
 
     }
 
+    /**
+     * copies this class: metrics and relationships (changing the copy leaves this one as is)
+     * @return new ClassLevelMetrics with the same values
+     */
+    public ClassLevelMetrics copy() {
+
+        ClassLevelMetrics copy = new ClassLevelMetrics(className);
+        copy.classType = classType;
+        copy.isAbstract = isAbstract;
+        copy.I = I;
+        copy.D = D;
+        copy.Ca = Ca;
+        copy.Ce = Ce;
+        copy.extendsClasses.addAll(extendsClasses);
+        copy.implementsInterfaces.addAll(implementsInterfaces);
+        copy.associations.addAll(associations);
+        copy.dependencies.addAll(dependencies);
+        copy.compositions.addAll(compositions);
+        copy.aggregations.addAll(aggregations);
+        copy.isSingleton = isSingleton;
+        copy.metrics.putAll(getMetrics());
+        return copy;
+
+    }
+
     // setters
     public void setClassType(String classType) { this.classType = classType; }
     public void setAbstract(boolean isAbstract) { this.isAbstract = isAbstract; }
@@ -52,6 +82,8 @@ public class ClassLevelMetrics {
     public void setD(double d) { this.D = d; }
     public void incrementCa() { this.Ca++; }
     public void incrementCe() { this.Ce++; }
+    public void setCa(int Ca) { this.Ca = Ca; }
+    public void setCe(int Ce) { this.Ce = Ce; }
 
     // getters
     public String getClassName() { return className; }
@@ -62,6 +94,33 @@ public class ClassLevelMetrics {
     public int getCa() { return Ca; }
     public int getCe() { return Ce; }
 
+    /**
+     * stores an additional metric (see MetricEngine)
+     * @param name metric name
+     * @param value metric value
+     */
+    public synchronized void setMetric(String name, double value) {
+        metrics.put(name, value);
+    }
+
+    /**
+     * gets an additional metric
+     * @param name metric name
+     * @return metric value, or NaN if not computed
+     */
+    public synchronized double getMetric(String name) {
+        Double value = metrics.get(name);
+        return (value == null) ? Double.NaN : value;
+    }
+
+    /**
+     * gets all additional metrics
+     * @return metric names (sorted) mapped to values (copy)
+     */
+    public synchronized SortedMap<String, Double> getMetrics() {
+        return new TreeMap<>(metrics);
+    }
+
 
     /**
      * adds a parent class that this class extends
@@ -142,50 +201,50 @@ public class ClassLevelMetrics {
 
     /**
      * gets list of parent classes
-     * @return list of parent class names
+     * @return list of parent class names (read-only view)
      */
     public List<String> getExtendsClasses() {
-        return new ArrayList<>(extendsClasses);
+        return Collections.unmodifiableList(extendsClasses);
     }
 
     /**
      * gets list of implemented interfaces
-     * @return list of interface names
+     * @return list of interface names (read-only view)
      */
     public List<String> getImplementsInterfaces() {
-        return new ArrayList<>(implementsInterfaces);
+        return Collections.unmodifiableList(implementsInterfaces);
     }
 
     /**
      * gets list of associated classes
-     * @return list of associated class names
+     * @return list of associated class names (read-only view)
      */
     public List<String> getAssociations() {
-        return new ArrayList<>(associations);
+        return Collections.unmodifiableList(associations);
     }
 
     /**
      * gets list of dependent classes
-     * @return list of dependency names
+     * @return list of dependency names (read-only view)
      */
     public List<String> getDependencies() {
-        return new ArrayList<>(dependencies);
+        return Collections.unmodifiableList(dependencies);
     }
 
     /**
      * gets list of composed classes
-     * @return list of composition names
+     * @return list of composition names (read-only view)
      */
     public List<String> getCompositions() {
-        return new ArrayList<>(compositions);
+        return Collections.unmodifiableList(compositions);
     }
 
     /**
      * gets list of aggregated classes
-     * @return list of aggregation names
+     * @return list of aggregation names (read-only view)
      */
     public List<String> getAggregations() {
-        return new ArrayList<>(aggregations);
+        return Collections.unmodifiableList(aggregations);
     }
 
 }
@@ -0,0 +1,380 @@
+package Asgn3;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+
+/**
+ * query over class level metrics: range filters on A / I / D / Ca / Ce, ordering, top-K and pages
+ * e.g. the 50 classes furthest from the main sequence --> ClassQuery.ALL.orderBy(Metric.D, true).run(classes, 0, 50)
+ * classes with Ce above 20 --> ClassQuery.ALL.where(Metric.CE, 21, Double.POSITIVE_INFINITY)
+ * running a query reads each class once and only keeps what the page needs: every chunk of classes keeps a bounded
+ * heap of its best offset + limit matches (plus a match count), the heaps are merged at the end;
+ * large class lists are split into chunks that run in parallel
+ * queries are immutable (where / orderBy return a new query), so one query can be shared and re-run on new data
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class ClassQuery {
+
+    // config
+    private static final int PARALLEL_THRESHOLD = 8192;  // fewer classes --> one chunk, no fork
+    private static final int MIN_CHUNK = 2048;
+
+    // every class, name order
+    public static final ClassQuery ALL = new ClassQuery(new Metric[0], new double[0], new double[0], null, false);
+
+    /**
+     * metrics a query can filter and order by
+     */
+    public enum Metric {
+        A(ClassLevelMetrics::getA),
+        I(ClassLevelMetrics::getI),
+        D(ClassLevelMetrics::getD),
+        CA(ClassLevelMetrics::getCa),
+        CE(ClassLevelMetrics::getCe);
+
+        // fields
+        private final ToDoubleFunction<ClassLevelMetrics> getter;
+
+        /**
+         * constructor
+         * @param getter reads the metric of a class
+         */
+        Metric(ToDoubleFunction<ClassLevelMetrics> getter) {
+            this.getter = getter;
+        }
+
+        /**
+         * reads the metric of a class
+         * @param metrics class metrics
+         * @return value
+         */
+        public double of(ClassLevelMetrics metrics) {
+            return getter.applyAsDouble(metrics);
+        }
+    }
+
+    /**
+     * one page of a query result
+     * @param classes matching classes on this page, in query order
+     * @param offset position of the first class on this page among all matches
+     * @param matches number of classes matching the filters (all pages)
+     * @param total number of classes queried
+     */
+    public record Page(List<ClassLevelMetrics> classes, int offset, int matches, int total) {
+
+        /**
+         * checks if more matches follow this page
+         * @return true if there is a next page
+         */
+        public boolean hasNext() {
+            return offset + classes.size() < matches;
+        }
+    }
+
+    // fields
+    private final Metric[] filterMetrics;  // parallel arrays, one entry per range filter
+    private final double[] filterMins;
+    private final double[] filterMaxs;
+    private final Metric order;  // null --> name order
+    private final boolean descending;
+
+    /**
+     * constructor
+     * @param filterMetrics filtered metrics
+     * @param filterMins smallest allowed value per filter (inclusive)
+     * @param filterMaxs largest allowed value per filter (inclusive)
+     * @param order metric to order by (null for name order)
+     * @param descending true for largest first
+     */
+    private ClassQuery(Metric[] filterMetrics, double[] filterMins, double[] filterMaxs, Metric order, boolean descending) {
+        this.filterMetrics = filterMetrics;
+        this.filterMins = filterMins;
+        this.filterMaxs = filterMaxs;
+        this.order = order;
+        this.descending = descending;
+    }
+
+    /**
+     * adds a range filter (all filters have to match)
+     * @param metric filtered metric
+     * @param min smallest allowed value (inclusive, NEGATIVE_INFINITY for no bound)
+     * @param max largest allowed value (inclusive, POSITIVE_INFINITY for no bound)
+     * @return new query
+     */
+    public ClassQuery where(Metric metric, double min, double max) {
+        int n = filterMetrics.length;
+        Metric[] metrics = Arrays.copyOf(filterMetrics, n + 1);
+        double[] mins = Arrays.copyOf(filterMins, n + 1);
+        double[] maxs = Arrays.copyOf(filterMaxs, n + 1);
+        metrics[n] = metric;
+        mins[n] = min;
+        maxs[n] = max;
+        return new ClassQuery(metrics, mins, maxs, order, descending);
+    }
+
+    /**
+     * orders matches by a metric (ties keep name order)
+     * @param metric metric to order by (null for name order)
+     * @param descending true for largest first
+     * @return new query
+     */
+    public ClassQuery orderBy(Metric metric, boolean descending) {
+        return new ClassQuery(filterMetrics, filterMins, filterMaxs, metric, descending);
+    }
+
+    // getters
+    public Metric getOrder() { return order; }
+    public boolean isDescending() { return descending; }
+
+    /**
+     * checks if this query returns every class in name order
+     * @return true if there are no filters and no ordering
+     */
+    public boolean isAll() {
+        return filterMetrics.length == 0 && order == null;
+    }
+
+    /**
+     * checks a class against the filters
+     * @param metrics class metrics
+     * @return true if every filter matches
+     */
+    public boolean matches(ClassLevelMetrics metrics) {
+        for (int f = 0; f < filterMetrics.length; f++) {
+            double value = filterMetrics[f].of(metrics);
+            if (!(value >= filterMins[f] && value <= filterMaxs[f])) { return false; }  // NaN never matches
+        }
+        return true;
+    }
+
+    /**
+     * runs the query
+     * @param classes classes to query (name order, see GHRepoAnalyzed.getClassMetricsList)
+     * @param offset matches to skip
+     * @param limit largest page size
+     * @return page of matches
+     */
+    public Page run(List<ClassLevelMetrics> classes, int offset, int limit) {
+
+        if (offset < 0 || limit < 0) { throw new IllegalArgumentException("Offset and limit must not be negative"); }
+        int n = classes.size();
+        int keep = (int) Math.min(n, (long) offset + limit);  // best matches needed to cut out the page
+
+        // nothing to filter or order: the page is a view of the list
+        if (isAll()) {
+            int from = Math.min(offset, n);
+            return new Page(classes.subList(from, Math.max(from, keep)), offset, n, n);
+        }
+
+        // chunks scanned in parallel, each keeps its own heap
+        int chunks = (n < PARALLEL_THRESHOLD) ? 1
+                : Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, n / MIN_CHUNK));
+        Heap[] heaps = new Heap[chunks];
+        IntStream range = IntStream.range(0, chunks);
+        (chunks > 1 ? range.parallel() : range).forEach(c -> heaps[c] = scan(classes, (int) ((long) n * c / chunks),
+                (int) ((long) n * (c + 1) / chunks), keep));
+
+        // merge: best of all chunk candidates
+        int matches = 0;
+        int candidates = 0;
+        for (Heap heap : heaps) {
+            matches += heap.matches;
+            candidates += heap.size;
+        }
+        Heap merged = new Heap(Math.min(keep, candidates));
+        for (Heap heap : heaps) {
+            for (int k = 0; k < heap.size; k++) { merged.offer(heap.values[k], heap.rows[k]); }
+        }
+        int[] best = merged.sortedRows();
+
+        List<ClassLevelMetrics> page = new ArrayList<>(Math.max(0, best.length - offset));
+        for (int k = offset; k < best.length; k++) {
+            page.add(classes.get(best[k]));
+        }
+        return new Page(page, offset, matches, n);
+
+    }
+
+    /**
+     * runs the query without a limit
+     * @param classes classes to query
+     * @return every match in query order
+     */
+    public List<ClassLevelMetrics> list(List<ClassLevelMetrics> classes) {
+        return run(classes, 0, classes.size()).classes();
+    }
+
+    /**
+     * counts matches
+     * @param classes classes to query
+     * @return number of classes matching the filters
+     */
+    public int count(List<ClassLevelMetrics> classes) {
+        return run(classes, 0, 0).matches();
+    }
+
+    /**
+     * describes the query (for status messages)
+     * @return summary
+     */
+    @Override
+    public String toString() {
+        if (isAll()) { return "all classes"; }
+        StringBuilder out = new StringBuilder();
+        for (int f = 0; f < filterMetrics.length; f++) {
+            out.append(out.length() > 0 ? ", " : "").append(filterMetrics[f]);
+            if (filterMins[f] > Double.NEGATIVE_INFINITY) { out.append(" >= ").append(format(filterMins[f])); }
+            if (filterMaxs[f] < Double.POSITIVE_INFINITY) {
+                out.append(filterMins[f] > Double.NEGATIVE_INFINITY ? " and <= " : " <= ").append(format(filterMaxs[f]));
+            }
+        }
+        if (order != null) { out.append(out.length() > 0 ? ", " : "").append("by ").append(order).append(descending ? " desc" : ""); }
+        return out.toString();
+    }
+
+    /**
+     * helper function to print a bound without a trailing .0
+     * @param value bound
+     * @return formatted bound
+     */
+    private static String format(double value) {
+        return (value == Math.rint(value)) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    /**
+     * helper function to scan one chunk of classes
+     * @param classes classes to query
+     * @param from first row (inclusive)
+     * @param to last row (exclusive)
+     * @param keep best matches to keep
+     * @return heap of the chunk's best matches (and its match count)
+     */
+    private Heap scan(List<ClassLevelMetrics> classes, int from, int to, int keep) {
+        Heap heap = new Heap(Math.min(keep, to - from));
+        for (int row = from; row < to; row++) {
+            ClassLevelMetrics metrics = classes.get(row);
+            if (!matches(metrics)) { continue; }
+            heap.matches++;
+            heap.offer((order == null) ? 0 : order.of(metrics), row);
+        }
+        return heap;
+    }
+
+    /**
+     * bounded heap of (value, row) pairs, the worst kept pair at the root (primitive arrays, no boxing)
+     */
+    private class Heap {
+
+        // fields
+        private final double[] values;
+        private final int[] rows;
+        private int size = 0;
+        private int matches = 0;
+
+        /**
+         * constructor
+         * @param capacity pairs to keep
+         */
+        Heap(int capacity) {
+            values = new double[capacity];
+            rows = new int[capacity];
+        }
+
+        /**
+         * offers a pair (kept if the heap is not full or it beats the worst kept pair)
+         * @param value order value
+         * @param row class index
+         */
+        void offer(double value, int row) {
+            if (size < values.length) {
+                values[size] = value;
+                rows[size] = row;
+                siftUp(size++);
+            } else if (size > 0 && worse(values[0], rows[0], value, row)) {
+                values[0] = value;
+                rows[0] = row;
+                siftDown(0);
+            }
+        }
+
+        /**
+         * empties the heap, worst pair first
+         * @return rows, best first
+         */
+        int[] sortedRows() {
+            int[] sorted = new int[size];
+            for (int k = size - 1; k >= 0; k--) {
+                sorted[k] = rows[0];
+                size--;
+                values[0] = values[size];
+                rows[0] = rows[size];
+                siftDown(0);
+            }
+            return sorted;
+        }
+
+        /**
+         * helper function to move a pair up until its parent is worse
+         * @param k position
+         */
+        private void siftUp(int k) {
+            while (k > 0) {
+                int parent = (k - 1) / 2;
+                if (!worse(values[k], rows[k], values[parent], rows[parent])) { return; }
+                swap(k, parent);
+                k = parent;
+            }
+        }
+
+        /**
+         * helper function to move a pair down until both children are better
+         * @param k position
+         */
+        private void siftDown(int k) {
+            while (true) {
+                int worst = k;
+                int left = 2 * k + 1;
+                int right = left + 1;
+                if (left < size && worse(values[left], rows[left], values[worst], rows[worst])) { worst = left; }
+                if (right < size && worse(values[right], rows[right], values[worst], rows[worst])) { worst = right; }
+                if (worst == k) { return; }
+                swap(k, worst);
+                k = worst;
+            }
+        }
+
+        /**
+         * helper function to swap two pairs
+         * @param a position
+         * @param b position
+         */
+        private void swap(int a, int b) {
+            double value = values[a];
+            values[a] = values[b];
+            values[b] = value;
+            int row = rows[a];
+            rows[a] = rows[b];
+            rows[b] = row;
+        }
+    }
+
+    /**
+     * helper function to compare two pairs in query order
+     * @param value first pair's order value
+     * @param row first pair's row
+     * @param otherValue second pair's order value
+     * @param otherRow second pair's row
+     * @return true if the first pair comes after the second
+     */
+    private boolean worse(double value, int row, double otherValue, int otherRow) {
+        int compare = Double.compare(value, otherValue);
+        if (descending) { compare = -compare; }
+        return (compare != 0) ? compare > 0 : row > otherRow;
+    }
+
+}
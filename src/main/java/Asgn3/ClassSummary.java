@@ -0,0 +1,677 @@
+package Asgn3;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * members of a single class, built once from the file's tokens during class extraction
+ * holds supertypes, declared fields (with modifiers and types), constructors, methods, every identifier the class
+ * references, the types it instantiates, its static accesses (Type.member) and the assignment evidence
+ * (name = new T / name = value) found in member bodies; nested types are skipped (they get their own summary)
+ * all relationship logic reads this instead of rescanning the class text; serializable so it can be cached
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class ClassSummary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // modifier flags
+    public static final int PUBLIC = 1;
+    public static final int PROTECTED = 1 << 1;
+    public static final int PRIVATE = 1 << 2;
+    public static final int STATIC = 1 << 3;
+    public static final int FINAL = 1 << 4;
+    public static final int ABSTRACT = 1 << 5;
+
+    // modifiers without a flag (still skipped while parsing)
+    private static final Set<String> OTHER_MODIFIERS = Set.of("transient", "volatile", "synchronized", "native",
+            "strictfp", "default", "sealed");
+
+    // nested type keywords
+    private static final Set<String> TYPE_KEYWORDS = Set.of("class", "interface", "enum", "record");
+
+    // keywords / literals never kept as referenced identifiers
+    private static final Set<String> KEYWORDS = Set.of("abstract", "assert", "boolean", "break", "byte", "case",
+            "catch", "char", "class", "continue", "default", "do", "double", "else", "enum", "extends", "final",
+            "finally", "float", "for", "if", "implements", "import", "instanceof", "int", "interface", "long",
+            "native", "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp",
+            "super", "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void", "volatile",
+            "while", "var", "record", "yield", "true", "false", "null");
+
+    /**
+     * a declared field
+     * @param name field name
+     * @param type simple name of the raw type (List<Foo> --> List, Foo[] --> Foo, a.b.Foo --> Foo)
+     * @param typeNames every identifier in the type, in order (List<Foo> --> List, Foo)
+     * @param modifiers modifier flags
+     */
+    public record Field(String name, String type, List<String> typeNames, int modifiers) implements Serializable {
+        public boolean isStatic() { return (modifiers & STATIC) != 0; }
+        public boolean isFinal() { return (modifiers & FINAL) != 0; }
+        public boolean isPrivate() { return (modifiers & PRIVATE) != 0; }
+    }
+
+    /**
+     * a declared method or constructor
+     * @param name method name (class name for constructors)
+     * @param returnType simple name of the raw return type (null for constructors)
+     * @param parameterTypeNames every identifier in the parameter types
+     * @param modifiers modifier flags
+     * @param complexity cyclomatic complexity of the body (1 + decisions; 1 without body)
+     * @param calls names of methods invoked in the body
+     * @param names identifiers used in the body (fields, locals, types, ...)
+     */
+    public record Method(String name, String returnType, List<String> parameterTypeNames, int modifiers,
+                         int complexity, Set<String> calls, Set<String> names) implements Serializable {
+        public boolean isStatic() { return (modifiers & STATIC) != 0; }
+        public boolean isPrivate() { return (modifiers & PRIVATE) != 0; }
+        public boolean isConstructor() { return returnType == null; }
+    }
+
+    // fields
+    private final String className;
+    private final int bodyLength;
+    private final List<Field> fields = new ArrayList<>();
+    private final List<Method> constructors = new ArrayList<>();
+    private final List<Method> methods = new ArrayList<>();
+    private final Set<String> parameterTypeNames = new HashSet<>();
+    private final Map<String, Set<String>> newAssignments = new HashMap<>();
+    private final Set<String> valueAssignments = new HashSet<>();
+    private final List<String> extendsTypes = new ArrayList<>();
+    private final List<String> implementsTypes = new ArrayList<>();
+    private final Set<String> referencedIdentifiers = new HashSet<>();
+    private final Set<String> instantiatedTypes = new HashSet<>();
+    private final Map<String, Set<String>> staticAccesses = new HashMap<>();  // Type --> members used as Type.member
+    private transient List<int[]> nestedTypes = new ArrayList<>();  // token ranges skipped while summarizing
+
+    /**
+     * constructor
+     * @param className name of summarized class
+     * @param bodyLength characters in the class body
+     */
+    private ClassSummary(String className, int bodyLength) {
+        this.className = className;
+        this.bodyLength = bodyLength;
+    }
+
+    /**
+     * summarizes a class body
+     * @param tokens tokens of the file (or of the body alone)
+     * @param open token index of the body's '{'
+     * @param className name of the class
+     * @return summary
+     */
+    public static ClassSummary of(JavaLexer tokens, int open, String className) {
+        return of(tokens, open, className, "");
+    }
+
+    /**
+     * summarizes a class (signature + body)
+     * @param tokens tokens of the file (or of the body alone)
+     * @param open token index of the body's '{'
+     * @param className name of the class
+     * @param signature declaration text between the class name and '{' ("extends A implements B, C")
+     * @return summary
+     */
+    public static ClassSummary of(JavaLexer tokens, int open, String className, String signature) {
+
+        int end = tokens.isSymbol(open, '{') ? Math.min(tokens.matching(open), tokens.count()) : tokens.count();
+        int bodyStart = (open < tokens.count()) ? tokens.start(open) : 0;
+        int bodyEnd = (end < tokens.count()) ? tokens.end(end) : tokens.source().length();
+        ClassSummary summary = new ClassSummary(className, bodyEnd - bodyStart);
+
+        // walk member declarations of this class
+        int from = tokens.isSymbol(open, '{') ? open + 1 : open;
+        int i = from;
+        while (i < end) {
+            int next = summary.parseMember(tokens, i, end);
+            i = Math.max(next, i + 1);  // always make progress, even on malformed input
+        }
+
+        // references of the class' own code, supertypes
+        summary.scanReferences(tokens, from, end);
+        summary.parseSupertypes(signature);
+        summary.nestedTypes = null;
+        return summary;
+
+    }
+
+    /**
+     * summarizes a class body given as source
+     * @param classBody source code of the class body (starting at its '{')
+     * @param className name of the class
+     * @return summary
+     */
+    public static ClassSummary of(String classBody, String className) {
+        return of(JavaLexer.lex(classBody), 0, className);
+    }
+
+    // getters
+    public String getClassName() { return className; }
+    public int getBodyLength() { return bodyLength; }
+    public List<Field> getFields() { return Collections.unmodifiableList(fields); }
+    public List<Method> getConstructors() { return Collections.unmodifiableList(constructors); }
+    public List<Method> getMethods() { return Collections.unmodifiableList(methods); }
+    public Set<String> getParameterTypeNames() { return Collections.unmodifiableSet(parameterTypeNames); }
+    public List<String> getExtendsTypes() { return Collections.unmodifiableList(extendsTypes); }
+    public List<String> getImplementsTypes() { return Collections.unmodifiableList(implementsTypes); }
+    public Set<String> getReferencedIdentifiers() { return Collections.unmodifiableSet(referencedIdentifiers); }
+    public Set<String> getInstantiatedTypes() { return Collections.unmodifiableSet(instantiatedTypes); }
+
+    /**
+     * gets members accessed through a type name ("Type.member", e.g. Config.getInstance, Color.RED)
+     * @param type simple type name
+     * @return accessed members (empty if none)
+     */
+    public Set<String> getStaticAccesses(String type) {
+        return staticAccesses.getOrDefault(type, Set.of());
+    }
+
+    /**
+     * gets types assigned to a name with "name = new T" anywhere in the class
+     * @param name field / variable name
+     * @return simple names of instantiated types (empty if none)
+     */
+    public Set<String> getNewAssignments(String name) {
+        return newAssignments.getOrDefault(name, Set.of());
+    }
+
+    /**
+     * checks if a name is assigned something other than a new object ("name = param", "name = X.get()")
+     * @param name field / variable name
+     * @return true if assigned an existing value
+     */
+    public boolean isAssignedValue(String name) {
+        return valueAssignments.contains(name);
+    }
+
+    /**
+     * gets static methods returning this class (getInstance(), instance(), ...)
+     * @return non-private static factories
+     */
+    public List<Method> getStaticFactories() {
+        List<Method> factories = new ArrayList<>();
+        for (Method method : methods) {
+            if (method.isStatic() && !method.isPrivate() && className.equals(method.returnType())) {
+                factories.add(method);
+            }
+        }
+        return factories;
+    }
+
+    /**
+     * gets static fields holding this class (the instance)
+     * @return static self-typed fields
+     */
+    public List<Field> getStaticInstances() {
+        List<Field> instances = new ArrayList<>();
+        for (Field field : fields) {
+            if (field.isStatic() && className.equals(field.type())) {
+                instances.add(field);
+            }
+        }
+        return instances;
+    }
+
+    /**
+     * checks if every constructor is private (false if there is none: the default constructor is public)
+     * @return true if the class cannot be instantiated from outside
+     */
+    public boolean hasOnlyPrivateConstructors() {
+        if (constructors.isEmpty()) { return false; }
+        for (Method constructor : constructors) {
+            if (!constructor.isPrivate()) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * helper function to parse one member declaration
+     * @param tokens file tokens
+     * @param i token index where the member starts
+     * @param end token index of the class' closing brace
+     * @return token index after the member
+     */
+    private int parseMember(JavaLexer tokens, int i, int end) {
+
+        // stray separators
+        if (tokens.isSymbol(i, ';') || tokens.isSymbol(i, ',')) { return i + 1; }
+        int memberStart = i;
+
+        // annotations and modifiers
+        int modifiers = 0;
+        while (i < end) {
+            if (tokens.isSymbol(i, '@') && !tokens.is(i + 1, "interface")) {
+                i = skipAnnotation(tokens, i);
+            } else if (tokens.isIdent(i) && modifier(tokens, i) >= 0) {
+                modifiers |= modifier(tokens, i);
+                i++;
+            } else if (tokens.is(i, "non") && tokens.isSymbol(i + 1, '-') && tokens.is(i + 2, "sealed")) {
+                i += 3;
+            } else {
+                break;
+            }
+        }
+        if (i >= end) { return end; }
+
+        // initializer block
+        if (tokens.isSymbol(i, '{')) {
+            return scanBody(tokens, i);
+        }
+
+        // nested type: skip (summarized on its own)
+        if (tokens.isSymbol(i, '@') || (tokens.isIdent(i) && TYPE_KEYWORDS.contains(tokens.text(i)))) {
+            int next = skipNestedType(tokens, i, end);
+            nestedTypes.add(new int[] {memberStart, next});
+            return next;
+        }
+
+        // generic method type parameters
+        if (tokens.isSymbol(i, '<')) {
+            i = tokens.matching(i) + 1;
+        }
+
+        // type (or constructor name)
+        if (!tokens.isIdent(i)) { return recover(tokens, i, end); }
+        int typeStart = i;
+        i = skipType(tokens, i, end);
+
+        // constructor: Name(...)
+        if (tokens.isSymbol(i, '(')) {
+            return parseMethod(tokens, tokens.text(typeStart), null, modifiers, i, end);
+        }
+
+        // member name
+        if (!tokens.isIdent(i)) { return recover(tokens, i, end); }
+        int typeEnd = i;
+        String type = rawType(tokens, typeStart, typeEnd);
+
+        // method: Type name(...)
+        if (tokens.isSymbol(i + 1, '(')) {
+            return parseMethod(tokens, tokens.text(i), type, modifiers, i + 1, end);
+        }
+
+        // field(s): Type a [= x], b [= y];
+        List<String> typeNames = identifiers(tokens, typeStart, typeEnd);
+        while (i < end && tokens.isIdent(i)) {
+
+            String name = tokens.text(i);
+            fields.add(new Field(name, type, typeNames, modifiers));
+            i++;
+            while (tokens.isSymbol(i, '[') && tokens.isSymbol(i + 1, ']')) { i += 2; }  // int a[]
+
+            // initializer
+            if (tokens.isSymbol(i, '=')) {
+                assignment(tokens, name, i + 1);
+                i = skipExpression(tokens, i + 1, end);
+            }
+            if (tokens.isSymbol(i, ',') && tokens.isIdent(i + 1)) {
+                i++;
+                continue;
+            }
+            break;
+
+        }
+        return tokens.isSymbol(i, ';') ? i + 1 : recover(tokens, i, end);
+
+    }
+
+    /**
+     * helper function to collect referenced identifiers, instantiated types and static accesses
+     * in one pass over the class' own tokens (nested types excluded)
+     * @param tokens file tokens
+     * @param from first token index of the body
+     * @param end token index of the class' closing brace
+     */
+    private void scanReferences(JavaLexer tokens, int from, int end) {
+
+        int nested = 0;
+        for (int i = from; i < end; i++) {
+
+            // jump over nested types
+            if (nested < nestedTypes.size() && i == nestedTypes.get(nested)[0]) {
+                i = nestedTypes.get(nested++)[1] - 1;
+                continue;
+            }
+            if (!tokens.isIdent(i)) { continue; }
+
+            // new a.b.Type(...)
+            if (tokens.is(i, "new") && tokens.isIdent(i + 1)) {
+                int type = i + 1;
+                while (tokens.isSymbol(type + 1, '.') && tokens.isIdent(type + 2)) { type += 2; }
+                instantiatedTypes.add(tokens.text(type));
+                continue;
+            }
+
+            String name = tokens.text(i);
+            if (KEYWORDS.contains(name)) { continue; }
+            referencedIdentifiers.add(name);
+
+            // Type.member (start of a chain, type names are capitalized by convention)
+            if (tokens.isSymbol(i + 1, '.') && tokens.isIdent(i + 2) && !tokens.isSymbol(i - 1, '.')
+                    && Character.isUpperCase(name.charAt(0))) {
+                staticAccesses.computeIfAbsent(name, key -> new HashSet<>()).add(tokens.text(i + 2));
+            }
+
+        }
+
+    }
+
+    /**
+     * helper function to read supertypes from the declaration ("extends A<T> implements B, c.D")
+     * @param signature declaration text between the class name and '{'
+     */
+    private void parseSupertypes(String signature) {
+
+        JavaLexer tokens = JavaLexer.lex(signature);
+        List<String> target = null;
+        int depth = 0;  // inside <...>
+        boolean expectType = false;
+        for (int i = 0; i < tokens.count(); i++) {
+
+            if (tokens.isSymbol(i, '<')) { depth++; continue; }
+            if (tokens.isSymbol(i, '>')) { depth--; continue; }
+            if (depth > 0) { continue; }
+
+            if (tokens.is(i, "extends")) {
+                target = extendsTypes;
+                expectType = true;
+            } else if (tokens.is(i, "implements")) {
+                target = implementsTypes;
+                expectType = true;
+            } else if (tokens.is(i, "permits")) {
+                target = null;
+            } else if (tokens.isSymbol(i, ',')) {
+                expectType = true;
+            } else if (target != null && expectType && tokens.isIdent(i)) {
+                int last = i;  // qualified name: keep the simple name
+                while (tokens.isSymbol(last + 1, '.') && tokens.isIdent(last + 2)) { last += 2; }
+                target.add(tokens.text(last));
+                i = last;
+                expectType = false;
+            }
+
+        }
+
+    }
+
+    /**
+     * helper function to parse a method/constructor from its parameter list
+     * @param tokens file tokens
+     * @param name method name
+     * @param returnType raw return type (null for constructors)
+     * @param modifiers modifier flags
+     * @param open token index of '(' of the parameter list
+     * @param end token index of the class' closing brace
+     * @return token index after the method
+     */
+    private int parseMethod(JavaLexer tokens, String name, String returnType, int modifiers, int open, int end) {
+
+        // parameter types
+        int close = Math.min(tokens.matching(open), end);
+        List<String> parameterTypes = identifiers(tokens, open + 1, close);
+        parameterTypeNames.addAll(parameterTypes);
+
+        // throws clause / default value, then body or ';'
+        int i = close + 1;
+        while (i < end && !tokens.isSymbol(i, '{') && !tokens.isSymbol(i, ';')) { i++; }
+        BodyStats body = new BodyStats();
+        int next = tokens.isSymbol(i, '{') ? scanBody(tokens, i, body) : i + 1;
+
+        Method method = new Method(name, returnType, parameterTypes, modifiers, body.complexity, body.calls, body.names);
+        if (method.isConstructor()) {
+            constructors.add(method);
+        } else {
+            methods.add(method);
+        }
+        return next;
+
+    }
+
+    /**
+     * per-method facts gathered while walking its body
+     */
+    private static class BodyStats {
+        int complexity = 1;
+        final Set<String> calls = new HashSet<>();
+        final Set<String> names = new HashSet<>();
+    }
+
+    /**
+     * helper function to walk a code block collecting assignments ("x = ..." and "this.x = ...")
+     * @param tokens file tokens
+     * @param open token index of '{'
+     * @return token index after the block
+     */
+    private int scanBody(JavaLexer tokens, int open) {
+        return scanBody(tokens, open, null);
+    }
+
+    /**
+     * helper function to walk a code block collecting assignments ("x = ..." and "this.x = ...")
+     * and, for method bodies, decisions, calls and used names
+     * @param tokens file tokens
+     * @param open token index of '{'
+     * @param body method facts to fill (null for initializer blocks)
+     * @return token index after the block
+     */
+    private int scanBody(JavaLexer tokens, int open, BodyStats body) {
+
+        int close = tokens.matching(open);
+        for (int i = open + 1; i < close; i++) {
+
+            // name '=' but not '==' and not "other.name ="
+            if (tokens.isIdent(i) && tokens.isSymbol(i + 1, '=') && !tokens.isSymbol(i + 2, '=')
+                    && (!tokens.isSymbol(i - 1, '.') || tokens.is(i - 2, "this"))) {
+                assignment(tokens, tokens.text(i), i + 2);
+            }
+            if (body == null) { continue; }
+
+            if (tokens.isIdent(i)) {
+
+                // decisions: if, for, while, case, catch
+                if (tokens.is(i, "if") || tokens.is(i, "for") || tokens.is(i, "while")
+                        || tokens.is(i, "case") || tokens.is(i, "catch")) {
+                    body.complexity++;
+                    continue;
+                }
+                String name = tokens.text(i);
+                if (KEYWORDS.contains(name)) { continue; }
+                body.names.add(name);
+                if (tokens.isSymbol(i + 1, '(') && !tokens.is(i - 1, "new")) {
+                    body.calls.add(name);
+                }
+
+            } else if ((tokens.isSymbol(i, '&') && tokens.isSymbol(i + 1, '&'))
+                    || (tokens.isSymbol(i, '|') && tokens.isSymbol(i + 1, '|'))) {
+
+                // decisions: && and ||
+                body.complexity++;
+                i++;
+
+            } else if (tokens.isSymbol(i, '?') && !tokens.isSymbol(i - 1, '<') && !tokens.isSymbol(i - 1, ',')
+                    && !tokens.isSymbol(i + 1, '>') && !tokens.isSymbol(i + 1, ',')
+                    && !tokens.is(i + 1, "extends") && !tokens.is(i + 1, "super")) {
+
+                // decisions: ternary (not a wildcard)
+                body.complexity++;
+
+            }
+
+        }
+        return close + 1;
+
+    }
+
+    /**
+     * helper function to record an assignment
+     * @param tokens file tokens
+     * @param name assigned name
+     * @param value token index of the first token after '='
+     */
+    private void assignment(JavaLexer tokens, String name, int value) {
+        if (tokens.is(value, "new")) {
+            int i = value + 1;
+            if (!tokens.isIdent(i)) { return; }
+            while (tokens.isSymbol(i + 1, '.') && tokens.isIdent(i + 2)) { i += 2; }
+            newAssignments.computeIfAbsent(name, key -> new HashSet<>()).add(tokens.text(i));
+        } else {
+            valueAssignments.add(name);
+        }
+    }
+
+    /**
+     * helper function to skip a field initializer expression (up to ';', or ',' + next declarator, at nesting level 0)
+     * type arguments after new and of generic calls are skipped whole (new HashMap<String, Integer>(), Map.<K, V>of())
+     * assignments inside (e.g. anonymous classes, lambdas) are still recorded
+     * @param tokens file tokens
+     * @param i token index of the first expression token
+     * @param end token index of the class' closing brace
+     * @return token index of the ',' / ';' ending the expression
+     */
+    private int skipExpression(JavaLexer tokens, int i, int end) {
+        while (i < end && !(tokens.isSymbol(i, ',') && tokens.isIdent(i + 1)) && !tokens.isSymbol(i, ';')) {
+            if (tokens.isSymbol(i, '{')) {
+                i = scanBody(tokens, i);
+            } else if (tokens.isSymbol(i, '(') || tokens.isSymbol(i, '[')) {
+                i = tokens.matching(i) + 1;
+            } else if (tokens.is(i, "new") && tokens.isIdent(i + 1)) {
+                i = Math.min(skipType(tokens, i + 1, end), end);
+            } else if (tokens.isSymbol(i, '.') && tokens.isSymbol(i + 1, '<')) {
+                i = Math.min(tokens.matching(i + 1) + 1, end);
+            } else {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * helper function to map a modifier keyword to its flag
+     * @param tokens file tokens
+     * @param i token index
+     * @return flag, 0 for modifiers without a flag, -1 if not a modifier
+     */
+    private static int modifier(JavaLexer tokens, int i) {
+        if (tokens.is(i, "public")) { return PUBLIC; }
+        if (tokens.is(i, "protected")) { return PROTECTED; }
+        if (tokens.is(i, "private")) { return PRIVATE; }
+        if (tokens.is(i, "static")) { return STATIC; }
+        if (tokens.is(i, "final")) { return FINAL; }
+        if (tokens.is(i, "abstract")) { return ABSTRACT; }
+        return OTHER_MODIFIERS.contains(tokens.text(i)) ? 0 : -1;
+    }
+
+    /**
+     * helper function to skip a type: Name[.Name][<...>][[]...]
+     * @param tokens file tokens
+     * @param i token index of the first type identifier
+     * @param end token index of the class' closing brace
+     * @return token index after the type
+     */
+    private static int skipType(JavaLexer tokens, int i, int end) {
+        i++;
+        while (i < end) {
+            if (tokens.isSymbol(i, '.') && tokens.isIdent(i + 1)) {
+                i += 2;
+            } else if (tokens.isSymbol(i, '<')) {
+                i = tokens.matching(i) + 1;
+            } else if (tokens.isSymbol(i, '[') && tokens.isSymbol(i + 1, ']')) {
+                i += 2;
+            } else if (tokens.isSymbol(i, '@')) {
+                i = skipAnnotation(tokens, i);  // type annotation: String @NonNull []
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * helper function to get the simple raw name of a type (last identifier before any type arguments)
+     * @param tokens file tokens
+     * @param from token index of the first type identifier
+     * @param to token index after the type
+     * @return raw simple name
+     */
+    private static String rawType(JavaLexer tokens, int from, int to) {
+        int last = from;
+        for (int i = from; i < to && !tokens.isSymbol(i, '<') && !tokens.isSymbol(i, '['); i++) {
+            if (tokens.isIdent(i)) { last = i; }
+        }
+        return tokens.text(last);
+    }
+
+    /**
+     * helper function to skip an annotation: @Name[.Name][(...)]
+     * @param tokens file tokens
+     * @param i token index of '@'
+     * @return token index after the annotation
+     */
+    private static int skipAnnotation(JavaLexer tokens, int i) {
+        i += 2;
+        while (tokens.isSymbol(i, '.') && tokens.isIdent(i + 1)) { i += 2; }
+        if (tokens.isSymbol(i, '(')) {
+            i = tokens.matching(i) + 1;
+        }
+        return i;
+    }
+
+    /**
+     * helper function to skip a nested type declaration including its body
+     * @param tokens file tokens
+     * @param i token index of the type keyword
+     * @param end token index of the class' closing brace
+     * @return token index after the nested type
+     */
+    private static int skipNestedType(JavaLexer tokens, int i, int end) {
+        while (i < end && !tokens.isSymbol(i, '{')) {
+            i = tokens.isSymbol(i, '(') ? tokens.matching(i) + 1 : i + 1;  // record components
+        }
+        return (i < end) ? tokens.matching(i) + 1 : end;
+    }
+
+    /**
+     * helper function to resynchronize after something that is not a declaration
+     * @param tokens file tokens
+     * @param i token index where parsing failed
+     * @param end token index of the class' closing brace
+     * @return token index after the next ';' or block at this level
+     */
+    private static int recover(JavaLexer tokens, int i, int end) {
+        while (i < end) {
+            if (tokens.isSymbol(i, ';')) { return i + 1; }
+            if (tokens.isSymbol(i, '{')) { return tokens.matching(i) + 1; }
+            if (tokens.isSymbol(i, '(') || tokens.isSymbol(i, '[')) {
+                i = tokens.matching(i) + 1;
+            } else {
+                i++;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * helper function to collect identifiers in a token range
+     * @param tokens file tokens
+     * @param from first token index
+     * @param to token index after the range
+     * @return identifiers in order
+     */
+    private static List<String> identifiers(JavaLexer tokens, int from, int to) {
+        List<String> names = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            if (tokens.isIdent(i)) { names.add(tokens.text(i)); }
+        }
+        return names;
+    }
+
+}
@@ -0,0 +1,140 @@
+package Asgn3;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * table comparing many analyzed GH folders (see Workspace)
+ * one row per folder: size, time and the A / I / D distribution over its classes
+ * double click a row to show that folder in the other tabs
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class ComparePanel extends JPanel {
+
+    // columns
+    private static final String[] COLUMNS = {
+            "Folder", "Files", "Classes", "ms", "A", "I median", "I q1-q3", "D median", "D q1-q3", "D max", "Status"
+    };
+
+    // components
+    private final ResultModel model = new ResultModel();
+    private final JTable table = new JTable(model);
+
+    /**
+     * table model over workspace results
+     */
+    private static class ResultModel extends AbstractTableModel {
+
+        // fields
+        private final List<Workspace.RepoResult> rows = new ArrayList<>();
+
+        public int getRowCount() { return rows.size(); }
+        public int getColumnCount() { return COLUMNS.length; }
+        public String getColumnName(int column) { return COLUMNS[column]; }
+
+        public Class<?> getColumnClass(int column) {
+            return (column >= 1 && column <= 3) ? Long.class : String.class;
+        }
+
+        public Object getValueAt(int row, int column) {
+            Workspace.RepoResult result = rows.get(row);
+            return switch (column) {
+                case 0 -> folderName(result.url());
+                case 1 -> result.isOk() ? (long) result.analysis().getFileMetrics().size() : 0L;
+                case 2 -> (long) result.I().count();
+                case 3 -> result.wallNanos() / 1_000_000;
+                case 4 -> format(result.A().mean());
+                case 5 -> format(result.I().median());
+                case 6 -> format(result.I().q1()) + "-" + format(result.I().q3());
+                case 7 -> format(result.D().median());
+                case 8 -> format(result.D().q1()) + "-" + format(result.D().q3());
+                case 9 -> format(result.D().max());
+                default -> result.isOk() ? "ok" : result.error();
+            };
+        }
+    }
+
+    /**
+     * constructor
+     * @param onOpen called with the analysis of a double clicked row
+     */
+    public ComparePanel(Consumer<GHRepoAnalyzed> onOpen) {
+
+        // config
+        setLayout(new BorderLayout());
+        table.setAutoCreateRowSorter(true);
+        table.setFillsViewportHeight(true);
+
+        // open folder on double click
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = table.getSelectedRow();
+                if (e.getClickCount() == 2 && row >= 0) {
+                    Workspace.RepoResult result = model.rows.get(table.convertRowIndexToModel(row));
+                    if (result.isOk()) { onOpen.accept(result.analysis()); }
+                }
+            }
+        });
+
+        // add to panel
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+    }
+
+    /**
+     * adds (or replaces) a folder's row
+     * @param result finished folder
+     */
+    public void addResult(Workspace.RepoResult result) {
+        for (int row = 0; row < model.rows.size(); row++) {
+            if (model.rows.get(row).url().equals(result.url())) {
+                model.rows.set(row, result);
+                model.fireTableRowsUpdated(row, row);
+                return;
+            }
+        }
+        model.rows.add(result);
+        model.fireTableRowsInserted(model.rows.size() - 1, model.rows.size() - 1);
+    }
+
+    /**
+     * removes all rows
+     */
+    public void clear() {
+        model.rows.clear();
+        model.fireTableDataChanged();
+    }
+
+    /**
+     * helper function to shorten a folder URL for display
+     * @param url GH folder URL
+     * @return owner/repo/folder
+     */
+    private static String folderName(String url) {
+        try {
+            GHInfo info = GHOperations.parseGHURL(url);
+            String folder = GHOperations.parseFolderPath(url);
+            return info.owner() + "/" + info.repo() + (folder.isEmpty() ? "" : "/" + folder);
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    /**
+     * helper function to format a value (blank if missing)
+     * @param value value
+     * @return formatted value
+     */
+    private static String format(double value) {
+        return Double.isNaN(value) ? "" : String.format("%.2f", value);
+    }
+
+}
@@ -1,6 +1,7 @@
 package Asgn3;
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 
 /**
  * displays UML class diagrams generated from GitHub repository analysis
@@ -12,6 +13,8 @@ public class DiagramPanel extends JPanel {
 
     private JScrollPane scrollPane;
     private UMLPanel umlPanel;
+    private String umlSource;  // source of the diagram on screen (null if none)
+    private volatile String shownSource;  // same, readable off the event thread (see prepareUpdate)
 
     /**
      * constructor
@@ -22,44 +25,96 @@ public class DiagramPanel extends JPanel {
     }
 
     /**
-     * generates and displays UML diagram from analysis results
+     * rendered diagram, ready to display (see render)
+     * @param umlSource PlantUML syntax string (null if it could not be generated)
+     * @param image rendered diagram (null if rendering failed)
+     * @param error message to show instead of the diagram (null if rendered)
+     */
+    public record Rendered(String umlSource, BufferedImage image, String error) {}
+
+    /**
+     * generates and renders the UML diagram of an analysis (call off the event thread, PlantUML is slow)
+     * @param analysis the analyzed repository data
+     * @return rendered diagram or the error to show
+     */
+    public static Rendered render(GHRepoAnalyzed analysis) {
+        try {
+            // get PlantUML syntax (generated once per analysis)
+            String source = analysis.getUmlSource();
+            BufferedImage image = UMLPanel.render(source);
+            return new Rendered(source, image, (image == null) ? "Diagram rendering failed." : null);
+        } catch (StackOverflowError e) {
+            return new Rendered(null, null, "Stack overflow during diagram generation.\nThe codebase may be too complex.");
+        } catch (Exception e) {
+            return new Rendered(null, null, "Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * generates and displays UML diagram from analysis results (renders on the calling thread)
      * @param analysis the analyzed repository data
      */
     public void showDiagram(GHRepoAnalyzed analysis) {
+        showDiagram(render(analysis));
+    }
+
+    /**
+     * displays a diagram rendered beforehand
+     * @param rendered rendered diagram (see render)
+     */
+    public void showDiagram(Rendered rendered) {
         // clear existing diagram
         clear();
+        umlSource = rendered.umlSource();
+        shownSource = umlSource;
 
-        try {
-            // generate PlantUML syntax
-            String umlSource = PlantUMLGenerator.generateUML(analysis);
-
-            // create panel with rendered diagram
-            umlPanel = new UMLPanel(umlSource);
-            
-            // check if rendering succeeded
-            if (!umlPanel.isImageLoaded()) {
-                showErrorMessage("Diagram rendering failed.");
-                return;
-            }
-
-            // add with scrollbars
-            scrollPane = new JScrollPane(umlPanel);
-            scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
-            scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
-
-            add(scrollPane, BorderLayout.CENTER);
-
-            // refresh display
-            revalidate();
-            repaint();
-            
-        } catch (StackOverflowError e) {
-            showErrorMessage("Stack overflow during diagram generation.\nThe codebase may be too complex.");
-        } catch (Exception e) {
-            showErrorMessage("Error: " + e.getMessage());
+        // check if rendering succeeded
+        if (rendered.error() != null) {
+            showErrorMessage(rendered.error());
+            return;
         }
+
+        // add with scrollbars
+        umlPanel = new UMLPanel(rendered.image());
+        scrollPane = new JScrollPane(umlPanel);
+        scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
+        scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+
+        add(scrollPane, BorderLayout.CENTER);
+
+        // refresh display
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * renders the diagram of an updated analysis (watch mode, call off the event thread)
+     * the diagram only shows classes and their relationships, so most edits (method bodies, metrics) leave it as is
+     * @param analysis the analyzed repository data
+     * @return rendered diagram, null if its source is the one on screen (nothing to render)
+     */
+    public Rendered prepareUpdate(GHRepoAnalyzed analysis) {
+        String source = analysis.getUmlSource();
+        return source.equals(shownSource) ? null : render(analysis);
     }
-    
+
+    /**
+     * swaps in a diagram rendered by prepareUpdate, keeping the scroll position
+     * @param rendered rendered diagram (null if unchanged)
+     */
+    public void updateDiagram(Rendered rendered) {
+
+        if (rendered == null || (rendered.umlSource() != null && rendered.umlSource().equals(umlSource))) { return; }
+
+        // swap, then restore where the user was looking
+        Point position = (scrollPane == null) ? null : scrollPane.getViewport().getViewPosition();
+        showDiagram(rendered);
+        if (position != null && scrollPane != null) {
+            scrollPane.getViewport().setViewPosition(position);
+        }
+
+    }
+
     /**
      * displays an error message
      * @param message error message
@@ -85,6 +140,8 @@ public class DiagramPanel extends JPanel {
         removeAll();
         umlPanel = null;
         scrollPane = null;
+        umlSource = null;
+        shownSource = null;
         revalidate();
         repaint();
     }
@@ -2,11 +2,14 @@ package Asgn3;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 /**
  * object that represents a single .java file and its file level metrics:
  * size --> number of non-empty lines
  * complexity --> number of control statements
+ * plus any metrics registered with the MetricEngine (by name)
  *
  * @author Megan Fung
  * @version 1.0
@@ -16,6 +19,7 @@ public class FileLevelMetrics {
     private final String name;
     private int size;
     private int complexity;
+    private final SortedMap<String, Double> metrics = new TreeMap<>();  // additional metrics by name
 
     /**
      * constructor
@@ -37,4 +41,31 @@ public class FileLevelMetrics {
     public void setSize(int size) { this.size = size; }
     public void setComplexity(int complexity) { this.complexity = complexity; }
 
+    /**
+     * stores an additional metric (see MetricEngine)
+     * @param name metric name
+     * @param value metric value
+     */
+    public synchronized void setMetric(String name, double value) {
+        metrics.put(name, value);
+    }
+
+    /**
+     * gets an additional metric
+     * @param name metric name
+     * @return metric value, or NaN if not computed
+     */
+    public synchronized double getMetric(String name) {
+        Double value = metrics.get(name);
+        return (value == null) ? Double.NaN : value;
+    }
+
+    /**
+     * gets all additional metrics
+     * @return metric names (sorted) mapped to values (copy)
+     */
+    public synchronized SortedMap<String, Double> getMetrics() {
+        return new TreeMap<>(metrics);
+    }
+
 }
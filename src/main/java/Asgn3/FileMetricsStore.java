@@ -0,0 +1,368 @@
+package Asgn3;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * file level metrics of an analysis, stored column by column instead of one object per file
+ * a row is one file (rows are sorted by file name); names, sizes and complexities are parallel arrays,
+ * every additional metric (see MetricEngine) is one double[] column (NaN where a file has no value)
+ * queries (max, sum, histogram, sorting, filtering) are plain loops over a single primitive array
+ * rows are read through View, a two-field handle that points into the arrays (nothing is copied)
+ * analyses append rows to a Builder straight from the primitives they compute (no per-file objects or maps)
+ * immutable once built, so it can be shared across threads and panels
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class FileMetricsStore {
+
+    // int column names
+    public static final String SIZE = "size";
+    public static final String COMPLEXITY = "complexity";
+
+    // fields
+    private final String[] names;
+    private final int[] sizes;
+    private final int[] complexities;
+    private final String[] metricNames;  // sorted
+    private final double[][] metricColumns;  // one per metric name, indexed by row
+
+    /**
+     * one row of the store
+     * @param store store holding the row
+     * @param row row index
+     */
+    public record View(FileMetricsStore store, int row) {
+        public String getName() { return store.names[row]; }
+        public int getSize() { return store.sizes[row]; }
+        public int getComplexity() { return store.complexities[row]; }
+        public double getMetric(String name) { return store.getMetric(name, row); }
+        public SortedMap<String, Double> getMetrics() { return store.getMetrics(row); }
+    }
+
+    /**
+     * appends rows one file at a time, growing every column together
+     * rows may come in any order (build sorts them by name if needed); file names must be unique
+     */
+    public static class Builder {
+
+        // columns (first count entries used)
+        private String[] names;
+        private int[] sizes;
+        private int[] complexities;
+        private final SortedMap<String, double[]> columns = new TreeMap<>();  // additional metrics by name
+        private int count = 0;
+
+        /**
+         * constructor
+         * @param expected expected number of files (columns grow past it)
+         */
+        public Builder(int expected) {
+            int capacity = Math.max(expected, 8);
+            this.names = new String[capacity];
+            this.sizes = new int[capacity];
+            this.complexities = new int[capacity];
+        }
+
+        /**
+         * appends a file
+         * @param name file name
+         * @param size number of non-empty lines
+         * @param complexity number of control statements
+         * @return row of the file (for setMetric)
+         */
+        public int addFile(String name, int size, int complexity) {
+            if (count == names.length) { grow(); }
+            names[count] = name;
+            sizes[count] = size;
+            complexities[count] = complexity;
+            return count++;
+        }
+
+        /**
+         * stores an additional metric of a file already added
+         * @param row row returned by addFile
+         * @param metric metric name
+         * @param value metric value
+         */
+        public void setMetric(int row, String metric, double value) {
+            columns.computeIfAbsent(metric, k -> newColumn(names.length))[row] = value;
+        }
+
+        /**
+         * builds the store (the builder is not used afterwards)
+         * @return immutable store, rows sorted by name
+         */
+        public FileMetricsStore build() {
+            return new FileMetricsStore(this);
+        }
+
+        /**
+         * helper function to double the capacity of every column
+         */
+        private void grow() {
+            int capacity = names.length * 2;
+            names = Arrays.copyOf(names, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+            complexities = Arrays.copyOf(complexities, capacity);
+            for (Map.Entry<String, double[]> column : columns.entrySet()) {
+                double[] grown = Arrays.copyOf(column.getValue(), capacity);
+                Arrays.fill(grown, count, capacity, Double.NaN);
+                column.setValue(grown);
+            }
+        }
+
+    }
+
+    /**
+     * constructor: copies file metrics into columns
+     * @param files file names mapped to their metrics (any order, rows end up sorted by name)
+     */
+    public FileMetricsStore(Map<String, FileLevelMetrics> files) {
+        this(fill(new Builder(files.size()), files));
+    }
+
+    /**
+     * constructor: takes over a builder's columns (trimmed, and sorted by name unless they already are)
+     * @param builder builder holding the rows
+     */
+    private FileMetricsStore(Builder builder) {
+
+        int count = builder.count;
+
+        // row order: as appended if already sorted (the usual case), by name otherwise
+        int[] order = null;
+        for (int row = 1; row < count; row++) {
+            if (builder.names[row - 1].compareTo(builder.names[row]) > 0) {
+                String[] unsorted = builder.names;
+                order = IntStream.range(0, count).boxed().sorted(Comparator.comparing(i -> unsorted[i]))
+                        .mapToInt(Integer::intValue).toArray();
+                break;
+            }
+        }
+
+        this.names = reorder(builder.names, order, count);
+        this.sizes = reorder(builder.sizes, order, count);
+        this.complexities = reorder(builder.complexities, order, count);
+        this.metricNames = builder.columns.keySet().toArray(new String[0]);
+        this.metricColumns = new double[metricNames.length][];
+        int c = 0;
+        for (double[] column : builder.columns.values()) {
+            metricColumns[c++] = reorder(column, order, count);
+        }
+
+    }
+
+    // getters
+    public int size() { return names.length; }
+    public boolean isEmpty() { return names.length == 0; }
+    public String getName(int row) { return names[row]; }
+    public int getSize(int row) { return sizes[row]; }
+    public int getComplexity(int row) { return complexities[row]; }
+    public List<String> getMetricNames() { return List.of(metricNames); }
+    public View view(int row) { return new View(this, row); }
+
+    /**
+     * finds a file's row
+     * @param name file name
+     * @return row index, or a negative value if the file is not in the store
+     */
+    public int indexOf(String name) {
+        return Arrays.binarySearch(names, name);
+    }
+
+    /**
+     * gets an additional metric
+     * @param metric metric name
+     * @param row row index
+     * @return metric value, or NaN if not computed
+     */
+    public double getMetric(String metric, int row) {
+        int column = Arrays.binarySearch(metricNames, metric);
+        return (column < 0) ? Double.NaN : metricColumns[column][row];
+    }
+
+    /**
+     * gets all additional metrics of one file
+     * @param row row index
+     * @return metric names (sorted) mapped to values (metrics the file does not have are left out)
+     */
+    public SortedMap<String, Double> getMetrics(int row) {
+        SortedMap<String, Double> metrics = new TreeMap<>();
+        for (int c = 0; c < metricNames.length; c++) {
+            double value = metricColumns[c][row];
+            if (!Double.isNaN(value)) { metrics.put(metricNames[c], value); }
+        }
+        return metrics;
+    }
+
+    /**
+     * gets a whole additional metric column
+     * @param metric metric name
+     * @return values by row (copy, NaN where a file has no value)
+     */
+    public double[] getMetricColumn(String metric) {
+        int column = Arrays.binarySearch(metricNames, metric);
+        return (column < 0) ? newColumn(names.length) : metricColumns[column].clone();
+    }
+
+    /**
+     * largest value of an int column
+     * @param column SIZE or COMPLEXITY
+     * @return max (0 if the store is empty)
+     */
+    public int max(String column) {
+        int[] values = intColumn(column);
+        int max = 0;
+        for (int value : values) {
+            if (value > max) { max = value; }
+        }
+        return max;
+    }
+
+    /**
+     * total of an int column
+     * @param column SIZE or COMPLEXITY
+     * @return sum over all files
+     */
+    public long sum(String column) {
+        int[] values = intColumn(column);
+        long sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    /**
+     * counts files per value range of an int column
+     * @param column SIZE or COMPLEXITY
+     * @param bins number of equally wide bins covering 0 to max
+     * @return files per bin (values below 0 go to the first bin)
+     */
+    public int[] histogram(String column, int bins) {
+
+        if (bins <= 0) { throw new IllegalArgumentException("Histogram needs at least one bin"); }
+        int[] values = intColumn(column);
+        int[] counts = new int[bins];
+        long range = (long) max(column) + 1;
+        for (int value : values) {
+            counts[(int) ((long) Math.max(0, value) * bins / range)]++;
+        }
+        return counts;
+
+    }
+
+    /**
+     * rows ordered by an int column (ties keep name order)
+     * @param column SIZE or COMPLEXITY
+     * @param descending true for largest first
+     * @return row indices
+     */
+    public int[] sortedBy(String column, boolean descending) {
+
+        // value in the high half, row in the low half --> one primitive sort, no comparator
+        int[] values = intColumn(column);
+        long[] keys = new long[values.length];
+        for (int row = 0; row < values.length; row++) {
+            long value = descending ? -(long) values[row] : values[row];
+            keys[row] = (value << 32) | row;
+        }
+        Arrays.sort(keys);
+
+        int[] rows = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            rows[i] = (int) keys[i];
+        }
+        return rows;
+
+    }
+
+    /**
+     * rows whose int column lies in a range
+     * @param column SIZE or COMPLEXITY
+     * @param min smallest value (inclusive)
+     * @param max largest value (inclusive)
+     * @return row indices in name order
+     */
+    public int[] filter(String column, int min, int max) {
+        int[] values = intColumn(column);
+        int[] rows = new int[values.length];
+        int count = 0;
+        for (int row = 0; row < values.length; row++) {
+            if (values[row] >= min && values[row] <= max) { rows[count++] = row; }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * helper function to find an int column
+     * @param column column name
+     * @return values by row
+     */
+    private int[] intColumn(String column) {
+        return switch (column) {
+            case SIZE -> sizes;
+            case COMPLEXITY -> complexities;
+            default -> throw new IllegalArgumentException("Unknown file column: " + column);
+        };
+    }
+
+    /**
+     * helper function to append file metric objects to a builder
+     * @param builder builder
+     * @param files file names mapped to their metrics
+     * @return builder
+     */
+    private static Builder fill(Builder builder, Map<String, FileLevelMetrics> files) {
+        for (Map.Entry<String, FileLevelMetrics> entry : files.entrySet()) {
+            FileLevelMetrics file = entry.getValue();
+            int row = builder.addFile(entry.getKey(), file.getSize(), file.getComplexity());
+            file.getMetrics().forEach((metric, value) -> builder.setMetric(row, metric, value));
+        }
+        return builder;
+    }
+
+    /**
+     * helper functions to trim a builder column to its rows, in row order
+     * @param column builder column
+     * @param order source row for each row (null to keep the order)
+     * @param count rows
+     * @return trimmed (and reordered) column
+     */
+    private static String[] reorder(String[] column, int[] order, int count) {
+        if (order == null) { return Arrays.copyOf(column, count); }
+        String[] reordered = new String[count];
+        for (int row = 0; row < count; row++) { reordered[row] = column[order[row]]; }
+        return reordered;
+    }
+    private static int[] reorder(int[] column, int[] order, int count) {
+        if (order == null) { return Arrays.copyOf(column, count); }
+        int[] reordered = new int[count];
+        for (int row = 0; row < count; row++) { reordered[row] = column[order[row]]; }
+        return reordered;
+    }
+    private static double[] reorder(double[] column, int[] order, int count) {
+        if (order == null) { return Arrays.copyOf(column, count); }
+        double[] reordered = new double[count];
+        for (int row = 0; row < count; row++) { reordered[row] = column[order[row]]; }
+        return reordered;
+    }
+
+    /**
+     * helper function to create a metric column with no values yet
+     * @param count rows
+     * @return NaN filled column
+     */
+    private static double[] newColumn(int count) {
+        double[] column = new double[count];
+        Arrays.fill(column, Double.NaN);
+        return column;
+    }
+
+}
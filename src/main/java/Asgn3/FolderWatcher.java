@@ -0,0 +1,278 @@
+package Asgn3;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * watch mode: re-analyzes a local source folder whenever files in it change
+ * one WatchService key per directory (new directories are registered as they appear);
+ * events are collected until the folder has been quiet for DEBOUNCE_MS, so an editor's save burst
+ * (write + rename + attribute change, or a whole refactoring) becomes one update
+ * only the changed .java files are read and reprocessed (IncrementalAnalyzer), the listener gets the new analysis
+ * runs on its own daemon thread until closed
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class FolderWatcher implements Closeable {
+
+    // config
+    public static final long DEBOUNCE_MS = 50;
+
+    // components
+    private final Path directory;
+    private final Consumer<Update> listener;
+    private final IncrementalAnalyzer incremental;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> keys = new HashMap<>();  // watched directories
+    private final SortedSet<String> paths = new TreeSet<>();  // every file under the folder, relative, '/' separated
+    private Thread thread;
+
+    // logger
+    private static final Logger logger = LoggerFactory.getLogger(FolderWatcher.class);
+
+    /**
+     * one re-analysis
+     * @param analysis analysis of the folder after the change
+     * @param changed added, modified or deleted .java files (relative paths, empty for the initial load)
+     * @param latencyNanos time from the first event of the burst to the finished analysis (0 for the initial load)
+     */
+    public record Update(GHRepoAnalyzed analysis, Set<String> changed, long latencyNanos) {}
+
+    /**
+     * constructor
+     * @param directory local folder to watch
+     * @param listener called on the watcher thread after every re-analysis
+     * @throws IOException if the platform has no watch service
+     */
+    public FolderWatcher(Path directory, Consumer<Update> listener) throws IOException {
+
+        // initialize components
+        this.directory = directory.toAbsolutePath().normalize();
+        this.listener = listener;
+        this.incremental = new IncrementalAnalyzer(new GHRepoAnalyzer(null));
+        this.watchService = FileSystems.getDefault().newWatchService();
+
+    }
+
+    /**
+     * analyzes the whole folder, then starts watching it
+     * @return analysis of the folder as it is now
+     * @throws IOException if the folder cannot be read
+     */
+    public synchronized GHRepoAnalyzed start() throws IOException {
+
+        if (thread != null) { throw new IllegalStateException("Watcher already started"); }
+
+        // register first so nothing saved during the initial load is missed
+        Map<String, String> contents = new HashMap<>();
+        register(directory, contents);
+        GHRepoAnalyzed analysis = incremental.update(contents, List.of(), List.copyOf(paths));
+        logger.info("Watching {} ({} files)", directory, contents.size());
+
+        thread = new Thread(this::run, "folder-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        return analysis;
+
+    }
+
+    /**
+     * gets the watched folder
+     * @return absolute folder
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * stops watching
+     * @throws IOException if the watch service cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();  // wakes the watcher thread, which then exits
+    }
+
+    /**
+     * helper function for the watcher thread: wait for a burst, drain it, re-analyze
+     */
+    private void run() {
+
+        try {
+            while (true) {
+
+                // block until something happens, then keep collecting until the folder is quiet
+                WatchKey key = watchService.take();
+                long first = System.nanoTime();
+                Set<Path> touched = new TreeSet<>();
+                boolean overflow = false;
+                while (key != null) {
+                    overflow |= drain(key, touched);
+                    key = watchService.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+                }
+
+                // re-analyze changed files only
+                try {
+                    Update update = apply(touched, overflow, first);
+                    if (update != null) {
+                        listener.accept(update);
+                    }
+                } catch (IOException | UncheckedIOException e) {
+                    logger.warn("Watch update failed for {}: {}", directory, e.getMessage());
+                }
+
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            logger.info("Stopped watching {}", directory);
+        }
+
+    }
+
+    /**
+     * helper function to collect the paths of one key's pending events
+     * @param key signalled key
+     * @param touched receives absolute paths of changed entries
+     * @return true if events were lost (the folder has to be rescanned)
+     */
+    private boolean drain(WatchKey key, Set<Path> touched) {
+
+        boolean overflow = false;
+        Path parent = keys.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+            } else if (parent != null) {
+                touched.add(parent.resolve((Path) event.context()));
+            }
+        }
+        if (!key.reset()) {
+            keys.remove(key);  // directory deleted (or moved away)
+        }
+        return overflow;
+
+    }
+
+    /**
+     * helper function to turn a burst of events into a change set and re-analyze
+     * @param touched absolute paths of changed entries
+     * @param overflow true if events were lost
+     * @param first time of the first event
+     * @return update (null if no .java file changed)
+     * @throws IOException if a directory cannot be read
+     */
+    private synchronized Update apply(Set<Path> touched, boolean overflow, long first) throws IOException {
+
+        Map<String, String> changed = new HashMap<>();
+        Set<String> removed = new TreeSet<>();
+
+        if (overflow) {
+            // lost events: reread and reprocess the whole folder
+            removed.addAll(paths);
+            paths.clear();
+            register(directory, changed);
+            removed.removeAll(changed.keySet());
+            removed.removeIf(path -> !PathTrie.isJava(path));
+        } else {
+            for (Path path : touched) {
+                String relative = relative(path);
+                if (Files.isDirectory(path)) {
+                    if (!keys.containsValue(path)) { register(path, changed); }  // new (or moved in) directory
+                } else if (Files.isRegularFile(path)) {
+                    paths.add(relative);
+                    if (PathTrie.isJava(relative)) { read(path, relative, changed); }
+                } else {
+                    // deleted file, or a deleted directory (drop everything below it)
+                    // (siblings like "dir.old" or "dir-x/..." sort between "dir" and "dir/...", so take the children as a range)
+                    String prefix = relative + "/";
+                    Set<String> gone = new TreeSet<>(paths.subSet(prefix, prefix + Character.MAX_VALUE));
+                    if (paths.contains(relative)) { gone.add(relative); }
+                    for (String file : gone) {
+                        paths.remove(file);
+                        if (PathTrie.isJava(file)) { removed.add(file); }
+                    }
+                }
+            }
+        }
+
+        if (changed.isEmpty() && removed.isEmpty()) { return null; }
+
+        GHRepoAnalyzed analysis = incremental.update(changed, removed, List.copyOf(paths));
+        Set<String> files = new TreeSet<>(changed.keySet());
+        files.addAll(removed);
+        long latency = System.nanoTime() - first;
+        logger.info("Re-analyzed {} changed files in {} ms", files.size(), TimeUnit.NANOSECONDS.toMillis(latency));
+        return new Update(analysis, files, latency);
+
+    }
+
+    /**
+     * helper function to watch a directory tree and read its .java files
+     * @param root directory to register (recursively)
+     * @param contents receives relative paths mapped to contents of .java files
+     * @throws IOException if the tree cannot be walked
+     */
+    private void register(Path root, Map<String, String> contents) throws IOException {
+
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) walk::iterator) {
+                if (Files.isDirectory(path)) {
+                    WatchKey key = path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                    keys.put(key, path);
+                } else {
+                    String relative = relative(path);
+                    paths.add(relative);
+                    if (PathTrie.isJava(relative)) { read(path, relative, contents); }
+                }
+            }
+        }
+
+    }
+
+    /**
+     * helper function to read one source file (a file deleted again before it could be read is skipped)
+     * @param path absolute path
+     * @param relative relative path
+     * @param contents receives the content
+     * @throws IOException if the file exists but cannot be read
+     */
+    private void read(Path path, String relative, Map<String, String> contents) throws IOException {
+        try {
+            contents.put(relative, new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+        } catch (NoSuchFileException e) {
+            paths.remove(relative);
+        }
+    }
+
+    /**
+     * helper function to get a path relative to the watched folder
+     * @param path absolute path
+     * @return relative path with '/' separators
+     */
+    private String relative(Path path) {
+        return directory.relativize(path).toString().replace('\\', '/');
+    }
+
+}
@@ -0,0 +1,459 @@
+package Asgn3;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * minimal GH REST client that knows about GH's rate limits
+ * tracks X-RateLimit-Remaining / X-RateLimit-Reset from every response,
+ * limits how many requests are in flight based on the remaining budget,
+ * and sends If-None-Match with cached ETags so unchanged content is a free 304
+ * (the ETag cache is an LRU bounded by total body bytes, least recently used responses are dropped first)
+ * base URL is configurable so it can run against a local stub server
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class GHApiClient {
+
+    // config
+    public static final URI DEFAULT_BASE_URI = URI.create("https://api.github.com");
+    public static final int MAX_CONCURRENCY = 8;
+    public static final long DEFAULT_CACHE_BYTES = 32L << 20;  // response bodies kept for conditional requests
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final long MAX_RATE_WAIT_MS = 60_000;  // wait at most this long for a reset, then fail
+
+    // components
+    private final HttpClient httpClient;
+    private final URI baseUri;
+    private final String token;
+    private final Map<String, CachedResponse> etagCache = new LinkedHashMap<>(16, 0.75f, true);  // LRU, guarded by itself
+    private final long maxCachedBytes;
+    private long cachedBytes = 0;  // guarded by etagCache
+
+    // rate budget (-1 = unknown until first response)
+    private volatile int rateRemaining = -1;
+    private volatile long rateResetEpochSeconds = 0;
+    private int inFlight = 0;
+
+    // logger
+    private static final Logger logger = LoggerFactory.getLogger(GHApiClient.class);
+
+    /**
+     * cached body of a response together with its ETag
+     * @param etag ETag header value
+     * @param body response body
+     */
+    private record CachedResponse(String etag, byte[] body) {
+    }
+
+    /**
+     * constructor
+     * @param baseUri API base URL (DEFAULT_BASE_URI or a local stub)
+     * @param token personal GH token (may be null/blank for anonymous access)
+     */
+    public GHApiClient(URI baseUri, String token) {
+
+        this(baseUri, token, DEFAULT_CACHE_BYTES);
+
+    }
+
+    /**
+     * constructor
+     * @param baseUri API base URL (DEFAULT_BASE_URI or a local stub)
+     * @param token personal GH token (may be null/blank for anonymous access)
+     * @param maxCachedBytes response body bytes the ETag cache may hold (0 turns conditional requests off)
+     */
+    public GHApiClient(URI baseUri, String token, long maxCachedBytes) {
+
+        // initialize components
+        this.baseUri = baseUri;
+        this.token = token;
+        this.maxCachedBytes = maxCachedBytes;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+
+    }
+
+    /**
+     * retrieves raw file contents (contents API, raw media type)
+     * @param owner GH owner that owns file
+     * @param repo GH repo the file belongs to
+     * @param path GH file path
+     * @param ref GH branch file is on
+     * @return String representation of file contents
+     * @throws IOException if GH API call fails
+     */
+    public String getFileContent(String owner, String repo, String path, String ref) throws IOException {
+
+        String route = "/repos/" + encode(owner) + "/" + encode(repo) + "/contents/" + encodePath(path)
+                + "?ref=" + encode(ref);
+        return new String(get(route, "application/vnd.github.raw"), StandardCharsets.UTF_8);
+
+    }
+
+    /**
+     * handles a streamed response body
+     */
+    @FunctionalInterface
+    public interface BodyReader {
+
+        /**
+         * reads the body (stream is closed afterwards)
+         * @param body response body
+         * @throws IOException if body cannot be read
+         */
+        void read(InputStream body) throws IOException;
+    }
+
+    /**
+     * streams a repo archive (zipball) for a ref; redirects to codeload are followed
+     * @param owner GH owner
+     * @param repo GH repo
+     * @param ref GH branch/tag/sha
+     * @param reader consumes the zip stream as it arrives
+     * @throws IOException if GH API call fails
+     */
+    public void streamZipball(String owner, String repo, String ref, BodyReader reader) throws IOException {
+
+        String route = "/repos/" + encode(owner) + "/" + encode(repo) + "/zipball/" + encode(ref);
+        stream(route, "application/vnd.github+json", reader);
+
+    }
+
+    /**
+     * unconditional GET whose body is streamed instead of buffered (archives)
+     * @param route path (and query) relative to base URL
+     * @param accept Accept header
+     * @param reader consumes the body
+     * @throws IOException if request fails
+     */
+    public void stream(String route, String accept, BodyReader reader) throws IOException {
+
+        acquireSlot();
+        try {
+            waitForBudget();
+
+            HttpRequest.Builder request = HttpRequest.newBuilder(resolve(route))
+                    .timeout(TIMEOUT)  // until the response headers arrive, the body itself is not limited
+                    .header("Accept", accept)
+                    .header("X-GitHub-Api-Version", "2022-11-28");
+            if (token != null && !token.isBlank()) {
+                request.header("Authorization", "Bearer " + token);
+            }
+
+            HttpResponse<InputStream> response;
+            try {
+                response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("GH API request interrupted", e);
+            }
+            updateBudget(response);
+
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != 200) {
+                    throw new IOException("GH API request failed (" + response.statusCode() + "): " + route);
+                }
+                reader.read(body);
+            }
+        } finally {
+            releaseSlot();
+        }
+
+    }
+
+    /**
+     * conditional GET against the API
+     * @param route path (and query) relative to base URL
+     * @param accept Accept header
+     * @return response body (from cache if GH answered 304 Not Modified)
+     * @throws IOException if request fails or rate limit stays exhausted
+     */
+    public byte[] get(String route, String accept) throws IOException {
+
+        acquireSlot();
+        try {
+            for (int attempt = 0; ; attempt++) {
+
+                waitForBudget();
+
+                // build request (conditional if we have seen this route before)
+                HttpRequest.Builder request = HttpRequest.newBuilder(resolve(route))
+                        .timeout(TIMEOUT)
+                        .header("Accept", accept)
+                        .header("X-GitHub-Api-Version", "2022-11-28");
+                if (token != null && !token.isBlank()) {
+                    request.header("Authorization", "Bearer " + token);
+                }
+                CachedResponse cached;
+                synchronized (etagCache) { cached = etagCache.get(route); }
+                if (cached != null) {
+                    request.header("If-None-Match", cached.etag());
+                }
+
+                HttpResponse<byte[]> response = send(request.build());
+                updateBudget(response);
+                int status = response.statusCode();
+
+                // unchanged content: cached body, no rate cost
+                if (status == 304 && cached != null) {
+                    return cached.body();
+                }
+
+                if (status == 200) {
+                    response.headers().firstValue("ETag").ifPresent(etag -> cache(route, new CachedResponse(etag, response.body())));
+                    return response.body();
+                }
+
+                // throttled: wait for reset (or Retry-After) once, then give up
+                if ((status == 403 || status == 429) && attempt == 0 && isThrottled(response)) {
+                    logger.warn("GH rate limit hit for {}, waiting before retry", route);
+                    sleepUntilRetry(response);
+                    continue;
+                }
+
+                throw new IOException("GH API request failed (" + status + "): " + route);
+
+            }
+        } finally {
+            releaseSlot();
+        }
+
+    }
+
+    /**
+     * suggested number of concurrent requests for the remaining rate budget
+     * @return 1 to MAX_CONCURRENCY
+     */
+    public int recommendedConcurrency() {
+
+        int remaining = rateRemaining;
+        if (remaining < 0) { return 4; }  // unknown yet: be moderate
+        if (remaining > 1000) { return MAX_CONCURRENCY; }
+        if (remaining > 100) { return 4; }
+        if (remaining > 20) { return 2; }
+        return 1;
+
+    }
+
+    // getters
+    public int getRateRemaining() { return rateRemaining; }
+    public long getRateResetEpochSeconds() { return rateResetEpochSeconds; }
+    public int getCachedResponses() { synchronized (etagCache) { return etagCache.size(); } }
+    public long getCachedBytes() { synchronized (etagCache) { return cachedBytes; } }
+
+    /**
+     * helper function to keep a response for conditional requests (drops least recently used ones to stay in budget)
+     * @param route path (and query) relative to base URL
+     * @param response body and ETag
+     */
+    private void cache(String route, CachedResponse response) {
+        synchronized (etagCache) {
+            CachedResponse replaced = etagCache.remove(route);
+            if (replaced != null) { cachedBytes -= replaced.body().length; }
+            if (response.body().length > maxCachedBytes) { return; }  // would evict everything else
+            etagCache.put(route, response);
+            cachedBytes += response.body().length;
+            Iterator<CachedResponse> eldest = etagCache.values().iterator();
+            while (cachedBytes > maxCachedBytes) {
+                cachedBytes -= eldest.next().body().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * helper function to send a request
+     * @param request request to send
+     * @return response
+     * @throws IOException if request fails or is interrupted
+     */
+    private HttpResponse<byte[]> send(HttpRequest request) throws IOException {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("GH API request interrupted", e);
+        }
+    }
+
+    /**
+     * helper function to read rate limit headers
+     * @param response any API response
+     */
+    private void updateBudget(HttpResponse<?> response) {
+        response.headers().firstValue("X-RateLimit-Remaining").ifPresent(value -> rateRemaining = (int) parseLong(value, rateRemaining));
+        response.headers().firstValue("X-RateLimit-Reset").ifPresent(value -> rateResetEpochSeconds = parseLong(value, 0));
+        synchronized (this) {
+            notifyAll();  // budget may allow more requests in flight now
+        }
+    }
+
+    /**
+     * helper function to check if a 403/429 is a rate limit (and not e.g. a permission problem)
+     * @param response 403/429 response
+     * @return true if caused by rate limiting
+     */
+    private boolean isThrottled(HttpResponse<?> response) {
+        return response.statusCode() == 429
+                || response.headers().firstValue("Retry-After").isPresent()
+                || rateRemaining == 0;
+    }
+
+    /**
+     * helper function to block while the budget is exhausted and resets soon
+     * @throws IOException if reset is too far away
+     */
+    private void waitForBudget() throws IOException {
+        if (rateRemaining != 0) { return; }
+        long waitMs = rateResetEpochSeconds * 1000 - System.currentTimeMillis();
+        if (waitMs > MAX_RATE_WAIT_MS) {
+            throw new IOException("GH rate limit exhausted, resets at epoch second " + rateResetEpochSeconds);
+        }
+        sleep(waitMs);
+    }
+
+    /**
+     * helper function to wait as told by Retry-After (seconds) or until rate reset
+     * @param response throttled response
+     * @throws IOException if wait is too long or interrupted
+     */
+    private void sleepUntilRetry(HttpResponse<?> response) throws IOException {
+        long waitMs = response.headers().firstValue("Retry-After")
+                .map(value -> parseLong(value, 1) * 1000)
+                .orElse(rateResetEpochSeconds * 1000 - System.currentTimeMillis());
+        if (waitMs > MAX_RATE_WAIT_MS) {
+            throw new IOException("GH rate limit exhausted, retry in " + waitMs / 1000 + "s");
+        }
+        sleep(waitMs);
+        rateRemaining = -1;  // unknown again until next response
+    }
+
+    /**
+     * helper function to sleep (interrupt aware)
+     * @param ms milliseconds (ignored if not positive)
+     * @throws IOException if interrupted
+     */
+    private static void sleep(long ms) throws IOException {
+        if (ms <= 0) { return; }
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for GH rate limit", e);
+        }
+    }
+
+    /**
+     * helper function to wait until another request may be in flight
+     * @throws IOException if interrupted
+     */
+    private synchronized void acquireSlot() throws IOException {
+        try {
+            while (inFlight >= recommendedConcurrency()) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for GH request slot", e);
+        }
+        inFlight++;
+    }
+
+    /**
+     * helper function to free a request slot
+     */
+    private synchronized void releaseSlot() {
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * helper function to parse a header number
+     * @param value header value
+     * @param fallback value if not a number
+     * @return parsed value
+     */
+    private static long parseLong(String value, long fallback) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * helper function to build a full URL (keeps any path prefix of the base URL)
+     * @param route path (and query) relative to base URL
+     * @return full URL
+     */
+    private URI resolve(String route) {
+        String base = baseUri.toString();
+        return URI.create(base.endsWith("/") ? base.substring(0, base.length() - 1) + route : base + route);
+    }
+
+    /**
+     * helper function to URL-encode a single path segment / query value
+     * @param value raw value
+     * @return encoded value
+     */
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    /**
+     * helper function to URL-encode a file path (keeps the slashes)
+     * @param path raw path
+     * @return encoded path
+     */
+    private static String encodePath(String path) {
+        StringBuilder encoded = new StringBuilder(path.length() + 16);
+        int start = 0;
+        while (start < path.length()) {
+            int end = path.indexOf('/', start);
+            if (end == -1) { end = path.length(); }
+            if (end > start) {
+                if (encoded.length() > 0) { encoded.append('/'); }
+                appendEncoded(encoded, path, start, end);
+            }
+            start = end + 1;
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * helper function to URL-encode one segment of a path in place
+     * segments made only of unreserved characters (the usual case) are copied as they are
+     * @param out destination
+     * @param path path holding the segment
+     * @param start start of the segment
+     * @param end end of the segment (exclusive)
+     */
+    private static void appendEncoded(StringBuilder out, String path, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            boolean unreserved = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '.' || c == '_' || c == '*';
+            if (!unreserved) {
+                out.append(encode(path.substring(start, end)));
+                return;
+            }
+        }
+        out.append(path, start, end);
+    }
+
+}
@@ -0,0 +1,128 @@
+package Asgn3;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * command line check of GHApiClient's ETag cache against a local stub of the contents API
+ * usage: java -cp <jar> Asgn3.GHApiClientBenchmark [files=200] [fileBytes=4096]
+ * the stub answers If-None-Match with 304 (no rate cost, like GH) and counts down X-RateLimit-Remaining on every 200
+ * each scenario fetches every file, then fetches them again in reverse order (most recently used first):
+ * with room for every file the second pass is all 304s, with room for half of them the LRU keeps the last half
+ * also checks that bodies served from the cache equal the stub's content
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class GHApiClientBenchmark {
+
+    // stub
+    private static final int RATE_LIMIT = 5000;
+
+    /**
+     * entry point
+     * @param args files, bytes per file (all optional)
+     * @throws IOException if the local server cannot start or a fetch fails
+     */
+    public static void main(String[] args) throws IOException {
+
+        int files = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+        int fileBytes = (args.length > 1) ? Integer.parseInt(args[1]) : 4096;
+
+        AtomicInteger full = new AtomicInteger();
+        AtomicInteger notModified = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger();
+        HttpServer server = serveContents(fileBytes, full, notModified, remaining);
+
+        try {
+            URI base = URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+            System.out.printf("%d files x %d bytes, second pass in reverse order%n%n", files, fileBytes);
+            System.out.printf("%-10s %10s %10s %10s %10s %12s %10s%n", "cache", "pass1 200", "pass2 200", "pass2 304",
+                    "entries", "bytes", "rate left");
+
+            long all = (long) files * fileBytes;
+            for (long cacheBytes : new long[] {all, all / 2, 0}) {
+                full.set(0);
+                notModified.set(0);
+                remaining.set(RATE_LIMIT);
+                GHApiClient client = new GHApiClient(base, null, cacheBytes);
+
+                for (int file = 0; file < files; file++) { fetch(client, file, fileBytes); }
+                int firstPass = full.get();
+                full.set(0);
+                for (int file = files - 1; file >= 0; file--) { fetch(client, file, fileBytes); }
+
+                System.out.printf("%-10s %10d %10d %10d %10d %12d %10d%n", cacheBytes / 1024 + " KB", firstPass, full.get(),
+                        notModified.get(), client.getCachedResponses(), client.getCachedBytes(), client.getRateRemaining());
+            }
+        } finally {
+            server.stop(0);
+        }
+
+    }
+
+    /**
+     * helper function to fetch one file and compare it with what the stub serves
+     * @param client client under test
+     * @param file file number
+     * @param fileBytes bytes per file
+     * @throws IOException if the fetch fails or the body is wrong
+     */
+    private static void fetch(GHApiClient client, int file, int fileBytes) throws IOException {
+        String content = client.getFileContent("bench", "repo", "src/F" + file + ".java", "main");
+        if (!content.equals(content(file, fileBytes))) { throw new IllegalStateException("wrong body for file " + file); }
+    }
+
+    /**
+     * helper function to start a local stand-in for the contents API (/repos/bench/repo/contents/src/F<n>.java)
+     * @param fileBytes bytes per file
+     * @param full counts 200 responses
+     * @param notModified counts 304 responses
+     * @param remaining rate budget, counted down on every 200
+     * @return started server on a free local port
+     * @throws IOException if the server cannot start
+     */
+    private static HttpServer serveContents(int fileBytes, AtomicInteger full, AtomicInteger notModified,
+                                            AtomicInteger remaining) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            int file = Integer.parseInt(path.substring(path.lastIndexOf("/F") + 2, path.length() - ".java".length()));
+            String etag = "\"f" + file + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("X-RateLimit-Reset", String.valueOf(System.currentTimeMillis() / 1000 + 3600));
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.getResponseHeaders().set("X-RateLimit-Remaining", String.valueOf(remaining.get()));
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                full.incrementAndGet();
+                exchange.getResponseHeaders().set("X-RateLimit-Remaining", String.valueOf(remaining.decrementAndGet()));
+                byte[] body = content(file, fileBytes).getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) { out.write(body); }
+            }
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+
+    /**
+     * helper function to generate a file's content
+     * @param file file number
+     * @param fileBytes length
+     * @return ASCII content
+     */
+    private static String content(int file, int fileBytes) {
+        StringBuilder out = new StringBuilder(fileBytes).append("// F").append(file).append('\n');
+        while (out.length() < fileBytes) { out.append('x'); }
+        out.setLength(fileBytes);
+        return out.toString();
+    }
+
+}
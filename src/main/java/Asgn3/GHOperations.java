@@ -1,6 +1,18 @@
 package Asgn3;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 import javiergs.tulip.GitHubHandler;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -16,6 +28,30 @@ public class GHOperations {
 
     // components
     private final GitHubHandler handler;
+    private final GHApiClient apiClient;
+
+    // config
+    public static final int MAX_CACHED_ARCHIVES = 4;
+    public static final long ARCHIVE_MAX_AGE_MS = TimeUnit.MINUTES.toMillis(10);  // branches move, archives go stale
+
+    // archive cache (whole repo per owner/repo/ref, shared by every folder analyzed from it; see withArchiveCache)
+    private final boolean cacheArchives;
+    private final Map<String, CachedArchive> archives;  // access ordered (LRU), guarded by itself
+    private final AtomicInteger archiveDownloads;
+
+    /**
+     * repo archive kept in memory: every file path plus the contents of the .java files
+     * @param paths all file paths (repo relative, archive order)
+     * @param javaFiles .java file paths mapped to contents
+     */
+    private record RepoArchive(List<String> paths, Map<String, String> javaFiles) {}
+
+    /**
+     * archive cache entry
+     * @param archive archive (still downloading if not done)
+     * @param createdMillis when the download started
+     */
+    private record CachedArchive(CompletableFuture<RepoArchive> archive, long createdMillis) {}
 
     /**
      * constructor
@@ -23,9 +59,54 @@ public class GHOperations {
      */
     public GHOperations(String token) {
 
+        this(token, new GHApiClient(GHApiClient.DEFAULT_BASE_URI, token));
+
+    }
+
+    /**
+     * constructor (custom API client, e.g. pointed at a local stub server)
+     * @param token personal GH token
+     * @param apiClient rate-limit-aware client used for file contents
+     */
+    public GHOperations(String token, GHApiClient apiClient) {
+
+        this(new GitHubHandler(token), apiClient, false, new AtomicInteger());
+
+    }
+
+    /**
+     * constructor
+     * @param handler TULIP handler (folder listings)
+     * @param apiClient rate-limit-aware client used for file contents
+     * @param cacheArchives true to keep downloaded archives (see withArchiveCache)
+     * @param archiveDownloads download counter (shared with copies)
+     */
+    private GHOperations(GitHubHandler handler, GHApiClient apiClient, boolean cacheArchives, AtomicInteger archiveDownloads) {
+
         // initialize components
-        this.handler = new GitHubHandler(token);
+        this.handler = handler;
+        this.apiClient = apiClient;
+        this.cacheArchives = cacheArchives;
+        this.archiveDownloads = archiveDownloads;
+        this.archives = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedArchive> eldest) {
+                return size() > MAX_CACHED_ARCHIVES;
+            }
+        };
+
+    }
 
+    /**
+     * creates a copy that keeps downloaded repo archives in memory, so other folders of the same repo/ref are served
+     * without a download (meant for comparing many folders at once, see Workspace)
+     * the copy shares this instance's API client (ETag cache, rate budget); this instance keeps streaming every archive,
+     * so normal analyses never see a cached (possibly stale) repo
+     * at most MAX_CACHED_ARCHIVES are kept (least recently used go first), none longer than ARCHIVE_MAX_AGE_MS
+     * @return caching copy
+     */
+    public GHOperations withArchiveCache() {
+        return new GHOperations(handler, apiClient, true, archiveDownloads);
     }
 
     /**
@@ -48,30 +129,258 @@ public class GHOperations {
      */
     public static GHInfo parseGHURL(String url) {
 
+        // example:
+        // /<owner>/<repo>/tree/<ref>/....
+        String path = routePath(url);
+        int[] routes = routes(url, path);
+        return new GHInfo(path.substring(routes[0], routes[1]), path.substring(routes[1] + 1, routes[2]),
+                path.substring(routes[3] + 1, routes[4]));
+
+    }
+
+    /**
+     * drops all cached archives
+     */
+    public void clearArchiveCache() {
+        synchronized (archives) { archives.clear(); }
+    }
+
+    /**
+     * gets the number of archives downloaded so far (cached or not)
+     * @return archive downloads
+     */
+    public int getArchiveDownloads() {
+        return archiveDownloads.get();
+    }
+
+    /**
+     * fetches a whole GH folder with a single archive download (instead of one request per file)
+     * the zipball is decompressed as it streams in; only .java entries inside the folder are read into memory
+     * (with the archive cache on, the .java entries of the whole repo are kept, and the download happens once per repo/ref)
+     * @param url GH folder URL
+     * @param javaFileConsumer receives (repo relative path, content) for every .java file in the folder
+     * @return all files in the folder as repo relative paths (same form as listFilesRecursive)
+     * @throws IOException if GH API call fails
+     */
+    public List<String> fetchFolderArchive(String url, BiConsumer<String, String> javaFileConsumer) throws IOException {
+        return fetchFolderArchive(url, path -> true, javaFileConsumer);
+    }
+
+    /**
+     * fetches a whole GH folder with a single archive download, reading only the .java files a filter wants
+     * (entries the filter rejects are skipped without being read, see SourceFilter)
+     * @param url GH folder URL
+     * @param wanted decides from the repo relative path if a .java file is read
+     * @param javaFileConsumer receives (repo relative path, content) for every wanted .java file in the folder
+     * @return all files in the folder as repo relative paths, wanted or not
+     * @throws IOException if GH API call fails
+     */
+    public List<String> fetchFolderArchive(String url, Predicate<String> wanted, BiConsumer<String, String> javaFileConsumer) throws IOException {
+
+        GHInfo info = parseGHURL(url);
+        String folder = parseFolderPath(url);
+        String prefix = folder.isEmpty() ? "" : folder + "/";
+
+        if (!cacheArchives) {
+            return streamArchive(info, prefix, wanted, javaFileConsumer);
+        }
+
+        // cached: filter the folder out of the whole repo
+        RepoArchive archive = cachedArchive(info);
+        List<String> filePaths = new ArrayList<>();
+        for (String path : archive.paths()) {
+            if (!path.startsWith(prefix)) { continue; }
+            filePaths.add(path);
+            String content = archive.javaFiles().get(path);
+            if (content != null && wanted.test(path)) {
+                AnalysisEvents.FileFetchEvent event = new AnalysisEvents.FileFetchEvent();
+                if (event.shouldCommit()) {
+                    event.path = path;
+                    event.source = "cache";
+                    event.bytes = content.length();
+                    event.commit();
+                }
+                javaFileConsumer.accept(path, content);
+            }
+        }
+        return filePaths;
+
+    }
+
+    /**
+     * helper function to get a repo archive from the cache (downloaded by the first caller, others wait for it)
+     * @param info repo and ref
+     * @return archive
+     * @throws IOException if the download failed (failed downloads are not cached)
+     */
+    private RepoArchive cachedArchive(GHInfo info) throws IOException {
+
+        String key = info.owner() + "/" + info.repo() + "@" + info.ref();
+        CompletableFuture<RepoArchive> created = new CompletableFuture<>();
+        CompletableFuture<RepoArchive> existing = null;
+        synchronized (archives) {
+            CachedArchive cached = archives.get(key);
+            if (cached != null && System.currentTimeMillis() - cached.createdMillis() <= ARCHIVE_MAX_AGE_MS) {
+                existing = cached.archive();
+            } else {
+                archives.put(key, new CachedArchive(created, System.currentTimeMillis()));  // missing or expired
+            }
+        }
+
+        if (existing == null) {
+            try {
+                Map<String, String> javaFiles = new LinkedHashMap<>();
+                List<String> paths = streamArchive(info, "", path -> true, javaFiles::put);
+                created.complete(new RepoArchive(List.copyOf(paths), javaFiles));
+            } catch (IOException | RuntimeException e) {
+                synchronized (archives) {
+                    CachedArchive cached = archives.get(key);
+                    if (cached != null && cached.archive() == created) { archives.remove(key); }
+                }
+                created.completeExceptionally(e);
+            }
+        }
+
         try {
+            return (existing == null ? created : existing).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) { throw new IOException(io.getMessage(), io); }
+            throw e;
+        }
 
-            URI uri = new URI(url); // get uri
-            String[] repo_routes = uri.getPath().split("/");
+    }
 
-            // validate GH URL
-            if (repo_routes.length < 5 || !"tree".equals(repo_routes[3])) {
-                throw new IllegalArgumentException("Bad GH URL: " + url);
+    /**
+     * helper function to download and decompress a repo archive
+     * @param info repo and ref
+     * @param prefix only entries under this folder ("" for all, otherwise ends with '/')
+     * @param wanted decides which .java files are read
+     * @param javaFileConsumer receives (repo relative path, content) for every wanted .java file under prefix
+     * @return all files under prefix as repo relative paths
+     * @throws IOException if GH API call fails
+     */
+    private List<String> streamArchive(GHInfo info, String prefix, Predicate<String> wanted,
+                                       BiConsumer<String, String> javaFileConsumer) throws IOException {
+
+        List<String> filePaths = new ArrayList<>();
+        archiveDownloads.incrementAndGet();
+
+        apiClient.streamZipball(info.owner(), info.repo(), info.ref(), body -> {
+            ZipInputStream zip = new ZipInputStream(body, StandardCharsets.UTF_8);
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+
+                // entries look like <owner>-<repo>-<sha>/<path> (checked in place, only kept entries are copied)
+                String name = entry.getName();
+                int rootEnd = name.indexOf('/');
+                if (entry.isDirectory() || rootEnd == -1 || !name.startsWith(prefix, rootEnd + 1)) { continue; }
+                String path = name.substring(rootEnd + 1);
+
+                filePaths.add(path);
+                if (PathTrie.isJava(path) && wanted.test(path)) {
+                    AnalysisEvents.FileFetchEvent event = new AnalysisEvents.FileFetchEvent();
+                    event.begin();
+                    byte[] content = zip.readAllBytes();
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.path = path;
+                        event.source = "archive";
+                        event.bytes = content.length;
+                        event.commit();
+                    }
+                    javaFileConsumer.accept(path, new String(content, StandardCharsets.UTF_8));
+                }
             }
-            // example:
-            // /<owner>/<repo>/tree/<ref>/....
-            return new GHInfo(repo_routes[1], repo_routes[2], repo_routes[4]);
+        });
 
+        return filePaths;
 
-        } catch (URISyntaxException e) {
+    }
+
+    /**
+     * parses GH folder URL to extract the folder path inside the repo
+     * @param url GH folder URL (/<owner>/<repo>/tree/<ref>/<folder(s)...>)
+     * @return folder path without leading/trailing slash ("" for repo root)
+     */
+    public static String parseFolderPath(String url) {
+
+        String path = routePath(url);
+        int[] routes = routes(url, path);
+        int end = routes[5];
+        while (end > routes[4] && path.charAt(end - 1) == '/') { end--; }
+        return (end <= routes[4] + 1) ? "" : path.substring(routes[4] + 1, end);
 
+    }
+
+    /**
+     * helper function to get the part of a GH folder URL that routes are read from
+     * @param url GH folder URL
+     * @return url itself, or its decoded path if it has percent-escapes (rare, slow path)
+     */
+    private static String routePath(String url) {
+
+        if (url.indexOf('%') < 0) { return url; }
+        try {
+            String path = new URI(url).getPath();
+            if (path == null) { throw new IllegalArgumentException("Bad GH URL: " + url); }
+            return path;
+        } catch (URISyntaxException e) {
             throw new IllegalArgumentException("Bad GH URL: " + url, e);
+        }
+
+    }
+
+    /**
+     * helper function to find the routes of a GH folder URL by scanning it once (no URI, no split)
+     * @param url GH folder URL (for error messages)
+     * @param path string to scan (see routePath)
+     * @return offsets into path: owner start, then the '/' (or end) after owner, repo, "tree" and ref, then the path end
+     */
+    private static int[] routes(String url, String path) {
 
+        // path starts after scheme + host (or at the first '/'), ends before any query or fragment
+        int scheme = path.indexOf("://");
+        int start = path.indexOf('/', (scheme < 0) ? 0 : scheme + 3);
+        int end = path.length();
+        for (int i = Math.max(start, 0); i < end; i++) {
+            char c = path.charAt(i);
+            if (c == '?' || c == '#') { end = i; }
         }
+        if (start < 0 || start >= end) { throw new IllegalArgumentException("Bad GH URL: " + url); }
+
+        // /<owner>/<repo>/tree/<ref>[/<folder>]
+        int[] routes = new int[6];
+        routes[0] = start + 1;
+        int at = start + 1;
+        for (int r = 1; r <= 4; r++) {
+            if (at >= end) { throw new IllegalArgumentException("Bad GH URL: " + url); }  // too few routes
+            int slash = path.indexOf('/', at);
+            routes[r] = (slash < 0 || slash > end) ? end : slash;
+            if (routes[r] == at) { throw new IllegalArgumentException("Bad GH URL: " + url); }  // empty route
+            at = routes[r] + 1;
+        }
+        routes[5] = end;
+
+        // validate GH URL
+        if (routes[3] - routes[2] != 5 || !path.startsWith("tree", routes[2] + 1)) {
+            throw new IllegalArgumentException("Bad GH URL: " + url);
+        }
+        return routes;
+
+    }
+
+    /**
+     * suggested number of concurrent file fetches for the remaining GH rate budget
+     * @return 1 to GHApiClient.MAX_CONCURRENCY
+     */
+    public int recommendedConcurrency() {
+
+        return apiClient.recommendedConcurrency();
 
     }
 
     /**
      * retrieves all file contents
+     * conditional request: unchanged files are served from the ETag cache
      * @param owner GH owner that owns file
      * @param repo GH repo the file belongs to
      * @param path GH file path
@@ -81,8 +390,19 @@ public class GHOperations {
      */
     public String getFileContent(String owner, String repo, String path, String ref) throws IOException {
 
+        AnalysisEvents.FileFetchEvent event = new AnalysisEvents.FileFetchEvent();
+        event.begin();
+
         // return file content
-        return handler.getFileContent(owner, repo, path, ref);
+        String content = apiClient.getFileContent(owner, repo, path, ref);
+
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.source = "api";
+            event.bytes = content.length();
+            event.commit();
+        }
+        return content;
 
     }
 
@@ -1,12 +1,17 @@
 package Asgn3;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 /**
  * stores GH Repo's full analysis metrics:
- * file level-- size and complexity
+ * file level-- size and complexity (columnar, see FileMetricsStore)
  * class level-- instability, distance
  * full repo level-- abstraction and filePaths
+ * everything is kept in canonical (sorted) order, so identical input always produces identical output
  *
  * @author Megan Fung
  * @version 1.0
@@ -14,32 +19,176 @@ import java.util.Map;
 public class GHRepoAnalyzed {
 
     // fields
-    public final Map<String, FileLevelMetrics> fileMetrics;
-    public final Map<String, ClassLevelMetrics> classMetrics;
+    public final FileMetricsStore fileMetrics;
+    public final SortedMap<String, ClassLevelMetrics> classMetrics;
     public final double A;
     public final List<String> filePaths;
+    private final List<ClassLevelMetrics> classMetricsList;
+    private final AnalysisProfile profile;
+    private PathTrie pathTrie;  // built lazily unless the analyzer already has one (see getPathTrie)
+    private String umlSource;  // generated lazily (see getUmlSource)
 
     /**
      * constructor
      * @param fileMetrics strings that map to FileLevelMetrics objects
      * @param classMetrics strings that map to ClassLevelMetrics objects
      * @param A abstraction
+     * @param filePaths all files in GH folder
      */
     public GHRepoAnalyzed(Map<String, FileLevelMetrics> fileMetrics,
                           Map<String, ClassLevelMetrics> classMetrics,
                           double A,
                           List<String> filePaths) {
+        this(fileMetrics, classMetrics, A, filePaths, new AnalysisProfile());
+    }
+
+    /**
+     * constructor
+     * @param fileMetrics strings that map to FileLevelMetrics objects (copied into columns, the objects are not kept)
+     * @param classMetrics strings that map to ClassLevelMetrics objects
+     * @param A abstraction
+     * @param filePaths all files in GH folder
+     * @param profile stage costs of the analysis that produced this result
+     */
+    public GHRepoAnalyzed(Map<String, FileLevelMetrics> fileMetrics,
+                          Map<String, ClassLevelMetrics> classMetrics,
+                          double A,
+                          List<String> filePaths,
+                          AnalysisProfile profile) {
+        this(fileMetrics, classMetrics, A, filePaths, null, profile);
+    }
+
+    /**
+     * constructor
+     * @param fileMetrics strings that map to FileLevelMetrics objects (copied into columns, the objects are not kept)
+     * @param classMetrics strings that map to ClassLevelMetrics objects
+     * @param A abstraction
+     * @param filePaths all files in GH folder
+     * @param pathTrie trie of filePaths built while fetching (null to build it when first needed)
+     * @param profile stage costs of the analysis that produced this result
+     */
+    GHRepoAnalyzed(Map<String, FileLevelMetrics> fileMetrics,
+                   Map<String, ClassLevelMetrics> classMetrics,
+                   double A,
+                   List<String> filePaths,
+                   PathTrie pathTrie,
+                   AnalysisProfile profile) {
+        this(new FileMetricsStore(fileMetrics), classMetrics, A, filePaths, pathTrie, profile);
+    }
+
+    /**
+     * constructor
+     * @param fileMetrics file metrics, already in columns (see FileMetricsStore.Builder)
+     * @param classMetrics strings that map to ClassLevelMetrics objects
+     * @param A abstraction
+     * @param filePaths all files in GH folder
+     * @param pathTrie trie of filePaths built while fetching (null to build it when first needed)
+     * @param profile stage costs of the analysis that produced this result
+     */
+    GHRepoAnalyzed(FileMetricsStore fileMetrics,
+                   Map<String, ClassLevelMetrics> classMetrics,
+                   double A,
+                   List<String> filePaths,
+                   PathTrie pathTrie,
+                   AnalysisProfile profile) {
+        this.profile = profile;
+        this.pathTrie = pathTrie;
         this.fileMetrics = fileMetrics;
-        this.classMetrics = classMetrics;
+        this.classMetrics = Collections.unmodifiableSortedMap(sorted(classMetrics));
         this.A = A;
-        this.filePaths = filePaths;
+
+        // sort paths once (listing order is up to the GH API)
+        List<String> sortedPaths = new ArrayList<>(filePaths);
+        Collections.sort(sortedPaths);
+        this.filePaths = Collections.unmodifiableList(sortedPaths);
+
+        // values in key order, shared by every panel
+        this.classMetricsList = List.copyOf(this.classMetrics.values());
 
     }
 
+    /**
+     * constructor: same files, paths and profile as another analysis, different class metrics
+     * @param analysis analysis to share the rest with
+     * @param classMetrics strings that map to ClassLevelMetrics objects
+     */
+    private GHRepoAnalyzed(GHRepoAnalyzed analysis, Map<String, ClassLevelMetrics> classMetrics) {
+        this.profile = analysis.profile;
+        this.pathTrie = analysis.pathTrie;
+        this.fileMetrics = analysis.fileMetrics;
+        this.classMetrics = Collections.unmodifiableSortedMap(sorted(classMetrics));
+        this.A = analysis.A;
+        this.filePaths = analysis.filePaths;
+        this.classMetricsList = List.copyOf(this.classMetrics.values());
+    }
+
+    /**
+     * builds a copy of this analysis with other class metrics (this one is left as is)
+     * @param classMetrics strings that map to ClassLevelMetrics objects
+     * @return new analysis sharing this one's file metrics, paths and profile
+     */
+    synchronized GHRepoAnalyzed withClassMetrics(Map<String, ClassLevelMetrics> classMetrics) {
+        return new GHRepoAnalyzed(this, classMetrics);
+    }
+
+    /**
+     * helper function to get a sorted map without copying one that is already sorted
+     * @param map map to sort
+     * @return map sorted by key
+     * @param <V> value type
+     */
+    private static <V> SortedMap<String, V> sorted(Map<String, V> map) {
+        if (map instanceof SortedMap<String, V> sortedMap && sortedMap.comparator() == null) {
+            return sortedMap;
+        }
+        return new TreeMap<>(map);
+    }
+
     // getters
-    public Map<String, FileLevelMetrics> getFileMetrics() { return fileMetrics; }
-    public Map<String, ClassLevelMetrics> getClassMetrics() { return classMetrics; }
+    public FileMetricsStore getFileMetrics() { return fileMetrics; }
+    public SortedMap<String, ClassLevelMetrics> getClassMetrics() { return classMetrics; }
     public double getA() { return A; }
     public List<String> getFilePaths() { return filePaths; }
+    public List<ClassLevelMetrics> getClassMetricsList() { return classMetricsList; }
+    public AnalysisProfile getProfile() { return profile; }
+
+    /**
+     * runs a query over this analysis' classes (top-K, range filters, pages, see ClassQuery)
+     * @param query query to run
+     * @param offset matches to skip
+     * @param limit largest page size
+     * @return page of matching classes
+     */
+    public ClassQuery.Page query(ClassQuery query, int offset, int limit) {
+        return query.run(classMetricsList, offset, limit);
+    }
+
+    /**
+     * gets the interned path model of this analysis' files (what the side panel shows)
+     * the analyzer hands over the trie it fetched with; otherwise it is built on first request
+     * @return path trie
+     */
+    public synchronized PathTrie getPathTrie() {
+        if (pathTrie == null) {
+            pathTrie = PathTrie.of(PathTrie.ROOT_NAME, filePaths);
+        }
+        return pathTrie;
+    }
+
+    /**
+     * gets PlantUML source for this analysis
+     * generated on first request and reused afterwards (diagram panel, debug report, ...)
+     * generation is recorded as the "uml" stage of this analysis' profile
+     * @return PlantUML syntax string
+     */
+    public synchronized String getUmlSource() {
+        if (umlSource == null) {
+            try (AnalysisProfile.Timer stage = profile.start(AnalysisProfile.UML)) {
+                umlSource = PlantUMLGenerator.generateUML(this);
+                stage.items(classMetrics.size());
+            }
+        }
+        return umlSource;
+    }
 
 }
@@ -1,8 +1,15 @@
 package Asgn3;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * computes GH Repo metrics
@@ -20,6 +27,21 @@ public class GHRepoAnalyzer {
 
     // components
     private final GHOperations ghOperations;
+    private boolean bulkFetch = false;  // always one archive download instead of one request per file
+    private SourceFilter sourceFilter = SourceFilter.ALL;  // which .java files are fetched and analyzed
+    private final MetricEngine metricEngine = MetricEngine.withDefaults();  // WMC, LCOM, RFC, DIT, NOC, fan-in/out + user metrics
+
+    // config
+    public static final int BULK_FETCH_MIN_FILES = 200;  // listed .java files from which one archive beats per-file requests
+    public static final int MAX_STRUCTURE_CHARS = 2_000_000;  // larger files only get file metrics, no classes
+    public static final long FILE_BUDGET_STEPS = 10_000_000L;  // work per file: lexing + extraction + summaries (see JavaLexer.steps)
+    private static final JavaLexer EMPTY_BODY = JavaLexer.lex("{}");  // body of classes past the work budget
+    private static final Pattern SIGNATURE = Pattern.compile("\\b(class|interface)\\s+(\\w+)\\s*([^\\{\\n]*)\\{");
+    private static final ClassQuery FURTHEST = ClassQuery.ALL.orderBy(ClassQuery.Metric.D, true);
+    private static final int LOGGED_CLASSES = 5;
+
+    // logger
+    private static final Logger logger = LoggerFactory.getLogger(GHRepoAnalyzer.class);
 
     /**
      * constructor
@@ -32,6 +54,34 @@ public class GHRepoAnalyzer {
 
     }
 
+    /**
+     * chooses how files are pulled from GH
+     * by default a folder is listed first and its files are fetched one by one (ETag cached, so unchanged files are free);
+     * only folders with BULK_FETCH_MIN_FILES or more wanted .java files switch to one archive download, because the archive
+     * holds the whole repo and is not conditional
+     * @param bulkFetch true: always a single zipball download (e.g. with an archive cache, see Workspace),
+     *                  false: list folder + one request per file, unless the folder is large
+     */
+    public void setBulkFetch(boolean bulkFetch) {
+        this.bulkFetch = bulkFetch;
+    }
+
+    /**
+     * chooses which .java files of a folder are analyzed (globs and generated code, see SourceFilter)
+     * @param sourceFilter filter applied before fetching (paths) and before lexing (contents)
+     */
+    public void setSourceFilter(SourceFilter sourceFilter) {
+        this.sourceFilter = sourceFilter;
+    }
+
+    /**
+     * gets the engine that evaluates additional metrics (register user metrics here)
+     * @return metric engine
+     */
+    public MetricEngine getMetricEngine() {
+        return metricEngine;
+    }
+
     /**
      * analyzes all files for a GH folder URL
      * @param GHUrl GH folder URL
@@ -40,28 +90,230 @@ public class GHRepoAnalyzer {
      */
     public GHRepoAnalyzed analyzeFiles(String GHUrl) throws IOException {
 
+        AnalysisProfile profile = AnalysisMetrics.getInstance().newProfile();
+        PathTrie paths = new PathTrie();  // built once, shared with the side panel (see GHRepoAnalyzed.getPathTrie)
+        Map<String, String> fileContents = fetch(GHUrl, paths, path -> true, profile);
+        return link(prepareFiles(fileContents, profile).values(), paths, null, profile);
+
+    }
+
+    /**
+     * estimates a GH folder's metrics from a random subset of its .java files (see SampleEstimate)
+     * only the sampled files are fetched and analyzed; every file the source filter lets through still counts
+     * as a project class (named after the file), so references from sampled classes to unsampled ones are kept
+     * @param GHUrl GH folder URL
+     * @param rate probability of each file being sampled (0 to 1)
+     * @param seed sample seed (same seed --> same files)
+     * @return analysis of the sampled files plus estimates for the whole folder
+     * @throws IOException if GH API access fails
+     */
+    public SampleEstimate analyzeSample(String GHUrl, double rate, long seed) throws IOException {
+
+        if (!(rate > 0 && rate <= 1)) { throw new IllegalArgumentException("Sample rate must be above 0 and at most 1: " + rate); }
+
+        AnalysisProfile profile = AnalysisMetrics.getInstance().newProfile();
+        PathTrie paths = new PathTrie();
+        Map<String, String> fileContents = fetch(GHUrl, paths, path -> SampleEstimate.isSampled(path, rate, seed), profile);
+
+        // project classes: every file that could have been sampled (keeps Ce exact)
+        Map<String, Integer> outsideCa = new HashMap<>();
+        int population = 0;
+        for (PathTrie.Node file : paths.getJavaFiles()) {
+            if (!sourceFilter.acceptsPath(file.getPath())) { continue; }
+            population++;
+            String name = file.getName();
+            outsideCa.put(name.substring(0, name.length() - ".java".length()), 0);
+        }
+
+        GHRepoAnalyzed analysis = link(prepareFiles(fileContents, profile).values(), paths, outsideCa, profile);
+
+        // references from sampled classes to the classes left out (how Ca is spread over the folder)
+        outsideCa.keySet().removeAll(analysis.getClassMetrics().keySet());
+        int[] outside = new int[outsideCa.size()];
+        int i = 0;
+        for (int count : outsideCa.values()) { outside[i++] = count; }
+
+        SampleEstimate estimate = new SampleEstimate(analysis, rate, fileContents.size(), population, outside);
+        logger.info("{}", estimate);
+        return estimate;
+
+    }
+
+    /**
+     * helper function to list a GH folder and fetch the .java files the source filter (and sample) let through
+     * paths are filtered before anything is fetched, contents before anything is lexed
+     * @param GHUrl GH folder URL
+     * @param paths receives every file in the folder
+     * @param sample decides (by path) which of the filtered files are fetched
+     * @param profile records stage costs
+     * @return file names mapped to contents (sorted by file name)
+     * @throws IOException if GH API access fails
+     */
+    private Map<String, String> fetch(String GHUrl, PathTrie paths, Predicate<String> sample, AnalysisProfile profile) throws IOException {
+
         // GH setup
         GHInfo ghInfo = GHOperations.parseGHURL(GHUrl);
-        List<String> filePaths = ghOperations.listFilesRecursive(GHUrl);
+        SourceFilter filter = sourceFilter;
+        Predicate<String> wanted = path -> filter.acceptsPath(path) && sample.test(path);
+        Map<String, String> fileContents = new TreeMap<>();  // sorted by file name (canonical order)
+
+        // small folders: listing + per-file requests (large ones switch to the archive)
+        boolean archive = bulkFetch;
+        if (!archive) {
+            try (AnalysisProfile.Timer stage = profile.start(AnalysisProfile.LISTING)) {
+                paths.addAll(ghOperations.listFilesRecursive(GHUrl));
+                stage.items(paths.getFileCount());
+            }
+            int wantedFiles = 0;
+            for (PathTrie.Node file : paths.getJavaFiles()) {
+                if (wanted.test(file.getPath())) { wantedFiles++; }
+            }
+            archive = wantedFiles >= BULK_FETCH_MIN_FILES;
+        }
 
-        // map filenames to its contents
-        Map<String, String> fileContents = loadFiles(ghInfo, filePaths);
+        if (archive) {
+            // list + fetch in one archive download, java files arrive as they are decompressed
+            try (AnalysisProfile.Timer stage = profile.start(AnalysisProfile.FETCHING)) {
+                List<String> filePaths = ghOperations.fetchFolderArchive(GHUrl, wanted, (path, content) -> {
+                    String fileName = paths.add(path).getName();
+                    if (filter.acceptsContent(content)) { fileContents.put(fileName, content); }
+                });
+                paths.addAll(filePaths);
+                stage.items(fileContents.size());
+            }
+        } else {
+            // map filenames to its contents
+            try (AnalysisProfile.Timer stage = profile.start(AnalysisProfile.FETCHING)) {
+                fileContents.putAll(loadFiles(ghInfo, paths, wanted, filter));
+                stage.items(fileContents.size());
+            }
+        }
 
-        // map filenames to file level metrics
-        Map<String, FileLevelMetrics> fileMetrics = calculateFileMetrics(fileContents);
+        if (fileContents.size() < paths.getJavaFiles().size()) {
+            logger.info("Analyzing {} of {} .java files (filter: {})", fileContents.size(), paths.getJavaFiles().size(), filter);
+        }
+        return fileContents;
 
-        // create container for classes
-        List<JavaClass> classes = new ArrayList<>();
+    }
+
+    /**
+     * analyzes source files that are already in memory (local folders, git history, ...)
+     * @param fileContents file names mapped to contents
+     * @param filePaths all files in the folder (shown in the side panel)
+     * @param profile records stage costs
+     * @return analysis
+     */
+    public GHRepoAnalyzed analyzeSources(Map<String, String> fileContents, List<String> filePaths, AnalysisProfile profile) {
+
+        return link(prepareFiles(fileContents, profile).values(), filePaths, profile);
 
-        // iterate over file contents in GH repo to extract all classes
-        for (String fileContent : fileContents.values()) {
-            List<JavaClass> fileClasses = extractClasses(fileContent);
-            cleanClassBodies(fileClasses, fileContent);
-            classes.addAll(fileClasses);
+    }
+
+    /**
+     * per-file stages: lexing, file metrics, class extraction and member summaries
+     * the result of a file only depends on its content, so incremental analyses keep it until the file changes
+     * @param fileContents file names mapped to contents
+     * @param profile records stage costs
+     * @return file names mapped to prepared files (sorted by file name)
+     */
+    SortedMap<String, MetricEngine.Unit> prepareFiles(Map<String, String> fileContents, AnalysisProfile profile) {
+
+        // tokenize once per file: tokens + bracket pairs, and the code without comments and strings
+        // (shared by complexity, class extraction and member summaries)
+        Map<String, JavaLexer> fileTokens = new TreeMap<>();
+        Map<String, String> cleanedContents = new TreeMap<>();
+        try (AnalysisProfile.Timer stage = profile.start(AnalysisProfile.LEXING)) {
+            fileContents.forEach((name, content) -> {
+                JavaLexer tokens = lex(name, content);
+                fileTokens.put(name, tokens);
+                cleanedContents.put(name, tokens.code());
+            });
+            stage.items(cleanedContents.size());
+        }
+
+        // file level metrics, one slot per file (in fileContents order)
+        int[] sizes = new int[fileContents.size()];
+        int[] complexities = new int[fileContents.size()];
+        try (AnalysisProfile.Timer stage = profile.start(AnalysisProfile.FILE_METRICS)) {
+            calculateFileMetrics(fileContents, cleanedContents, sizes, complexities);
+            stage.items(sizes.length);
+        }
+
+        // tokens + classes per file, reused by the metric engine
+        SortedMap<String, MetricEngine.Unit> units = new TreeMap<>();
+
+        // iterate over file contents to extract all classes
+        try (AnalysisProfile.Timer stage = profile.start(AnalysisProfile.EXTRACTION)) {
+            int classCount = 0;
+            int slot = 0;
+            for (var fileContent : fileContents.entrySet()) {
+                String name = fileContent.getKey();
+                JavaLexer tokens = fileTokens.get(name);
+                List<JavaClass> fileClasses;
+                if (fileContent.getValue().length() > MAX_STRUCTURE_CHARS) {
+                    logger.warn("Skipping classes of {}: {} characters (limit {})", name, fileContent.getValue().length(), MAX_STRUCTURE_CHARS);
+                    fileClasses = new ArrayList<>();
+                } else {
+                    // the budget counts work, not time, so identical input always gives identical output
+                    long budget = FILE_BUDGET_STEPS - tokens.steps();  // lexing (linear) is charged first
+                    fileClasses = extractClasses(name, fileContent.getValue(), cleanedContents.get(name), tokens, budget);
+                    summarizeClasses(name, fileClasses, tokens, budget - fileContent.getValue().length());
+                }
+                units.put(name, metricEngine.newUnit(name, tokens, sizes[slot], complexities[slot], fileClasses));
+                slot++;
+                classCount += fileClasses.size();
+            }
+            stage.items(classCount);
+        }
+
+        return units;
+
+    }
+
+    /**
+     * project-wide stages: relationships between classes, class metrics and engine metrics
+     * always runs over every file (a change in one class can change Ca / Ce of any other)
+     * files without tokens (unchanged since the last run) keep the token metrics they already have
+     * @param units prepared files (see prepareFiles), in file name order
+     * @param filePaths all files in the folder
+     * @param profile records stage costs
+     * @return analysis
+     */
+    GHRepoAnalyzed link(Collection<MetricEngine.Unit> units, List<String> filePaths, AnalysisProfile profile) {
+        return link(units, filePaths, null, null, profile);
+    }
+
+    /**
+     * project-wide stages for files whose paths are already in a trie (see link)
+     * @param units prepared files (see prepareFiles), in file name order
+     * @param paths all files in the folder
+     * @param outsideCa project classes that were not analyzed, counts their incoming references (null for none)
+     * @param profile records stage costs
+     * @return analysis (shares the trie)
+     */
+    GHRepoAnalyzed link(Collection<MetricEngine.Unit> units, PathTrie paths, Map<String, Integer> outsideCa, AnalysisProfile profile) {
+        return link(units, paths.getFilePaths(), paths, outsideCa, profile);
+    }
+
+    /**
+     * helper function for both link variants
+     * @param units prepared files, in file name order
+     * @param filePaths all files in the folder
+     * @param paths trie of filePaths (null to build it when first needed)
+     * @param outsideCa project classes that were not analyzed, counts their incoming references (null for none)
+     * @param profile records stage costs
+     * @return analysis
+     */
+    private GHRepoAnalyzed link(Collection<MetricEngine.Unit> units, List<String> filePaths, PathTrie paths,
+                                Map<String, Integer> outsideCa, AnalysisProfile profile) {
+
+        List<JavaClass> classes = new ArrayList<>();
+        for (MetricEngine.Unit unit : units) {
+            classes.addAll(unit.classes());
         }
 
-        // create container for class level metrics
-        Map<String, ClassLevelMetrics> classMetrics = new HashMap<>();
+        // create container for class level metrics (hashed: every stage looks classes up by name, GHRepoAnalyzed sorts it once)
+        Map<String, ClassLevelMetrics> classMetrics = new HashMap<>(classes.size() * 2);
 
         // prepare objects for class level metric computations
         for (JavaClass javaClass : classes) {
@@ -69,97 +321,164 @@ public class GHRepoAnalyzer {
         }
 
         // analyze class relationships (calculate Ca and Ce)
-        inspectSignatures(classes, classMetrics);
-        inspectBodies(classes, classMetrics);
+        try (AnalysisProfile.Timer stage = profile.start(AnalysisProfile.SIGNATURES)) {
+            inspectSignatures(classes, classMetrics);
+            stage.items(classes.size());
+        }
+        try (AnalysisProfile.Timer stage = profile.start(AnalysisProfile.BODIES)) {
+            inspectBodies(classes, classMetrics, outsideCa);
+            stage.items(classes.size());
+        }
 
         // analyze additional relationships (composition, aggregation, association, singleton)
-        analyzeRelationships(classes, classMetrics);
+        try (AnalysisProfile.Timer stage = profile.start(AnalysisProfile.RELATIONSHIPS)) {
+            analyzeRelationships(classes, classMetrics);
+            stage.items(classes.size());
+        }
 
         // compute class level metrics (A, I, D)
-        double A = calculateClassMetrics(classes, classMetrics);
-        
+        double A;
+        try (AnalysisProfile.Timer stage = profile.start(AnalysisProfile.CLASS_METRICS)) {
+            A = calculateClassMetrics(classes, classMetrics);
+            stage.items(classMetrics.size());
+        }
+
+        // additional metrics (one pass over the tokens / summaries, files in parallel)
+        List<MetricEngine.Unit> engineUnits = List.copyOf(units);
+        try (AnalysisProfile.Timer stage = profile.start(AnalysisProfile.METRICS)) {
+            metricEngine.evaluate(engineUnits, classMetrics);
+            stage.items(engineUnits.size());
+        }
+
+        // file level metrics: one row per unit, straight into the columns
+        FileMetricsStore.Builder fileMetrics = new FileMetricsStore.Builder(engineUnits.size());
+        for (MetricEngine.Unit unit : engineUnits) {
+            MetricEngine.addFile(unit, fileMetrics);
+        }
+
+        GHRepoAnalyzed analysis = new GHRepoAnalyzed(fileMetrics.build(), classMetrics, A, filePaths, paths, profile);
+
         // log all metrics for debugging
-        logAnalysisResults(fileMetrics, classMetrics, A);
+        logAnalysisResults(analysis);
 
-        return new GHRepoAnalyzed(fileMetrics, classMetrics, A, filePaths);
+        return analysis;
 
     }
 
     /**
      * loads all files from GH URL
+     * files are fetched concurrently; GHApiClient throttles how many requests are in flight
+     * based on the remaining GH rate budget
      * @param info  GHInfo objects containing GH metadata
-     * @param filePaths  files in GH folder
+     * @param paths  files in GH folder
+     * @param wanted  decides (by path) which java files are fetched
+     * @param filter  drops fetched files by content (generated code)
      * @return  maps file names to its contents
      * @throws IOException throw error if no java files
      */
-    private Map<String, String> loadFiles(GHInfo info, List<String> filePaths) throws IOException {
-
-        Map<String, String> fileContents = new HashMap<>();
-        for (String filePath : filePaths) {
+    private Map<String, String> loadFiles(GHInfo info, PathTrie paths, Predicate<String> wanted, SourceFilter filter) throws IOException {
+
+        // start one fetch per wanted java file (the trie already knows which files are java files and their names)
+        ExecutorService pool = Executors.newFixedThreadPool(GHApiClient.MAX_CONCURRENCY);
+        Map<String, Future<String>> pending = new TreeMap<>();  // sorted by file name (canonical order)
+        try {
+            for (PathTrie.Node file : paths.getJavaFiles()) {
+                String filePath = file.getPath();
+                if (!wanted.test(filePath)) { continue; }
+                pending.put(file.getName(), pool.submit(() -> ghOperations.getFileContent(info.owner(), info.repo(), filePath, info.ref())));
+            }
 
-            // confirm java file
-            if (!filePath.toLowerCase().endsWith(".java")) {
-                continue;
+            // collect results
+            Map<String, String> fileContents = new TreeMap<>();
+            for (Map.Entry<String, Future<String>> entry : pending.entrySet()) {
+                String content = await(entry.getValue());
+                if (filter.acceptsContent(content)) { fileContents.put(entry.getKey(), content); }
             }
-            String fileContent = ghOperations.getFileContent(info.owner(), info.repo(), filePath, info.ref());
-            String fileName = filePath.substring(filePath.lastIndexOf('/') + 1);
-            fileContents.put(fileName, fileContent);
+            return fileContents;
+
+        } finally {
+            pool.shutdownNow();  // cancels remaining fetches if one failed
         }
-        return fileContents;
     }
 
     /**
-     * calculates file level metrics (size + complexity)
-     * @param fileContents filenames mapped to their contents
-     * @return  filenames mapped to their file metrics
+     * helper function to wait for a file fetch
+     * @param fetch pending fetch
+     * @return file content
+     * @throws IOException if fetch failed or was interrupted
+     */
+    private String await(Future<String> fetch) throws IOException {
+        try {
+            return fetch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while fetching files", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) { throw io; }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * helper function to tokenize one file (emits a JFR event per file)
+     * @param name file name
+     * @param content file contents
+     * @return tokens with bracket pairs
      */
-    private Map<String, FileLevelMetrics> calculateFileMetrics(Map<String, String> fileContents) {
+    private JavaLexer lex(String name, String content) {
 
-        Map<String, FileLevelMetrics> fileMetrics = new HashMap<>();  // result
+        AnalysisEvents.FileLexEvent event = new AnalysisEvents.FileLexEvent();
+        event.begin();
 
-        // no files to analyze
-        if (fileContents.isEmpty()) {
-            return fileMetrics;
+        JavaLexer tokens = JavaLexer.lex(content);
+
+        if (event.shouldCommit()) {
+            event.file = name;
+            event.chars = content.length();
+            event.commit();
         }
+        return tokens;
+
+    }
+
+    /**
+     * calculates file level metrics (size + complexity)
+     * @param fileContents filenames mapped to their contents
+     * @param cleanedContents filenames mapped to their contents without comments and strings
+     * @param sizes receives each file's size (in fileContents order)
+     * @param complexities receives each file's complexity (in fileContents order)
+     */
+    private void calculateFileMetrics(Map<String, String> fileContents, Map<String, String> cleanedContents,
+                                      int[] sizes, int[] complexities) {
 
         // iterate over file content map to calculate file level metrics
+        int slot = 0;
         for (var fileContent : fileContents.entrySet()) {
 
             String name = fileContent.getKey();
             String content = fileContent.getValue();
 
-            // create object for current file
-            FileLevelMetrics file = new FileLevelMetrics(name);
-
             // calculate size (non-empty lines)
-            int size = (int) content.lines().filter(line -> !line.trim().isEmpty()).count();
-            file.setSize(size);
+            sizes[slot] = (int) content.lines().filter(line -> !line.trim().isEmpty()).count();
 
             // calculate complexity (# of control statements)
-            file.setComplexity(countComplexity(content));
-
-            // add file to file metrics list
-            fileMetrics.put(name, file);
+            complexities[slot] = countComplexity(cleanedContents.get(name));
+            slot++;
 
         }
 
-        return fileMetrics;
-
     }
 
     /**
      * helper function to calculate number of control statements in a file
-     * @param content file contents as a string
+     * @param cleaned file contents without string literals and comments
      * @return number of control statements present
      */
-    private int countComplexity(String content) {
+    private int countComplexity(String cleaned) {
 
         int count = 0;  // establish a counter
         String[] controlStatements = {"if", "switch", "for", "while"};  // control statements
 
-        // clean content: remove string literals and comments (use character-by-character parsing)
-        String cleaned = removeCommentsAndStrings(content);
-
         // iterate through control statements
         for (String controlStatement : controlStatements) {
 
@@ -184,34 +503,43 @@ public class GHRepoAnalyzer {
 
     /**
      * get all classes that exist in a file
+     * class bodies end at the '}' paired by the lexer (braces in comments and strings do not count);
+     * a class whose '{' is never closed runs to the end of the file
+     * @param name file name (for warnings)
      * @param fileContent file's source code
-     * @return list of JavaClass objects containing class name, signature, and class body as a substring of fileContent
+     * @param cleanedContent file's source code without comments and strings (avoids false matches)
+     * @param tokens file's tokens
+     * @param budget characters the signature search may scan (the rest of the file's work budget)
+     * @return list of JavaClass objects containing class name, signature, and body offsets in fileContent
      */
-    private List<JavaClass> extractClasses(String fileContent) {
+    private List<JavaClass> extractClasses(String name, String fileContent, String cleanedContent, JavaLexer tokens, long budget) {
 
         List<JavaClass> classes = new ArrayList<>();
 
-        // remove comments and strings to avoid false matches
-        String cleanedContent = removeCommentsAndStrings(fileContent);
-
         // use non-greedy pattern WITHOUT dotall mode to prevent catastrophic backtracking
         // limit the signature part to same-line content only (no newlines in capture group)
-        Pattern signaturePattern = Pattern.compile("\\b(class|interface)\\s+(\\w+)\\s*([^\\{\\n]*)\\{");
-        Matcher matcher = signaturePattern.matcher(cleanedContent);
+        Matcher matcher = SIGNATURE.matcher(cleanedContent);
 
         // extract classes
         while (matcher.find()) {
+            if (matcher.end() > budget) {
+                logger.warn("Class extraction of {} over budget: kept the first {} classes", name, classes.size());
+                break;
+            }
+
             String classType = matcher.group(1);
             String className = matcher.group(2);
             String endOfSig = matcher.group(3).trim();
-            
+
+            // closing brace from the pair table (a class missing its '}' ends with its last token)
             int openBrace = matcher.end() - 1;
-            int closeBrace = findCloseBrace(fileContent, openBrace);
-            if (closeBrace == -1) { continue; }
+            int open = tokens.indexAt(openBrace);
+            if (!tokens.isSymbol(open, '{') || tokens.start(open) != openBrace) { continue; }
+            int close = tokens.matching(open);
+            int closeBrace = (close < tokens.count()) ? tokens.end(close) - 1 : fileContent.length() - 1;
 
             // create JavaClass
             JavaClass currClass = new JavaClass(className, endOfSig, openBrace, closeBrace);
-            currClass.fullBody = fileContent.substring(openBrace, closeBrace + 1);
 
             // set class type
             if (classType.equals("interface")) {
@@ -237,57 +565,44 @@ public class GHRepoAnalyzer {
     }
 
     /**
-     * removes nested class definitions from parent class bodies
-     * @param classes list of all classes (including nested)
-     * @param fileContent original file content (needed for substring operations)
+     * builds the member summary of every class in a file
+     * a summary walks the class' own tokens (nested classes are skipped), which is charged to the budget up front;
+     * classes that no longer fit only get their signature summarized (no members, no references)
+     * @param name file name (for warnings)
+     * @param classes classes extracted from the file (in file order)
+     * @param tokens file's tokens
+     * @param budget tokens the summaries may walk (the rest of the file's work budget)
      */
-    private void cleanClassBodies(List<JavaClass> classes, String fileContent) {
-
-        // iterate over extracted classes to remove nestsed classes
-        for (JavaClass parentClass : classes) {
-
-            StringBuilder cleaned = new StringBuilder(parentClass.fullBody);
-            int parentStart = parentClass.openBrace;
-
-            // iterate over other classes to remove nested classes
-            for (JavaClass potentialNested : classes) {
-
-                // skip self
-                if (parentClass == potentialNested) { continue; }
-
-                // check if nested (potentialNested's braces are within parent's range)
-                boolean isNested = potentialNested.openBrace > parentClass.openBrace &&
-                        potentialNested.closeBrace < parentClass.closeBrace;
-
-                // found nested class
-                if (isNested) {
-                    
-                    int nestedStart = potentialNested.openBrace;
-                    int nestedEnd = potentialNested.closeBrace;
-
-                    // go back to find start of class signature
-                    int declarationStart = nestedStart;
-                    while (declarationStart > parentStart) {
-                        char c = fileContent.charAt(declarationStart - 1);
-                        if (c == ';' || c == '}') {
-                            break;  // found the end of previous statement
-                        }
-                        declarationStart--;
-                    }
-
-                    // calculate positions relative to parent's body
-                    int relativeStart = declarationStart - parentStart;
-                    int relativeEnd = nestedEnd + 1 - parentStart;  // +1 to include closing brace
-
-                    // remove nested class (replace with whitespace)
-                    for (int i = relativeStart; i < relativeEnd && i < cleaned.length(); i++) {
-                        cleaned.setCharAt(i, ' ');
-                    }
-                }
-            }
+    private void summarizeClasses(String name, List<JavaClass> classes, JavaLexer tokens, long budget) {
+
+        // own tokens of each class: its span minus the spans of classes directly nested in it
+        int[] opens = new int[classes.size()];
+        int[] closes = new int[classes.size()];
+        long[] own = new long[classes.size()];
+        int[] enclosing = new int[classes.size()];  // stack of classes containing the current one
+        int depth = 0;
+        for (int c = 0; c < classes.size(); c++) {
+            opens[c] = tokens.indexAt(classes.get(c).openBrace);
+            closes[c] = Math.min(tokens.matching(opens[c]), tokens.count() - 1);
+            own[c] = closes[c] - opens[c] + 1;
+            while (depth > 0 && closes[enclosing[depth - 1]] < opens[c]) { depth--; }
+            if (depth > 0) { own[enclosing[depth - 1]] -= Math.min(own[c], closes[enclosing[depth - 1]] - opens[c] + 1); }
+            enclosing[depth++] = c;
+        }
 
-            // store cleaned body
-            parentClass.cleanedBody = cleaned.toString();
+        int skipped = 0;
+        for (int c = 0; c < classes.size(); c++) {
+            JavaClass javaClass = classes.get(c);
+            budget -= own[c];
+            if (budget < 0) {
+                javaClass.summary = ClassSummary.of(EMPTY_BODY, 0, javaClass.name, javaClass.signature);
+                skipped++;
+                continue;
+            }
+            javaClass.summary = ClassSummary.of(tokens, opens[c], javaClass.name, javaClass.signature);
+        }
+        if (skipped > 0) {
+            logger.warn("Class summaries of {} over budget: {} of {} classes without members", name, skipped, classes.size());
         }
 
     }
@@ -303,65 +618,22 @@ public class GHRepoAnalyzer {
         for (JavaClass javaClass : classes) {
 
             String className = javaClass.name;
-            String signatureContent = javaClass.signature;
 
             // generalization 
-            int extendsIdx = signatureContent.indexOf("extends");
-            if (extendsIdx != -1) {
-                // extract parent class name
-                int start = extendsIdx + 7;
-                while (start < signatureContent.length() && Character.isWhitespace(signatureContent.charAt(start))) {
-                    start++;
-                }
-                StringBuilder parentClassBuilder = new StringBuilder();
-                while (start < signatureContent.length() && Character.isJavaIdentifierPart(signatureContent.charAt(start))) {
-                    parentClassBuilder.append(signatureContent.charAt(start));
-                    start++;
-                }
-                String parentClass = parentClassBuilder.toString();
-                
-                if (!parentClass.isEmpty()) {
-                    classMetrics.get(className).incrementCe();
-                    classMetrics.get(className).addExtends(parentClass);
-                    if (classMetrics.containsKey(parentClass)) {
-                        classMetrics.get(parentClass).incrementCa();
-                    }
+            for (String parentClass : javaClass.summary.getExtendsTypes()) {
+                classMetrics.get(className).incrementCe();
+                classMetrics.get(className).addExtends(parentClass);
+                if (classMetrics.containsKey(parentClass)) {
+                    classMetrics.get(parentClass).incrementCa();
                 }
             }
 
             // realization 
-            int implementsIdx = signatureContent.indexOf("implements");
-            if (implementsIdx != -1) {
-                // extract everything after "implements" up to opening brace
-                int start = implementsIdx + 10;
-                StringBuilder implementsText = new StringBuilder();
-                while (start < signatureContent.length() && signatureContent.charAt(start) != '{') {
-                    implementsText.append(signatureContent.charAt(start));
-                    start++;
-                }
-                
-                // split by comma and process each interface
-                String[] interfaces = implementsText.toString().split(",");
-                for (String interfaceStr : interfaces) {
-                    String interfaceName = interfaceStr.trim();
-                    // extract identifier
-                    StringBuilder cleanName = new StringBuilder();
-                    for (char c : interfaceName.toCharArray()) {
-                        if (Character.isJavaIdentifierPart(c)) {
-                            cleanName.append(c);
-                        } else {
-                            break;
-                        }
-                    }
-                    interfaceName = cleanName.toString();
-                    
-                    if (!interfaceName.isEmpty()) {
-                        classMetrics.get(className).incrementCe();
-                        classMetrics.get(className).addImplements(interfaceName);
-                        if (classMetrics.containsKey(interfaceName)) {
-                            classMetrics.get(interfaceName).incrementCa();
-                        }
-                    }
+            for (String interfaceName : javaClass.summary.getImplementsTypes()) {
+                classMetrics.get(className).incrementCe();
+                classMetrics.get(className).addImplements(interfaceName);
+                if (classMetrics.containsKey(interfaceName)) {
+                    classMetrics.get(interfaceName).incrementCa();
                 }
             }
 
@@ -373,28 +645,31 @@ public class GHRepoAnalyzer {
      * inspect class bodies for dependencies
      * @param classes all JavaClass objects
      * @param classMetrics store metrics in this object
+     * @param outsideCa project classes that were not analyzed (add to Ce, their count of incoming references
+     *                  is kept here since they have no metrics), null for none
      */
-    private void inspectBodies(List<JavaClass> classes, Map<String, ClassLevelMetrics> classMetrics) {
+    private void inspectBodies(List<JavaClass> classes, Map<String, ClassLevelMetrics> classMetrics, Map<String, Integer> outsideCa) {
 
         // examine class relationships
         for (JavaClass currClass : classes) {
 
             String currClassName = currClass.name;
-            String cleanedBody = cleanBody(currClass.cleanedBody);  // use body without nested classes
 
-            // iterate over all other classes
-            for (JavaClass otherClass : classes) {
+            // every project class the body mentions (body without nested classes)
+            for (String otherClassName : currClass.summary.getReferencedIdentifiers()) {
 
-                String otherClassName = otherClass.name;
+                // skip current class and non-project names
+                ClassLevelMetrics other = classMetrics.get(otherClassName);
+                if (currClassName.equals(otherClassName)
+                        || (other == null && (outsideCa == null || !outsideCa.containsKey(otherClassName)))) { continue; }
 
-                // skip current class
-                if (currClassName.equals(otherClassName)) { continue; }
-
-                // check if other class is referenced in body
-                if (containsWord(cleanedBody, otherClassName)) {  // found reference
-                    classMetrics.get(otherClassName).incrementCa();  // increment other class's incoming dependencies
-                    classMetrics.get(currClassName).incrementCe();  // increment current class's outgoing dependencies
+                // found reference
+                if (other != null) {
+                    other.incrementCa();  // increment other class's incoming dependencies
+                } else {
+                    outsideCa.merge(otherClassName, 1, Integer::sum);
                 }
+                classMetrics.get(currClassName).incrementCe();  // increment current class's outgoing dependencies
             }
         }
 
@@ -410,20 +685,31 @@ public class GHRepoAnalyzer {
 
         Set<String> classNames = classMetrics.keySet();
 
+        // check which classes are singletons (needed before looking for singleton usages)
+        Map<String, List<String>> singletonAccessors = new TreeMap<>();
         for (JavaClass currentClass : classes) {
-            String className = currentClass.name;
-            ClassLevelMetrics metrics = classMetrics.get(className);
-
-            // check if class is singleton
             if (SingletonDetector.isSingleton(currentClass)) {
-                metrics.setSingleton(true);
+                classMetrics.get(currentClass.name).setSingleton(true);
+                singletonAccessors.put(currentClass.name, SingletonDetector.accessors(currentClass.summary));
             }
+        }
+
+        for (JavaClass currentClass : classes) {
+            String className = currentClass.name;
+            AnalysisEvents.ClassAnalysisEvent event = new AnalysisEvents.ClassAnalysisEvent();
+            event.begin();
 
             // analyze fields 
             analyzeFieldRelationships(currentClass, classMetrics, classNames);
 
             // analyze methods
-            analyzeMethodRelationships(currentClass, classMetrics, classNames);
+            analyzeMethodRelationships(currentClass, classMetrics, classNames, singletonAccessors);
+
+            if (event.shouldCommit()) {
+                event.className = className;
+                event.chars = currentClass.closeBrace - currentClass.openBrace + 1;
+                event.commit();
+            }
         }
     }
 
@@ -437,11 +723,11 @@ public class GHRepoAnalyzer {
                                            Map<String, ClassLevelMetrics> classMetrics,
                                            Set<String> classNames) {
 
-        List<FieldAnalyzer.FieldInfo> fields = FieldAnalyzer.extractFields(javaClass.fullBody, classNames);
+        List<FieldAnalyzer.FieldInfo> fields = FieldAnalyzer.extractFields(javaClass.summary, classNames);
 
         for (FieldAnalyzer.FieldInfo field : fields) {
             // determine if composition, aggregation, or association
-            String relationship = FieldAnalyzer.determineFieldRelationship(field, javaClass.fullBody);
+            String relationship = FieldAnalyzer.determineFieldRelationship(field);
 
             if (relationship.equals("composition")) {
                 classMetrics.get(javaClass.name).addComposition(field.fieldType);
@@ -458,21 +744,21 @@ public class GHRepoAnalyzer {
      * @param javaClass the class to analyze
      * @param classMetrics metrics storage
      * @param classNames available class names
+     * @param singletonAccessors singleton classes mapped to their accessors
      */
     private void analyzeMethodRelationships(JavaClass javaClass,
                                             Map<String, ClassLevelMetrics> classMetrics,
-                                            Set<String> classNames) {
-
-        String cleanedBody = cleanBody(javaClass.cleanedBody);
+                                            Set<String> classNames,
+                                            Map<String, List<String>> singletonAccessors) {
 
         // check for singleton usage 
-        Set<String> singletonUsages = MethodAnalyzer.findSingletonUsages(cleanedBody, classNames);
+        Set<String> singletonUsages = MethodAnalyzer.findSingletonUsages(javaClass.summary, singletonAccessors);
         for (String singleton : singletonUsages) {
             classMetrics.get(javaClass.name).addAssociation(singleton);
         }
 
         // check for dependency 
-        Set<String> temporaryUsages = MethodAnalyzer.findTemporaryUsages(cleanedBody, classNames);
+        Set<String> temporaryUsages = MethodAnalyzer.findTemporaryUsages(javaClass.summary, classNames);
         for (String tempClass : temporaryUsages) {
             // skip self-references and already-related classes
             if (!tempClass.equals(javaClass.name) && !isAlreadyRelated(javaClass.name, tempClass, classMetrics)) {
@@ -544,177 +830,101 @@ public class GHRepoAnalyzer {
     }
 
     /**
-     * removes comments and strings from source code while preserving positions
-     * @param content original source code
-     * @return cleaned version with comments/strings replaced by spaces
+     * logs all analysis results for debugging
+     * report is only built when debug logging is enabled for this class
+     * (UML source comes from the analysis itself, so it is not generated twice)
+     * @param analysis analyzed GH folder (class metrics are INTERNAL classes only, no external dependencies)
      */
-    private String removeCommentsAndStrings(String content) {
-        StringBuilder result = new StringBuilder(content);
-        
-        boolean inString = false;
-        boolean inLineComment = false;
-        boolean inBlockComment = false;
-        char prevChar = '\0';
-        
-        for (int i = 0; i < result.length(); i++) {
-            char c = result.charAt(i);
-            
-            // handle string literals
-            if (c == '"' && prevChar != '\\' && !inLineComment && !inBlockComment) {
-                inString = !inString;
-                result.setCharAt(i, ' ');
-            } else if (inString) {
-                if (c != '\n') result.setCharAt(i, ' ');
-            }
-            
-            // handle line comments
-            else if (!inString && !inBlockComment && c == '/' && i + 1 < result.length() && result.charAt(i + 1) == '/') {
-                inLineComment = true;
-                result.setCharAt(i, ' ');
-            } else if (inLineComment) {
-                if (c == '\n') {
-                    inLineComment = false;
-                } else {
-                    result.setCharAt(i, ' ');
-                }
-            }
-            
-            // handle block comments
-            else if (!inString && c == '/' && i + 1 < result.length() && result.charAt(i + 1) == '*') {
-                inBlockComment = true;
-                result.setCharAt(i, ' ');
-            } else if (inBlockComment) {
-                result.setCharAt(i, ' ');
-                if (prevChar == '*' && c == '/') {
-                    inBlockComment = false;
-                }
+    private void logAnalysisResults(GHRepoAnalyzed analysis) {
+
+        // skip formatting entirely unless someone is listening (link runs per commit, save and request)
+        if (!logger.isDebugEnabled()) { return; }
+
+        // classes furthest from the main sequence (top-K, nothing else is sorted)
+        if (!analysis.getClassMetrics().isEmpty()) {
+            StringJoiner furthest = new StringJoiner(", ");
+            for (ClassLevelMetrics cm : analysis.query(FURTHEST, 0, LOGGED_CLASSES).classes()) {
+                furthest.add(String.format("%s (%.2f)", cm.getClassName(), cm.getD()));
             }
-            
-            prevChar = c;
+            logger.debug("Furthest from main sequence: {}", furthest);
         }
-        
-        return result.toString();
-    }
 
-    /**
-     * iterate through rest of file content until we find closing brace that ends class body
-     * @param content file content
-     * @param openBraceIdx where class body starts
-     * @return where class body ends
-     */
-    private int findCloseBrace(String content, int openBraceIdx) {
-
-        int nestedBraces = 0;
-        for (int i = openBraceIdx; i < content.length(); i++) {
-            if (content.charAt(i) == '{') { nestedBraces++; }
-            else if (content.charAt(i) == '}') {
-                nestedBraces--;
-                if (nestedBraces == 0) { return i; }
-            }
+        StringBuilder report = new StringBuilder("\nANALYSIS RESULTS: \n\n");
+
+        // file metrics
+        report.append("FILE-LEVEL METRICS:\n");
+        report.append("-------------------\n");
+        FileMetricsStore files = analysis.getFileMetrics();
+        for (int i = 0; i < files.size(); i++) {
+            report.append("File: ").append(files.getName(i)).append('\n');
+            report.append("  Size: ").append(files.getSize(i)).append(" lines\n");
+            report.append("  Complexity: ").append(files.getComplexity(i)).append('\n');
+            appendMetrics(report, files.getMetrics(i));
+            report.append('\n');
         }
 
-        return -1;
+        // class metrics (internal only)
+        report.append("\nCLASS-LEVEL METRICS (Internal Classes Only):\n");
+        report.append("---------------------------------------------\n");
+        report.append("Note: External classes (JPanel, JFrame, etc.) are NOT included here.\n");
+        report.append("They only appear in the UML diagram for completeness.\n\n");
 
-    }
+        for (Map.Entry<String, ClassLevelMetrics> entry : analysis.getClassMetrics().entrySet()) {
+            ClassLevelMetrics cm = entry.getValue();
+            report.append(String.format("Class: %s [%s]%s%n",
+                entry.getKey(),
+                cm.getClassType(),
+                cm.isSingleton() ? " <<SINGLETON>>" : ""));
+            report.append(String.format("  Ca (afferent): %d%n", cm.getCa()));
+            report.append(String.format("  Ce (efferent): %d%n", cm.getCe()));
+            report.append(String.format("  Instability: %.3f%n", cm.getI()));
+            report.append(String.format("  Distance: %.3f%n", cm.getD()));
+
+            appendRelations(report, "Extends", cm.getExtendsClasses());
+            appendRelations(report, "Implements", cm.getImplementsInterfaces());
+            appendRelations(report, "Compositions", cm.getCompositions());
+            appendRelations(report, "Aggregations", cm.getAggregations());
+            appendRelations(report, "Associations", cm.getAssociations());
+            appendRelations(report, "Dependencies", cm.getDependencies());
+            appendMetrics(report, cm.getMetrics());
+            report.append('\n');
+        }
 
-    /**
-     * cleans body of a class (removing strings and comments for dependency search)
-     * @param body body of a class
-     * @return body of class without strings and comments
-     */
-    private String cleanBody(String body) {
-        // reuse the existing removeCommentsAndStrings method
-        return removeCommentsAndStrings(body);
+        report.append(String.format("Overall Abstractness: %.3f%n", analysis.getA()));
+
+        // PlantUML source (with external classes)
+        report.append("\nPLANTUML SOURCE (with External Classes): \n\n");
+        report.append(analysis.getUmlSource());
+        report.append("\n\n");
+
+        logger.debug(report.toString());
     }
-    
+
     /**
-     * checks if a word appears in text with word boundaries
-     * @param text text to search
-     * @param word word to find
-     * @return true if word found with boundaries
+     * helper function to add a relationship line to the debug report (skipped if empty)
+     * @param report report being built
+     * @param label relationship label
+     * @param classNames related class names
      */
-    private boolean containsWord(String text, String word) {
-        int index = 0;
-        while ((index = text.indexOf(word, index)) != -1) {
-            boolean startOk = (index == 0) || !Character.isJavaIdentifierPart(text.charAt(index - 1));
-            boolean endOk = (index + word.length() >= text.length()) || 
-                           !Character.isJavaIdentifierPart(text.charAt(index + word.length()));
-            
-            if (startOk && endOk) {
-                return true;
-            }
-            index++;
+    private void appendRelations(StringBuilder report, String label, List<String> classNames) {
+        if (!classNames.isEmpty()) {
+            report.append("  ").append(label).append(": ").append(classNames).append('\n');
         }
-        return false;
     }
-    
+
     /**
-     * logs all analysis results for debugging
-     * @param fileMetrics file-level metrics
-     * @param classMetrics class-level metrics (INTERNAL classes only, no external dependencies)
-     * @param abstractness overall abstractness
+     * helper function to add engine metrics to the debug report (skipped if none)
+     * @param report report being built
+     * @param metrics metric names mapped to values
      */
-    private void logAnalysisResults(Map<String, FileLevelMetrics> fileMetrics, 
-                                    Map<String, ClassLevelMetrics> classMetrics, 
-                                    double abstractness) {
-        System.out.println("\nANALYSIS RESULTS: \n");
-        
-        // file metrics
-        System.out.println("FILE-LEVEL METRICS:");
-        System.out.println("-------------------");
-        for (Map.Entry<String, FileLevelMetrics> entry : fileMetrics.entrySet()) {
-            FileLevelMetrics fm = entry.getValue();
-            System.out.printf("File: %s\n", entry.getKey());
-            System.out.printf("  Size: %d lines\n", fm.getSize());
-            System.out.printf("  Complexity: %d\n\n", fm.getComplexity());
-        }
-        
-        // class metrics (internal only)
-        System.out.println("\nCLASS-LEVEL METRICS (Internal Classes Only):");
-        System.out.println("---------------------------------------------");
-        System.out.println("Note: External classes (JPanel, JFrame, etc.) are NOT included here.");
-        System.out.println("They only appear in the UML diagram for completeness.\n");
-        
-        for (Map.Entry<String, ClassLevelMetrics> entry : classMetrics.entrySet()) {
-            ClassLevelMetrics cm = entry.getValue();
-            System.out.printf("Class: %s [%s]%s\n", 
-                entry.getKey(), 
-                cm.getClassType(),
-                cm.isSingleton() ? " <<SINGLETON>>" : "");
-            System.out.printf("  Ca (afferent): %d\n", cm.getCa());
-            System.out.printf("  Ce (efferent): %d\n", cm.getCe());
-            System.out.printf("  Instability: %.3f\n", cm.getI());
-            System.out.printf("  Distance: %.3f\n", cm.getD());
-            
-            if (!cm.getExtendsClasses().isEmpty()) {
-                System.out.printf("  Extends: %s\n", cm.getExtendsClasses());
-            }
-            if (!cm.getImplementsInterfaces().isEmpty()) {
-                System.out.printf("  Implements: %s\n", cm.getImplementsInterfaces());
-            }
-            if (!cm.getCompositions().isEmpty()) {
-                System.out.printf("  Compositions: %s\n", cm.getCompositions());
-            }
-            if (!cm.getAggregations().isEmpty()) {
-                System.out.printf("  Aggregations: %s\n", cm.getAggregations());
-            }
-            if (!cm.getAssociations().isEmpty()) {
-                System.out.printf("  Associations: %s\n", cm.getAssociations());
-            }
-            if (!cm.getDependencies().isEmpty()) {
-                System.out.printf("  Dependencies: %s\n", cm.getDependencies());
-            }
-            System.out.println();
-        }
-        
-        System.out.printf("Overall Abstractness: %.3f\n", abstractness);
-        
-        // generate and log PlantUML source
-        System.out.println("\nPLANTUML SOURCE (with External Classes): \n");
-        GHRepoAnalyzed tempAnalysis = new GHRepoAnalyzed(fileMetrics, classMetrics, abstractness, new ArrayList<>());
-        String umlSource = PlantUMLGenerator.generateUML(tempAnalysis);
-        System.out.println(umlSource);
-        System.out.println("\n\n");
+    private void appendMetrics(StringBuilder report, Map<String, Double> metrics) {
+        if (!metrics.isEmpty()) {
+            report.append("  Metrics: ");
+            StringJoiner joined = new StringJoiner(", ");
+            metrics.forEach((name, value) -> joined.add(value == Math.rint(value)
+                    ? String.format("%s=%d", name, (long) (double) value) : String.format("%s=%.3f", name, value)));
+            report.append(joined).append('\n');
+        }
     }
 
 }
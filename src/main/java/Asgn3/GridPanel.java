@@ -1,7 +1,7 @@
 package Asgn3;
 import javax.swing.*;
 import java.awt.*;
-import java.util.List;
+import java.awt.image.BufferedImage;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import org.slf4j.Logger;
@@ -20,11 +20,20 @@ import org.slf4j.LoggerFactory;
 public class GridPanel extends JPanel {
 
     // components
-    private List<FileLevelMetrics> files;
-    private Rectangle[] squares;
-    private int clickedSquare = -1;
+    private FileMetricsStore files;
+    private GridRenderModel model;
+    private BufferedImage backingImage;
+    private boolean backingImageEnabled = true;
+    private int[] selectedSquares = new int[0];
+    private Point dragStart;
+    private Rectangle selectionBand;
     private final BottomPanel bottomPanel;
 
+    // shared strokes
+    private static final Stroke DEFAULT_STROKE = new BasicStroke(1f);
+    private static final Stroke SELECTED_STROKE = new BasicStroke(3f);
+    private static final Color BAND_FILL = new Color(0, 0, 255, 40);
+
     // logger
     private static final Logger logger = LoggerFactory.getLogger(GridPanel.class);
 
@@ -57,6 +66,21 @@ public class GridPanel extends JPanel {
                 squareHover(e.getPoint());
             }
 
+            @Override
+            public void mousePressed(MouseEvent e) {  // start of rubber-band selection
+                if (SwingUtilities.isLeftMouseButton(e)) { dragStart = e.getPoint(); }
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {  // grow rubber-band selection
+                bandDragged(e.getPoint());
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {  // select everything in rubber band
+                if (SwingUtilities.isLeftMouseButton(e)) { bandReleased(); }
+            }
+
         };
 
         // add to panel
@@ -71,22 +95,116 @@ public class GridPanel extends JPanel {
 
         // clear all visualized data on grid and stored metrics
         files = null;
-        squares = null;
-        clickedSquare = -1;
+        model = null;
+        backingImage = null;
+        selectedSquares = new int[0];
+        selectionBand = null;
         repaint();
         bottomPanel.setMessage("");
 
     }
 
+    /**
+     * builds the render model for a data set: square fills, and positions for the panel's current size
+     * pure computation, so it runs wherever the analysis ran (worker or watcher thread), never on the EDT;
+     * hand the result to showMetrics / updateMetrics on the EDT (a size read off the EDT may be stale,
+     * paintComponent lays out again if the panel size differs)
+     * @param fileMetrics file metrics (one row for each file in GH folder)
+     * @return model ready to draw (null if fileMetrics is null)
+     */
+    public GridRenderModel prepare(FileMetricsStore fileMetrics) {
+
+        if (fileMetrics == null) { return null; }
+        GridRenderModel prepared = new GridRenderModel(fileMetrics);
+        prepared.layout(getWidth(), getHeight());
+        return prepared;
+
+    }
+
     /**
      * updates files stored for grid of squares
-     * @param fileMetricsList list of FileLevelMetrics objects (one for each file in GH folder)
+     * @param fileMetrics file metrics (one row for each file in GH folder), read directly (not copied)
+     * @param prepared render model of fileMetrics (see prepare)
      */
-    public void showMetrics(List<FileLevelMetrics> fileMetricsList) {
+    public void showMetrics(FileMetricsStore fileMetrics, GridRenderModel prepared) {
 
         clearGrid();  // clear all visualized data on grid and stored metrics
-        this.files = fileMetricsList;  // store analyzed files
-        this.squares = (files == null) ? null : new Rectangle[files.size()];  // initialize squares
+        this.files = fileMetrics;  // store analyzed files
+        this.model = prepared;  // precomputed square fills
+
+    }
+
+    /**
+     * updates the grid after files changed (watch mode)
+     * same files --> only squares whose fill changed are redrawn (in the backing image and on screen), selection is kept
+     * files added or removed --> squares move, so the grid is rebuilt (see showMetrics)
+     * @param fileMetrics file metrics (one row for each file in the folder)
+     * @param prepared render model of fileMetrics (see prepare)
+     */
+    public void updateMetrics(FileMetricsStore fileMetrics, GridRenderModel prepared) {
+
+        // different files: full rebuild
+        if (model == null || fileMetrics == null || !sameFiles(files, fileMetrics)) {
+            showMetrics(fileMetrics, prepared);
+            return;
+        }
+
+        // new fills, same positions (layout only depends on file count and panel size)
+        GridRenderModel old = model;
+        GridRenderModel updated = prepared;
+        boolean laidOut = old.index() != null;
+        if (laidOut) {
+            updated.layout(getWidth(), getHeight());
+            laidOut = updated.size() == old.size() && old.x(old.count() - 1) == updated.x(updated.count() - 1);
+        }
+        this.files = fileMetrics;
+        this.model = updated;
+        if (!laidOut || backingImage == null
+                || backingImage.getWidth() != Math.max(1, getWidth()) || backingImage.getHeight() != Math.max(1, getHeight())) {
+            backingImage = null;
+            repaint();
+            return;
+        }
+
+        // fills are shared Color objects, so changed squares are the ones with a different fill object
+        int[] dirty = new int[updated.count()];
+        int count = 0;
+        for (int i = 0; i < updated.count(); i++) {
+            if (updated.fill(i) != old.fill(i)) { dirty[count++] = i; }
+        }
+
+        // largest file changed size: every transparency moved, cheaper to redraw once
+        if (count > updated.count() / 2) {
+            backingImage = null;
+            repaint();
+            return;
+        }
+
+        // patch backing image + repaint only those squares
+        Graphics2D g2d = backingImage.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        for (int k = 0; k < count; k++) {
+            int i = dirty[k];
+            g2d.setComposite(AlphaComposite.Clear);
+            g2d.fillRect(updated.x(i), updated.y(i), updated.size() + 1, updated.size() + 1);
+            g2d.setComposite(AlphaComposite.SrcOver);
+            paintSquare(g2d, i);
+            repaintSquare(i);
+        }
+        g2d.dispose();
+
+    }
+
+    /**
+     * enables/disables caching all squares in a backing image
+     * when enabled, repaints only blit the image and draw the selection
+     * @param enabled true to cache squares in an image
+     */
+    public void setBackingImageEnabled(boolean enabled) {
+
+        this.backingImageEnabled = enabled;
+        backingImage = null;
+        repaint();
 
     }
 
@@ -99,102 +217,107 @@ public class GridPanel extends JPanel {
         super.paintComponent(g);  // clear old drawings
 
         // no .java files
-        if (files == null || files.isEmpty()) { return; }
+        if (model == null || model.count() == 0) { return; }
+
+        // recompute positions only if panel size changed
+        if (model.layout(getWidth(), getHeight())) {
+            backingImage = null;
+        }
 
         // config
         Graphics2D g2d = (Graphics2D) g.create();
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-        int totalFiles = files.size();  // number of files in GH URL
-
-        // get square dimensions
-        int cols = (int) Math.ceil(Math.sqrt(totalFiles));
-        int rows = (int) Math.ceil(totalFiles / (double) cols);
-
-        // config for grid of squares
-        int padding = 12;
-        int w = getWidth() - padding * 2;
-        int h = getHeight() - padding * 2;
-        int gridWidth = Math.max(24, w / cols);
-        int gridHeight = Math.max(24, h / rows);
-        int size = Math.min(gridWidth, gridHeight);
-
-        // create squares for grid
-        if (squares == null || squares.length != totalFiles) {
-            squares = new Rectangle[totalFiles];  // square per file
+        // draw squares (from cached image if enabled)
+        if (backingImageEnabled) {
+            if (backingImage == null) {
+                backingImage = renderSquares();
+            }
+            g2d.drawImage(backingImage, 0, 0, null);
+        } else {
+            paintSquares(g2d);
         }
 
-        // determine alpha value (max number of lines across all files)
-        int alpha = files.stream().mapToInt(FileLevelMetrics::getSize).max().orElse(1);
+        // black border for selected squares (clicked or rubber band)
+        g2d.setColor(Color.black);
+        g2d.setStroke(SELECTED_STROKE);
+        for (int i : selectedSquares) {
+            g2d.drawRect(model.x(i), model.y(i), model.size(), model.size());
+        }
 
-        // drawing config
-        int x = padding;  // current position in grid
-        int y = padding;  // current position in grid
+        // rubber band in progress
+        if (selectionBand != null) {
+            g2d.setStroke(DEFAULT_STROKE);
+            g2d.setColor(BAND_FILL);
+            g2d.fill(selectionBand);
+            g2d.setColor(Color.darkGray);
+            g2d.draw(selectionBand);
+        }
 
-        for (int i = 0; i < totalFiles; i++) {
+        g2d.dispose();
 
-            // get current file
-            FileLevelMetrics file = files.get(i);
+    }
 
-            // calculate square transparency and color
-            float ratio = (float) file.getSize() / alpha;  // relative size compared to the largest file
-            float transparency = 0.25f + 0.75f * (float) Math.pow(ratio, 0.5);  // transparency control
-            Color color = colorForComplexity(file.getComplexity());  // color in respect to file complexity
-            Color fill = getFill(color, transparency);  // final square fill config
+    /**
+     * helper function to draw every square with its fill and default border
+     * @param g2d graphics context
+     */
+    private void paintSquares(Graphics2D g2d) {
 
-            // apply square fill
-            g2d.setColor(fill);
-            g2d.fillRect(x, y, size, size);
+        for (int i = 0; i < model.count(); i++) {
+            paintSquare(g2d, i);
+        }
 
-            // border config for clicked square
-            g2d.setColor(i == clickedSquare ? Color.black : Color.gray);  // black border if current square is selected (clicked)
-            g2d.setStroke(new BasicStroke(i == clickedSquare ? 3f : 1f));  // boldness of border based off selection
-            g2d.drawRect(x, y, size, size);
+    }
 
-            // save square to stored squares
-            squares[i] = new Rectangle(x, y, size, size);
+    /**
+     * helper function to draw one square with its fill and default border
+     * @param g2d graphics context
+     * @param i square index
+     */
+    private void paintSquare(Graphics2D g2d, int i) {
 
-            // go to next square (horizontal then wrap to next row)
-            x += size;
-            if ((i + 1) % cols == 0) {
-                x = padding;
-                y += size;
-            }
+        int size = model.size();
 
-        }
+        // apply square fill
+        g2d.setColor(model.fill(i));
+        g2d.fillRect(model.x(i), model.y(i), size, size);
 
-        g2d.dispose();
+        // default border
+        g2d.setStroke(DEFAULT_STROKE);
+        g2d.setColor(Color.gray);
+        g2d.drawRect(model.x(i), model.y(i), size, size);
 
     }
 
     /**
-     * helper function to determine color of square using complexity
-     * @param complexity number of control statements
-     * @return color to use for square
+     * helper function to check if two stores describe the same files in the same order
+     * @param before files currently shown
+     * @param after new files
+     * @return true if names match one to one
      */
-    private Color colorForComplexity(int complexity) {
+    private static boolean sameFiles(FileMetricsStore before, FileMetricsStore after) {
 
-        if (complexity > 10) {
-            return Color.red;
-        } else if (complexity > 5) {
-            return Color.yellow;
-        } else {
-            return Color.green;
+        if (before == null || before.size() != after.size() || after.isEmpty()) { return false; }
+        for (int i = 0; i < after.size(); i++) {
+            if (!before.getName(i).equals(after.getName(i))) { return false; }
         }
+        return true;
 
     }
 
     /**
-     * helper function to create final fill for squares
-     * @param color color based off complexity
-     * @param transparency transparency based off size
-     * @return final fill adjusted by color and transparency
+     * helper function to render all squares into a backing image
+     * @return image holding the full grid (without selection)
      */
-    private Color getFill(Color color, float transparency) {
+    private BufferedImage renderSquares() {
 
-        // calculate transparency value
-        int transparencyVal = Math.max(0, Math.min(255, (int) (transparency * 255)));
-        return new Color(color.getRed(), color.getGreen(), color.getBlue(), transparencyVal);
+        BufferedImage image = new BufferedImage(Math.max(1, getWidth()), Math.max(1, getHeight()), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        paintSquares(g2d);
+        g2d.dispose();
+        return image;
 
     }
 
@@ -204,28 +327,26 @@ public class GridPanel extends JPanel {
     @Override
     public String getToolTipText(MouseEvent e) {
 
-        // no .java files
-        if (files == null || files.isEmpty() || squares == null) { return null; }
-
-        // iterate through squares in grid
-        for (int i = 0; i < squares.length; i++) {
-
-            // current square
-            Rectangle square = squares[i];
+        // find square under mouse
+        int i = squareAt(e.getPoint());
+        if (i < 0) { return null; }
 
-            if (square != null && square.contains(e.getPoint())) {
+        // render file name, size, and complexity in tooltip
+        return "<html><b>" + files.getName(i) + "</b><br/>lines: " + files.getSize(i) +
+                "<br/>complexity: " + files.getComplexity(i) + "</html>";
 
-                FileLevelMetrics file = files.get(i);  // current file
-
-                // render file name, size, and complexity in tooltip
-                return "<html><b>" + file.getName() + "</b><br/>lines: " + file.getSize() +
-                        "<br/>complexity: " + file.getComplexity() + "</html>";
-
-            }
+    }
 
-        }
+    /**
+     * helper function to find the square under a point
+     * @param point coordinates of mouse
+     * @return square index, or -1 if none (or grid not laid out yet)
+     */
+    private int squareAt(Point point) {
 
-        return null;
+        // no .java files
+        if (files == null || model == null || model.index() == null) { return -1; }
+        return model.index().topmostAt(point.x, point.y);
 
     }
 
@@ -246,21 +367,78 @@ public class GridPanel extends JPanel {
      */
     private void squareClicked(Point point) {
 
-        // no .java files
-        if (files == null || squares == null) { return; }
+        int i = squareAt(point);
+        if (i >= 0) {
+            select(new int[]{i});
+        }
 
-        // iterate through squares in grid
-        for (int i = 0; i < squares.length; i++) {
+    }
 
-            if (squares[i] != null && squares[i].contains(point)) {
+    /**
+     * helper function to update rubber band while dragging
+     * @param point current coordinates of mouse
+     */
+    private void bandDragged(Point point) {
 
-                clickedSquare = i;  // update square selection
-                bottomPanel.setMessage(files.get(i).getName());  // update bottom panel
-                repaint();
-                break;
+        if (dragStart == null || model == null) { return; }
 
-            }
+        Rectangle old = selectionBand;
+        selectionBand = new Rectangle(dragStart);
+        selectionBand.add(point);
+
+        // repaint only the band area (old + new)
+        Rectangle dirty = (old == null) ? new Rectangle(selectionBand) : old.union(selectionBand);
+        repaint(dirty.x - 1, dirty.y - 1, dirty.width + 3, dirty.height + 3);
+
+    }
+
+    /**
+     * helper function to select all squares in the rubber band
+     */
+    private void bandReleased() {
+
+        Rectangle band = selectionBand;
+        dragStart = null;
+        selectionBand = null;
+        if (band == null) { return; }
+
+        if (model != null && model.index() != null) {
+            select(model.index().intersecting(band));
+        }
+        repaint();
+
+    }
+
+    /**
+     * helper function to update selection + bottom panel
+     * @param squares selected square indices
+     */
+    private void select(int[] squares) {
+
+        // erase old selection
+        for (int i : selectedSquares) { repaintSquare(i); }
+
+        selectedSquares = squares;
+
+        // update bottom panel with file name(s)
+        StringBuilder names = new StringBuilder();
+        for (int i : squares) {
+            if (names.length() > 0) { names.append(", "); }
+            names.append(files.getName(i));
+            repaintSquare(i);
         }
+        bottomPanel.setMessage(names.toString());
+
+    }
+
+    /**
+     * helper function to repaint only the area around one square (including its selection border)
+     * @param i square index (ignored if no square)
+     */
+    private void repaintSquare(int i) {
+
+        if (model == null || i < 0 || i >= model.count()) { return; }
+        repaint(model.x(i) - 2, model.y(i) - 2, model.size() + 5, model.size() + 5);
 
     }
 
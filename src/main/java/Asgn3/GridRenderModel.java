@@ -0,0 +1,140 @@
+package Asgn3;
+import java.awt.*;
+
+/**
+ * precomputed render model for the grid of squares
+ * fills (color + transparency) are computed once per data set,
+ * square positions (and their hit-testing index) once per panel size, so repaints only have to draw
+ * pure data: no Swing calls, safe to build off the EDT
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class GridRenderModel {
+
+    // layout config
+    private static final int PADDING = 12;
+    private static final int MIN_SQUARE = 24;
+
+    // shared fills: one Color per complexity color and alpha value
+    private static final Color[] BASE_COLORS = {Color.green, Color.yellow, Color.red};
+    private static final Color[][] FILLS = new Color[BASE_COLORS.length][256];
+
+    // fields
+    private final FileMetricsStore files;
+    private final Color[] fills;
+    private final int cols;
+    private final int rows;
+    private final int[] xs;
+    private final int[] ys;
+    private int size;
+    private SpatialIndex index;
+    private int layoutWidth = -1;
+    private int layoutHeight = -1;
+
+    /**
+     * constructor: computes square fills
+     * @param files file metrics (one row for each file in GH folder)
+     */
+    public GridRenderModel(FileMetricsStore files) {
+
+        this.files = files;
+        int totalFiles = files.size();
+
+        // grid dimensions
+        this.cols = Math.max(1, (int) Math.ceil(Math.sqrt(totalFiles)));
+        this.rows = Math.max(1, (int) Math.ceil(totalFiles / (double) cols));
+        this.xs = new int[totalFiles];
+        this.ys = new int[totalFiles];
+
+        // determine alpha value (max number of lines across all files)
+        int alpha = Math.max(1, files.max(FileMetricsStore.SIZE));
+
+        // calculate square transparency and color
+        this.fills = new Color[totalFiles];
+        for (int i = 0; i < totalFiles; i++) {
+            float ratio = (float) files.getSize(i) / alpha;  // relative size compared to the largest file
+            float transparency = 0.25f + 0.75f * (float) Math.sqrt(ratio);  // transparency control
+            fills[i] = fillFor(files.getComplexity(i), transparency);
+        }
+
+    }
+
+    /**
+     * positions squares for a panel size (no-op if size did not change)
+     * @param width panel width
+     * @param height panel height
+     * @return true if layout changed
+     */
+    public boolean layout(int width, int height) {
+
+        if (width == layoutWidth && height == layoutHeight) { return false; }
+        layoutWidth = width;
+        layoutHeight = height;
+
+        // config for grid of squares
+        int w = width - PADDING * 2;
+        int h = height - PADDING * 2;
+        int gridWidth = Math.max(MIN_SQUARE, w / cols);
+        int gridHeight = Math.max(MIN_SQUARE, h / rows);
+        size = Math.min(gridWidth, gridHeight);
+
+        // horizontal then wrap to next row
+        int[] sizes = new int[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = PADDING + (i % cols) * size;
+            ys[i] = PADDING + (i / cols) * size;
+            sizes[i] = size;
+        }
+
+        // hit-testing index for this layout
+        index = new SpatialIndex(xs, ys, sizes, sizes);
+
+        return true;
+
+    }
+
+    // getters
+    public int count() { return files.size(); }
+    public FileMetricsStore.View file(int i) { return files.view(i); }
+    public Color fill(int i) { return fills[i]; }
+    public int x(int i) { return xs[i]; }
+    public int y(int i) { return ys[i]; }
+    public int size() { return size; }
+    public SpatialIndex index() { return index; }
+
+    /**
+     * bounds of a square in the current layout
+     * @param i square index
+     * @return square bounds
+     */
+    public Rectangle bounds(int i) {
+        return new Rectangle(xs[i], ys[i], size, size);
+    }
+
+    /**
+     * helper function to get a (shared) fill for a square
+     * @param complexity number of control statements
+     * @param transparency transparency based off size
+     * @return final fill adjusted by color and transparency
+     */
+    private static Color fillFor(int complexity, float transparency) {
+
+        // color in respect to file complexity
+        int colorIdx = (complexity > 10) ? 2 : (complexity > 5) ? 1 : 0;
+
+        // calculate transparency value
+        int transparencyVal = Math.max(0, Math.min(255, (int) (transparency * 255)));
+
+        // benign race: worst case two equal Color objects get created
+        Color fill = FILLS[colorIdx][transparencyVal];
+        if (fill == null) {
+            Color color = BASE_COLORS[colorIdx];
+            fill = new Color(color.getRed(), color.getGreen(), color.getBlue(), transparencyVal);
+            FILLS[colorIdx][transparencyVal] = fill;
+        }
+        return fill;
+
+    }
+
+}
@@ -0,0 +1,276 @@
+package Asgn3;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * metric trends over the history of a local git repository
+ * walks the last N commits of the current branch (first parent only, oldest first); the first commit is analyzed in full,
+ * every later one only reprocesses the .java files its diff touches (IncrementalAnalyzer)
+ * talks to the git command line: one long-running cat-file process serves all file contents
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class HistoryAnalyzer {
+
+    // components
+    private final Path repository;
+    private final String folder;
+    private Path root;  // top level of the working tree (git reports repo relative paths)
+    private final IncrementalAnalyzer incremental;
+
+    // logger
+    private static final Logger logger = LoggerFactory.getLogger(HistoryAnalyzer.class);
+
+    /**
+     * one commit on the walk
+     * @param id commit id
+     * @param epochSeconds commit time
+     */
+    private record Commit(String id, long epochSeconds) {}
+
+    /**
+     * constructor
+     * @param repository git working tree (or any directory inside it)
+     * @param folder folder inside the repository to analyze, relative to its top level ("" for everything)
+     */
+    public HistoryAnalyzer(Path repository, String folder) {
+
+        // initialize components
+        this.repository = repository;
+        this.folder = folder.replaceAll("^/+|/+$", "");
+        this.incremental = new IncrementalAnalyzer(new GHRepoAnalyzer(null));
+
+    }
+
+    /**
+     * analyzes the last commits
+     * @param maxCommits number of commits to walk back from HEAD
+     * @param store receives one row per commit (oldest first)
+     * @param progress called after each commit with (commits done, commits total), may be null
+     * @return analysis of the newest commit (null if there are no commits)
+     * @throws IOException if git fails
+     */
+    public GHRepoAnalyzed analyze(int maxCommits, TrendStore store, BiConsumer<Integer, Integer> progress) throws IOException {
+
+        // resolve the top level (git paths and pathspecs below are relative to it)
+        root = repository;
+        root = Path.of(new String(git("rev-parse", "--show-toplevel"), StandardCharsets.UTF_8).trim());
+        List<Commit> commits = commits(maxCommits);
+        incremental.clear();
+        SortedSet<String> paths = new TreeSet<>();
+        String previous = null;
+
+        try (CatFile catFile = new CatFile()) {
+            for (int i = 0; i < commits.size(); i++) {
+                Commit commit = commits.get(i);
+
+                // what changed (everything for the first commit)
+                Map<String, String> changed = new HashMap<>();
+                List<String> removed = new ArrayList<>();
+                if (previous == null) {
+                    for (String path : split(git("ls-tree", "-r", "-z", "--full-name", "--name-only", commit.id(), "--", scope()))) {
+                        paths.add(path);
+                        if (PathTrie.isJava(path)) { changed.put(path, catFile.read(commit.id(), path)); }
+                    }
+                } else {
+                    List<String> diff = split(git("diff-tree", "-r", "-z", "--no-renames", "--name-status",
+                            previous, commit.id(), "--", scope()));
+                    for (int d = 0; d + 1 < diff.size(); d += 2) {
+                        String status = diff.get(d);
+                        String path = diff.get(d + 1);
+                        if (status.startsWith("D")) {
+                            paths.remove(path);
+                            if (PathTrie.isJava(path)) { removed.add(path); }
+                        } else {
+                            paths.add(path);
+                            if (PathTrie.isJava(path)) { changed.put(path, catFile.read(commit.id(), path)); }
+                        }
+                    }
+                }
+
+                // reprocess only if .java files changed
+                if (previous == null || !changed.isEmpty() || !removed.isEmpty()) {
+                    GHRepoAnalyzed analysis = incremental.update(changed, removed, List.copyOf(paths));
+                    store.append(commit.id(), commit.epochSeconds(), analysis);
+                } else {
+                    store.appendUnchanged(commit.id(), commit.epochSeconds());
+                }
+
+                previous = commit.id();
+                if (progress != null) { progress.accept(i + 1, commits.size()); }
+            }
+        }
+
+        logger.info("History analyzed: {} commits, {} files at HEAD", commits.size(), incremental.getFileCount());
+        return incremental.getLatest();
+
+    }
+
+    /**
+     * helper function to list the commits to walk
+     * @param maxCommits number of commits to walk back from HEAD
+     * @return commits, oldest first
+     * @throws IOException if git fails
+     */
+    private List<Commit> commits(int maxCommits) throws IOException {
+        List<Commit> commits = new ArrayList<>();
+        String log = new String(git("log", "--first-parent", "--reverse", "--max-count=" + maxCommits, "--format=%H %ct", "HEAD"),
+                StandardCharsets.UTF_8);
+        for (String line : log.split("\n")) {
+            int space = line.indexOf(' ');
+            if (space > 0) {
+                commits.add(new Commit(line.substring(0, space), Long.parseLong(line.substring(space + 1).trim())));
+            }
+        }
+        return commits;
+    }
+
+    /**
+     * helper function to get the pathspec of the analyzed folder
+     * @return folder pathspec
+     */
+    private String scope() {
+        return folder.isEmpty() ? "." : folder;
+    }
+
+    /**
+     * helper function to split NUL separated git output
+     * @param output git output (-z)
+     * @return fields
+     */
+    private static List<String> split(byte[] output) {
+        List<String> fields = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < output.length; i++) {
+            if (output[i] == 0) {
+                fields.add(new String(output, start, i - start, StandardCharsets.UTF_8));
+                start = i + 1;
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * helper function to run a git command in the repository
+     * @param args git arguments
+     * @return standard output
+     * @throws IOException if git cannot be started or exits with an error
+     */
+    private byte[] git(String... args) throws IOException {
+
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.add("-C");
+        command.add(root.toString());
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.PIPE).start();
+
+        // drain stderr in the background so a chatty git cannot block
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        Thread drain = new Thread(() -> {
+            try (InputStream err = process.getErrorStream()) { err.transferTo(errors); } catch (IOException ignored) { }
+        });
+        drain.start();
+
+        byte[] output;
+        try (InputStream out = process.getInputStream()) {
+            output = out.readAllBytes();
+        }
+        try {
+            int status = process.waitFor();
+            drain.join();
+            if (status != 0) {
+                throw new IOException("git " + args[0] + " failed: " + errors.toString(StandardCharsets.UTF_8).trim());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroy();
+            throw new IOException("git " + args[0] + " interrupted", e);
+        }
+        return output;
+
+    }
+
+    /**
+     * long-running git cat-file process (one process for every file of every commit instead of one per file)
+     */
+    private class CatFile implements Closeable {
+
+        // fields
+        private final Process process;
+        private final OutputStream requests;
+        private final InputStream responses;
+
+        /**
+         * constructor
+         * @throws IOException if git cannot be started
+         */
+        CatFile() throws IOException {
+            process = new ProcessBuilder("git", "-C", root.toString(), "cat-file", "--batch")
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            requests = process.getOutputStream();
+            responses = process.getInputStream();
+        }
+
+        /**
+         * reads a file as of a commit
+         * @param commit commit id
+         * @param path repo relative path
+         * @return file content
+         * @throws IOException if git fails or the file does not exist
+         */
+        String read(String commit, String path) throws IOException {
+
+            requests.write((commit + ":" + path + "\n").getBytes(StandardCharsets.UTF_8));
+            requests.flush();
+
+            // header: <sha> blob <size>, or <name> missing
+            String header = readLine();
+            String[] parts = header.split(" ");
+            if (parts.length != 3 || !parts[1].equals("blob")) {
+                throw new IOException("git cat-file: " + header);
+            }
+            byte[] content = responses.readNBytes(Integer.parseInt(parts[2]));
+            responses.read();  // trailing newline
+            return new String(content, StandardCharsets.UTF_8);
+
+        }
+
+        /**
+         * helper function to read one header line
+         * @return line without newline
+         * @throws IOException if git exited
+         */
+        private String readLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            for (int b = responses.read(); b != '\n'; b = responses.read()) {
+                if (b == -1) { throw new IOException("git cat-file exited"); }
+                line.write(b);
+            }
+            return line.toString(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            requests.close();
+            process.destroy();
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+package Asgn3;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * keeps the per-file results of an analysis so a new version of the sources only reprocesses changed files
+ * lexing, file metrics, class extraction and token metrics run for changed files only;
+ * relationships and class metrics are rebuilt from the kept member summaries (cheap, no source is read again)
+ * used by history mode (one update per commit) and watch mode (one update per batch of saved files)
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class IncrementalAnalyzer {
+
+    // components
+    private final GHRepoAnalyzer analyzer;
+
+    // fields
+    private final SortedMap<String, MetricEngine.Unit> units = new TreeMap<>();  // per file, tokens dropped once linked
+    private GHRepoAnalyzed latest;
+    private int reprocessed = 0;
+
+    /**
+     * constructor
+     * @param analyzer analyzer whose stages (and metric engine) are used
+     */
+    public IncrementalAnalyzer(GHRepoAnalyzer analyzer) {
+
+        // initialize components
+        this.analyzer = analyzer;
+
+    }
+
+    /**
+     * applies a change set and re-links the analysis
+     * @param changed added or modified files mapped to their new contents
+     * @param removed deleted files
+     * @param filePaths all files after the change
+     * @return analysis of the sources after the change
+     */
+    public synchronized GHRepoAnalyzed update(Map<String, String> changed, Collection<String> removed, List<String> filePaths) {
+
+        AnalysisProfile profile = AnalysisMetrics.getInstance().newProfile();
+
+        // per-file stages for the changed files only
+        for (String file : removed) {
+            units.remove(file);
+        }
+        SortedMap<String, MetricEngine.Unit> prepared = analyzer.prepareFiles(changed, profile);
+        units.putAll(prepared);
+        reprocessed = prepared.size();
+
+        // project-wide stages over every file (fresh files still carry tokens for the token metrics)
+        latest = analyzer.link(units.values(), filePaths, profile);
+
+        // tokens are only needed once per file version
+        for (MetricEngine.Unit unit : prepared.values()) {
+            units.put(unit.file(), new MetricEngine.Unit(unit.file(), null, unit.size(), unit.complexity(), unit.tokenMetricNames(),
+                    unit.tokenMetrics(), unit.classes()));
+        }
+
+        return latest;
+
+    }
+
+    /**
+     * gets the analysis produced by the last update
+     * @return analysis (null before the first update)
+     */
+    public synchronized GHRepoAnalyzed getLatest() {
+        return latest;
+    }
+
+    /**
+     * gets the number of files the last update reprocessed
+     * @return changed files
+     */
+    public synchronized int getReprocessed() {
+        return reprocessed;
+    }
+
+    /**
+     * gets the number of files currently analyzed
+     * @return files
+     */
+    public synchronized int getFileCount() {
+        return units.size();
+    }
+
+    /**
+     * forgets every file (next update analyzes from scratch)
+     */
+    public synchronized void clear() {
+        units.clear();
+        latest = null;
+    }
+
+}
@@ -11,11 +11,10 @@ public class JavaClass {
     // fields
     public final String name;
     public final String signature;
-    public String fullBody;  // raw body with nested classes (if any)
-    public String cleanedBody;  // body without nested classes (for dependency calculations)
     public final int openBrace;
     public final int closeBrace;
     public String classType;  
+    public ClassSummary summary;  // members, references and supertypes (nested classes excluded), built once during extraction
 
     /**
      * constructor
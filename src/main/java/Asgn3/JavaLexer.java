@@ -0,0 +1,478 @@
+package Asgn3;
+import java.util.Arrays;
+
+/**
+ * single pass Java tokenizer
+ * comments and whitespace are dropped, string/char literals (including text blocks) become one token each,
+ * every other non-identifier character is its own SYMBOL token (so "==" is two '=' tokens, ">>" two '>')
+ * tokens are stored in parallel arrays (kind, start, end) instead of objects, offsets point into the source
+ * brackets ( [ { are paired right after tokenizing (one stack sweep), so matching is a table lookup;
+ * malformed files get a second sweep that recovers from missing / extra brackets using indentation
+ * (see sweep), so no bracket scans to the end of the file
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public final class JavaLexer {
+
+    // token kinds
+    public static final byte IDENT = 0;
+    public static final byte NUMBER = 1;
+    public static final byte STRING = 2;
+    public static final byte CHAR = 3;
+    public static final byte SYMBOL = 4;
+
+    // config
+    private static final int MAX_RECOVERY_DEPTH = 64;  // open blocks a '}' looks through for its own
+
+    // fields
+    private final String source;
+    private byte[] kinds;
+    private int[] starts;
+    private int[] ends;
+    private int count = 0;
+    private long steps = 0;  // work done: characters scanned, tokens swept, bracket stack steps
+    private int[] pairs;  // closing bracket of each ( [ { token (count if it runs to the end), -1 for other tokens
+
+    /**
+     * constructor
+     * @param source Java source (whole file or any balanced part of it)
+     */
+    private JavaLexer(String source) {
+        this.source = source;
+        int capacity = Math.max(16, source.length() / 4);  // roughly one token per 4 chars
+        this.kinds = new byte[capacity];
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+    }
+
+    /**
+     * tokenizes source
+     * @param source Java source
+     * @return tokens
+     */
+    public static JavaLexer lex(String source) {
+        JavaLexer lexer = new JavaLexer(source);
+        lexer.run();
+        lexer.steps = source.length();
+        lexer.pairBrackets();
+        return lexer;
+    }
+
+    // getters
+    public String source() { return source; }
+    public int count() { return count; }
+    public byte kind(int i) { return kinds[i]; }
+    public int start(int i) { return starts[i]; }
+    public int end(int i) { return ends[i]; }
+    public long steps() { return steps; }  // deterministic cost of lexing (see GHRepoAnalyzer.FILE_BUDGET_STEPS)
+
+    /**
+     * gets token text (allocates, prefer is/isSymbol for comparisons)
+     * @param i token index
+     * @return token text
+     */
+    public String text(int i) {
+        return source.substring(starts[i], ends[i]);
+    }
+
+    /**
+     * checks if token is a given symbol
+     * @param i token index (out of range is allowed, returns false)
+     * @param symbol symbol character
+     * @return true if token is that symbol
+     */
+    public boolean isSymbol(int i, char symbol) {
+        return i >= 0 && i < count && kinds[i] == SYMBOL && source.charAt(starts[i]) == symbol;
+    }
+
+    /**
+     * checks if token is a given identifier / keyword (no allocation)
+     * @param i token index (out of range is allowed, returns false)
+     * @param word identifier
+     * @return true if token is exactly that identifier
+     */
+    public boolean is(int i, String word) {
+        return i >= 0 && i < count && kinds[i] == IDENT && ends[i] - starts[i] == word.length()
+                && source.startsWith(word, starts[i]);
+    }
+
+    /**
+     * checks if token is an identifier
+     * @param i token index (out of range is allowed, returns false)
+     * @return true if identifier / keyword
+     */
+    public boolean isIdent(int i) {
+        return i >= 0 && i < count && kinds[i] == IDENT;
+    }
+
+    /**
+     * finds the token starting at (or first token after) a source offset
+     * @param offset source offset
+     * @return token index (count() if past the last token)
+     */
+    public int indexAt(int offset) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < offset) { low = mid + 1; } else { high = mid; }
+        }
+        return low;
+    }
+
+    /**
+     * finds the token closing a bracket (round, square, curly or angle)
+     * round, square and curly brackets are looked up in the pair table; in a malformed file a bracket without
+     * a partner ends at the last token before where it was meant to close (see sweep), not at a bracket
+     * @param open token index of the opening bracket
+     * @return token index of the matching bracket (or of the last token inside it), count() if it runs to the end
+     */
+    public int matching(int open) {
+        char opening = source.charAt(starts[open]);
+        if (opening != '<') {
+            if (kinds[open] != SYMBOL || pairs[open] < 0) { throw new IllegalArgumentException("not a bracket: " + opening); }
+            return pairs[open];
+        }
+
+        // angle brackets are also operators, so they are matched on demand (a type argument list ends before ; { })
+        int depth = 0;
+        for (int i = open; i < count; i++) {
+            if (kinds[i] != SYMBOL) { continue; }
+            char c = source.charAt(starts[i]);
+            if (c == '<') {
+                depth++;
+            } else if (c == '>' && --depth == 0) {
+                return i;
+            } else if (c == ';' || c == '{' || c == '}') {
+                return count;  // not a type argument list after all
+            }
+        }
+        return count;
+    }
+
+    /**
+     * gets the source without comments and literals (same length and line breaks, removed characters become spaces)
+     * @return source with only code left
+     */
+    public String code() {
+        char[] code = source.toCharArray();
+        int previous = 0;  // end of the previous token
+        for (int i = 0; i <= count; i++) {
+            int start = (i < count) ? starts[i] : code.length;
+            blank(code, previous, start);  // whitespace and comments between tokens
+            if (i == count) { break; }
+            if (kinds[i] == STRING || kinds[i] == CHAR) { blank(code, starts[i], ends[i]); }
+            previous = ends[i];
+        }
+        return new String(code);
+    }
+
+    /**
+     * helper function to replace characters with spaces, keeping line breaks
+     * @param code characters
+     * @param from first index
+     * @param to end index (exclusive)
+     */
+    private static void blank(char[] code, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (code[i] != '\n' && code[i] != '\r') { code[i] = ' '; }
+        }
+    }
+
+    /**
+     * helper function to pair all round, square and curly brackets (see matching)
+     * well-formed files take one sweep; only files with a stray or unclosed bracket take the recovering one
+     */
+    private void pairBrackets() {
+        if (!sweep(false)) { sweep(true); }
+    }
+
+    /**
+     * helper function to pair brackets in one stack sweep
+     * always: a '}' closes any ( or [ still open inside its block, a stray ) or ] never closes a block
+     * recovering: a '}' that starts its line closes the open '{' whose line is indented the same (the blocks in
+     * between were not closed), and a bracket closed that way or never closed ends before the first later line
+     * indented no deeper than its own line (or where its enclosing bracket ends, if earlier)
+     * without recovering, unclosed brackets run to the end (count)
+     * @param recover true to use indentation
+     * @return true if every bracket was closed by its own partner
+     */
+    private boolean sweep(boolean recover) {
+
+        pairs = new int[count];
+        Arrays.fill(pairs, -1);
+        steps += count;
+        int[] stack = new int[16];  // open brackets (token indices)
+        int[] stackIndents = new int[16];  // indentation of each open bracket's line
+        int[] roundBelow = new int[16];  // per stack entry: nearest ( at or below it inside the same block (-1 for none)
+        int[] squareBelow = new int[16];  // same for [
+        int[] curlyBelow = new int[16];  // nearest { at or below it (-1 for none)
+        int depth = 0;
+        boolean balanced = true;
+
+        // recovery bookkeeping: first token and indentation of every line, brackets that lost their partner
+        int[] lineTokens = new int[recover ? 16 : 0];
+        int[] lineIndents = new int[lineTokens.length];
+        int lines = 0;
+        int[] lost = new int[recover ? 16 : 0];  // (bracket, indentation, latest end, enclosing bracket) per entry
+        int lostCount = 0;
+        int scanned = 0;  // source offset up to which line breaks were looked for
+        int lineIndent = 0;
+
+        for (int i = 0; i < count; i++) {
+
+            // line tracking (recovery only)
+            boolean firstOnLine = false;
+            if (recover) {
+                int lineStart = (i == 0) ? 0 : -1;
+                for (int p = scanned; p < starts[i]; p++) {
+                    if (source.charAt(p) == '\n') { lineStart = p + 1; }
+                }
+                if (lineStart >= 0) {
+                    firstOnLine = true;
+                    lineIndent = starts[i] - lineStart;
+                    if (lines == lineTokens.length) {
+                        lineTokens = Arrays.copyOf(lineTokens, lines * 2);
+                        lineIndents = Arrays.copyOf(lineIndents, lines * 2);
+                    }
+                    lineTokens[lines] = i;
+                    lineIndents[lines++] = lineIndent;
+                }
+                scanned = ends[i];
+            }
+
+            if (kinds[i] != SYMBOL) { continue; }
+            char c = source.charAt(starts[i]);
+
+            // opening bracket (remembers the nearest opener of each kind, so closers never walk the stack)
+            if (c == '(' || c == '[' || c == '{') {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                    stackIndents = Arrays.copyOf(stackIndents, depth * 2);
+                    roundBelow = Arrays.copyOf(roundBelow, depth * 2);
+                    squareBelow = Arrays.copyOf(squareBelow, depth * 2);
+                    curlyBelow = Arrays.copyOf(curlyBelow, depth * 2);
+                }
+                boolean block = (c == '{');
+                roundBelow[depth] = (c == '(') ? depth : (block || depth == 0) ? -1 : roundBelow[depth - 1];
+                squareBelow[depth] = (c == '[') ? depth : (block || depth == 0) ? -1 : squareBelow[depth - 1];
+                curlyBelow[depth] = block ? depth : (depth == 0) ? -1 : curlyBelow[depth - 1];
+                stackIndents[depth] = lineIndent;
+                stack[depth++] = i;
+                continue;
+            }
+            if (c != ')' && c != ']' && c != '}') { continue; }
+
+            // closing bracket: its opening bracket, a ) or ] does not look past the innermost block
+            int[] below = (c == ')') ? roundBelow : (c == ']') ? squareBelow : curlyBelow;
+            int match = (depth > 0) ? below[depth - 1] : -1;
+            if (match < 0) {  // stray, ignored
+                balanced = false;
+                continue;
+            }
+
+            // recovering: a '}' starting its line belongs to the block indented like it (outer blocks only)
+            if (recover && c == '}' && firstOnLine && stackIndents[match] > lineIndent) {
+                int hops = 0;
+                for (int k = (match > 0) ? curlyBelow[match - 1] : -1; k >= 0 && hops < MAX_RECOVERY_DEPTH
+                        && stackIndents[k] >= lineIndent; k = (k > 0) ? curlyBelow[k - 1] : -1, hops++) {
+                    if (stackIndents[k] == lineIndent) {
+                        match = k;
+                        break;
+                    }
+                }
+                steps += hops;
+            }
+
+            // brackets left open in between end right before this one
+            steps += depth - match;
+            for (int k = match + 1; k < depth; k++) {
+                balanced = false;
+                pairs[stack[k]] = Math.max(stack[k], i - 1);
+                if (recover) { lost = lose(lost, lostCount++, stack[k], stackIndents[k], i - 1, stack[k - 1]); }
+            }
+            pairs[stack[match]] = i;
+            depth = match;
+
+        }
+
+        // never closed
+        for (int k = 0; k < depth; k++) {
+            balanced = false;
+            pairs[stack[k]] = count;
+            if (recover) { lost = lose(lost, lostCount++, stack[k], stackIndents[k], count, (k > 0) ? stack[k - 1] : -1); }
+        }
+        if (!recover || lostCount == 0) { return balanced; }
+
+        // next line indented less than each line (monotonic stack, from the last line back)
+        int[] shallower = new int[lines];
+        int[] pending = new int[lines];
+        int top = 0;
+        for (int l = lines - 1; l >= 0; l--) {
+            while (top > 0 && lineIndents[pending[top - 1]] >= lineIndents[l]) { top--; }
+            shallower[l] = (top > 0) ? pending[top - 1] : -1;
+            pending[top++] = l;
+        }
+
+        // lost brackets end before the first later line indented no deeper (enclosing brackets come first)
+        int[] lostEnclosing = new int[count];  // lost bracket --> bracket it was nested in on the stack
+        for (int e = 0; e < lostCount; e++) {
+            lostEnclosing[lost[4 * e]] = lost[4 * e + 3];
+        }
+        for (int e = 0; e < lostCount; e++) {
+            int open = lost[4 * e];
+            int indent = lost[4 * e + 1];
+            int end = lost[4 * e + 2];
+            int enclosing = lost[4 * e + 3];
+            int l = Arrays.binarySearch(lineTokens, 0, lines, open + 1);
+            if (l < 0) { l = -l - 1; }
+            if (l == lines) { l = -1; }
+            while (l >= 0 && lineIndents[l] > indent) {
+                l = shallower[l];
+                steps++;
+            }
+            if (l >= 0) { end = Math.min(end, Math.max(open, lineTokens[l] - 1)); }
+            while (enclosing >= 0 && pairs[enclosing] < open) {  // a sibling after all
+                enclosing = lostEnclosing[enclosing];
+                steps++;
+            }
+            lostEnclosing[open] = enclosing;  // later siblings skip straight to it
+            if (enclosing >= 0) { end = Math.min(end, pairs[enclosing]); }
+            pairs[open] = Math.max(open, end);
+        }
+        return false;
+
+    }
+
+    /**
+     * helper function to remember a bracket that lost its partner (recovering sweep)
+     * @param lost entries so far, 4 ints each
+     * @param index entry index
+     * @param open bracket token
+     * @param indent indentation of the bracket's line
+     * @param end latest token it may end at
+     * @param enclosing bracket it is nested in (-1 for none)
+     * @return entries (grown if needed)
+     */
+    private static int[] lose(int[] lost, int index, int open, int indent, int end, int enclosing) {
+        if (4 * index + 4 > lost.length) { lost = Arrays.copyOf(lost, Math.max(16, lost.length * 2)); }
+        lost[4 * index] = open;
+        lost[4 * index + 1] = indent;
+        lost[4 * index + 2] = end;
+        lost[4 * index + 3] = enclosing;
+        return lost;
+    }
+
+    /**
+     * helper function to tokenize the whole source
+     */
+    private void run() {
+
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+
+            char c = source.charAt(i);
+
+            // whitespace
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+
+            // comments
+            if (c == '/' && i + 1 < length) {
+                char next = source.charAt(i + 1);
+                if (next == '/') {
+                    int end = source.indexOf('\n', i);
+                    i = (end == -1) ? length : end + 1;
+                    continue;
+                }
+                if (next == '*') {
+                    int end = source.indexOf("*/", i + 2);
+                    i = (end == -1) ? length : end + 2;
+                    continue;
+                }
+            }
+
+            int start = i;
+
+            // identifiers / keywords
+            if (Character.isJavaIdentifierStart(c)) {
+                i++;
+                while (i < length && Character.isJavaIdentifierPart(source.charAt(i))) { i++; }
+                add(IDENT, start, i);
+                continue;
+            }
+
+            // numbers (digits, hex, underscores, suffixes, exponent)
+            if (Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(source.charAt(i + 1)))) {
+                i++;
+                while (i < length) {
+                    char d = source.charAt(i);
+                    if (Character.isLetterOrDigit(d) || d == '_' || d == '.') {
+                        i++;
+                    } else if ((d == '+' || d == '-') && (source.charAt(i - 1) == 'e' || source.charAt(i - 1) == 'E'
+                            || source.charAt(i - 1) == 'p' || source.charAt(i - 1) == 'P')) {
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                add(NUMBER, start, i);
+                continue;
+            }
+
+            // text blocks
+            if (c == '"' && source.startsWith("\"\"\"", i)) {
+                int end = i + 3;
+                while ((end = source.indexOf("\"\"\"", end)) != -1 && source.charAt(end - 1) == '\\') { end++; }
+                i = (end == -1) ? length : end + 3;
+                add(STRING, start, i);
+                continue;
+            }
+
+            // string / char literals (stop at end of line if unterminated)
+            if (c == '"' || c == '\'') {
+                i++;
+                while (i < length) {
+                    char d = source.charAt(i);
+                    if (d == '\\') { i += 2; continue; }
+                    if (d == c) { i++; break; }
+                    if (d == '\n') { break; }
+                    i++;
+                }
+                i = Math.min(i, length);
+                add(c == '"' ? STRING : CHAR, start, i);
+                continue;
+            }
+
+            // anything else: single character symbol
+            i++;
+            add(SYMBOL, start, i);
+
+        }
+
+    }
+
+    /**
+     * helper function to append a token
+     * @param kind token kind
+     * @param start start offset
+     * @param end end offset (exclusive)
+     */
+    private void add(byte kind, int start, int end) {
+        if (count == kinds.length) {
+            int capacity = count * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        kinds[count] = kind;
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+
+}
@@ -0,0 +1,151 @@
+package Asgn3;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * command line tool that turns a .jfr recording into a stage-by-stage report
+ * usage: java -cp <jar> Asgn3.JfrSummary analysis.jfr
+ * reads the events declared in AnalysisEvents, everything else in the recording is ignored
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class JfrSummary {
+
+    // event names
+    private static final String PREFIX = "Asgn3.";
+    private static final String STAGE = "Asgn3.Stage";
+
+    /**
+     * running totals for one stage / event type
+     */
+    private static class Totals {
+
+        // fields
+        long count;
+        long totalNanos;
+        long maxNanos;
+        long items;
+        String slowest = "";
+
+        /**
+         * adds one event
+         * @param duration event duration
+         * @param items items (stages) or bytes / characters (other events)
+         * @param label what the event was about (file, class, ...)
+         */
+        void add(Duration duration, long items, String label) {
+            long nanos = duration.toNanos();
+            count++;
+            totalNanos += nanos;
+            this.items += items;
+            if (nanos >= maxNanos) {
+                maxNanos = nanos;
+                slowest = (label == null) ? "" : label;
+            }
+        }
+    }
+
+    /**
+     * entry point
+     * @param args path of .jfr recording
+     * @throws IOException if recording cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+
+        if (args.length != 1) {
+            System.err.println("usage: JfrSummary <recording.jfr>");
+            System.exit(2);
+        }
+
+        Map<String, Totals> stages = new LinkedHashMap<>();  // in order first seen
+        Map<String, Totals> events = new LinkedHashMap<>();
+
+        // single pass over the recording
+        try (RecordingFile recording = new RecordingFile(Path.of(args[0]))) {
+            while (recording.hasMoreEvents()) {
+
+                RecordedEvent event = recording.readEvent();
+                String type = event.getEventType().getName();
+                if (!type.startsWith(PREFIX)) { continue; }
+
+                if (type.equals(STAGE)) {
+                    stages.computeIfAbsent(event.getString("stage"), stage -> new Totals())
+                            .add(event.getDuration(), event.getInt("items"), null);
+                } else {
+                    events.computeIfAbsent(type.substring(PREFIX.length()), name -> new Totals())
+                            .add(event.getDuration(), amount(event), label(event));
+                }
+            }
+        }
+
+        System.out.print(report(stages, events));
+
+    }
+
+    /**
+     * builds the report
+     * @param stages stage name mapped to totals
+     * @param events event type mapped to totals
+     * @return printable report
+     */
+    private static String report(Map<String, Totals> stages, Map<String, Totals> events) {
+
+        StringBuilder out = new StringBuilder();
+
+        // stages (what the user waited for)
+        long allStages = 0;
+        for (Totals totals : stages.values()) {
+            allStages += totals.totalNanos;
+        }
+        out.append(String.format("%-16s %6s %11s %11s %6s %10s%n", "stage", "runs", "total ms", "max ms", "share", "items"));
+        for (Map.Entry<String, Totals> entry : stages.entrySet()) {
+            Totals totals = entry.getValue();
+            out.append(String.format("%-16s %6d %11.2f %11.2f %5.1f%% %10d%n",
+                    entry.getKey(), totals.count, totals.totalNanos / 1e6, totals.maxNanos / 1e6,
+                    allStages == 0 ? 0.0 : 100.0 * totals.totalNanos / allStages, totals.items));
+        }
+
+        // per file / per class detail
+        out.append(String.format("%n%-16s %8s %12s %11s %9s %11s  %s%n", "event", "count", "size", "total ms", "avg us", "max ms", "slowest"));
+        for (Map.Entry<String, Totals> entry : events.entrySet()) {
+            Totals totals = entry.getValue();
+            out.append(String.format("%-16s %8d %12d %11.2f %9.1f %11.2f  %s%n",
+                    entry.getKey(), totals.count, totals.items, totals.totalNanos / 1e6,
+                    totals.totalNanos / 1e3 / totals.count, totals.maxNanos / 1e6, totals.slowest));
+        }
+
+        return out.toString();
+
+    }
+
+    /**
+     * helper function to pick the size an event carries
+     * @param event recorded event
+     * @return bytes, characters or 0
+     */
+    private static long amount(RecordedEvent event) {
+        if (event.hasField("bytes")) { return event.getLong("bytes"); }
+        if (event.hasField("chars")) { return event.getInt("chars"); }
+        if (event.hasField("sourceChars")) { return event.getInt("sourceChars"); }
+        return 0;
+    }
+
+    /**
+     * helper function to pick what an event was about
+     * @param event recorded event
+     * @return file path, class name, scan name or null
+     */
+    private static String label(RecordedEvent event) {
+        for (String field : new String[] {"path", "file", "className", "scan"}) {
+            if (event.hasField(field)) { return event.getString(field); }
+        }
+        return null;
+    }
+
+}
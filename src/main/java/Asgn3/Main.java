@@ -1,5 +1,7 @@
 package Asgn3;
 import javax.swing.*;
+import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * launch program from here
@@ -12,10 +14,19 @@ public class Main {
 
     /**
      * start program
-     * @param args command line arguments (unused)
+     * no arguments --> desktop app
+     * --server [port] [threads] [queue] [cacheSize] [host] --> HTTP analysis server (see AnalysisServer)
+     * @param args command line arguments
+     * @throws IOException if the server port cannot be bound
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+
+        if (args.length > 0 && args[0].equals("--server")) {
+            AnalysisServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         SwingUtilities.invokeLater(MainFrame::new);
+
     }
 
 }
@@ -2,8 +2,12 @@ package Asgn3;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,12 +27,31 @@ public class MainFrame extends JFrame {
     private final SidePanel sidePanel;
     private final GridPanel gridPanel;
     private final MetricsPanel metricsPanel;
+    private final TrendPanel trendPanel;
     private final DiagramPanel diagramPanel;
+    private final ComparePanel comparePanel;
     private final JTabbedPane tabbedPane;
+    private Workspace workspace;  // created on first comparison
+    private GHRepoAnalyzed analysis;  // currently displayed (null if none)
+    private FolderWatcher watcher;  // watch mode (null if not watching)
+    private Object watchToken;  // identifies the watcher being started or running (null if none)
+    private List<Runnable> pendingWatchUpdates;  // updates that arrived before the initial analysis was shown
+    private SourceFilter sourceFilter = SourceFilter.ALL;  // which files of a GH folder are analyzed
+    private double sampleRate = 1.0;  // share of those files analyzed (1 --> all, no estimates)
+
+    // config
+    private static final long SAMPLE_SEED = 42;  // fixed, so reloading a folder analyzes the same sample
 
     // logger
     private static final Logger logger = LoggerFactory.getLogger(MainFrame.class);
 
+    /**
+     * an analysis plus what its panels need precomputed (built off the EDT, see prepare)
+     * @param analysis analysis to display
+     * @param grid grid render model of its file metrics
+     */
+    private record Prepared(GHRepoAnalyzed analysis, GridRenderModel grid, DiagramPanel.Rendered diagram) {}
+
     /**
      * constructor
      */
@@ -57,13 +80,17 @@ public class MainFrame extends JFrame {
         sidePanel = new SidePanel();
         gridPanel = new GridPanel(bottomPanel);
         metricsPanel = new MetricsPanel(bottomPanel);
+        trendPanel = new TrendPanel();
         diagramPanel = new DiagramPanel();
+        comparePanel = new ComparePanel(this::showAnalysis);
 
-        // create tabs for grid, metrics, and diagram
+        // create tabs for grid, metrics, trends, and diagram
         tabbedPane = new JTabbedPane();
         tabbedPane.addTab("Grid", gridPanel);
         tabbedPane.addTab("Metrics", metricsPanel);
+        tabbedPane.addTab("Trends", trendPanel);
         tabbedPane.addTab("Diagram", diagramPanel);
+        tabbedPane.addTab("Compare", comparePanel);
 
         // add to frame
         add(topBar, BorderLayout.NORTH);
@@ -97,45 +124,538 @@ public class MainFrame extends JFrame {
 
         logger.info("Analyzing GH URL: calculating file level and class level metrics for grid and metrics panel...");
 
-        try {
+        // analyze files in GH URL (all of them, or a sample) off the event thread, grid model included
+        GHRepoAnalyzer GHRepoAnalyzer = new GHRepoAnalyzer(ghOperations);
+        GHRepoAnalyzer.setSourceFilter(sourceFilter);
+        double rate = sampleRate;
+        bottomPanel.setMessage("ANALYZING: " + url);
+        new SwingWorker<Prepared, Void>() {
+            private SampleEstimate sample;
+
+            @Override
+            protected Prepared doInBackground() throws IOException {
+                sample = (rate < 1) ? GHRepoAnalyzer.analyzeSample(url, rate, SAMPLE_SEED) : null;
+                return prepare((sample != null) ? sample.getAnalysis() : GHRepoAnalyzer.analyzeFiles(url));
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    Prepared prepared = get();
+
+                    if (prepared.analysis().getFileMetrics().isEmpty()) {
+                        JOptionPane.showMessageDialog(MainFrame.this, "No .java files found in GH folder");
+                        gridPanel.clearGrid();
+                        metricsPanel.showMetrics(List.of());
+                        diagramPanel.clear();
+                        return;
+                    }
+
+                    logger.info("Analysis Complete: updating panels...");
+                    logger.info("Analysis stages:\n{}", prepared.analysis().getProfile());
+
+                    showAnalysis(prepared);
+                    bottomPanel.setMessage((sample != null) ? sample.toString() : "");
 
-            // analyze files in GH URL
-            GHRepoAnalyzer GHRepoAnalyzer = new GHRepoAnalyzer(ghOperations);
-            GHRepoAnalyzed analysis = GHRepoAnalyzer.analyzeFiles(url);
+                } catch (Exception e) {
 
-            if (analysis.getFileMetrics().isEmpty()) {
-                JOptionPane.showMessageDialog(this, "No .java files found in GH folder");
-                gridPanel.clearGrid();
-                metricsPanel.showMetrics(List.of());
-                diagramPanel.clear();
+                    Throwable cause = (e instanceof ExecutionException && e.getCause() != null) ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(MainFrame.this, cause.getMessage());
+                    gridPanel.clearGrid();
+                    metricsPanel.showMetrics(List.of());
+                    diagramPanel.clear();
+
+                }
+            }
+        }.execute();
+
+    }
+
+    /**
+     * analyzes several GH folders side by side (one URL per line) and lists them in the compare tab
+     * runs in the background, rows appear as folders finish
+     */
+    public void compareFolders() {
+
+        JTextArea input = new JTextArea(12, 60);
+        int choice = JOptionPane.showConfirmDialog(this, new JScrollPane(input),
+                "GH folder URLs (one per line)", JOptionPane.OK_CANCEL_OPTION);
+        if (choice != JOptionPane.OK_OPTION) { return; }
+
+        List<String> urls = Arrays.stream(input.getText().split("\\R"))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+        for (String url : urls) {
+            if (!url.startsWith("https://github.com/") || !url.contains("/tree/")) {
+                JOptionPane.showMessageDialog(this, "Invalid GH folder URL: " + url);
                 return;
             }
+        }
+        if (urls.isEmpty()) { return; }
+
+        logger.info("Comparing {} GH folders...", urls.size());
+
+        if (workspace == null) {
+            workspace = new Workspace(ghOperations, GHApiClient.MAX_CONCURRENCY);  // more would only wait for request slots
+        }
+        tabbedPane.setSelectedComponent(comparePanel);
+        bottomPanel.setMessage("COMPARING: " + urls.size() + " folders...");
+
+        // analyze off the event thread, publish each folder as it finishes
+        Workspace folders = workspace;
+        new SwingWorker<List<Workspace.RepoResult>, Workspace.RepoResult>() {
+            @Override
+            protected List<Workspace.RepoResult> doInBackground() {
+                return folders.analyze(urls, this::publish);
+            }
+
+            @Override
+            protected void process(List<Workspace.RepoResult> results) {
+                results.forEach(comparePanel::addResult);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    long failed = get().stream().filter(result -> !result.isOk()).count();
+                    bottomPanel.setMessage("COMPARED: " + urls.size() + " folders" + (failed > 0 ? " (" + failed + " failed)" : ""));
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(MainFrame.this, "Comparison failed:\n" + e.getMessage());
+                }
+            }
+        }.execute();
+
+    }
+
+    /**
+     * edits which files of a GH folder are analyzed: include / exclude globs, generated code and sampling
+     * applies to the next Ok / Reload
+     */
+    public void editSourceFilter() {
+
+        JTextField includes = new JTextField(String.join(", ", sourceFilter.getIncludes()));
+        JTextField excludes = new JTextField(String.join(", ", sourceFilter.getExcludes()));
+        JCheckBox skipGenerated = new JCheckBox("Skip generated code", sourceFilter.isSkipGenerated());
+        JSpinner percent = new JSpinner(new SpinnerNumberModel(sampleRate * 100, 1.0, 100.0, 1.0));
+        JPanel options = new JPanel(new GridLayout(0, 1));
+        options.add(new JLabel("Include globs (e.g. src/main/**, empty for all):"));
+        options.add(includes);
+        options.add(new JLabel("Exclude globs (e.g. **/test/**, *Test.java):"));
+        options.add(excludes);
+        options.add(skipGenerated);
+        options.add(new JLabel("Analyze % of files (below 100 --> estimates with 95% intervals):"));
+        options.add(percent);
+        if (JOptionPane.showConfirmDialog(this, options, "Source Filter", JOptionPane.OK_CANCEL_OPTION) != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        try {
+            sourceFilter = new SourceFilter(SourceFilter.parseGlobs(includes.getText()), SourceFilter.parseGlobs(excludes.getText()),
+                    skipGenerated.isSelected());
+        } catch (IllegalArgumentException e) {  // PatternSyntaxException
+            JOptionPane.showMessageDialog(this, "Invalid glob:\n" + e.getMessage());
+            return;
+        }
+        sampleRate = ((Number) percent.getValue()).doubleValue() / 100;
 
-            logger.info("Analysis Complete: updating panels...");
+        logger.info("Source filter: {}, sample rate {}", sourceFilter, sampleRate);
+        bottomPanel.setMessage("FILTER: " + sourceFilter + (sampleRate < 1 ? String.format(", sample %.0f%%", sampleRate * 100) : ""));
 
-            // update panels
-            sidePanel.showStructure(analysis.getFilePaths());
-            gridPanel.showMetrics(new ArrayList<>(analysis.getFileMetrics().values()));
-            metricsPanel.showMetrics(new ArrayList<>(analysis.getClassMetrics().values()));
-            diagramPanel.showDiagram(analysis);
-            tabbedPane.setSelectedIndex(0);
+    }
 
-        } catch (Exception e)  {
+    /**
+     * chooses which classes the metrics tab plots: range filters on A / I / D / Ca / Ce, ordering and top-K pages
+     * applies to the current and every later analysis
+     */
+    public void editClassQuery() {
+
+        // one min / max pair per metric (blank --> no bound)
+        ClassQuery.Metric[] metrics = ClassQuery.Metric.values();
+        JTextField[] mins = new JTextField[metrics.length];
+        JTextField[] maxs = new JTextField[metrics.length];
+        JPanel ranges = new JPanel(new GridLayout(0, 3, 5, 2));
+        ranges.add(new JLabel("Metric"));
+        ranges.add(new JLabel("Min"));
+        ranges.add(new JLabel("Max"));
+        for (int m = 0; m < metrics.length; m++) {
+            mins[m] = new JTextField();
+            maxs[m] = new JTextField();
+            ranges.add(new JLabel(metrics[m].name()));
+            ranges.add(mins[m]);
+            ranges.add(maxs[m]);
+        }
 
-            JOptionPane.showMessageDialog(this, e.getMessage());
-            gridPanel.clearGrid();
-            metricsPanel.showMetrics(List.of());
-            diagramPanel.clear();
+        // order + page
+        JComboBox<String> order = new JComboBox<>(new String[] {"name", "A", "I", "D", "CA", "CE"});
+        order.setSelectedItem("D");
+        JCheckBox descending = new JCheckBox("Largest first", true);
+        JSpinner limit = new JSpinner(new SpinnerNumberModel(50, 0, Integer.MAX_VALUE, 10));
+        JSpinner page = new JSpinner(new SpinnerNumberModel(1, 1, Integer.MAX_VALUE, 1));
+        JPanel options = new JPanel(new GridLayout(0, 1));
+        options.add(ranges);
+        options.add(new JLabel("Order by:"));
+        options.add(order);
+        options.add(descending);
+        options.add(new JLabel("Classes per page (0 for all):"));
+        options.add(limit);
+        options.add(new JLabel("Page:"));
+        options.add(page);
+        if (JOptionPane.showConfirmDialog(this, options, "Metrics Query", JOptionPane.OK_CANCEL_OPTION) != JOptionPane.OK_OPTION) {
+            return;
+        }
 
+        ClassQuery query = ClassQuery.ALL;
+        try {
+            for (int m = 0; m < metrics.length; m++) {
+                double min = parseBound(mins[m].getText(), Double.NEGATIVE_INFINITY);
+                double max = parseBound(maxs[m].getText(), Double.POSITIVE_INFINITY);
+                if (min > Double.NEGATIVE_INFINITY || max < Double.POSITIVE_INFINITY) { query = query.where(metrics[m], min, max); }
+            }
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Invalid bound: " + e.getMessage());
+            return;
+        }
+        String orderBy = (String) order.getSelectedItem();
+        if (!"name".equals(orderBy)) { query = query.orderBy(ClassQuery.Metric.valueOf(orderBy), descending.isSelected()); }
+        int pageSize = (Integer) limit.getValue();
+        if (pageSize == 0) { pageSize = Integer.MAX_VALUE; }
+        int offset = (int) Math.min(Integer.MAX_VALUE, (long) ((Integer) page.getValue() - 1) * pageSize);
+
+        logger.info("Metrics query: {}, offset {}, limit {}", query, offset, pageSize);
+        metricsPanel.setQuery(query, offset, pageSize);
+        tabbedPane.setSelectedComponent(metricsPanel);
+
+        ClassQuery.Page result = metricsPanel.getPage();
+        if (result != null) {
+            bottomPanel.setMessage(String.format("QUERY: %s --> %d-%d of %d matching (%d classes)", query,
+                    Math.min(result.offset() + 1, result.matches()), result.offset() + result.classes().size(), result.matches(), result.total()));
         }
 
     }
 
+    /**
+     * helper function to read an optional bound
+     * @param text user input
+     * @param fallback value if blank
+     * @return bound
+     */
+    private static double parseBound(String text, double fallback) {
+        return text.isBlank() ? fallback : Double.parseDouble(text.trim());
+    }
+
+    /**
+     * charts metric trends over the last commits of a local git repository
+     * runs in the background, the chart grows as commits are analyzed; the newest commit is shown in the other tabs
+     */
+    public void openHistory() {
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) { return; }
+        File repository = chooser.getSelectedFile();
+
+        // folder inside the repo + how far back
+        JTextField folder = new JTextField("src/main/java");
+        JTextField commits = new JTextField("500");
+        JPanel options = new JPanel(new GridLayout(0, 1));
+        options.add(new JLabel("Folder (relative to repository root, empty for all):"));
+        options.add(folder);
+        options.add(new JLabel("Commits:"));
+        options.add(commits);
+        if (JOptionPane.showConfirmDialog(this, options, "Local History", JOptionPane.OK_CANCEL_OPTION) != JOptionPane.OK_OPTION) {
+            return;
+        }
+        int maxCommits;
+        try {
+            maxCommits = Integer.parseInt(commits.getText().trim());
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Invalid number of commits: " + commits.getText());
+            return;
+        }
+
+        logger.info("Analyzing history of {} ({} commits)...", repository, maxCommits);
+
+        TrendStore store = new TrendStore();
+        trendPanel.showTrends(store);
+        tabbedPane.setSelectedComponent(trendPanel);
+        HistoryAnalyzer history = new HistoryAnalyzer(repository.toPath(), folder.getText().trim());
+
+        // analyze off the event thread, repaint as commits finish
+        new SwingWorker<Prepared, Integer>() {
+            @Override
+            protected Prepared doInBackground() throws IOException {
+                GHRepoAnalyzed latest = history.analyze(maxCommits, store, (done, total) -> publish(done, total));
+                return (latest == null) ? null : prepare(latest);
+            }
+
+            @Override
+            protected void process(List<Integer> counts) {
+                trendPanel.refresh();
+                bottomPanel.setMessage("HISTORY: " + counts.get(counts.size() - 2) + " / " + counts.get(counts.size() - 1) + " commits");
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    Prepared latest = get();
+                    trendPanel.refresh();
+                    if (latest != null) {
+                        showAnalysis(latest);
+                        tabbedPane.setSelectedComponent(trendPanel);
+                    }
+                    bottomPanel.setMessage("HISTORY: " + store.size() + " commits of " + repository.getName());
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(MainFrame.this, "History analysis failed:\n" + e.getMessage());
+                }
+            }
+        }.execute();
+
+    }
+
+    /**
+     * watch mode: analyzes a local source folder, then updates the panels whenever files in it are saved
+     * only changed files are reprocessed, and the panels patch what changed instead of starting over
+     * watching stops when something else is displayed or everything is cleared
+     */
+    public void watchFolder() {
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) { return; }
+        File folder = chooser.getSelectedFile();
+
+        logger.info("Watching local folder: {}", folder);
+
+        stopWatching();
+        bottomPanel.setMessage("WATCH: analyzing " + folder.getName() + "...");
+
+        // the token is current before the watcher exists, so updates sent while the initial analysis is shown are kept
+        Object token = new Object();
+        watchToken = token;
+        pendingWatchUpdates = new ArrayList<>();
+
+        // initial analysis off the event thread, later updates arrive from the watcher thread
+        new SwingWorker<Prepared, Void>() {
+            private FolderWatcher started;
+
+            @Override
+            protected Prepared doInBackground() throws IOException {
+                started = new FolderWatcher(folder.toPath(), update -> onWatchUpdate(token, update));
+                return prepare(started.start());
+            }
+
+            @Override
+            protected void done() {
+                if (token != watchToken) {  // something else was displayed in the meantime
+                    closeQuietly(started);
+                    return;
+                }
+                try {
+                    Prepared initial = get();
+                    List<Runnable> pending = pendingWatchUpdates;
+                    showAnalysis(initial);  // stops any watcher (and resets the token)
+                    watcher = started;
+                    watchToken = token;
+                    bottomPanel.setMessage("WATCH: " + folder.getName() + " (" + initial.analysis().getFileMetrics().size() + " files)");
+                    pending.forEach(Runnable::run);  // newer than the initial analysis
+                } catch (Exception e) {
+                    stopWatching();
+                    closeQuietly(started);
+                    JOptionPane.showMessageDialog(MainFrame.this, "Could not watch folder:\n" + e.getMessage());
+                }
+            }
+        }.execute();
+
+    }
+
+    /**
+     * stops watch mode (no-op if not watching)
+     */
+    public void stopWatching() {
+        closeQuietly(watcher);
+        watcher = null;
+        watchToken = null;
+        pendingWatchUpdates = null;
+    }
+
+    /**
+     * helper function to push a watch update to the panels (called on the watcher thread)
+     * metrics first; the diagram is generated and rendered afterwards, still off the event thread
+     * @param token token of the watcher that produced the update
+     * @param update re-analysis of the changed files
+     */
+    private void onWatchUpdate(Object token, FolderWatcher.Update update) {
+
+        GridRenderModel grid = gridPanel.prepare(update.analysis().getFileMetrics());
+        runForWatcher(token, () -> {
+            // partial updates (side panel only if files were added or removed)
+            boolean structureChanged = !analysis.getFilePaths().equals(update.analysis().getFilePaths());
+            analysis = update.analysis();
+            if (structureChanged) { sidePanel.showStructure(analysis.getPathTrie()); }
+            gridPanel.updateMetrics(analysis.getFileMetrics(), grid);
+            metricsPanel.updateMetrics(analysis.getClassMetricsList());
+            bottomPanel.setMessage(String.format("WATCH: %d files changed, updated in %d ms",
+                    update.changed().size(), update.latencyNanos() / 1_000_000));
+        });
+
+        // PlantUML renders here too, the event thread only swaps the finished image in
+        DiagramPanel.Rendered diagram = diagramPanel.prepareUpdate(update.analysis());
+        if (diagram == null) { return; }  // classes and relationships unchanged
+        runForWatcher(token, () -> {
+            if (analysis == update.analysis()) { diagramPanel.updateDiagram(diagram); }
+        });
+
+    }
+
+    /**
+     * helper function to apply a watch update on the event thread
+     * @param token token of the watcher that produced the update
+     * @param apply panel changes
+     */
+    private void runForWatcher(Object token, Runnable apply) {
+        SwingUtilities.invokeLater(() -> {
+            if (token != watchToken) { return; }  // stopped in the meantime
+            if (watcher == null) {
+                pendingWatchUpdates.add(apply);  // initial analysis not shown yet
+            } else {
+                apply.run();
+            }
+        });
+    }
+
+    /**
+     * helper function to stop a watcher, ignoring errors
+     * @param folderWatcher watcher (may be null)
+     */
+    private static void closeQuietly(FolderWatcher folderWatcher) {
+        if (folderWatcher == null) { return; }
+        try {
+            folderWatcher.close();
+        } catch (IOException e) {
+            logger.warn("Could not stop watcher: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * opens a saved analysis (AnalysisSnapshot) and displays it without contacting GH
+     */
+    public void openSnapshot() {
+
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) { return; }
+        File file = chooser.getSelectedFile();
+
+        logger.info("Opening snapshot: {}", file);
+
+        // read and prepare off the event thread
+        new SwingWorker<Prepared, Void>() {
+            @Override
+            protected Prepared doInBackground() throws IOException {
+                return prepare(AnalysisSnapshot.open(file.toPath()).toAnalysis());
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    showAnalysis(get());
+                    bottomPanel.setMessage("SNAPSHOT: " + file.getName());
+                } catch (Exception e) {
+                    Throwable cause = (e instanceof ExecutionException && e.getCause() != null) ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(MainFrame.this, "Could not open snapshot:\n" + cause.getMessage());
+                }
+            }
+        }.execute();
+
+    }
+
+    /**
+     * saves the displayed analysis as a snapshot
+     */
+    public void saveSnapshot() {
+
+        if (analysis == null) {
+            JOptionPane.showMessageDialog(this, "Nothing to save: analyze a GH folder first.");
+            return;
+        }
+
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) { return; }
+        File file = chooser.getSelectedFile();
+
+        logger.info("Saving snapshot: {}", file);
+
+        try {
+            AnalysisSnapshot.write(analysis, file.toPath());
+            bottomPanel.setMessage("SAVED: " + file.getName());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not save snapshot:\n" + e.getMessage());
+        }
+
+    }
+
+    /**
+     * helper function to precompute what the panels need to display an analysis (call off the EDT)
+     * @param analysis analysis to display
+     * @return analysis with its grid render model and rendered diagram
+     */
+    private Prepared prepare(GHRepoAnalyzed analysis) {
+        return new Prepared(analysis, gridPanel.prepare(analysis.getFileMetrics()), DiagramPanel.render(analysis));
+    }
+
+    /**
+     * helper function to display an analysis that was not prepared yet (e.g. opened from the compare tab)
+     * @param analysis analysis to display
+     */
+    private void showAnalysis(GHRepoAnalyzed analysis) {
+
+        new SwingWorker<Prepared, Void>() {
+            @Override
+            protected Prepared doInBackground() {
+                return prepare(analysis);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    showAnalysis(get());
+                } catch (Exception e) {
+                    logger.warn("Could not display analysis: {}", e.getMessage());
+                }
+            }
+        }.execute();
+
+    }
+
+    /**
+     * helper function to display an analysis in every panel
+     * @param prepared analysis with its precomputed grid model (see prepare)
+     */
+    private void showAnalysis(Prepared prepared) {
+
+        GHRepoAnalyzed analysis = prepared.analysis();
+        stopWatching();  // something else is displayed now
+        this.analysis = analysis;
+
+        // update panels
+        sidePanel.showStructure(analysis.getPathTrie());
+        gridPanel.showMetrics(analysis.getFileMetrics(), prepared.grid());
+        metricsPanel.showMetrics(analysis.getClassMetricsList());
+        diagramPanel.showDiagram(prepared.diagram());
+        tabbedPane.setSelectedIndex(0);
+
+    }
+
     /**
      * clears grid and resets top bar
      */
     public void clearGrid() {
 
+        analysis = null;
+        stopWatching();
+        if (workspace != null) { workspace.clear(); }  // drop cached folders and archives
+        comparePanel.clear();
+        trendPanel.clear();
         gridPanel.clearGrid(); // refresh center panel for new GH URL
         metricsPanel.showMetrics(List.of());  // refresh center panel for new GH URL
         diagramPanel.clear();  // refresh diagram panel for new GH URL
@@ -3,8 +3,8 @@ import javax.swing.*;
 
 /**
  * options:
- * file --> open from URL and exit
- * action --> reload and clear
+ * file --> open from URL, compare folders, local history, watch local folder, open / save snapshot and exit
+ * action --> reload, source filter, metrics query, stop watching and clear
  * help --> about
  *
  * @author Megan Fung
@@ -23,18 +23,42 @@ public class MenuBar extends JMenuBar {
         JMenu file = new JMenu("File");
         JMenuItem openURL = new JMenuItem("Open from URL...");
         openURL.addActionListener(e -> mainFrame.onOkClicked(null));
+        JMenuItem compare = new JMenuItem("Compare Folders...");
+        compare.addActionListener(e -> mainFrame.compareFolders());
+        JMenuItem history = new JMenuItem("Open Local History...");
+        history.addActionListener(e -> mainFrame.openHistory());
+        JMenuItem watch = new JMenuItem("Watch Local Folder...");
+        watch.addActionListener(e -> mainFrame.watchFolder());
+        JMenuItem openSnapshot = new JMenuItem("Open Snapshot...");
+        openSnapshot.addActionListener(e -> mainFrame.openSnapshot());
+        JMenuItem saveSnapshot = new JMenuItem("Save Snapshot...");
+        saveSnapshot.addActionListener(e -> mainFrame.saveSnapshot());
         JMenuItem exit = new JMenuItem("Exit");
         exit.addActionListener(e -> System.exit(0));
         file.add(openURL);
+        file.add(compare);
+        file.add(history);
+        file.add(watch);
+        file.add(openSnapshot);
+        file.add(saveSnapshot);
         file.add(exit);
 
         // action
         JMenu action = new JMenu("Action");
         JMenuItem reload = new JMenuItem("Reload");
         reload.addActionListener(e -> mainFrame.onOkClicked(null));
+        JMenuItem filter = new JMenuItem("Source Filter...");
+        filter.addActionListener(e -> mainFrame.editSourceFilter());
+        JMenuItem query = new JMenuItem("Metrics Query...");
+        query.addActionListener(e -> mainFrame.editClassQuery());
+        JMenuItem stopWatching = new JMenuItem("Stop Watching");
+        stopWatching.addActionListener(e -> mainFrame.stopWatching());
         JMenuItem clear = new JMenuItem("Clear");
         clear.addActionListener(e -> mainFrame.clearGrid());
         action.add(reload);
+        action.add(filter);
+        action.add(query);
+        action.add(stopWatching);
         action.add(clear);
 
         // help
@@ -1,12 +1,13 @@
 package Asgn3;
 
-import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * analyzes method signatures and bodies for temporary usages and singleton patterns
+ * works on the class' member summary (referenced identifiers, new expressions, static accesses)
  *
  * @author Megan Fung
  * @version 1.0
@@ -15,112 +16,75 @@ public class MethodAnalyzer {
 
     /**
      * finds all classes used temporarily in methods
-     * includes: method parameters, return types, local variables
+     * includes: method parameters, return types, local variables, instantiations, static calls
      *
-     * @param classBody source code of class body
+     * @param summary member summary of the class
      * @param availableClasses set of class names in the project
-     * @return set of class names used temporarily
+     * @return set of class names used temporarily (sorted)
      */
-    public static Set<String> findTemporaryUsages(String classBody, Set<String> availableClasses) {
-        Set<String> usages = new HashSet<>();
+    public static Set<String> findTemporaryUsages(ClassSummary summary, Set<String> availableClasses) {
+        AnalysisEvents.BodyScanEvent event = new AnalysisEvents.BodyScanEvent();
+        event.begin();
+        Set<String> usages = new TreeSet<>();
 
-        // clean the body
-        String cleaned = cleanBody(classBody);
-
-        for (String className : availableClasses) {
-            // string checks for class usage in signatures and static calls
-            String[] patterns = {
-                className + " ",
-                "(" + className + " ",
-                ", " + className + " ",
-                " " + className + " ",
-                className + ".",
-                "(" + className + ".",
-                " " + className + "."
-            };
-            
-            for (String pattern : patterns) {
-                if (cleaned.contains(pattern)) {
-                    usages.add(className);
-                    break;
-                }
+        // identifiers the class mentions that are project classes
+        for (String name : summary.getReferencedIdentifiers()) {
+            if (availableClasses.contains(name)) {
+                usages.add(name);
+            }
+        }
+        for (String type : summary.getInstantiatedTypes()) {
+            if (availableClasses.contains(type)) {
+                usages.add(type);
             }
         }
 
+        commitScan(event, "temporaryUsages", summary, usages.size());
         return usages;
     }
 
     /**
      * detects singleton usage patterns
-     * looks for: ClassName.getInstance() or similar static accessor patterns
+     * looks for: Singleton.accessor where accessor is one of the singleton's own static factories / instance fields
+     * (taken from its member summary, so e.g. an unrelated Foo.get( is not a singleton usage)
      *
-     * @param classBody source code of class body
-     * @param availableClasses set of class names in the project
-     * @return set of singleton classes being used
+     * @param summary member summary of the class
+     * @param singletonAccessors singleton class names mapped to their accessors (see SingletonDetector.accessors)
+     * @return set of singleton classes being used (sorted)
      */
-    public static Set<String> findSingletonUsages(String classBody, Set<String> availableClasses) {
-        Set<String> singletons = new HashSet<>();
+    public static Set<String> findSingletonUsages(ClassSummary summary, Map<String, List<String>> singletonAccessors) {
+        AnalysisEvents.BodyScanEvent event = new AnalysisEvents.BodyScanEvent();
+        event.begin();
+        Set<String> singletons = new TreeSet<>();
 
-        String cleaned = cleanBody(classBody);
-
-        for (String className : availableClasses) {
-            // string checks for singleton access patterns
-            if (cleaned.contains(className + ".getInstance") ||
-                cleaned.contains(className + ".instance") ||
-                cleaned.contains(className + ".get(")) {
-                singletons.add(className);
+        for (Map.Entry<String, List<String>> singleton : singletonAccessors.entrySet()) {
+            // members this class reaches through the singleton's name
+            Set<String> accessed = summary.getStaticAccesses(singleton.getKey());
+            for (String accessor : singleton.getValue()) {
+                if (accessed.contains(accessor)) {
+                    singletons.add(singleton.getKey());
+                    break;
+                }
             }
         }
 
+        commitScan(event, "singletonUsages", summary, singletons.size());
         return singletons;
     }
 
     /**
-     * cleans body by removing strings and comments (no regex backtracking)
-     * @param body source code
-     * @return cleaned version
+     * helper function to finish a scan event
+     * @param event started event
+     * @param scan scan name
+     * @param summary scanned class
+     * @param matches number of classes found
      */
-    private static String cleanBody(String body) {
-        StringBuilder result = new StringBuilder(body);
-        
-        boolean inString = false;
-        boolean inLineComment = false;
-        boolean inBlockComment = false;
-        char prevChar = '\0';
-        
-        for (int i = 0; i < result.length(); i++) {
-            char c = result.charAt(i);
-            
-            if (c == '"' && prevChar != '\\' && !inLineComment && !inBlockComment) {
-                inString = !inString;
-                result.setCharAt(i, ' ');
-            } else if (inString) {
-                if (c != '\n') result.setCharAt(i, ' ');
-            }
-            else if (!inString && !inBlockComment && c == '/' && i + 1 < result.length() && result.charAt(i + 1) == '/') {
-                inLineComment = true;
-                result.setCharAt(i, ' ');
-            } else if (inLineComment) {
-                if (c == '\n') {
-                    inLineComment = false;
-                } else {
-                    result.setCharAt(i, ' ');
-                }
-            }
-            else if (!inString && c == '/' && i + 1 < result.length() && result.charAt(i + 1) == '*') {
-                inBlockComment = true;
-                result.setCharAt(i, ' ');
-            } else if (inBlockComment) {
-                result.setCharAt(i, ' ');
-                if (prevChar == '*' && c == '/') {
-                    inBlockComment = false;
-                }
-            }
-            
-            prevChar = c;
+    private static void commitScan(AnalysisEvents.BodyScanEvent event, String scan, ClassSummary summary, int matches) {
+        if (event.shouldCommit()) {
+            event.scan = scan;
+            event.chars = summary.getBodyLength();
+            event.matches = matches;
+            event.commit();
         }
-        
-        return result.toString();
     }
 }
-
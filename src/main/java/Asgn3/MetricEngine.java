@@ -0,0 +1,202 @@
+package Asgn3;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * evaluates all registered metrics over the tokens / member summaries built during extraction
+ * every file is walked once no matter how many metrics count tokens, files are evaluated in parallel
+ * class metrics only see a class's summary, so their results are kept per summary: incremental analyses
+ * (history and watch mode) keep the summaries of unchanged files and only visit the classes that changed
+ * a failing metric is logged and skipped, it never aborts the analysis
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class MetricEngine {
+
+    // logger
+    private static final Logger logger = LoggerFactory.getLogger(MetricEngine.class);
+
+    // fields
+    private final List<MetricVisitor> visitors = new ArrayList<>();
+    private String[] tokenMetricNames = new String[0];  // names of the token metrics, replaced on register
+    private final Map<ClassSummary, Map<String, Double>> classResults = Collections.synchronizedMap(new WeakHashMap<>());  // per summary object
+
+    /**
+     * one file to evaluate
+     * @param file file name
+     * @param tokens file tokens (null once evaluated, the token metrics are kept)
+     * @param size number of non-empty lines
+     * @param complexity number of control statements
+     * @param tokenMetricNames token metrics known when the file was prepared (shared array, see getTokenMetricNames)
+     * @param tokenMetrics values of tokenMetricNames (results are stored here, NaN until evaluated)
+     * @param classes classes declared in the file (with summaries)
+     */
+    public record Unit(String file, JavaLexer tokens, int size, int complexity, String[] tokenMetricNames, double[] tokenMetrics,
+                       List<JavaClass> classes) {}
+
+    /**
+     * creates an engine with the built-in metrics (StandardMetrics) and any user metrics on the classpath
+     * @return engine
+     */
+    public static MetricEngine withDefaults() {
+        MetricEngine engine = new MetricEngine();
+        StandardMetrics.all().forEach(engine::register);
+        try {
+            ServiceLoader.load(MetricVisitor.class).forEach(engine::register);
+        } catch (ServiceConfigurationError e) {
+            logger.warn("Could not load user metrics: {}", e.getMessage());
+        }
+        return engine;
+    }
+
+    /**
+     * adds a metric (replaces a registered metric with the same name)
+     * @param visitor metric
+     */
+    public synchronized void register(MetricVisitor visitor) {
+        visitors.removeIf(registered -> registered.name().equals(visitor.name()));
+        visitors.add(visitor);
+        tokenMetricNames = visitors.stream().filter(MetricVisitor::visitsTokens).map(MetricVisitor::name).toArray(String[]::new);
+        classResults.clear();
+    }
+
+    /**
+     * gets the names of the metrics that count tokens (one array per registration, shared by every unit)
+     * @return token metric names in registration order
+     */
+    public synchronized String[] getTokenMetricNames() {
+        return tokenMetricNames;
+    }
+
+    /**
+     * creates a unit whose token metrics are not evaluated yet
+     * @param file file name
+     * @param tokens file tokens
+     * @param size number of non-empty lines
+     * @param complexity number of control statements
+     * @param classes classes declared in the file
+     * @return unit for evaluate
+     */
+    public Unit newUnit(String file, JavaLexer tokens, int size, int complexity, List<JavaClass> classes) {
+        String[] names = getTokenMetricNames();
+        double[] values = new double[names.length];
+        Arrays.fill(values, Double.NaN);
+        return new Unit(file, tokens, size, complexity, names, values, classes);
+    }
+
+    /**
+     * appends a unit's file metrics (size, complexity and evaluated token metrics) to a store
+     * @param unit evaluated unit
+     * @param store store being built
+     */
+    public static void addFile(Unit unit, FileMetricsStore.Builder store) {
+        int row = store.addFile(unit.file(), unit.size(), unit.complexity());
+        for (int m = 0; m < unit.tokenMetrics().length; m++) {
+            if (!Double.isNaN(unit.tokenMetrics()[m])) { store.setMetric(row, unit.tokenMetricNames()[m], unit.tokenMetrics()[m]); }
+        }
+    }
+
+    /**
+     * gets the registered metrics
+     * @return metrics in registration order
+     */
+    public synchronized List<MetricVisitor> getVisitors() {
+        return Collections.unmodifiableList(new ArrayList<>(visitors));
+    }
+
+    /**
+     * evaluates every metric
+     * @param units files to evaluate
+     * @param classMetrics class names mapped to class metrics
+     */
+    public void evaluate(List<Unit> units, Map<String, ClassLevelMetrics> classMetrics) {
+
+        List<MetricVisitor> metrics = getVisitors();
+        List<MetricVisitor> tokenMetrics = metrics.stream().filter(MetricVisitor::visitsTokens).toList();
+
+        // per file: one token walk shared by all token metrics, then the file's classes
+        units.parallelStream().forEach(unit -> {
+            visitTokens(unit, tokenMetrics);
+            for (JavaClass javaClass : unit.classes()) {
+                ClassLevelMetrics target = classMetrics.get(javaClass.name);
+                if (target == null || javaClass.summary == null) { continue; }
+
+                // same summary as in an earlier run: same results
+                Map<String, Double> known = classResults.get(javaClass.summary);
+                if (known != null) {
+                    known.forEach(target::setMetric);
+                    continue;
+                }
+
+                for (MetricVisitor metric : metrics) {
+                    try {
+                        metric.visitClass(javaClass.summary, target);
+                    } catch (RuntimeException e) {
+                        logger.warn("Metric {} failed on class {}: {}", metric.name(), javaClass.name, e.toString());
+                    }
+                }
+                classResults.put(javaClass.summary, target.getMetrics());
+            }
+        });
+
+        // whole project (sequential, metrics see every class)
+        Map<String, ClassSummary> summaries = new TreeMap<>();
+        for (Unit unit : units) {
+            for (JavaClass javaClass : unit.classes()) {
+                if (javaClass.summary != null) { summaries.putIfAbsent(javaClass.name, javaClass.summary); }
+            }
+        }
+        for (MetricVisitor metric : metrics) {
+            try {
+                metric.visitProject(summaries, classMetrics);
+            } catch (RuntimeException e) {
+                logger.warn("Metric {} failed on project: {}", metric.name(), e.toString());
+            }
+        }
+
+    }
+
+    /**
+     * helper function to walk a file's tokens once for all token metrics
+     * @param unit file to walk
+     * @param tokenMetrics metrics that count tokens
+     */
+    private void visitTokens(Unit unit, List<MetricVisitor> tokenMetrics) {
+
+        if (tokenMetrics.isEmpty() || unit.tokens() == null) { return; }
+        double[] totals = new double[tokenMetrics.size()];
+        boolean[] failed = new boolean[tokenMetrics.size()];
+
+        JavaLexer tokens = unit.tokens();
+        for (int i = 0; i < tokens.count(); i++) {
+            for (int m = 0; m < totals.length; m++) {
+                if (failed[m]) { continue; }
+                try {
+                    totals[m] += tokenMetrics.get(m).visitToken(tokens, i);
+                } catch (RuntimeException e) {
+                    failed[m] = true;
+                    logger.warn("Metric {} failed on file {}: {}", tokenMetrics.get(m).name(), unit.file(), e.toString());
+                }
+            }
+        }
+
+        // results go to the unit's slot of each metric (metrics registered after the unit was prepared have none)
+        List<String> names = Arrays.asList(unit.tokenMetricNames());
+        for (int m = 0; m < totals.length; m++) {
+            int slot = names.indexOf(tokenMetrics.get(m).name());
+            if (!failed[m] && slot >= 0) { unit.tokenMetrics()[slot] = totals[m]; }
+        }
+
+    }
+
+}
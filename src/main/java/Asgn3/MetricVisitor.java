@@ -0,0 +1,54 @@
+package Asgn3;
+import java.util.Map;
+
+/**
+ * a metric evaluated by the MetricEngine
+ * a metric hooks into any of the three levels below (all optional), results are stored under name()
+ *   tokens --> called once per token of every file, values are summed into the file's metric
+ *   class --> called once per class with its member summary
+ *   project --> called once after all classes, for metrics that need the whole hierarchy (DIT, NOC, fan-in)
+ * token and class visits run in parallel (one file per task), so implementations must not keep mutable state
+ *
+ * user metrics are picked up with ServiceLoader: implement this interface (public no-arg constructor)
+ * and list the class in META-INF/services/Asgn3.MetricVisitor
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public interface MetricVisitor {
+
+    /**
+     * gets the metric's name (key in FileMetricsStore / ClassLevelMetrics)
+     * @return metric name
+     */
+    String name();
+
+    /**
+     * tells the engine if visitToken should be called (skips the token walk otherwise)
+     * @return true if the metric counts tokens
+     */
+    default boolean visitsTokens() { return false; }
+
+    /**
+     * visits one token of a file
+     * @param tokens file tokens
+     * @param i token index
+     * @return amount added to the file's metric
+     */
+    default double visitToken(JavaLexer tokens, int i) { return 0; }
+
+    /**
+     * visits one class
+     * @param summary member summary of the class
+     * @param metrics class metrics (store results with setMetric)
+     */
+    default void visitClass(ClassSummary summary, ClassLevelMetrics metrics) {}
+
+    /**
+     * visits the whole project after every class was visited
+     * @param summaries class names mapped to member summaries
+     * @param metrics class names mapped to class metrics
+     */
+    default void visitProject(Map<String, ClassSummary> summaries, Map<String, ClassLevelMetrics> metrics) {}
+
+}
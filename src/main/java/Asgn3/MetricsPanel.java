@@ -3,7 +3,17 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,6 +24,9 @@ import org.slf4j.LoggerFactory;
  * y: abstraction (0 = concrete, 1 = abstract)
  * painful + useless regions
  * diagonal balance line (I = 1 - A)
+ * level of detail: density heatmap when too many classes are visible, circles + non-overlapping labels otherwise
+ * zoom: mouse wheel, pan: right drag, reset view: middle click
+ * query: only the classes a ClassQuery selects are plotted (e.g. top 50 by D), all classes by default
  *
  * @author Megan Fung
  * @version 1.0
@@ -21,10 +34,47 @@ import org.slf4j.LoggerFactory;
 public class MetricsPanel extends JPanel {
 
     // components
-    private List<ClassLevelMetrics> classes;
-    private List<Rectangle> circleClasses;
+    private List<ClassLevelMetrics> allClasses;  // every class of the data set (queried, not plotted)
+    private List<ClassLevelMetrics> classes;  // classes on the current query page (plotted)
+    private ClassQuery query = ClassQuery.ALL;
+    private int queryOffset = 0;
+    private int queryLimit = Integer.MAX_VALUE;
+    private ClassQuery.Page page;
+    private double[] pointI;  // data coordinates (read once per data set)
+    private double[] pointA;
+    private Integer[] labelOrder;  // classes furthest from main sequence get their label first
+    private GlyphVector[] labels;  // laid out once per class, reused every paint
+    private Rectangle[] labelBounds;  // pixel bounds of each label relative to its origin
+    private int[] visible;  // classes inside the current view
+    private int[] circleX;  // circle centers (screen) for current layout, indexed like visible
+    private int[] circleY;
+    private SpatialIndex circleIndex;  // clickable regions for current layout, indexed like visible
+    private BufferedImage heatmap;  // density image for current layout (heatmap mode only)
+    private int layoutWidth = -1;
+    private int layoutHeight = -1;
+    private Point dragStart;
+    private Rectangle selectionBand;
+    private Point panStart;
     private final BottomPanel bottomPanel;
 
+    // view (lower left corner + span, in data coordinates)
+    private double viewI = 0.0;
+    private double viewA = 0.0;
+    private double viewSpan = 1.0;
+
+    // plot config
+    private static final int PAD = 60;
+    private static final int RADIUS = 12;
+    private static final int DETAIL_LIMIT = 1000;  // max visible classes drawn as circles
+    private static final int HEAT_BIN = 3;  // heatmap bin size (pixels)
+    private static final int LABEL_CELL = 4;  // label collision grid cell size (pixels)
+    private static final double MIN_SPAN = 1.0 / 512;
+    private static final Color PLOT_BACKGROUND = new Color(215, 235, 225);
+    private static final Color BAND_FILL = new Color(0, 0, 255, 40);
+    private static final Font LABEL_FONT = new Font("SansSerif", Font.BOLD, 13);
+    private static final FontRenderContext LABEL_FRC = new FontRenderContext(null, true, true);
+    private static BufferedImage circleSprite;  // created on first paint (EDT only)
+
     // logger
     private static final Logger logger = LoggerFactory.getLogger(MetricsPanel.class);
 
@@ -46,6 +96,10 @@ public class MetricsPanel extends JPanel {
             @Override
             public void mouseClicked(MouseEvent e) {
 
+                if (SwingUtilities.isMiddleMouseButton(e)) {
+                    resetView();
+                    return;
+                }
                 logger.info("Class Circle Clicked");
                 circleClicked(e.getPoint());
             }
@@ -53,10 +107,41 @@ public class MetricsPanel extends JPanel {
             @Override
             public void mouseMoved(MouseEvent e) { circleHover(e.getPoint()); }
 
+            @Override
+            public void mousePressed(MouseEvent e) {
+                if (SwingUtilities.isRightMouseButton(e)) {
+                    panStart = e.getPoint();
+                } else if (SwingUtilities.isLeftMouseButton(e)) {
+                    dragStart = e.getPoint();
+                }
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (panStart != null) {
+                    panDragged(e.getPoint());
+                } else {
+                    bandDragged(e.getPoint());
+                }
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (SwingUtilities.isRightMouseButton(e)) {
+                    panStart = null;
+                } else if (SwingUtilities.isLeftMouseButton(e)) {  // other buttons don't end the band
+                    bandReleased();
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) { zoom(e.getPoint(), e.getPreciseWheelRotation()); }
+
         };
 
         addMouseListener(mouseAdapter);
         addMouseMotionListener(mouseAdapter);
+        addMouseWheelListener(mouseAdapter);
 
     }
 
@@ -66,11 +151,118 @@ public class MetricsPanel extends JPanel {
      */
     public void showMetrics(List<ClassLevelMetrics> classMetricsList) {
 
+        load(runQuery(classMetricsList));
+
+        // full view for new data
+        resetView();
+
+    }
+
+    /**
+     * updates panel after classes changed (watch mode)
+     * keeps zoom and pan, and reuses the laid out labels of classes that are still there
+     * @param classMetricsList list of ClassLevelMetrics objects (one for each class in the folder)
+     */
+    public void updateMetrics(List<ClassLevelMetrics> classMetricsList) {
+
+        // labels by class name (only the ones painted so far exist)
+        Map<String, Integer> previous = new HashMap<>();
+        List<ClassLevelMetrics> before = classes;
+        GlyphVector[] oldLabels = labels;
+        Rectangle[] oldBounds = labelBounds;
+        if (before != null) {
+            for (int i = 0; i < before.size(); i++) {
+                if (oldLabels[i] != null) { previous.put(before.get(i).getClassName(), i); }
+            }
+        }
+
+        load(runQuery(classMetricsList));
+
+        for (int i = 0; i < labels.length; i++) {
+            Integer j = previous.get(classes.get(i).getClassName());
+            if (j != null) {
+                labels[i] = oldLabels[j];
+                labelBounds[i] = oldBounds[j];
+            }
+        }
+
+        // same view, new positions
+        invalidateLayout();
+
+    }
+
+    /**
+     * plots only the classes a query selects (re-run on every new data set until replaced)
+     * @param query filters and order
+     * @param offset matches to skip
+     * @param limit largest number of classes plotted
+     */
+    public void setQuery(ClassQuery query, int offset, int limit) {
+
+        this.query = query;
+        this.queryOffset = offset;
+        this.queryLimit = limit;
+        showMetrics(allClasses);
+
+    }
+
+    // getters
+    public ClassQuery getQuery() { return query; }
+    public ClassQuery.Page getPage() { return page; }
+
+    /**
+     * helper function to run the current query on a data set
+     * @param classMetricsList every class of the data set (null for none)
+     * @return classes to plot
+     */
+    private List<ClassLevelMetrics> runQuery(List<ClassLevelMetrics> classMetricsList) {
+
+        allClasses = classMetricsList;
+        if (classMetricsList == null) {
+            page = null;
+            return null;
+        }
+        page = query.run(classMetricsList, queryOffset, queryLimit);
+        return page.classes();
+
+    }
+
+    /**
+     * helper function to read coordinates and label order of a data set
+     * @param classMetricsList list of ClassLevelMetrics objects
+     */
+    private void load(List<ClassLevelMetrics> classMetricsList) {
+
         // initialize file objects
         this.classes = classMetricsList;
 
-        // update panel
-        repaint();
+        // read coordinates once + decide label priority (largest D first)
+        int n = (classes == null) ? 0 : classes.size();
+        pointI = new double[n];
+        pointA = new double[n];
+        double[] distance = new double[n];
+        for (int i = 0; i < n; i++) {
+            ClassLevelMetrics classMetric = classes.get(i);
+            pointI[i] = classMetric.getI();
+            pointA[i] = classMetric.getA();
+            distance[i] = classMetric.getD();
+        }
+        labelOrder = IntStream.range(0, n).boxed().toArray(Integer[]::new);
+        Arrays.sort(labelOrder, Comparator.comparingDouble((Integer i) -> -distance[i]));
+        labels = new GlyphVector[n];
+        labelBounds = new Rectangle[n];
+
+    }
+
+    /**
+     * resets zoom and pan to show the full plot
+     */
+    public void resetView() {
+
+        viewI = 0.0;
+        viewA = 0.0;
+        viewSpan = 1.0;
+        invalidateLayout();
 
     }
 
@@ -89,7 +281,7 @@ public class MetricsPanel extends JPanel {
         }
 
         // config
-        Graphics2D g2d = (Graphics2D) g;
+        Graphics2D g2d = (Graphics2D) g.create();
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
         // get panel dimensions
@@ -97,108 +289,354 @@ public class MetricsPanel extends JPanel {
         int height = getHeight();
 
         // padding config
-        int pad = 60;
+        int pad = PAD;
 
         // plot dimensions
         int plotWidth = width - 2 * pad;
         int plotHeight = height - 2 * pad;
 
         // apply background color (light green)
-        g2d.setColor(new Color(215, 235, 225));
+        g2d.setColor(PLOT_BACKGROUND);
         g2d.fillRect(pad, pad, plotWidth, plotHeight);
 
-        // painful + useless bubbles
+        // painful + useless bubbles (scaled with zoom)
+        int bubble = (int) Math.min(Integer.MAX_VALUE / 4.0, 220 / viewSpan);
+        Shape oldClip = g2d.getClip();
+        if (viewSpan < 1.0) {
+            g2d.clipRect(pad, pad, plotWidth, plotHeight);
+        }
         g2d.setColor(Color.white);
-        g2d.fillOval(pad - 220 / 2, height - pad - 220 / 2, 220, 220);
+        g2d.fillOval(toScreenX(0.0) - bubble / 2, toScreenY(0.0) - bubble / 2, bubble, bubble);
+        g2d.fillOval(toScreenX(1.0) - bubble / 2, toScreenY(1.0) - bubble / 2, bubble, bubble);
         g2d.setColor(Color.black);
+        g2d.drawLine(toScreenX(0.0), toScreenY(1.0), toScreenX(1.0), toScreenY(0.0));  // diagonal balance line
+        g2d.setClip(oldClip);
         g2d.drawString("Painful", pad + 10, height - pad - 10);
-        g2d.setColor(Color.white);
-        g2d.fillOval(width - pad - 220 / 2, pad - 220 / 2, 220, 220);
-        g2d.setColor(Color.black);
         g2d.drawString("Useless", width - pad - 80, pad + 20);
 
-        // draw x, y, diagonal balance line
+        // draw x, y
         g2d.drawLine(pad, height - pad, width - pad, height - pad);
         g2d.drawLine(pad, height - pad, pad, pad);
-        g2d.drawLine(pad, pad, width - pad, height - pad);
 
-        // store circle clickable regions
-        circleClasses = new java.util.ArrayList<>();
+        // circle positions + clickable regions (only recomputed if size, view or data changed)
+        ensureLayout();
+
+        // zoomed in: circles and labels at the edge are cut at the plot, not drawn over the axes and padding
+        if (viewSpan < 1.0) {
+            g2d.clipRect(pad, pad, plotWidth, plotHeight);
+        }
+        if (heatmap != null) {
+            // too many classes: density only
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            g2d.drawImage(heatmap, pad, pad, heatmap.getWidth() * HEAT_BIN, heatmap.getHeight() * HEAT_BIN, null);
+        } else {
+            paintCircles(g2d);
+            paintLabels(g2d, width, height);
+        }
+        g2d.setClip(oldClip);
+
+        // rubber band in progress
+        if (selectionBand != null) {
+            g2d.setColor(BAND_FILL);
+            g2d.fill(selectionBand);
+            g2d.setColor(Color.darkGray);
+            g2d.draw(selectionBand);
+        }
 
-        int radius = 12; // circle radius
+        g2d.dispose();
 
-        // iterate over class metrics
-        for (ClassLevelMetrics classMetric : classes) {
+    }
 
-            // scale instability (x) and abstraction (y)
-            int x = pad + (int)(plotWidth * classMetric.getI());
-            int y = height - pad - (int)(plotHeight * classMetric.getA());
+    /**
+     * helper function to draw one circle per visible class (blits a pre-rendered circle)
+     * @param g2d graphics context
+     */
+    private void paintCircles(Graphics2D g2d) {
+
+        BufferedImage sprite = circleSprite();
+        for (int k = 0; k < visible.length; k++) {
+            g2d.drawImage(sprite, circleX[k] - RADIUS, circleY[k] - RADIUS, null);
+        }
 
-            // save class's clickable region
-            Rectangle circleClass = new Rectangle(x - radius, y - radius, radius * 2, radius * 2);
-            circleClasses.add(circleClass);
+    }
 
-            // draw circle per class
+    /**
+     * helper function to get the circle drawn for every class (antialiased once, then reused)
+     * @return circle image (2 * RADIUS + 1 pixels wide, includes outline)
+     */
+    private static BufferedImage circleSprite() {
+
+        if (circleSprite == null) {
+            BufferedImage sprite = new BufferedImage(RADIUS * 2 + 1, RADIUS * 2 + 1, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2d = sprite.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
             g2d.setColor(Color.blue);
-            g2d.fillOval(x - radius, y - radius, radius * 2, radius * 2);
+            g2d.fillOval(0, 0, RADIUS * 2, RADIUS * 2);
             g2d.setColor(Color.darkGray);
-            g2d.drawOval(x - radius, y - radius, radius * 2, radius * 2);
-            g2d.setFont(new Font("SansSerif", Font.BOLD, 13));
-            g2d.drawString(classMetric.getClassName(), x + radius, y + 4);
+            g2d.drawOval(0, 0, RADIUS * 2, RADIUS * 2);
+            g2d.dispose();
+            circleSprite = sprite;
+        }
+        return circleSprite;
+
+    }
+
+    /**
+     * helper function to draw class labels, skipping any label that would overlap one already drawn
+     * labels are placed in order of distance from the main sequence
+     * @param g2d graphics context
+     * @param width panel width
+     * @param height panel height
+     */
+    private void paintLabels(Graphics2D g2d, int width, int height) {
 
+        // screen position of each visible class (by class index)
+        int[] slot = new int[classes.size()];
+        Arrays.fill(slot, -1);
+        for (int k = 0; k < visible.length; k++) {
+            slot[visible[k]] = k;
         }
 
-        g2d.dispose();
+        // coarse occupancy grid (one bit per cell)
+        int gridCols = width / LABEL_CELL + 1;
+        int gridRows = height / LABEL_CELL + 1;
+        BitSet occupied = new BitSet(gridCols * gridRows);
+
+        g2d.setColor(Color.darkGray);
+        for (int i : labelOrder) {
+
+            int k = slot[i];
+            if (k < 0) { continue; }
+
+            // label bounds (text right of circle, baseline slightly below center)
+            GlyphVector label = labelFor(i);
+            int labelX = circleX[k] + RADIUS;
+            int labelY = circleY[k] + 4;
+            Rectangle bounds = labelBounds[i];
+            int c0 = Math.max(0, (labelX + bounds.x) / LABEL_CELL);
+            int c1 = Math.min(gridCols - 1, (labelX + bounds.x + bounds.width) / LABEL_CELL);
+            int r0 = Math.max(0, (labelY + bounds.y) / LABEL_CELL);
+            int r1 = Math.min(gridRows - 1, (labelY + bounds.y + bounds.height) / LABEL_CELL);
+            if (c0 > c1 || r0 > r1) { continue; }  // off screen
+
+            // skip colliding label
+            boolean free = true;
+            for (int r = r0; r <= r1 && free; r++) {
+                int next = occupied.nextSetBit(r * gridCols + c0);
+                free = next < 0 || next > r * gridCols + c1;
+            }
+            if (!free) { continue; }
+
+            for (int r = r0; r <= r1; r++) {
+                occupied.set(r * gridCols + c0, r * gridCols + c1 + 1);
+            }
+            g2d.drawGlyphVector(label, labelX, labelY);
+
+        }
 
     }
 
     /**
-     * updates tooltip with class level metrics
-     * @param event the {@code MouseEvent} that initiated the
-     *              {@code ToolTip} display
-     * @return metrics for specific class (represented as circle) currently being hovered over
+     * helper function to get (and cache) the laid out label and its bounds for a class
+     * @param i class index
+     * @return glyphs for class name
      */
-    @Override
-    public String getToolTipText(MouseEvent event) {
+    private GlyphVector labelFor(int i) {
 
-        // check if there is no files to display metrics for
-        if (classes == null || classes.isEmpty()) {
-            return null;
+        if (labels[i] == null) {
+            labels[i] = LABEL_FONT.createGlyphVector(LABEL_FRC, classes.get(i).getClassName());
+            labelBounds[i] = labels[i].getPixelBounds(LABEL_FRC, 0, 0);
         }
+        return labels[i];
+
+    }
+
+    /**
+     * forces layout to be recomputed on next use
+     */
+    private void invalidateLayout() {
+
+        circleIndex = null;
+        heatmap = null;
+        repaint();
+
+    }
+
+    /**
+     * computes circle positions and their spatial index (or the heatmap) for the current panel size and view
+     * no-op unless panel size, view or data changed
+     */
+    private void ensureLayout() {
+
+        if (classes == null) { return; }
 
-        // get panel dimensions
         int width = getWidth();
         int height = getHeight();
+        if (circleIndex != null && width == layoutWidth && height == layoutHeight) { return; }
+        layoutWidth = width;
+        layoutHeight = height;
+
+        // classes inside the plot (centers on the axes included), the padding around it stays empty and unclickable
+        int n = classes.size();
+        int[] inView = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int x = toScreenX(pointI[i]);
+            int y = toScreenY(pointA[i]);
+            if (x >= PAD && x <= width - PAD && y >= PAD && y <= height - PAD) {
+                inView[count++] = i;
+            }
+        }
+        visible = Arrays.copyOf(inView, count);
 
-        // padding config
-        int pad = 60;
+        circleX = new int[count];
+        circleY = new int[count];
+        int[] boxX = new int[count];
+        int[] boxY = new int[count];
+        int[] boxSize = new int[count];
+        for (int k = 0; k < count; k++) {
 
-        // plot dimensions
-        int plotWidth = width - 2 * pad;
-        int plotHeight = height - 2 * pad;
+            // scale instability (x) and abstraction (y)
+            circleX[k] = toScreenX(pointI[visible[k]]);
+            circleY[k] = toScreenY(pointA[visible[k]]);
 
-        // iterate through files and construct tooltip text displaying file metrics
-        for (ClassLevelMetrics currClass : classes) {
+            // class's clickable region
+            boxX[k] = circleX[k] - RADIUS;
+            boxY[k] = circleY[k] - RADIUS;
+            boxSize[k] = RADIUS * 2;
 
-            // get position
-            int x = pad + (int)(plotWidth * currClass.getI());
-            int y = height - pad - (int)(plotHeight * currClass.getA());
+        }
+        circleIndex = new SpatialIndex(boxX, boxY, boxSize, boxSize);
+        heatmap = (count > DETAIL_LIMIT) ? renderHeatmap(width, height) : null;
 
-            // calculate spatial positioning for tooltip detection
-            Rectangle r = new Rectangle(x - 9, y - 9, 18, 18);
+    }
 
-            // check if current hover is over a file's spatial positioning
-            if (r.contains(event.getPoint())) {
+    /**
+     * helper function to bin visible classes into a density image
+     * @param width panel width
+     * @param height panel height
+     * @return heatmap covering the plot area (one pixel per bin)
+     */
+    private BufferedImage renderHeatmap(int width, int height) {
+
+        int binCols = Math.max(1, (width - 2 * PAD) / HEAT_BIN + 1);
+        int binRows = Math.max(1, (height - 2 * PAD) / HEAT_BIN + 1);
+        int[] bins = new int[binCols * binRows];
+
+        // count classes per bin
+        int max = 1;
+        for (int k = 0; k < visible.length; k++) {
+            int c = (circleX[k] - PAD) / HEAT_BIN;
+            int r = (circleY[k] - PAD) / HEAT_BIN;
+            if (c < 0 || c >= binCols || r < 0 || r >= binRows) { continue; }
+            max = Math.max(max, ++bins[r * binCols + c]);
+        }
+
+        // log scale so a few dense bins do not wash out the rest
+        double scale = 1.0 / Math.log1p(max);
+        for (int b = 0; b < bins.length; b++) {
+            if (bins[b] == 0) { continue; }
+            int alpha = 60 + (int) (195 * Math.log1p(bins[b]) * scale);
+            bins[b] = (alpha << 24) | 0x0000FF;  // blue
+        }
 
-                // return metrics for file
-                return String.format("<html><b>%s</b><br>A=%.2f<br>I=%.2f<br>D=%.2f<br>Ca=%d Ce=%d</html>",
-                        currClass.getClassName(), currClass.getA(), currClass.getI(), currClass.getD(), currClass.getCa(), currClass.getCe());
+        BufferedImage image = new BufferedImage(binCols, binRows, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, binCols, binRows, bins, 0, binCols);
+        return image;
 
-            }
+    }
+
+    /**
+     * maps instability to screen x for the current view
+     * @param I instability
+     * @return screen x
+     */
+    private int toScreenX(double I) {
+        return PAD + (int) ((getWidth() - 2 * PAD) * (I - viewI) / viewSpan);
+    }
+
+    /**
+     * maps abstraction to screen y for the current view
+     * @param A abstraction
+     * @return screen y
+     */
+    private int toScreenY(double A) {
+        return getHeight() - PAD - (int) ((getHeight() - 2 * PAD) * (A - viewA) / viewSpan);
+    }
+
+    /**
+     * zooms in/out around a point
+     * @param p point under mouse (stays fixed)
+     * @param rotation wheel rotation (negative = zoom in)
+     */
+    private void zoom(Point p, double rotation) {
+
+        int plotWidth = Math.max(1, getWidth() - 2 * PAD);
+        int plotHeight = Math.max(1, getHeight() - 2 * PAD);
+
+        // data coordinates under mouse
+        double fx = (p.x - PAD) / (double) plotWidth;
+        double fy = (getHeight() - PAD - p.y) / (double) plotHeight;
+        double anchorI = viewI + fx * viewSpan;
+        double anchorA = viewA + fy * viewSpan;
+
+        viewSpan = Math.max(MIN_SPAN, Math.min(1.0, viewSpan * Math.pow(1.25, rotation)));
+        viewI = clampView(anchorI - fx * viewSpan);
+        viewA = clampView(anchorA - fy * viewSpan);
+        invalidateLayout();
+
+    }
+
+    /**
+     * pans view while right-dragging
+     * @param p current coordinates of mouse
+     */
+    private void panDragged(Point p) {
+
+        int plotWidth = Math.max(1, getWidth() - 2 * PAD);
+        int plotHeight = Math.max(1, getHeight() - 2 * PAD);
+
+        viewI = clampView(viewI - (p.x - panStart.x) * viewSpan / plotWidth);
+        viewA = clampView(viewA + (p.y - panStart.y) * viewSpan / plotHeight);
+        panStart = p;
+        invalidateLayout();
+
+    }
+
+    /**
+     * helper function to keep the view inside the plot
+     * @param corner lower left corner (either axis)
+     * @return clamped corner
+     */
+    private double clampView(double corner) {
+        return Math.max(0.0, Math.min(1.0 - viewSpan, corner));
+    }
+
+    /**
+     * updates tooltip with class level metrics
+     * @param event the {@code MouseEvent} that initiated the
+     *              {@code ToolTip} display
+     * @return metrics for specific class (represented as circle) currently being hovered over
+     */
+    @Override
+    public String getToolTipText(MouseEvent event) {
 
+        // check if there is no files to display metrics for
+        if (classes == null || classes.isEmpty()) {
+            return null;
         }
 
-        return null;
+        // find class under mouse
+        ensureLayout();
+        int k = circleIndex.topmostAt(event.getX(), event.getY());
+        if (k < 0) {
+            return null;
+        }
+
+        // return metrics for class
+        ClassLevelMetrics currClass = classes.get(visible[k]);
+        return String.format("<html><b>%s</b><br>A=%.2f<br>I=%.2f<br>D=%.2f<br>Ca=%d Ce=%d</html>",
+                currClass.getClassName(), currClass.getA(), currClass.getI(), currClass.getD(), currClass.getCa(), currClass.getCe());
 
     }
 
@@ -220,23 +658,57 @@ public class MetricsPanel extends JPanel {
     private void circleClicked(Point p) {
 
         // check if there are no classes
-        if (classes == null || circleClasses == null) { return; }
+        if (classes == null || classes.isEmpty()) { return; }
 
-        // store class names
-        List<String> clickedClasses = new java.util.ArrayList<>();
+        // all circles under the point (overlapping classes)
+        ensureLayout();
+        showSelection(circleIndex.allAt(p.x, p.y));
 
-        // iterate over all circle regions
-        for (int i = 0; i < circleClasses.size(); i++) {
+    }
 
-            // point clicked is within region of a circle
-            Rectangle curr = circleClasses.get(i);
-            if (curr.contains(p)) { clickedClasses.add(classes.get(i).getClassName()); }
+    /**
+     * helper function to update rubber band while dragging
+     * @param p current coordinates of mouse
+     */
+    private void bandDragged(Point p) {
 
-        }
+        if (dragStart == null || classes == null) { return; }
+
+        selectionBand = new Rectangle(dragStart);
+        selectionBand.add(p);
+        repaint();
+
+    }
+
+    /**
+     * helper function to select all classes in the rubber band
+     */
+    private void bandReleased() {
+
+        Rectangle band = selectionBand;
+        dragStart = null;
+        selectionBand = null;
+        if (band == null || classes == null || classes.isEmpty()) { return; }
+
+        ensureLayout();
+        showSelection(circleIndex.intersecting(band));
+        repaint();
+
+    }
+
+    /**
+     * helper function to update bottom panel with selected class name(s)
+     * @param selected selected circles (indices into visible classes)
+     */
+    private void showSelection(int[] selected) {
+
+        // store class names
+        List<String> selectedClasses = new java.util.ArrayList<>();
+        for (int k : selected) { selectedClasses.add(classes.get(visible[k]).getClassName()); }
 
         // update bottom panel with class name(s)
-        if (!clickedClasses.isEmpty()) {
-            bottomPanel.setMessage(String.join(", ", clickedClasses));
+        if (!selectedClasses.isEmpty()) {
+            bottomPanel.setMessage(String.join(", ", selectedClasses));
             repaint();
         }
 
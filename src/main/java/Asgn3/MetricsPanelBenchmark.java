@@ -0,0 +1,233 @@
+package Asgn3;
+import javax.swing.SwingUtilities;
+import java.awt.Graphics2D;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * command line frame time benchmark for MetricsPanel (runs headless, paints into an image on the EDT)
+ * usage: java -cp <jar> Asgn3.MetricsPanelBenchmark [classes=50000] [frames=200] [width=1200] [height=900]
+ * synthetic classes: A is 0 or 1 (like real classes), I piles up at 0 and 1 with the rest spread between
+ * still --> same view every frame (layout reused)
+ * zoom --> one wheel notch per frame, in to the deepest zoom and back out (layout redone every frame,
+ * crosses from heatmap to circles + labels and back)
+ * pan --> right drag a few pixels per frame while zoomed in (layout redone every frame)
+ * the first paint is cold; the other frames are timed after one untimed zoom cycle and pan (JIT warm-up)
+ * target: p95 under 16 ms (one frame at 60 Hz)
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class MetricsPanelBenchmark {
+
+    // config
+    private static final double FRAME_BUDGET_MS = 16.0;
+    private static final int ZOOM_NOTCHES = 28;  // 1.25^28 --> about the deepest zoom (MIN_SPAN)
+    private static final int PAN_STEP = 7;
+
+    /**
+     * entry point
+     * @param args classes, frames per scenario, width, height (all optional)
+     * @throws InterruptedException if interrupted while waiting for the EDT
+     * @throws InvocationTargetException if painting fails
+     */
+    public static void main(String[] args) throws InterruptedException, InvocationTargetException {
+
+        if (System.getProperty("java.awt.headless") == null) { System.setProperty("java.awt.headless", "true"); }
+
+        int classes = intArg(args, 0, 50_000);
+        int frames = intArg(args, 1, 200);
+        int width = intArg(args, 2, 1200);
+        int height = intArg(args, 3, 900);
+        List<ClassLevelMetrics> metrics = classes(classes, new Random(42));
+
+        System.out.printf("%d classes, %d frames per scenario, %dx%d%n%n", classes, frames, width, height);
+        System.out.printf("%-8s %10s %10s %10s %10s %12s%n", "scenario", "first ms", "p50 ms", "p95 ms", "max ms", "over 16 ms");
+
+        SwingUtilities.invokeAndWait(() -> {
+            MetricsPanel panel = new MetricsPanel(new BottomPanel());
+            panel.setSize(width, height);
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+            // first paint of new data (labels, sprite and layout built)
+            long start = System.nanoTime();
+            panel.showMetrics(metrics);
+            paint(panel, image);
+            double first = (System.nanoTime() - start) / 1e6;
+
+            // warm up: every layout path once (heatmap, circles + labels, panning)
+            int x = width / 2;
+            int y = height - 61;
+            for (int frame = 0; frame < 2 * ZOOM_NOTCHES; frame++) {
+                wheel(panel, x, y, (frame < ZOOM_NOTCHES) ? -1 : 1);
+                paint(panel, image);
+            }
+            for (int notch = 0; notch < 8; notch++) { wheel(panel, x, y, -1); }
+            press(panel, x, y);
+            for (int frame = 0; frame < 40; frame++) {
+                drag(panel, x + frame * PAN_STEP, y);
+                paint(panel, image);
+            }
+            release(panel, x, y);
+            panel.resetView();
+
+            // still
+            double[] times = new double[frames];
+            for (int frame = 0; frame < frames; frame++) {
+                times[frame] = timed(panel, image, () -> {});
+            }
+            report("still", first, times);
+
+            // zoom: in to the deepest zoom around a busy spot (I near 0.5, A = 0), then back out
+            for (int frame = 0; frame < frames; frame++) {
+                int rotation = (frame / ZOOM_NOTCHES % 2 == 0) ? -1 : 1;
+                times[frame] = timed(panel, image, () -> wheel(panel, x, y, rotation));
+            }
+            report("zoom", Double.NaN, times);
+
+            // pan: zoomed in a few notches, right drag across the plot and back
+            panel.resetView();
+            for (int notch = 0; notch < 8; notch++) { wheel(panel, x, y, -1); }
+            press(panel, x, y);
+            int px = x;
+            for (int frame = 0; frame < frames; frame++) {
+                px += (frame / 40 % 2 == 0) ? PAN_STEP : -PAN_STEP;
+                int dragX = px;
+                times[frame] = timed(panel, image, () -> drag(panel, dragX, y));
+            }
+            release(panel, px, y);
+            report("pan", Double.NaN, times);
+        });
+
+    }
+
+    /**
+     * helper function to generate classes
+     * @param count number of classes
+     * @param random random source
+     * @return classes with I, D and abstractness set
+     */
+    private static List<ClassLevelMetrics> classes(int count, Random random) {
+
+        List<ClassLevelMetrics> classes = new ArrayList<>(count);
+        for (int c = 0; c < count; c++) {
+            ClassLevelMetrics metrics = new ClassLevelMetrics("Class" + c);
+            boolean isAbstract = random.nextInt(100) < 15;
+            double roll = random.nextDouble();
+            double I = (roll < 0.3) ? 0.0 : (roll < 0.45) ? 1.0 : random.nextDouble();
+            metrics.setAbstract(isAbstract);
+            metrics.setI(I);
+            metrics.setD(Math.abs(metrics.getA() + I - 1.0));
+            classes.add(metrics);
+        }
+        return classes;
+
+    }
+
+    /**
+     * helper function to time one frame: an input step followed by a paint
+     * @param panel panel
+     * @param image target
+     * @param step input for this frame
+     * @return frame time (ms)
+     */
+    private static double timed(MetricsPanel panel, BufferedImage image, Runnable step) {
+        long start = System.nanoTime();
+        step.run();
+        paint(panel, image);
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    /**
+     * helper function to paint the panel into an image
+     * @param panel panel
+     * @param image target
+     */
+    private static void paint(MetricsPanel panel, BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        try {
+            panel.paint(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * helper function to turn the mouse wheel over the panel
+     * @param panel panel
+     * @param x x coordinate
+     * @param y y coordinate
+     * @param rotation notches (negative zooms in)
+     */
+    private static void wheel(MetricsPanel panel, int x, int y, int rotation) {
+        panel.dispatchEvent(new MouseWheelEvent(panel, MouseEvent.MOUSE_WHEEL, System.currentTimeMillis(), 0, x, y, 0, false,
+                MouseWheelEvent.WHEEL_UNIT_SCROLL, 1, rotation));
+    }
+
+    /**
+     * helper function to press the right button (start of a pan)
+     * @param panel panel
+     * @param x x coordinate
+     * @param y y coordinate
+     */
+    private static void press(MetricsPanel panel, int x, int y) {
+        panel.dispatchEvent(new MouseEvent(panel, MouseEvent.MOUSE_PRESSED, System.currentTimeMillis(), InputEvent.BUTTON3_DOWN_MASK,
+                x, y, 1, false, MouseEvent.BUTTON3));
+    }
+
+    /**
+     * helper function to drag with the right button held
+     * @param panel panel
+     * @param x x coordinate
+     * @param y y coordinate
+     */
+    private static void drag(MetricsPanel panel, int x, int y) {
+        panel.dispatchEvent(new MouseEvent(panel, MouseEvent.MOUSE_DRAGGED, System.currentTimeMillis(), InputEvent.BUTTON3_DOWN_MASK,
+                x, y, 0, false, MouseEvent.NOBUTTON));
+    }
+
+    /**
+     * helper function to release the right button (end of a pan)
+     * @param panel panel
+     * @param x x coordinate
+     * @param y y coordinate
+     */
+    private static void release(MetricsPanel panel, int x, int y) {
+        panel.dispatchEvent(new MouseEvent(panel, MouseEvent.MOUSE_RELEASED, System.currentTimeMillis(), 0,
+                x, y, 1, false, MouseEvent.BUTTON3));
+    }
+
+    /**
+     * helper function to print one scenario
+     * @param scenario scenario name
+     * @param first first frame time (NaN if not measured)
+     * @param times frame times (sorted in place)
+     */
+    private static void report(String scenario, double first, double[] times) {
+        Arrays.sort(times);
+        int over = 0;
+        for (double time : times) { if (time > FRAME_BUDGET_MS) { over++; } }
+        System.out.printf("%-8s %10s %10.2f %10.2f %10.2f %12d%n", scenario, Double.isNaN(first) ? "-" : String.format("%.1f", first),
+                times[times.length / 2], times[(int) Math.min(times.length - 1, Math.ceil(times.length * 0.95) - 1)],
+                times[times.length - 1], over);
+    }
+
+    /**
+     * helper function to read an optional int argument
+     * @param args arguments
+     * @param i index
+     * @param fallback default
+     * @return argument or default
+     */
+    private static int intArg(String[] args, int i, int fallback) {
+        return (args.length > i) ? Integer.parseInt(args[i]) : fallback;
+    }
+
+}
@@ -0,0 +1,61 @@
+package Asgn3;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+import javax.swing.event.EventListenerList;
+
+/**
+ * read-only JTree model backed directly by a PathTrie
+ * no tree node objects are created: JTree asks for the children of a folder only when it is expanded,
+ * and the trie puts them in order on that first request
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class PathTreeModel implements TreeModel {
+
+    // fields
+    private final PathTrie trie;
+    private final EventListenerList listeners = new EventListenerList();
+
+    /**
+     * constructor
+     * @param trie file paths to display
+     */
+    public PathTreeModel(PathTrie trie) {
+        this.trie = trie;
+    }
+
+    @Override
+    public Object getRoot() { return trie.getRoot(); }
+
+    @Override
+    public Object getChild(Object parent, int index) { return ((PathTrie.Node) parent).getChild(index); }
+
+    @Override
+    public int getChildCount(Object parent) { return ((PathTrie.Node) parent).getChildCount(); }
+
+    @Override
+    public boolean isLeaf(Object node) { return ((PathTrie.Node) node).isFile(); }
+
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        if (!(parent instanceof PathTrie.Node folder) || !(child instanceof PathTrie.Node node)) { return -1; }
+        return folder.indexOf(node);
+    }
+
+    /**
+     * tree is read-only (paths come from GH), edits are ignored
+     * @param path path to edited node
+     * @param newValue new value
+     */
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) { }
+
+    @Override
+    public void addTreeModelListener(TreeModelListener listener) { listeners.add(TreeModelListener.class, listener); }
+
+    @Override
+    public void removeTreeModelListener(TreeModelListener listener) { listeners.remove(TreeModelListener.class, listener); }
+
+}
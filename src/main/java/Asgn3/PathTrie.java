@@ -0,0 +1,366 @@
+package Asgn3;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * trie of file paths (one node per folder/file name), shared by the fetcher, the analyzer and the side panel
+ * every distinct segment ("src", "main", "Foo.java") is interned once and gets an int id;
+ * children are found in one hash table keyed by (parent id, segment id)
+ * adding a path scans it in place: no split, no regex, no substring unless the segment was never seen before,
+ * so building is linear in the number of characters and allocates one node per new folder/file
+ * children are only put in order (by name, for display) when first asked for
+ * built by one thread, then read-only (JTree reads it on the EDT)
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class PathTrie {
+
+    // config
+    public static final String ROOT_NAME = "Project";
+    private static final Comparator<Node> BY_NAME = Comparator.comparing(Node::getName);
+
+    /**
+     * represents a single folder or file
+     */
+    public static class Node {
+
+        // fields
+        private final String name;  // interned segment
+        private final int segmentId;
+        private final int id;
+        private final Node parent;
+        private boolean folder;
+        private String path;  // full path as added (files only)
+        private Node firstChild;
+        private Node lastChild;
+        private Node nextSibling;
+        private int childCount = 0;
+        private Node[] ordered;  // children by name, built lazily
+        private int indexInParent = -1;
+
+        /**
+         * constructor
+         * @param name folder/file name
+         * @param segmentId id of name in the segment table
+         * @param id node id
+         * @param parent parent folder (null for root)
+         * @param folder true if node can have children
+         */
+        Node(String name, int segmentId, int id, Node parent, boolean folder) {
+            this.name = name;
+            this.segmentId = segmentId;
+            this.id = id;
+            this.parent = parent;
+            this.folder = folder;
+        }
+
+        // getters
+        public String getName() { return name; }
+        public int getSegmentId() { return segmentId; }
+        public int getId() { return id; }
+        public Node getParent() { return parent; }
+        public String getPath() { return path; }
+        public boolean isFile() { return !folder; }
+        public boolean isJava() { return !folder && path != null && PathTrie.isJava(path); }
+        public int getChildCount() { return childCount; }
+
+        /**
+         * gets a child by position
+         * @param index position among children
+         * @return child node
+         */
+        public Node getChild(int index) {
+            return orderedChildren()[index];
+        }
+
+        /**
+         * gets position of a child
+         * @param child child node
+         * @return position among children, or -1 if not a child of this node
+         */
+        public int indexOf(Node child) {
+            if (child == null || child.parent != this) { return -1; }
+            orderedChildren();  // assigns positions
+            return child.indexInParent;
+        }
+
+        /**
+         * helper function to materialize ordered children on first access
+         * @return children sorted by name
+         */
+        private Node[] orderedChildren() {
+            if (ordered == null || ordered.length != childCount) {
+                ordered = new Node[childCount];
+                int i = 0;
+                for (Node child = firstChild; child != null; child = child.nextSibling) {
+                    ordered[i++] = child;
+                }
+                Arrays.sort(ordered, BY_NAME);
+                for (i = 0; i < ordered.length; i++) {
+                    ordered[i].indexInParent = i;
+                }
+            }
+            return ordered;
+        }
+
+        /**
+         * label shown by JTree
+         * @return folder/file name
+         */
+        @Override
+        public String toString() { return name; }
+    }
+
+    // segment table (open addressing, slot holds id + 1)
+    private String[] segments = new String[64];
+    private int[] segmentHashes = new int[64];
+    private int[] segmentSlots = new int[128];
+    private int segmentCount = 0;
+
+    // child table (open addressing, key = parent id << 32 | segment id)
+    private long[] childKeys = new long[256];
+    private Node[] childNodes = new Node[256];
+    private int nodeCount = 0;
+
+    // fields
+    private final Node root;
+    private final List<Node> files = new ArrayList<>();  // insertion order
+    private final List<Node> javaFiles = new ArrayList<>();
+
+    /**
+     * constructor (root labelled ROOT_NAME)
+     */
+    public PathTrie() {
+        this(ROOT_NAME);
+    }
+
+    /**
+     * constructor
+     * @param rootName label of root node
+     */
+    public PathTrie(String rootName) {
+        this.root = new Node(rootName, -1, nodeCount++, null, true);
+    }
+
+    /**
+     * builds a trie from file paths
+     * @param rootName label of root node
+     * @param filePaths relative file paths ("a/b/C.java")
+     * @return trie holding all paths
+     */
+    public static PathTrie of(String rootName, List<String> filePaths) {
+        PathTrie trie = new PathTrie(rootName);
+        trie.addAll(filePaths);
+        return trie;
+    }
+
+    /**
+     * adds file paths
+     * @param filePaths relative file paths
+     */
+    public void addAll(List<String> filePaths) {
+        for (String path : filePaths) {
+            add(path);
+        }
+    }
+
+    /**
+     * adds a file path (empty segments are skipped, adding a path twice returns the same node)
+     * @param path relative file path
+     * @return file node (null if the path has no segments)
+     */
+    public Node add(String path) {
+
+        Node current = root;
+        int length = path.length();
+        int start = 0;
+        while (start < length) {
+
+            // next segment (scanned in place)
+            int end = path.indexOf('/', start);
+            if (end == -1) { end = length; }
+            if (!isBlank(path, start, end)) {
+                current = child(current, path, start, end, end < length);
+            }
+            start = end + 1;
+
+        }
+
+        if (current == root) { return null; }
+        if (current.folder || current.path != null) { return current; }  // folder, or file added before
+
+        // new file
+        current.path = path;
+        files.add(current);
+        if (isJava(path)) { javaFiles.add(current); }
+        return current;
+
+    }
+
+    // getters
+    public Node getRoot() { return root; }
+    public int getFileCount() { return files.size(); }
+    public int getNodeCount() { return nodeCount; }
+    public int getSegmentCount() { return segmentCount; }
+    public String getSegment(int segmentId) { return segments[segmentId]; }
+    public List<Node> getFiles() { return Collections.unmodifiableList(files); }
+    public List<Node> getJavaFiles() { return Collections.unmodifiableList(javaFiles); }
+
+    /**
+     * gets every file path in the order it was added
+     * @return paths (the strings passed to add)
+     */
+    public List<String> getFilePaths() {
+        List<String> paths = new ArrayList<>(files.size());
+        for (Node file : files) {
+            paths.add(file.path);
+        }
+        return paths;
+    }
+
+    /**
+     * checks for Java sources without lower-casing the path
+     * @param path file path or name
+     * @return true if it ends in .java (any case)
+     */
+    public static boolean isJava(String path) {
+        return path.regionMatches(true, path.length() - 5, ".java", 0, 5);
+    }
+
+    /**
+     * helper function to either get an existing child or create one
+     * @param parent parent folder
+     * @param path path holding the child's name
+     * @param start start of the name in path
+     * @param end end of the name in path (exclusive)
+     * @param folder true if child is a folder
+     * @return child node
+     */
+    private Node child(Node parent, String path, int start, int end, boolean folder) {
+
+        int segmentId = segment(path, start, end);
+        long key = ((long) parent.id << 32) | segmentId;
+
+        int mask = childKeys.length - 1;
+        int slot = mix(key) & mask;
+        while (childNodes[slot] != null) {
+            if (childKeys[slot] == key) {
+                Node child = childNodes[slot];
+                if (folder) { child.folder = true; }  // same name seen as file before
+                return child;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // new child, appended to the parent's sibling list
+        Node child = new Node(segments[segmentId], segmentId, nodeCount++, parent, folder);
+        childKeys[slot] = key;
+        childNodes[slot] = child;
+        if (parent.lastChild == null) { parent.firstChild = child; } else { parent.lastChild.nextSibling = child; }
+        parent.lastChild = child;
+        parent.childCount++;
+        if (nodeCount * 2 > childKeys.length) { growChildren(); }
+        return child;
+
+    }
+
+    /**
+     * helper function to intern a segment (only allocates for segments never seen before)
+     * @param path path holding the segment
+     * @param start start of the segment
+     * @param end end of the segment (exclusive)
+     * @return segment id
+     */
+    private int segment(String path, int start, int end) {
+
+        // same hash as String.hashCode, without creating the String
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + path.charAt(i);
+        }
+
+        int length = end - start;
+        int mask = segmentSlots.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        for (int id = segmentSlots[slot] - 1; id >= 0; id = segmentSlots[slot] - 1) {
+            String segment = segments[id];
+            if (segmentHashes[id] == hash && segment.length() == length && path.regionMatches(start, segment, 0, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // new segment
+        if (segmentCount == segments.length) {
+            segments = Arrays.copyOf(segments, segmentCount * 2);
+            segmentHashes = Arrays.copyOf(segmentHashes, segmentCount * 2);
+        }
+        int id = segmentCount++;
+        segments[id] = path.substring(start, end);
+        segmentHashes[id] = hash;
+        segmentSlots[slot] = id + 1;
+        if (segmentCount * 2 > segmentSlots.length) { growSegments(); }
+        return id;
+
+    }
+
+    /**
+     * helper function to double the segment table
+     */
+    private void growSegments() {
+        segmentSlots = new int[segmentSlots.length * 2];
+        int mask = segmentSlots.length - 1;
+        for (int id = 0; id < segmentCount; id++) {
+            int slot = (segmentHashes[id] ^ (segmentHashes[id] >>> 16)) & mask;
+            while (segmentSlots[slot] != 0) { slot = (slot + 1) & mask; }
+            segmentSlots[slot] = id + 1;
+        }
+    }
+
+    /**
+     * helper function to double the child table
+     */
+    private void growChildren() {
+        long[] oldKeys = childKeys;
+        Node[] oldNodes = childNodes;
+        childKeys = new long[oldKeys.length * 2];
+        childNodes = new Node[oldNodes.length * 2];
+        int mask = childKeys.length - 1;
+        for (int i = 0; i < oldNodes.length; i++) {
+            if (oldNodes[i] == null) { continue; }
+            int slot = mix(oldKeys[i]) & mask;
+            while (childNodes[slot] != null) { slot = (slot + 1) & mask; }
+            childKeys[slot] = oldKeys[i];
+            childNodes[slot] = oldNodes[i];
+        }
+    }
+
+    /**
+     * helper function to spread a child key over the table
+     * @param key parent id << 32 | segment id
+     * @return hash
+     */
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * helper function to check for an empty or whitespace-only segment
+     * @param path path
+     * @param start start of the segment
+     * @param end end of the segment (exclusive)
+     * @return true if blank
+     */
+    private static boolean isBlank(String path, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(path.charAt(i))) { return false; }
+        }
+        return true;
+    }
+
+}
@@ -1,12 +1,24 @@
 package Asgn3;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import net.sourceforge.plantuml.FileFormat;
+import net.sourceforge.plantuml.FileFormatOption;
+import net.sourceforge.plantuml.SourceStringReader;
 
 /**
  * generates PlantUML syntax from analyzed class metrics
+ * declarations and relationships are streamed straight to an Appendable
+ * (no intermediate copy of the class metrics, no per-class strings)
  *
  * @author Megan Fung
  * @version 1.0
@@ -20,150 +32,188 @@ public class PlantUMLGenerator {
      */
     public static String generateUML(GHRepoAnalyzed analysis) {
         StringBuilder uml = new StringBuilder();
+        try {
+            writeUML(analysis, uml);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // StringBuilder never throws
+        }
+        return uml.toString();
+    }
 
-        // create a copy of classMetrics and add external classes (only for diagram)
-        Map<String, ClassLevelMetrics> diagramMetrics = new HashMap<>(analysis.getClassMetrics());
-        addExternalClasses(diagramMetrics);
+    /**
+     * renders PlantUML syntax to an image
+     * @param umlSource PlantUML syntax string
+     * @param format image format (PNG, SVG)
+     * @return image bytes
+     * @throws IOException if rendering fails
+     */
+    public static byte[] render(String umlSource, FileFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SourceStringReader(umlSource).outputImage(out, new FileFormatOption(format));
+        return out.toByteArray();
+    }
+
+    /**
+     * streams UML diagram to a file
+     * @param analysis the analyzed repository data
+     * @param file destination file (created or overwritten)
+     * @throws IOException if file cannot be written
+     */
+    public static void writeUML(GHRepoAnalyzed analysis, Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeUML(analysis, writer);
+        }
+    }
+
+    /**
+     * streams UML diagram to any destination (StringBuilder, Writer, ...)
+     * extra memory is bounded by the number of distinct external classes, not by the number of edges
+     * @param analysis the analyzed repository data
+     * @param out destination
+     * @throws IOException if destination cannot be written
+     */
+    public static void writeUML(GHRepoAnalyzed analysis, Appendable out) throws IOException {
+        Map<String, ClassLevelMetrics> classMetrics = analysis.getClassMetrics();
 
         // header config
-        uml.append("@startuml\n");
-        uml.append("!pragma layout smetana\n");
-        uml.append("hide empty members\n\n");
+        out.append("@startuml\n");
+        out.append("!pragma layout smetana\n");
+        out.append("hide empty members\n\n");
 
         // generate class declarations with stereotypes
-        for (ClassLevelMetrics classMetric : diagramMetrics.values()) {
-            uml.append(generateClassDeclaration(classMetric));
+        for (ClassLevelMetrics classMetric : classMetrics.values()) {
+            writeClassDeclaration(out, classMetric.getClassName(), classMetric.getClassType(), classMetric.isSingleton());
+        }
+
+        // external classes (JPanel, etc.) are only declared for the diagram, never added to the metrics
+        for (Map.Entry<String, Boolean> external : collectExternalClasses(classMetrics).entrySet()) {
+            writeClassDeclaration(out, external.getKey(), external.getValue() ? "interface" : "class", false);
         }
 
-        uml.append("\n");
+        out.append("\n");
 
         // generate all relationships
-        for (ClassLevelMetrics classMetric : diagramMetrics.values()) {
-            uml.append(generateRelationships(classMetric));
+        for (ClassLevelMetrics classMetric : classMetrics.values()) {
+            writeRelationships(out, classMetric);
         }
 
-        uml.append("\n@enduml");
-        return uml.toString();
+        out.append("\n@enduml");
     }
-    
+
     /**
-     * adds placeholder ClassLevelMetrics for external classes (JPanel, etc.)
-     * only used for diagram generation, not for metrics calculations
-     * @param classMetrics existing metrics map (will be modified)
+     * single dedup pass over all referenced classes that are not part of the analysis
+     * @param classMetrics internal class metrics
+     * @return external class names (in order of first reference) mapped to whether they are interfaces
      */
-    private static void addExternalClasses(Map<String, ClassLevelMetrics> classMetrics) {
-        Set<String> externalClasses = new HashSet<>();
-        Set<String> externalInterfaces = new HashSet<>();
-        Set<String> externalExtends = new HashSet<>();
+    private static Map<String, Boolean> collectExternalClasses(Map<String, ClassLevelMetrics> classMetrics) {
+        Map<String, Boolean> externalClasses = new LinkedHashMap<>();
 
-        // collect all referenced classes and track their source
         for (ClassLevelMetrics metric : classMetrics.values()) {
-            externalExtends.addAll(metric.getExtendsClasses());
-            externalInterfaces.addAll(metric.getImplementsInterfaces());
-            externalClasses.addAll(metric.getCompositions());
-            externalClasses.addAll(metric.getAggregations());
-            externalClasses.addAll(metric.getAssociations());
-            externalClasses.addAll(metric.getDependencies());
+            collectExternal(externalClasses, classMetrics, metric.getExtendsClasses(), false);
+            collectExternal(externalClasses, classMetrics, metric.getImplementsInterfaces(), true);
+            collectExternal(externalClasses, classMetrics, metric.getCompositions(), false);
+            collectExternal(externalClasses, classMetrics, metric.getAggregations(), false);
+            collectExternal(externalClasses, classMetrics, metric.getAssociations(), false);
+            collectExternal(externalClasses, classMetrics, metric.getDependencies(), false);
         }
 
-        // combine all external references
-        externalClasses.addAll(externalExtends);
-        externalClasses.addAll(externalInterfaces);
-
-        // add placeholder metrics for external classes with correct type
-        for (String externalClass : externalClasses) {
-            if (!classMetrics.containsKey(externalClass)) {
-                ClassLevelMetrics external = new ClassLevelMetrics(externalClass);
-                
-                // determine type based on how it's used
-                if (externalInterfaces.contains(externalClass)) {
-                    external.setClassType("interface");
-                    external.setAbstract(true);
-                } else if (externalExtends.contains(externalClass)) {
-                    external.setClassType("class");
-                    external.setAbstract(false);
-                } else {
-                    external.setClassType("class");
-                    external.setAbstract(false);
-                }
-                
-                classMetrics.put(externalClass, external);
+        return externalClasses;
+    }
+
+    /**
+     * helper function to record external references
+     * a class that is implemented anywhere is an interface, otherwise it is a plain class
+     * @param externalClasses external classes found so far
+     * @param classMetrics internal class metrics
+     * @param referenced referenced class names
+     * @param isInterface true if referenced through implements
+     */
+    private static void collectExternal(Map<String, Boolean> externalClasses,
+                                        Map<String, ClassLevelMetrics> classMetrics,
+                                        Collection<String> referenced,
+                                        boolean isInterface) {
+        for (String className : referenced) {
+            if (!classMetrics.containsKey(className)) {
+                externalClasses.merge(className, isInterface, Boolean::logicalOr);
             }
         }
     }
 
     /**
-     * generates class declaration 
-     * @param metric class metrics
-     * @return PlantUML class declaration
+     * writes class declaration
+     * @param out destination
+     * @param className class name
+     * @param classType class, abstract, or interface
+     * @param isSingleton true if singleton pattern detected
+     * @throws IOException if destination cannot be written
      */
-    private static String generateClassDeclaration(ClassLevelMetrics metric) {
-        String className = metric.getClassName();
-        String classType = metric.getClassType();
-
-        if (metric.isSingleton()) {
-            // singleton 
-            return "class " + className + " << (S,#FF7700) singleton >> {\n}\n";
+    private static void writeClassDeclaration(Appendable out, String className, String classType,
+                                              boolean isSingleton) throws IOException {
+        if (isSingleton) {
+            // singleton
+            out.append("class ").append(className).append(" << (S,#FF7700) singleton >> {\n}\n");
         } else if ("interface".equals(classType)) {
-            // interface 
-            return "interface " + className + " << (I,#87CEEB) >> {\n}\n";
+            // interface
+            out.append("interface ").append(className).append(" << (I,#87CEEB) >> {\n}\n");
         } else if ("abstract".equals(classType)) {
-            // abstract class 
-            return "abstract class " + className + " << (A,#FFD700) >> {\n}\n";
+            // abstract class
+            out.append("abstract class ").append(className).append(" << (A,#FFD700) >> {\n}\n");
         } else {
-            // concrete class 
-            return "class " + className + " << (C,#90EE90) >> {\n}\n";
+            // concrete class
+            out.append("class ").append(className).append(" << (C,#90EE90) >> {\n}\n");
         }
     }
 
     /**
-     * gets all class relationships
+     * writes all class relationships
+     * @param out destination
      * @param metric class metrics containing relationships
-     * @return PlantUML relationship syntax
+     * @throws IOException if destination cannot be written
      */
-    private static String generateRelationships(ClassLevelMetrics metric) {
-        StringBuilder sb = new StringBuilder();
+    private static void writeRelationships(Appendable out, ClassLevelMetrics metric) throws IOException {
         String className = metric.getClassName();
 
         // generalization (extends)
-        for (String parent : metric.getExtendsClasses()) {
-            sb.append(className).append(" --|> ").append(parent).append("\n");
-        }
+        writeEdges(out, className, " --|> ", metric.getExtendsClasses());
 
         // realization (implements)
-        for (String iface : metric.getImplementsInterfaces()) {
-            sb.append(className).append(" ..|> ").append(iface).append("\n");
-        }
+        writeEdges(out, className, " ..|> ", metric.getImplementsInterfaces());
 
         // composition (strong ownership)
-        for (String composed : metric.getCompositions()) {
-            sb.append(className).append(" *-- ").append(composed).append("\n");
-        }
+        writeEdges(out, className, " *-- ", metric.getCompositions());
 
         // aggregation (weak ownership)
-        for (String aggregated : metric.getAggregations()) {
-            sb.append(className).append(" o-- ").append(aggregated).append("\n");
-        }
+        writeEdges(out, className, " o-- ", metric.getAggregations());
 
         // association
-        for (String associated : metric.getAssociations()) {
-            sb.append(className).append(" -- ").append(associated).append("\n");
-        }
+        writeEdges(out, className, " -- ", metric.getAssociations());
 
-        // dependency 
+        // dependency
         for (String dependency : metric.getDependencies()) {
             if (!isStrongerRelationship(metric, dependency)) {
-                sb.append(className).append(" ..> ").append(dependency).append("\n");
+                out.append(className).append(" ..> ").append(dependency).append("\n");
             }
         }
 
         // singleton self-reference
         if (metric.isSingleton()) {
-            sb.append(className).append(" o-- ").append(className)
-              .append(" : -instance\n");
+            out.append(className).append(" o-- ").append(className).append(" : -instance\n");
         }
+    }
 
-        return sb.toString();
+    /**
+     * helper function to write one edge per target
+     * @param out destination
+     * @param className source class
+     * @param arrow PlantUML arrow (with surrounding spaces)
+     * @param targets target classes
+     * @throws IOException if destination cannot be written
+     */
+    private static void writeEdges(Appendable out, String className, String arrow,
+                                   List<String> targets) throws IOException {
+        for (String target : targets) {
+            out.append(className).append(arrow).append(target).append("\n");
+        }
     }
 
     /**
@@ -182,4 +232,3 @@ public class PlantUMLGenerator {
                metric.getAssociations().contains(otherClass);
     }
 }
-
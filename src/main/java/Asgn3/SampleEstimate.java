@@ -0,0 +1,357 @@
+package Asgn3;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * estimates a folder's A and the distributions of I and D from a random subset of its files
+ * design --> every .java file is picked independently with probability rate (decided from its path and a seed,
+ * so the choice is known before anything is fetched and the same seed picks the same files)
+ * A --> share of abstract classes in the sample
+ * Ce --> exact: every listed .java file counts as a project class, sampled or not (see GHRepoAnalyzer.analyzeSample)
+ * Ca --> only references from sampled classes are seen, so every class's observed Ca is its true Ca thinned by rate
+ * (binomial); how true Ca is spread over the folder is learned from the observed counts of all classes, sampled
+ * or not (nonparametric maximum likelihood, EM), then each sampled class gets a posterior over its true Ca
+ * (scaling Ca by 1 / rate instead is unbiased for Ca, but far off for I: most classes would see no Ca at all)
+ * I, D --> per class the posterior mean (shown in the panels, see getAnalysis); the distributions mix every class's posterior
+ * intervals --> 95%, normal approximation with finite population correction for A and the means, quantiles of the
+ * mixture around the median for the medians, D's widened by A's; classes are treated as independent draws
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class SampleEstimate {
+
+    // config
+    public static final double Z_95 = 1.959964;
+    private static final int MAX_ITERATIONS = 500;
+    private static final double TOLERANCE = 1e-9;
+    private static final double MIN_WEIGHT = 1e-12;  // posterior weights below this are dropped
+
+    // fields
+    private final GHRepoAnalyzed analysis;  // sampled classes with corrected I and D
+    private final double rate;
+    private final int sampledFiles;
+    private final int totalFiles;
+    private final int sampledClasses;
+    private final Interval A;
+    private final Interval meanI;
+    private final Interval meanD;
+    private final Interval medianI;
+    private final Interval medianD;
+    private final Workspace.Distribution I;
+    private final Workspace.Distribution D;
+
+    /**
+     * estimate with its 95% confidence interval
+     * @param estimate point estimate
+     * @param low lower bound
+     * @param high upper bound
+     */
+    public record Interval(double estimate, double low, double high) {
+        @Override
+        public String toString() {
+            return String.format("%.2f [%.2f-%.2f]", estimate, low, high);
+        }
+    }
+
+    /**
+     * constructor: corrects the sample's I and D and computes the estimates
+     * @param analysis analysis of the sampled files (not changed, the corrected classes are copies)
+     * @param rate probability each file had of being sampled
+     * @param sampledFiles files analyzed
+     * @param totalFiles files the sample was drawn from
+     * @param outsideCa incoming references from sampled classes, one per project class outside the sample
+     */
+    public SampleEstimate(GHRepoAnalyzed analysis, double rate, int sampledFiles, int totalFiles, int[] outsideCa) {
+
+        this.rate = rate;
+        this.sampledFiles = sampledFiles;
+        this.totalFiles = totalFiles;
+
+        List<ClassLevelMetrics> classes = analysis.getClassMetricsList();
+        List<String> names = List.copyOf(analysis.getClassMetrics().keySet());  // same order as classes
+        int n = classes.size();
+        this.sampledClasses = n;
+        double correction = Math.max(0, 1 - rate);  // finite population correction (rate 1 --> exact)
+
+        // A: share of abstract classes
+        double a = analysis.getA();
+        double aError = (n == 0) ? Double.NaN : Z_95 * Math.sqrt(a * (1 - a) / n * correction);
+        this.A = new Interval(a, Math.max(0, a - aError), Math.min(1, a + aError));
+
+        // how true Ca is spread over the folder (observed Ca of every class, sampled or not)
+        int[] observed = Arrays.copyOf(outsideCa, outsideCa.length + n);
+        for (int c = 0; c < n; c++) {
+            observed[outsideCa.length + c] = classes.get(c).getCa();
+        }
+        double[] prior = prior(observed, rate);
+
+        // I and D per class: posterior means, plus every (value, weight) of the posteriors for the distributions
+        double[] is = new double[n];
+        double[] ds = new double[n];
+        List<double[]> mixtureI = new ArrayList<>();
+        List<double[]> mixtureD = new ArrayList<>();
+        Map<Integer, double[]> posteriors = new HashMap<>();  // by observed Ca (few distinct values)
+        Map<String, ClassLevelMetrics> corrected = new TreeMap<>();
+        for (int c = 0; c < n; c++) {
+            ClassLevelMetrics metrics = classes.get(c).copy();
+            double[] posterior = posteriors.computeIfAbsent(metrics.getCa(), k -> posterior(k, prior, rate));
+            double ce = metrics.getCe();
+            for (int ca = 0; ca < posterior.length; ca++) {
+                if (posterior[ca] < MIN_WEIGHT) { continue; }
+                double i = (ca + ce == 0) ? 0.0 : ce / (ca + ce);
+                double d = Math.abs(a + i - 1.0);
+                is[c] += posterior[ca] * i;
+                ds[c] += posterior[ca] * d;
+                mixtureI.add(new double[] {i, posterior[ca]});
+                mixtureD.add(new double[] {d, posterior[ca]});
+            }
+            metrics.setI(is[c]);
+            metrics.setD(ds[c]);
+            corrected.put(names.get(c), metrics);
+        }
+        this.analysis = analysis.withClassMetrics(corrected);
+        this.meanI = mean(is, correction);
+        this.I = distribution(mixtureI, n, meanI.estimate());
+        this.medianI = median(mixtureI, n, correction);
+
+        // D also moves with the estimated A (by at most as much as A does)
+        this.meanD = widen(mean(ds, correction), aError);
+        this.D = distribution(mixtureD, n, meanD.estimate());
+        this.medianD = widen(median(mixtureD, n, correction), aError);
+
+    }
+
+    /**
+     * decides if a file belongs to the sample (same path, rate and seed --> same answer)
+     * @param path repo relative file path
+     * @param rate probability of being picked (0 to 1)
+     * @param seed sample seed
+     * @return true if sampled
+     */
+    public static boolean isSampled(String path, double rate, long seed) {
+
+        // path hash mixed with the seed (splitmix64 finalizer), top 53 bits as a uniform double
+        long h = path.hashCode() * 0x9E3779B97F4A7C15L ^ seed;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h = h ^ (h >>> 31);
+        return (h >>> 11) * 0x1.0p-53 < rate;
+
+    }
+
+    // getters
+    public GHRepoAnalyzed getAnalysis() { return analysis; }
+    public double getRate() { return rate; }
+    public int getSampledFiles() { return sampledFiles; }
+    public int getTotalFiles() { return totalFiles; }
+    public int getSampledClasses() { return sampledClasses; }
+    public Interval getA() { return A; }
+    public Interval getMeanI() { return meanI; }
+    public Interval getMeanD() { return meanD; }
+    public Interval getMedianI() { return medianI; }
+    public Interval getMedianD() { return medianD; }
+    public Workspace.Distribution getI() { return I; }
+    public Workspace.Distribution getD() { return D; }
+
+    /**
+     * summary for the status bar
+     * @return estimates with intervals
+     */
+    @Override
+    public String toString() {
+        return String.format("SAMPLE %d of %d files (%.0f%%, %d classes): A %s, I mean %s median %s, D mean %s median %s",
+                sampledFiles, totalFiles, rate * 100, getSampledClasses(), A, meanI, medianI, meanD, medianD);
+    }
+
+    /**
+     * helper function to estimate a mean
+     * @param values sampled values
+     * @param correction finite population correction
+     * @return mean with interval (NaN if no values)
+     */
+    private static Interval mean(double[] values, double correction) {
+
+        int n = values.length;
+        if (n == 0) { return new Interval(Double.NaN, Double.NaN, Double.NaN); }
+        double sum = 0;
+        for (double value : values) { sum += value; }
+        double mean = sum / n;
+        double squares = 0;
+        for (double value : values) { squares += (value - mean) * (value - mean); }
+        double variance = (n > 1) ? squares / (n - 1) : 0;
+        double error = Z_95 * Math.sqrt(variance / n * correction);
+        return new Interval(mean, mean - error, mean + error);
+
+    }
+
+    /**
+     * helper function to estimate how true Ca is spread over the folder (nonparametric maximum likelihood, EM)
+     * @param observed observed Ca of every class (each is its true Ca thinned by rate)
+     * @param rate sample rate
+     * @return probability of each true Ca (index = Ca), empty if rate is 1 (observed is exact)
+     */
+    private static double[] prior(int[] observed, double rate) {
+
+        if (rate >= 1 || observed.length == 0) { return new double[0]; }
+
+        // group classes by observed Ca
+        SortedMap<Integer, Integer> groups = new TreeMap<>();
+        for (int k : observed) { groups.merge(k, 1, Integer::sum); }
+        int max = groups.lastKey();
+
+        // true Ca is below the number of classes, and rarely far above observed / rate
+        int support = (int) Math.min(observed.length, Math.ceil((max + 4 * Math.sqrt(max) + 4) / rate)) + 1;
+        support = Math.max(support, max + 1);
+        double[][] likelihoods = new double[groups.size()][];
+        double[] counts = new double[groups.size()];
+        int g = 0;
+        for (Map.Entry<Integer, Integer> group : groups.entrySet()) {
+            likelihoods[g] = likelihood(group.getKey(), support, rate);
+            counts[g++] = group.getValue();
+        }
+
+        // EM: start flat, reweight by how well each Ca explains the observed counts
+        double[] prior = new double[support];
+        Arrays.fill(prior, 1.0 / support);
+        double[] next = new double[support];
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            Arrays.fill(next, 0);
+            for (g = 0; g < likelihoods.length; g++) {
+                double[] likelihood = likelihoods[g];
+                double total = 0;
+                for (int ca = 0; ca < support; ca++) { total += prior[ca] * likelihood[ca]; }
+                if (total == 0) { continue; }
+                double scale = counts[g] / total / observed.length;
+                for (int ca = 0; ca < support; ca++) { next[ca] += prior[ca] * likelihood[ca] * scale; }
+            }
+            double change = 0;
+            for (int ca = 0; ca < support; ca++) {
+                change = Math.max(change, Math.abs(next[ca] - prior[ca]));
+                prior[ca] = next[ca];
+            }
+            if (change < TOLERANCE) { break; }
+        }
+        return prior;
+
+    }
+
+    /**
+     * helper function to get a sampled class's posterior over its true Ca
+     * @param k observed Ca
+     * @param prior probability of each true Ca (see prior)
+     * @param rate sample rate
+     * @return probability of each true Ca (index = Ca)
+     */
+    private static double[] posterior(int k, double[] prior, double rate) {
+
+        // exact count (no sampling)
+        if (prior.length <= k) {
+            double[] exact = new double[k + 1];
+            exact[k] = 1;
+            return exact;
+        }
+
+        double[] posterior = likelihood(k, prior.length, rate);
+        double total = 0;
+        for (int ca = 0; ca < posterior.length; ca++) {
+            posterior[ca] *= prior[ca];
+            total += posterior[ca];
+        }
+        for (int ca = 0; ca < posterior.length; ca++) {
+            posterior[ca] = (total > 0) ? posterior[ca] / total : (ca == k ? 1 : 0);
+        }
+        return posterior;
+
+    }
+
+    /**
+     * helper function to get how likely an observed Ca is for each true Ca: Binomial(Ca, rate) at k
+     * (computed in logs and scaled so the largest is 1, EM and posteriors only need ratios)
+     * @param k observed Ca
+     * @param support number of true Ca values (0 to support - 1)
+     * @param rate sample rate (below 1)
+     * @return likelihood by true Ca (0 below k)
+     */
+    private static double[] likelihood(int k, int support, double rate) {
+
+        double[] likelihood = new double[support];
+        double logMiss = Math.log1p(-rate);
+        double log = k * Math.log(rate);  // Ca = k: every reference was seen
+        double max = Double.NEGATIVE_INFINITY;
+        double[] logs = new double[support];
+        for (int ca = k; ca < support; ca++) {
+            logs[ca] = log;
+            max = Math.max(max, log);
+            log += Math.log((ca + 1.0) / (ca + 1.0 - k)) + logMiss;  // step to Ca + 1
+        }
+        for (int ca = k; ca < support; ca++) {
+            likelihood[ca] = Math.exp(logs[ca] - max);
+        }
+        return likelihood;
+
+    }
+
+    /**
+     * helper function to summarize a mixture of per class posteriors
+     * @param mixture (value, weight) pairs, each class's weights sum to 1 (sorted in place)
+     * @param classes number of classes
+     * @param mean mean of the posterior means
+     * @return distribution (all NaN if there are no classes)
+     */
+    private static Workspace.Distribution distribution(List<double[]> mixture, int classes, double mean) {
+        if (classes == 0) { return Workspace.Distribution.of(new double[0]); }
+        mixture.sort(Comparator.comparingDouble(point -> point[0]));
+        return new Workspace.Distribution(classes, mixture.get(0)[0], quantile(mixture, classes, 0.25), quantile(mixture, classes, 0.5),
+                quantile(mixture, classes, 0.75), mixture.get(mixture.size() - 1)[0], mean);
+    }
+
+    /**
+     * helper function to widen an interval on both sides
+     * @param interval interval
+     * @param margin amount added to each side (NaN leaves the interval as is)
+     * @return wider interval (same estimate)
+     */
+    private static Interval widen(Interval interval, double margin) {
+        if (Double.isNaN(margin)) { return interval; }
+        return new Interval(interval.estimate(), interval.low() - margin, interval.high() + margin);
+    }
+
+    /**
+     * helper function to estimate a median (interval from the quantiles n / 2 +- z sqrt(n) / 2 classes around it)
+     * @param mixture (value, weight) pairs sorted by value (see distribution)
+     * @param classes number of classes
+     * @param correction finite population correction
+     * @return median with interval (NaN if no classes)
+     */
+    private static Interval median(List<double[]> mixture, int classes, double correction) {
+        if (classes == 0) { return new Interval(Double.NaN, Double.NaN, Double.NaN); }
+        double spread = Z_95 * Math.sqrt(correction / classes) / 2;
+        return new Interval(quantile(mixture, classes, 0.5), quantile(mixture, classes, Math.max(0, 0.5 - spread)),
+                quantile(mixture, classes, Math.min(1, 0.5 + spread)));
+    }
+
+    /**
+     * helper function to get a quantile of a mixture
+     * @param mixture (value, weight) pairs sorted by value
+     * @param classes number of classes (total weight)
+     * @param q quantile (0 to 1)
+     * @return smallest value with at least q of the weight at or below it
+     */
+    private static double quantile(List<double[]> mixture, int classes, double q) {
+        double target = q * classes;
+        double cumulative = 0;
+        for (double[] point : mixture) {
+            cumulative += point[1];
+            if (cumulative >= target - 1e-9) { return point[0]; }
+        }
+        return mixture.get(mixture.size() - 1)[0];
+    }
+
+}
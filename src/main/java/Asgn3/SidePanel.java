@@ -38,63 +38,16 @@ public class SidePanel extends JPanel {
 
     /**
      * updates panel with tree structure from GH repo link
-     * @param filePaths all existing files within GH repo
+     * folders are only populated when expanded (see PathTreeModel)
+     * @param trie all existing files within GH repo (see GHRepoAnalyzed.getPathTrie)
      */
-    public void showStructure(java.util.List<String> filePaths) {
+    public void showStructure(PathTrie trie) {
 
-        // create new root
-        DefaultMutableTreeNode root = new DefaultMutableTreeNode("Project");
-
-        // iterate through file paths and add to tree
-        for (String path : filePaths) {
-
-            // get subfolders
-            String[] folders = path.split("/");
-
-            DefaultMutableTreeNode current = root; // current folder
-            for (int i = 0; i < folders.length; i++) {
-                String folder = folders[i];
-                if (folder.isBlank()) { continue; }
-
-                boolean isFile = (i == folders.length - 1);  // no more subfolders
-                if (isFile) {
-                    DefaultMutableTreeNode fileNode = new DefaultMutableTreeNode(folder);
-                    current.add(fileNode);
-                } else {
-                    current = getCreateChild(current, folder);
-                }
-            }
-        }
-
-        treeModel.setRoot(root);  // update root directory
-        tree.setModel(treeModel);  // update tree with file paths
+        tree.setModel(new PathTreeModel(trie));  // update tree with file paths
         tree.expandRow(0);  // expand for file visibility
 
     }
 
-    /**
-     * either gets an existing folder node or creates one
-     * @param current current subfolder
-     * @param folder folder to get/ create
-     * @return returns a folder node for target
-     */
-    private DefaultMutableTreeNode getCreateChild(DefaultMutableTreeNode current, String folder) {
-
-        // iterate over subfolders from current
-        for(int i = 0; i < current.getChildCount(); i++) {
-            DefaultMutableTreeNode child = (DefaultMutableTreeNode) current.getChildAt(i);
-            if (child.getUserObject().equals(folder)) {  // found match
-                return child;  // return existing folder node
-            }
-        }
-
-        // create folder node
-        DefaultMutableTreeNode folderNode = new DefaultMutableTreeNode(folder);
-        current.add(folderNode);
-        return folderNode;
-
-    }
-
     /**
      * clears project directory side panel
      */
@@ -102,7 +55,7 @@ public class SidePanel extends JPanel {
 
         DefaultMutableTreeNode emptyRoot = new DefaultMutableTreeNode("");
         treeModel.setRoot(emptyRoot);
-        tree.setModel(treeModel);
+        tree.setModel(treeModel);  // back to empty (eager) model
 
     }
 
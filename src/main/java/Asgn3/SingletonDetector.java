@@ -1,9 +1,12 @@
 package Asgn3;
 
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * detects if a class follows the singleton pattern
+ * decided from the class' member summary: a static field of its own type, no constructor callable from outside,
+ * and a way to reach the instance (static factory returning the class, or a non-private static instance field)
  *
  * @author Megan Fung
  * @version 1.0
@@ -16,17 +19,34 @@ public class SingletonDetector {
      * @return true if singleton pattern detected
      */
     public static boolean isSingleton(JavaClass javaClass) {
-        String body = javaClass.fullBody;
+        ClassSummary summary = javaClass.summary;
+        if (summary == null || "interface".equals(javaClass.classType)) { return false; }
 
-        // check for private static instance field
-        boolean hasStaticInstance = (body.contains("private static") && body.contains(javaClass.name)) ||
-                                   (body.contains("private static final") && body.contains(javaClass.name));
+        // private static instance field
+        boolean hasStaticInstance = !summary.getStaticInstances().isEmpty();
 
-        // check for public static getInstance-like method
-        boolean hasGetInstance = (body.contains("public static") && body.contains(javaClass.name)) &&
-                                (body.contains("getInstance(") || body.contains("instance(") || body.contains("get("));
+        // nobody else can call new
+        boolean hasHiddenConstructors = summary.hasOnlyPrivateConstructors();
 
-        return hasStaticInstance && hasGetInstance;
+        // getInstance-like method or public INSTANCE field
+        boolean hasAccessor = !accessors(summary).isEmpty();
+
+        return hasStaticInstance && hasHiddenConstructors && hasAccessor;
     }
-}
 
+    /**
+     * gets the members other classes use to reach the instance
+     * @param summary member summary of a singleton
+     * @return static factory method names and non-private static instance field names
+     */
+    public static List<String> accessors(ClassSummary summary) {
+        List<String> accessors = new ArrayList<>();
+        for (ClassSummary.Method factory : summary.getStaticFactories()) {
+            accessors.add(factory.name());
+        }
+        for (ClassSummary.Field instance : summary.getStaticInstances()) {
+            if (!instance.isPrivate()) { accessors.add(instance.name()); }
+        }
+        return accessors;
+    }
+}
@@ -0,0 +1,278 @@
+package Asgn3;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * decides which .java files of a folder are analyzed
+ * include / exclude globs --> matched against repo relative paths before anything is fetched
+ * ("*" stays inside one folder, "**" crosses folders, a glob without '/' matches file names in any folder)
+ * generated code --> paths under generated sources folders (generated, generated-sources, ...) are skipped before fetching,
+ * files carrying a generator's header comment or @Generated annotation (or that are far too large / long-lined
+ * to be hand written) are dropped after fetching, before lexing
+ * immutable, so one filter can be shared by any number of analyses
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class SourceFilter {
+
+    // generated code heuristics
+    public static final int HEADER_CHARS = 2048;  // markers are looked for in the file header only
+    public static final int MAX_SOURCE_CHARS = 1_000_000;
+    public static final int MAX_LINE_CHARS = 5_000;
+    private static final String[] HEADER_MARKERS = {"@generated", "do not edit", "generated by", "auto-generated",
+            "autogenerated", "automatically generated", "code generator"};
+
+    // no filtering at all
+    public static final SourceFilter ALL = new SourceFilter(List.of(), List.of(), false);
+
+    // fields
+    private final List<String> includes;
+    private final List<String> excludes;
+    private final boolean skipGenerated;
+    private final Pattern[] includePatterns;
+    private final Pattern[] excludePatterns;
+
+    /**
+     * constructor
+     * @param includes globs a file has to match (empty for every file)
+     * @param excludes globs a file must not match
+     * @param skipGenerated true to skip generated code
+     */
+    public SourceFilter(List<String> includes, List<String> excludes, boolean skipGenerated) {
+
+        // initialize fields
+        this.includes = List.copyOf(includes);
+        this.excludes = List.copyOf(excludes);
+        this.skipGenerated = skipGenerated;
+        this.includePatterns = compile(this.includes);
+        this.excludePatterns = compile(this.excludes);
+
+    }
+
+    // getters
+    public List<String> getIncludes() { return includes; }
+    public List<String> getExcludes() { return excludes; }
+    public boolean isSkipGenerated() { return skipGenerated; }
+
+    /**
+     * checks if this filter lets every file through
+     * @return true if there is nothing to filter
+     */
+    public boolean acceptsAll() {
+        return includes.isEmpty() && excludes.isEmpty() && !skipGenerated;
+    }
+
+    /**
+     * first check, on the path only (nothing has been fetched yet)
+     * @param path repo relative file path
+     * @return true if the file should be fetched
+     */
+    public boolean acceptsPath(String path) {
+
+        if (includePatterns.length > 0 && !matchesAny(includePatterns, path)) { return false; }
+        if (matchesAny(excludePatterns, path)) { return false; }
+        return !skipGenerated || !isGeneratedPath(path);
+
+    }
+
+    /**
+     * second check, on the fetched content
+     * @param content file contents
+     * @return true if the file should be analyzed
+     */
+    public boolean acceptsContent(String content) {
+        return !skipGenerated || !isGeneratedContent(content);
+    }
+
+    /**
+     * splits user input into globs
+     * @param text globs separated by commas, spaces or new lines (commas inside {a,b} belong to the glob)
+     * @return globs (empty if blank)
+     */
+    public static List<String> parseGlobs(String text) {
+
+        List<String> globs = new ArrayList<>();
+        StringBuilder glob = new StringBuilder();
+        int depth = 0;  // open braces
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || (c == ',' && depth == 0)) {
+                // separator: end the current glob
+                if (!glob.isEmpty()) { globs.add(glob.toString()); }
+                glob.setLength(0);
+                continue;
+            }
+            if (c == '{') { depth++; }
+            if (c == '}' && depth > 0) { depth--; }
+            glob.append(c);
+        }
+        if (!glob.isEmpty()) { globs.add(glob.toString()); }
+        return globs;
+
+    }
+
+    /**
+     * checks if a path lies in a generated sources folder
+     * (maven target/generated-sources, gradle build/generated, annotation processor output, ...)
+     * @param path repo relative file path
+     * @return true if any folder name starts with "generated"
+     */
+    public static boolean isGeneratedPath(String path) {
+
+        int start = 0;
+        int end = path.indexOf('/');
+        while (end != -1) {  // folders only, the file name itself is not checked
+            if (path.startsWith("generated", start)) { return true; }
+            start = end + 1;
+            end = path.indexOf('/', start);
+        }
+        return false;
+
+    }
+
+    /**
+     * checks if a file looks generated: a generator's header comment or annotation,
+     * or a size no hand written source has (huge file, or lines thousands of characters long)
+     * @param content file contents
+     * @return true if generated
+     */
+    public static boolean isGeneratedContent(String content) {
+
+        // size heuristics
+        if (content.length() > MAX_SOURCE_CHARS) { return true; }
+        int lineStart = 0;
+        for (int i = 0; i < content.length(); i++) {
+            if (content.charAt(i) == '\n') {
+                if (i - lineStart > MAX_LINE_CHARS) { return true; }
+                lineStart = i + 1;
+            }
+        }
+        if (content.length() - lineStart > MAX_LINE_CHARS) { return true; }
+
+        // generator comments live in the header
+        String header = content.substring(0, Math.min(content.length(), HEADER_CHARS)).toLowerCase();
+        for (String marker : HEADER_MARKERS) {
+            if (containsWord(header, marker)) { return true; }
+        }
+
+        // the annotation sits on the class declaration (after the imports)
+        return hasGeneratedAnnotation(content);
+
+    }
+
+    /**
+     * helper function to find @Generated (javax / jakarta / processing), but not e.g. @GeneratedValue
+     * @param content file contents
+     * @return true if annotated
+     */
+    private static boolean hasGeneratedAnnotation(String content) {
+
+        for (int at = content.indexOf("Generated"); at >= 0; at = content.indexOf("Generated", at + 1)) {
+            int after = at + "Generated".length();
+            if (after < content.length() && Character.isJavaIdentifierPart(content.charAt(after))) { continue; }
+            if ((at > 0 && content.charAt(at - 1) == '@') || content.startsWith("annotation.", at - 11)
+                    || content.startsWith("processing.", at - 11)) {
+                return true;
+            }
+        }
+        return false;
+
+    }
+
+    /**
+     * helper function to find a marker that is not the start of a longer word (@generated, not @GeneratedValue)
+     * @param text text to search
+     * @param marker marker
+     * @return true if found
+     */
+    private static boolean containsWord(String text, String marker) {
+        for (int at = text.indexOf(marker); at >= 0; at = text.indexOf(marker, at + 1)) {
+            int after = at + marker.length();
+            if (after == text.length() || !Character.isJavaIdentifierPart(text.charAt(after))) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * describes the filter (for status messages)
+     * @return summary
+     */
+    @Override
+    public String toString() {
+        if (acceptsAll()) { return "all files"; }
+        StringBuilder out = new StringBuilder();
+        if (!includes.isEmpty()) { out.append("include ").append(String.join(", ", includes)); }
+        if (!excludes.isEmpty()) { out.append(out.length() > 0 ? "; " : "").append("exclude ").append(String.join(", ", excludes)); }
+        if (skipGenerated) { out.append(out.length() > 0 ? "; " : "").append("no generated code"); }
+        return out.toString();
+    }
+
+    /**
+     * helper function to check a path against globs
+     * @param patterns compiled globs
+     * @param path repo relative file path
+     * @return true if any glob matches
+     */
+    private static boolean matchesAny(Pattern[] patterns, String path) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(path).matches()) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * helper function to compile globs
+     * @param globs globs
+     * @return one pattern per glob
+     */
+    private static Pattern[] compile(List<String> globs) {
+        Pattern[] patterns = new Pattern[globs.size()];
+        for (int i = 0; i < patterns.length; i++) {
+            patterns[i] = Pattern.compile(toRegex(globs.get(i)));
+        }
+        return patterns;
+    }
+
+    /**
+     * helper function to translate a glob into a regular expression
+     * @param glob glob ("**" any folders, "*" any name characters, "?" one character, "{a,b}" alternatives)
+     * @return regular expression matching whole paths
+     */
+    static String toRegex(String glob) {
+
+        // globs without a folder match the file name in any folder
+        String full = (glob.indexOf('/') < 0) ? "**/" + glob : glob;
+
+        StringBuilder regex = new StringBuilder();
+        boolean inGroup = false;
+        for (int i = 0; i < full.length(); i++) {
+            char c = full.charAt(i);
+            if (c == '*' && i + 1 < full.length() && full.charAt(i + 1) == '*') {
+                boolean folders = i + 2 < full.length() && full.charAt(i + 2) == '/';
+                regex.append(folders ? "(?:.*/)?" : ".*");  // "**/" also matches no folder at all
+                i += folders ? 2 : 1;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else if (c == '{') {
+                regex.append("(?:");
+                inGroup = true;
+            } else if (c == '}' && inGroup) {
+                regex.append(')');
+                inGroup = false;
+            } else if (c == ',' && inGroup) {
+                regex.append('|');
+            } else if ("\\.[]()+^$|".indexOf(c) >= 0) {
+                regex.append('\\').append(c);
+            } else {
+                regex.append(c);
+            }
+        }
+        return regex.toString();
+
+    }
+
+}
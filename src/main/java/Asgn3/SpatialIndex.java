@@ -0,0 +1,238 @@
+package Asgn3;
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * uniform-grid spatial index over axis-aligned boxes (squares, circles, labels, ...)
+ * built once per layout, then answers point queries by looking at a single cell
+ * and range queries (rubber-band selection) by looking at the covered cells only
+ * ids are the positions of the boxes in the arrays passed to the constructor
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class SpatialIndex {
+
+    // boxes
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] ws;
+    private final int[] hs;
+
+    // grid
+    private final int originX;
+    private final int originY;
+    private final int cellSize;
+    private final int cols;
+    private final int rows;
+    private final int[] cellStart;  // cell c holds cellItems[cellStart[c] .. cellStart[c + 1])
+    private final int[] cellItems;
+
+    // dedup for range queries (boxes spanning several cells)
+    private final int[] seen;
+    private int queryStamp = 0;
+
+    /**
+     * constructor: buckets every box into the cells it overlaps
+     * @param xs left edges
+     * @param ys top edges
+     * @param ws widths
+     * @param hs heights
+     */
+    public SpatialIndex(int[] xs, int[] ys, int[] ws, int[] hs) {
+
+        this.xs = xs;
+        this.ys = ys;
+        this.ws = ws;
+        this.hs = hs;
+        int n = xs.length;
+        this.seen = new int[n];
+
+        // bounding box of all boxes + largest box (cell size)
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        int largest = 1;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i] + ws[i]);
+            maxY = Math.max(maxY, ys[i] + hs[i]);
+            largest = Math.max(largest, Math.max(ws[i], hs[i]));
+        }
+        if (n == 0) { minX = minY = maxX = maxY = 0; }
+
+        // cells as big as the largest box (each box spans at most 2x2 cells),
+        // grown if the layout is sparse so the grid stays O(n)
+        int cell = largest;
+        while ((long) cellsFor(maxX - minX, cell) * cellsFor(maxY - minY, cell) > 4L * n + 16) {
+            cell *= 2;
+        }
+        this.originX = minX;
+        this.originY = minY;
+        this.cellSize = cell;
+        this.cols = cellsFor(maxX - minX, cell);
+        this.rows = cellsFor(maxY - minY, cell);
+
+        // counting pass, then fill (compressed rows, no per-cell lists)
+        int[] counts = new int[cols * rows + 1];
+        for (int i = 0; i < n; i++) {
+            for (int r = row(ys[i]); r <= row(ys[i] + hs[i]); r++) {
+                for (int c = col(xs[i]); c <= col(xs[i] + ws[i]); c++) {
+                    counts[r * cols + c + 1]++;
+                }
+            }
+        }
+        for (int c = 0; c < cols * rows; c++) {
+            counts[c + 1] += counts[c];
+        }
+        this.cellStart = counts;
+        this.cellItems = new int[counts[cols * rows]];
+        int[] fill = Arrays.copyOf(counts, cols * rows);
+        for (int i = 0; i < n; i++) {
+            for (int r = row(ys[i]); r <= row(ys[i] + hs[i]); r++) {
+                for (int c = col(xs[i]); c <= col(xs[i] + ws[i]); c++) {
+                    cellItems[fill[r * cols + c]++] = i;
+                }
+            }
+        }
+
+    }
+
+    /**
+     * finds the topmost (last drawn) box containing a point
+     * @param px x coordinate
+     * @param py y coordinate
+     * @return box id, or -1 if none
+     */
+    public int topmostAt(int px, int py) {
+
+        int cell = cellAt(px, py);
+        if (cell < 0) { return -1; }
+
+        int found = -1;
+        for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+            int i = cellItems[k];
+            if (i > found && contains(i, px, py)) { found = i; }
+        }
+        return found;
+
+    }
+
+    /**
+     * finds all boxes containing a point
+     * @param px x coordinate
+     * @param py y coordinate
+     * @return box ids in ascending order
+     */
+    public int[] allAt(int px, int py) {
+
+        int cell = cellAt(px, py);
+        if (cell < 0) { return new int[0]; }
+
+        int[] found = new int[cellStart[cell + 1] - cellStart[cell]];
+        int count = 0;
+        for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+            int i = cellItems[k];
+            if (contains(i, px, py)) { found[count++] = i; }
+        }
+        int[] result = Arrays.copyOf(found, count);
+        Arrays.sort(result);
+        return result;
+
+    }
+
+    /**
+     * finds all boxes intersecting a rectangle (rubber-band selection)
+     * @param range selection rectangle
+     * @return box ids in ascending order
+     */
+    public int[] intersecting(Rectangle range) {
+
+        if (cellItems.length == 0 || range.isEmpty()) { return new int[0]; }
+
+        // clamp range to the grid
+        int c0 = Math.max(0, col(range.x)), c1 = Math.min(cols - 1, col(range.x + range.width));
+        int r0 = Math.max(0, row(range.y)), r1 = Math.min(rows - 1, row(range.y + range.height));
+        if (c0 > c1 || r0 > r1) { return new int[0]; }
+
+        // new stamp instead of clearing the seen array
+        if (++queryStamp == 0) {
+            Arrays.fill(seen, 0);
+            queryStamp = 1;
+        }
+
+        int[] found = new int[16];
+        int count = 0;
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * cols + c;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int i = cellItems[k];
+                    if (seen[i] == queryStamp) { continue; }
+                    seen[i] = queryStamp;
+                    if (range.intersects(xs[i], ys[i], ws[i], hs[i])) {
+                        if (count == found.length) { found = Arrays.copyOf(found, count * 2); }
+                        found[count++] = i;
+                    }
+                }
+            }
+        }
+        int[] result = Arrays.copyOf(found, count);
+        Arrays.sort(result);
+        return result;
+
+    }
+
+    /**
+     * helper function to check if a box contains a point (same rules as Rectangle.contains)
+     * @param i box id
+     * @param px x coordinate
+     * @param py y coordinate
+     * @return true if point is inside box
+     */
+    private boolean contains(int i, int px, int py) {
+        return px >= xs[i] && px < xs[i] + ws[i] && py >= ys[i] && py < ys[i] + hs[i];
+    }
+
+    /**
+     * helper function to get the cell of a point
+     * @param px x coordinate
+     * @param py y coordinate
+     * @return cell index, or -1 if point is outside the grid
+     */
+    private int cellAt(int px, int py) {
+        if (cellItems.length == 0) { return -1; }
+        int c = col(px), r = row(py);
+        if (c < 0 || c >= cols || r < 0 || r >= rows) { return -1; }
+        return r * cols + c;
+    }
+
+    /**
+     * helper function for grid column of an x coordinate
+     * @param x x coordinate
+     * @return column (may be out of range)
+     */
+    private int col(int x) {
+        return Math.floorDiv(x - originX, cellSize);
+    }
+
+    /**
+     * helper function for grid row of a y coordinate
+     * @param y y coordinate
+     * @return row (may be out of range)
+     */
+    private int row(int y) {
+        return Math.floorDiv(y - originY, cellSize);
+    }
+
+    /**
+     * helper function for number of cells needed to cover a length
+     * @param length length to cover
+     * @param cell cell size
+     * @return number of cells (at least 1, one extra for boxes touching the far edge)
+     */
+    private static int cellsFor(int length, int cell) {
+        return length / cell + 1;
+    }
+
+}
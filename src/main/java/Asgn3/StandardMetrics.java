@@ -0,0 +1,219 @@
+package Asgn3;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * built-in metrics for the MetricEngine
+ * tokens --> number of tokens in a file
+ * statements --> number of ';' in a file (roughly one per statement / field)
+ * WMC --> weighted methods per class (sum of method and constructor complexity)
+ * LCOM --> lack of cohesion (method pairs sharing no field minus pairs sharing one, 0 if negative)
+ * RFC --> response for a class (own methods + distinct methods they call)
+ * DIT --> depth of inheritance tree (external superclass counts as one level, no superclass is 0)
+ * NOC --> number of children (project classes that directly extend the class)
+ * fanOut --> distinct project classes the class references
+ * fanIn --> distinct project classes referencing the class
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public final class StandardMetrics {
+
+    // metric names
+    public static final String TOKENS = "tokens";
+    public static final String STATEMENTS = "statements";
+    public static final String WMC = "WMC";
+    public static final String LCOM = "LCOM";
+    public static final String RFC = "RFC";
+    public static final String DIT = "DIT";
+    public static final String NOC = "NOC";
+    public static final String FAN_OUT = "fanOut";
+    public static final String FAN_IN = "fanIn";
+
+    /**
+     * constructor (not instantiable)
+     */
+    private StandardMetrics() {}
+
+    /**
+     * gets all built-in metrics
+     * @return metrics
+     */
+    public static List<MetricVisitor> all() {
+        return List.of(new Tokens(), new Statements(), new Wmc(), new Lcom(), new Rfc(), new Dit(), new Noc(), new Fan());
+    }
+
+    /**
+     * number of tokens
+     */
+    static class Tokens implements MetricVisitor {
+        public String name() { return TOKENS; }
+        public boolean visitsTokens() { return true; }
+        public double visitToken(JavaLexer tokens, int i) { return 1; }
+    }
+
+    /**
+     * number of statement terminators
+     */
+    static class Statements implements MetricVisitor {
+        public String name() { return STATEMENTS; }
+        public boolean visitsTokens() { return true; }
+        public double visitToken(JavaLexer tokens, int i) { return tokens.isSymbol(i, ';') ? 1 : 0; }
+    }
+
+    /**
+     * weighted methods per class
+     */
+    static class Wmc implements MetricVisitor {
+        public String name() { return WMC; }
+        public void visitClass(ClassSummary summary, ClassLevelMetrics metrics) {
+            int total = 0;
+            for (ClassSummary.Method method : summary.getMethods()) { total += method.complexity(); }
+            for (ClassSummary.Method constructor : summary.getConstructors()) { total += constructor.complexity(); }
+            metrics.setMetric(WMC, total);
+        }
+    }
+
+    /**
+     * lack of cohesion in methods (Chidamber & Kemerer)
+     */
+    static class Lcom implements MetricVisitor {
+        public String name() { return LCOM; }
+        public void visitClass(ClassSummary summary, ClassLevelMetrics metrics) {
+
+            // instance fields
+            Set<String> fieldNames = new HashSet<>();
+            for (ClassSummary.Field field : summary.getFields()) {
+                if (!field.isStatic()) { fieldNames.add(field.name()); }
+            }
+
+            // fields each method uses
+            List<Set<String>> used = new ArrayList<>();
+            for (ClassSummary.Method method : summary.getMethods()) {
+                Set<String> fields = new HashSet<>();
+                for (String name : method.names()) {
+                    if (fieldNames.contains(name)) { fields.add(name); }
+                }
+                used.add(fields);
+            }
+
+            // compare every pair of methods
+            int disjoint = 0;
+            int sharing = 0;
+            for (int a = 0; a < used.size(); a++) {
+                for (int b = a + 1; b < used.size(); b++) {
+                    if (Collections.disjoint(used.get(a), used.get(b))) { disjoint++; } else { sharing++; }
+                }
+            }
+            metrics.setMetric(LCOM, Math.max(disjoint - sharing, 0));
+
+        }
+    }
+
+    /**
+     * response for a class
+     */
+    static class Rfc implements MetricVisitor {
+        public String name() { return RFC; }
+        public void visitClass(ClassSummary summary, ClassLevelMetrics metrics) {
+            Set<String> response = new HashSet<>();
+            for (ClassSummary.Method method : summary.getMethods()) {
+                response.add(method.name());
+                response.addAll(method.calls());
+            }
+            for (ClassSummary.Method constructor : summary.getConstructors()) {
+                response.addAll(constructor.calls());
+            }
+            metrics.setMetric(RFC, response.size());
+        }
+    }
+
+    /**
+     * depth of inheritance tree
+     */
+    static class Dit implements MetricVisitor {
+        public String name() { return DIT; }
+        public void visitProject(Map<String, ClassSummary> summaries, Map<String, ClassLevelMetrics> metrics) {
+            Map<String, Integer> depths = new HashMap<>();
+            for (Map.Entry<String, ClassLevelMetrics> entry : metrics.entrySet()) {
+                entry.getValue().setMetric(DIT, depth(entry.getKey(), summaries, depths, new HashSet<>()));
+            }
+        }
+
+        /**
+         * helper function to compute the depth of a class (memoized)
+         * @param name class name
+         * @param summaries class names mapped to member summaries
+         * @param depths depths computed so far
+         * @param visiting classes on the current path (guards against extends cycles)
+         * @return depth
+         */
+        private int depth(String name, Map<String, ClassSummary> summaries, Map<String, Integer> depths, Set<String> visiting) {
+            Integer known = depths.get(name);
+            if (known != null) { return known; }
+            ClassSummary summary = summaries.get(name);
+            if (summary == null || !visiting.add(name)) { return 0; }
+
+            // interfaces may extend several types, take the deepest
+            int depth = 0;
+            for (String parent : summary.getExtendsTypes()) {
+                int parentDepth = summaries.containsKey(parent) ? depth(parent, summaries, depths, visiting) : 0;
+                depth = Math.max(depth, parentDepth + 1);
+            }
+
+            visiting.remove(name);
+            depths.put(name, depth);
+            return depth;
+        }
+    }
+
+    /**
+     * number of children
+     */
+    static class Noc implements MetricVisitor {
+        public String name() { return NOC; }
+        public void visitProject(Map<String, ClassSummary> summaries, Map<String, ClassLevelMetrics> metrics) {
+            Map<String, Integer> children = new HashMap<>();
+            for (ClassSummary summary : summaries.values()) {
+                for (String parent : new HashSet<>(summary.getExtendsTypes())) {
+                    if (!parent.equals(summary.getClassName())) { children.merge(parent, 1, Integer::sum); }
+                }
+            }
+            metrics.forEach((name, target) -> target.setMetric(NOC, children.getOrDefault(name, 0)));
+        }
+    }
+
+    /**
+     * fan-out and fan-in (both need every class, so they are computed together)
+     */
+    static class Fan implements MetricVisitor {
+        public String name() { return FAN_OUT; }
+        public void visitProject(Map<String, ClassSummary> summaries, Map<String, ClassLevelMetrics> metrics) {
+            Map<String, Integer> fanIn = new HashMap<>();
+            for (Map.Entry<String, ClassLevelMetrics> entry : metrics.entrySet()) {
+                String name = entry.getKey();
+                ClassSummary summary = summaries.get(name);
+                Set<String> referenced = new HashSet<>();
+                if (summary != null) {
+                    for (Collection<String> names : List.of(summary.getReferencedIdentifiers(), summary.getInstantiatedTypes(),
+                            summary.getExtendsTypes(), summary.getImplementsTypes())) {
+                        for (String other : names) {
+                            if (metrics.containsKey(other) && !other.equals(name)) { referenced.add(other); }  // project classes only
+                        }
+                    }
+                }
+
+                entry.getValue().setMetric(FAN_OUT, referenced.size());
+                for (String target : referenced) { fanIn.merge(target, 1, Integer::sum); }
+            }
+            metrics.forEach((name, target) -> target.setMetric(FAN_IN, fanIn.getOrDefault(name, 0)));
+        }
+    }
+
+}
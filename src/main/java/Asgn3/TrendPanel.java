@@ -0,0 +1,186 @@
+package Asgn3;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Path2D;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * line charts of metric trends over commits (see HistoryAnalyzer)
+ * top chart --> A, mean I and mean D (0 to 1)
+ * bottom chart --> total complexity (scaled to its own maximum)
+ * hover shows the commit and its values
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class TrendPanel extends JPanel {
+
+    // layout
+    private static final int MARGIN = 40;
+    private static final int GAP = 30;
+
+    // series colors
+    private static final Color A_COLOR = new Color(0x1f77b4);
+    private static final Color I_COLOR = new Color(0xff7f0e);
+    private static final Color D_COLOR = new Color(0xd62728);
+    private static final Color COMPLEXITY_COLOR = new Color(0x2ca02c);
+    private static final Stroke SERIES_STROKE = new BasicStroke(2f);
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZoneId.systemDefault());
+
+    // components
+    private TrendStore store;
+
+    /**
+     * constructor
+     */
+    public TrendPanel() {
+
+        // config
+        setBackground(Color.white);
+        setToolTipText("");
+
+    }
+
+    /**
+     * shows a store (repainted as rows arrive, see refresh)
+     * @param store per-commit metric series
+     */
+    public void showTrends(TrendStore store) {
+        this.store = store;
+        repaint();
+    }
+
+    /**
+     * repaints after new rows were appended
+     */
+    public void refresh() {
+        repaint();
+    }
+
+    /**
+     * removes the chart
+     */
+    public void clear() {
+        store = null;
+        repaint();
+    }
+
+    /**
+     * paints both charts
+     * @param g graphics
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+
+        super.paintComponent(g);  // clear old drawings
+        if (store == null || store.size() == 0) { return; }
+
+        Graphics2D g2d = (Graphics2D) g.create();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        // chart areas
+        int chartHeight = (getHeight() - 2 * MARGIN - GAP) / 2;
+        Rectangle top = new Rectangle(MARGIN, MARGIN, getWidth() - 2 * MARGIN, chartHeight);
+        Rectangle bottom = new Rectangle(MARGIN, MARGIN + chartHeight + GAP, top.width, chartHeight);
+        if (top.width <= 0 || chartHeight <= 0) { g2d.dispose(); return; }
+
+        // A / I / D share a 0..1 axis
+        drawFrame(g2d, top, "A / mean I / mean D", "1.0", "0.0");
+        drawSeries(g2d, top, store.getColumn(TrendStore.A), 1.0, A_COLOR);
+        drawSeries(g2d, top, store.getColumn(TrendStore.MEAN_I), 1.0, I_COLOR);
+        drawSeries(g2d, top, store.getColumn(TrendStore.MEAN_D), 1.0, D_COLOR);
+        drawLegend(g2d, top, new String[] {"A", "I", "D"}, new Color[] {A_COLOR, I_COLOR, D_COLOR});
+
+        // complexity on its own scale
+        double[] complexity = store.getColumn(TrendStore.COMPLEXITY);
+        double max = 1;
+        for (double value : complexity) { max = Math.max(max, value); }
+        drawFrame(g2d, bottom, "total complexity", String.valueOf((long) max), "0");
+        drawSeries(g2d, bottom, complexity, max, COMPLEXITY_COLOR);
+
+        g2d.dispose();
+
+    }
+
+    /**
+     * shows the commit under the mouse
+     * @param e mouse event
+     * @return tooltip text (null outside the charts)
+     */
+    @Override
+    public String getToolTipText(MouseEvent e) {
+
+        int count = (store == null) ? 0 : store.size();
+        int width = getWidth() - 2 * MARGIN;
+        if (count == 0 || width <= 0 || e.getX() < MARGIN || e.getX() > MARGIN + width) { return null; }
+
+        int row = (count == 1) ? 0 : (int) Math.round((e.getX() - MARGIN) * (count - 1) / (double) width);
+        row = Math.max(0, Math.min(count - 1, row));
+        return String.format("<html>%s &nbsp; %s<br>A %.3f &nbsp; I %.3f &nbsp; D %.3f<br>complexity %d &nbsp; files %d &nbsp; classes %d</html>",
+                store.getCommit(row).substring(0, Math.min(10, store.getCommit(row).length())),
+                DATE.format(Instant.ofEpochSecond(store.getTime(row))),
+                store.get(TrendStore.A, row), store.get(TrendStore.MEAN_I, row), store.get(TrendStore.MEAN_D, row),
+                (long) store.get(TrendStore.COMPLEXITY, row), (long) store.get(TrendStore.FILES, row),
+                (long) store.get(TrendStore.CLASSES, row));
+
+    }
+
+    /**
+     * helper function to draw a chart's axes and labels
+     * @param g2d graphics
+     * @param area chart area
+     * @param title chart title
+     * @param maxLabel label at the top of the y axis
+     * @param minLabel label at the bottom of the y axis
+     */
+    private void drawFrame(Graphics2D g2d, Rectangle area, String title, String maxLabel, String minLabel) {
+        g2d.setColor(Color.lightGray);
+        g2d.drawRect(area.x, area.y, area.width, area.height);
+        g2d.setColor(Color.black);
+        g2d.drawString(title, area.x, area.y - 6);
+        FontMetrics metrics = g2d.getFontMetrics();
+        g2d.drawString(maxLabel, area.x - metrics.stringWidth(maxLabel) - 4, area.y + metrics.getAscent());
+        g2d.drawString(minLabel, area.x - metrics.stringWidth(minLabel) - 4, area.y + area.height);
+    }
+
+    /**
+     * helper function to draw one series (oldest commit on the left)
+     * @param g2d graphics
+     * @param area chart area
+     * @param values series
+     * @param max value drawn at the top of the area
+     * @param color line color
+     */
+    private void drawSeries(Graphics2D g2d, Rectangle area, double[] values, double max, Color color) {
+        Path2D.Double line = new Path2D.Double();
+        for (int i = 0; i < values.length; i++) {
+            double x = area.x + ((values.length == 1) ? area.width / 2.0 : area.width * i / (double) (values.length - 1));
+            double y = area.y + area.height - area.height * Math.max(0, Math.min(1, values[i] / max));
+            if (i == 0) { line.moveTo(x, y); } else { line.lineTo(x, y); }
+        }
+        g2d.setColor(color);
+        g2d.setStroke(SERIES_STROKE);
+        g2d.draw(line);
+    }
+
+    /**
+     * helper function to draw a legend in the chart's top right corner
+     * @param g2d graphics
+     * @param area chart area
+     * @param labels series labels
+     * @param colors series colors
+     */
+    private void drawLegend(Graphics2D g2d, Rectangle area, String[] labels, Color[] colors) {
+        int x = area.x + area.width - 40 * labels.length;
+        for (int i = 0; i < labels.length; i++) {
+            g2d.setColor(colors[i]);
+            g2d.fillRect(x + 40 * i, area.y - 16, 10, 10);
+            g2d.setColor(Color.black);
+            g2d.drawString(labels[i], x + 40 * i + 14, area.y - 6);
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+package Asgn3;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * per-commit metric series, stored column by column (one primitive array per metric)
+ * a row is one commit; charts read whole columns, so each series is a single contiguous array
+ * A --> abstraction of the folder
+ * meanI / meanD --> average instability / distance over its classes
+ * complexity / size --> summed over its files
+ * files / classes --> counts
+ * rows are appended by the history worker while the trend panel reads them (all access is synchronized)
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class TrendStore {
+
+    // column names
+    public static final String A = "A";
+    public static final String MEAN_I = "meanI";
+    public static final String MEAN_D = "meanD";
+    public static final String COMPLEXITY = "complexity";
+    public static final String SIZE = "size";
+    public static final String FILES = "files";
+    public static final String CLASSES = "classes";
+    public static final List<String> COLUMNS = List.of(A, MEAN_I, MEAN_D, COMPLEXITY, SIZE, FILES, CLASSES);
+
+    // fields
+    private String[] commits = new String[64];
+    private long[] times = new long[64];
+    private final double[][] columns = new double[COLUMNS.size()][64];
+    private int size = 0;
+
+    /**
+     * adds a commit
+     * @param commit commit id
+     * @param epochSeconds commit time
+     * @param analysis analysis of the folder at that commit
+     */
+    public synchronized void append(String commit, long epochSeconds, GHRepoAnalyzed analysis) {
+
+        double meanI = 0;
+        double meanD = 0;
+        List<ClassLevelMetrics> classes = analysis.getClassMetricsList();
+        for (ClassLevelMetrics metrics : classes) {
+            meanI += metrics.getI();
+            meanD += metrics.getD();
+        }
+        FileMetricsStore files = analysis.getFileMetrics();
+
+        double[] row = new double[COLUMNS.size()];
+        row[0] = analysis.getA();
+        row[1] = classes.isEmpty() ? 0 : meanI / classes.size();
+        row[2] = classes.isEmpty() ? 0 : meanD / classes.size();
+        row[3] = files.sum(FileMetricsStore.COMPLEXITY);
+        row[4] = files.sum(FileMetricsStore.SIZE);
+        row[5] = files.size();
+        row[6] = classes.size();
+        appendRow(commit, epochSeconds, row);
+
+    }
+
+    /**
+     * adds a commit that did not change the analyzed files (repeats the previous row)
+     * @param commit commit id
+     * @param epochSeconds commit time
+     */
+    public synchronized void appendUnchanged(String commit, long epochSeconds) {
+        double[] row = new double[COLUMNS.size()];
+        if (size > 0) {
+            for (int c = 0; c < row.length; c++) { row[c] = columns[c][size - 1]; }
+        }
+        appendRow(commit, epochSeconds, row);
+    }
+
+    // getters
+    public synchronized int size() { return size; }
+    public synchronized String getCommit(int row) { return commits[row]; }
+    public synchronized long getTime(int row) { return times[row]; }
+
+    /**
+     * gets one value
+     * @param column column name (see COLUMNS)
+     * @param row commit index (oldest first)
+     * @return value
+     */
+    public synchronized double get(String column, int row) {
+        return columns[index(column)][row];
+    }
+
+    /**
+     * gets a whole series
+     * @param column column name (see COLUMNS)
+     * @return values, oldest commit first (copy)
+     */
+    public synchronized double[] getColumn(String column) {
+        return Arrays.copyOf(columns[index(column)], size);
+    }
+
+    /**
+     * removes all commits
+     */
+    public synchronized void clear() {
+        size = 0;
+    }
+
+    /**
+     * helper function to append a row (arrays grow by doubling)
+     * @param commit commit id
+     * @param epochSeconds commit time
+     * @param row one value per column
+     */
+    private void appendRow(String commit, long epochSeconds, double[] row) {
+        if (size == commits.length) {
+            int capacity = size * 2;
+            commits = Arrays.copyOf(commits, capacity);
+            times = Arrays.copyOf(times, capacity);
+            for (int c = 0; c < columns.length; c++) { columns[c] = Arrays.copyOf(columns[c], capacity); }
+        }
+        commits[size] = commit;
+        times[size] = epochSeconds;
+        for (int c = 0; c < columns.length; c++) { columns[c][size] = row[c]; }
+        size++;
+    }
+
+    /**
+     * helper function to find a column
+     * @param column column name
+     * @return column index
+     */
+    private static int index(String column) {
+        int index = COLUMNS.indexOf(column);
+        if (index < 0) { throw new IllegalArgumentException("Unknown trend column: " + column); }
+        return index;
+    }
+
+}
@@ -1,15 +1,12 @@
 package Asgn3;
 
 import net.sourceforge.plantuml.FileFormat;
-import net.sourceforge.plantuml.FileFormatOption;
-import net.sourceforge.plantuml.SourceStringReader;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 /**
@@ -28,19 +25,34 @@ public class UMLPanel extends JPanel {
      * @param umlSource PlantUML syntax string
      */
     public UMLPanel(String umlSource) {
+        this(render(umlSource));
+    }
+
+    /**
+     * constructor
+     * @param image diagram rendered beforehand (see render), null if rendering failed
+     */
+    public UMLPanel(BufferedImage image) {
         setBackground(Color.WHITE);
+        this.image = image;
+    }
 
-        try {
-            // convert PlantUML syntax to png 
-            SourceStringReader reader = new SourceStringReader(umlSource);
-            ByteArrayOutputStream os = new ByteArrayOutputStream();
+    /**
+     * renders PlantUML syntax to an image (any thread, so the event thread never waits for PlantUML)
+     * @param umlSource PlantUML syntax string
+     * @return rendered diagram, null if rendering failed
+     */
+    public static BufferedImage render(String umlSource) {
+        AnalysisEvents.DiagramRenderEvent event = new AnalysisEvents.DiagramRenderEvent();
+        event.begin();
 
-            // create png
-            reader.outputImage(os, new FileFormatOption(FileFormat.PNG));
-            os.close();
+        BufferedImage image;
+        try {
+            // convert PlantUML syntax to png
+            byte[] png = PlantUMLGenerator.render(umlSource, FileFormat.PNG);
 
             // make it displayable
-            image = ImageIO.read(new ByteArrayInputStream(os.toByteArray()));
+            image = ImageIO.read(new ByteArrayInputStream(png));
 
         } catch (StackOverflowError e) {
             System.err.println("StackOverflowError in PlantUML rendering");
@@ -52,6 +64,15 @@ public class UMLPanel extends JPanel {
             System.err.println("Error in PlantUML rendering: " + e.getMessage());
             image = null;
         }
+
+        if (event.shouldCommit()) {
+            event.sourceChars = umlSource.length();
+            event.success = image != null;
+            event.width = (image != null) ? image.getWidth() : 0;
+            event.height = (image != null) ? image.getHeight() : 0;
+            event.commit();
+        }
+        return image;
     }
     
     /**
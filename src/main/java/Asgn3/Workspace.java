@@ -0,0 +1,271 @@
+package Asgn3;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * analyzes many GH folders side by side
+ * folders are analyzed concurrently through the workspace's own GHOperations: it shares the app's API client
+ * (ETag cache, rate budget) and adds an archive cache, so folders of the same repo/ref trigger one download
+ * (analyses outside the workspace never see those archives)
+ * finished analyses are cached by URL, so asking for a folder again (or twice in one batch) reuses the result;
+ * the cache keeps the MAX_CACHED_RESULTS most recently used folders, none older than MAX_AGE_MS
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class Workspace {
+
+    // config
+    public static final int MAX_CACHED_RESULTS = 64;
+    public static final long MAX_AGE_MS = GHOperations.ARCHIVE_MAX_AGE_MS;  // branches move, results go stale
+
+    // components
+    private final GHOperations ghOperations;
+    private final GHRepoAnalyzer analyzer;
+    private final int parallelism;
+    private final Map<String, CachedResult> results;  // access ordered (LRU), guarded by itself
+
+    /**
+     * result cache entry
+     * @param result result (still running if not done)
+     * @param createdMillis when the analysis started
+     */
+    private record CachedResult(CompletableFuture<RepoResult> result, long createdMillis) {}
+
+    // logger
+    private static final Logger logger = LoggerFactory.getLogger(Workspace.class);
+
+    /**
+     * summary of a set of values
+     * @param count number of values
+     * @param min smallest value
+     * @param q1 first quartile
+     * @param median median
+     * @param q3 third quartile
+     * @param max largest value
+     * @param mean average
+     */
+    public record Distribution(int count, double min, double q1, double median, double q3, double max, double mean) {
+
+        /**
+         * summarizes values (quartiles use linear interpolation)
+         * @param values values (not modified)
+         * @return distribution (all NaN if there are no values)
+         */
+        public static Distribution of(double[] values) {
+            if (values.length == 0) {
+                return new Distribution(0, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+            }
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            double sum = 0;
+            for (double value : sorted) { sum += value; }
+            return new Distribution(sorted.length, sorted[0], quantile(sorted, 0.25), quantile(sorted, 0.5),
+                    quantile(sorted, 0.75), sorted[sorted.length - 1], sum / sorted.length);
+        }
+
+        /**
+         * helper function to get a quantile of sorted values
+         * @param sorted values in ascending order
+         * @param q quantile (0 to 1)
+         * @return interpolated value
+         */
+        private static double quantile(double[] sorted, double q) {
+            double position = q * (sorted.length - 1);
+            int below = (int) Math.floor(position);
+            int above = Math.min(below + 1, sorted.length - 1);
+            return sorted[below] + (position - below) * (sorted[above] - sorted[below]);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.2f [%.2f-%.2f]", median, q1, q3);
+        }
+    }
+
+    /**
+     * result of one folder
+     * @param url GH folder URL
+     * @param analysis analysis (null if it failed)
+     * @param error failure message (null if it succeeded)
+     * @param wallNanos time the analysis took
+     * @param A abstraction of the classes (0 or 1 each, so mean is the folder's A)
+     * @param I instability of the classes
+     * @param D distance from the main sequence of the classes
+     */
+    public record RepoResult(String url, GHRepoAnalyzed analysis, String error, long wallNanos,
+                             Distribution A, Distribution I, Distribution D) {
+
+        /**
+         * creates a successful result
+         * @param url GH folder URL
+         * @param analysis analysis
+         * @param wallNanos time the analysis took
+         * @return result with distributions over all classes
+         */
+        static RepoResult of(String url, GHRepoAnalyzed analysis, long wallNanos) {
+            List<ClassLevelMetrics> classes = analysis.getClassMetricsList();
+            double[] a = new double[classes.size()];
+            double[] i = new double[classes.size()];
+            double[] d = new double[classes.size()];
+            for (int c = 0; c < classes.size(); c++) {
+                a[c] = classes.get(c).getA();
+                i[c] = classes.get(c).getI();
+                d[c] = classes.get(c).getD();
+            }
+            return new RepoResult(url, analysis, null, wallNanos, Distribution.of(a), Distribution.of(i), Distribution.of(d));
+        }
+
+        /**
+         * creates a failed result
+         * @param url GH folder URL
+         * @param error failure message
+         * @param wallNanos time until the failure
+         * @return result without analysis
+         */
+        static RepoResult failed(String url, String error, long wallNanos) {
+            Distribution none = Distribution.of(new double[0]);
+            return new RepoResult(url, null, error, wallNanos, none, none, none);
+        }
+
+        /**
+         * checks if the analysis succeeded
+         * @return true if there is an analysis
+         */
+        public boolean isOk() { return analysis != null; }
+    }
+
+    /**
+     * constructor
+     * @param ghOperations GH operations helper (not changed, the workspace caches archives in its own copy)
+     * @param parallelism number of folders analyzed at the same time
+     */
+    public Workspace(GHOperations ghOperations, int parallelism) {
+
+        // initialize components
+        this.ghOperations = ghOperations.withArchiveCache();
+        this.analyzer = new GHRepoAnalyzer(this.ghOperations);
+        analyzer.setBulkFetch(true);  // one cached download per repo/ref serves all its folders
+        this.parallelism = Math.max(1, parallelism);
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > MAX_CACHED_RESULTS;
+            }
+        };
+
+    }
+
+    /**
+     * gets the analyzer shared by all folders (e.g. to register metrics)
+     * @return analyzer
+     */
+    public GHRepoAnalyzer getAnalyzer() {
+        return analyzer;
+    }
+
+    /**
+     * analyzes folders concurrently
+     * @param urls GH folder URLs (duplicates are analyzed once)
+     * @param listener notified as each folder finishes (from worker threads, may be null)
+     * @return one result per URL, in the order given
+     * @throws java.util.concurrent.CompletionException if an analysis died with an error (not a failed result)
+     */
+    public List<RepoResult> analyze(List<String> urls, Consumer<RepoResult> listener) {
+
+        List<CompletableFuture<RepoResult>> pending = new ArrayList<>();
+        try (ExecutorService workers = Executors.newFixedThreadPool(parallelism)) {
+
+            // start (or reuse) one analysis per distinct URL
+            Map<String, CompletableFuture<RepoResult>> batch = new LinkedHashMap<>();
+            for (String url : urls) {
+                String key = url.trim();
+                pending.add(batch.computeIfAbsent(key, k -> {
+                    CompletableFuture<RepoResult> result = cachedResult(k, workers);
+                    return (listener == null) ? result : result.whenComplete((done, e) -> { if (done != null) { listener.accept(done); } });
+                }));
+            }
+
+            // wait for every folder
+            List<RepoResult> done = new ArrayList<>(pending.size());
+            for (CompletableFuture<RepoResult> result : pending) {
+                done.add(result.join());
+            }
+            return done;
+
+        }
+
+    }
+
+    /**
+     * drops cached results and archives (next analysis fetches everything again)
+     */
+    public void clear() {
+        synchronized (results) { results.clear(); }
+        ghOperations.clearArchiveCache();
+    }
+
+    /**
+     * helper function to get a folder's result from the cache (started by the first caller, others share it)
+     * @param url GH folder URL
+     * @param workers pool running new analyses
+     * @return result (missing or expired results are analyzed again)
+     */
+    private CompletableFuture<RepoResult> cachedResult(String url, ExecutorService workers) {
+        synchronized (results) {
+            CachedResult cached = results.get(url);
+            if (cached != null && System.currentTimeMillis() - cached.createdMillis() <= MAX_AGE_MS) { return cached.result(); }
+            CompletableFuture<RepoResult> result = new CompletableFuture<>();
+            results.put(url, new CachedResult(result, System.currentTimeMillis()));
+            workers.execute(() -> {
+                try {
+                    RepoResult done = analyzeOne(url);
+                    if (!done.isOk()) { evict(url, result); }  // failures are not cached
+                    result.complete(done);
+                } catch (Throwable t) {  // never leave callers waiting on a dead future
+                    evict(url, result);
+                    result.completeExceptionally(t);
+                }
+            });
+            return result;
+        }
+    }
+
+    /**
+     * helper function to drop a cached result (only if it was not replaced in the meantime)
+     * @param url GH folder URL
+     * @param result result to drop
+     */
+    private void evict(String url, CompletableFuture<RepoResult> result) {
+        synchronized (results) {
+            CachedResult current = results.get(url);
+            if (current != null && current.result() == result) { results.remove(url); }
+        }
+    }
+
+    /**
+     * helper function to analyze one folder (failures become failed results, they are not cached)
+     * @param url GH folder URL
+     * @return result
+     */
+    private RepoResult analyzeOne(String url) {
+        long start = System.nanoTime();
+        try {
+            GHRepoAnalyzed analysis = analyzer.analyzeFiles(url);
+            return RepoResult.of(url, analysis, System.nanoTime() - start);
+        } catch (Exception e) {
+            logger.warn("Workspace analysis failed for {}: {}", url, e.getMessage());
+            return RepoResult.failed(url, String.valueOf(e.getMessage()), System.nanoTime() - start);
+        }
+    }
+
+}
@@ -0,0 +1,203 @@
+package Asgn3;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * command line throughput benchmark for Workspace
+ * usage: java -cp <jar> Asgn3.WorkspaceBenchmark [folders=50] [filesPerFolder=40] [foldersPerRepo=5] [runs=3]
+ * generates synthetic service folders (grouped into repos), serves their zipballs from a local HTTP server
+ * (no GH token or rate budget needed) and analyzes all folders at increasing parallelism
+ * reports the best of several runs per parallelism; every run starts with empty caches
+ *
+ * @author Megan Fung
+ * @version 1.0
+ */
+public class WorkspaceBenchmark {
+
+    /**
+     * entry point
+     * @param args folders, files per folder, folders per repo, runs (all optional)
+     * @throws IOException if the local server cannot start
+     */
+    public static void main(String[] args) throws IOException {
+
+        int folders = intArg(args, 0, 50);
+        int filesPerFolder = intArg(args, 1, 40);
+        int foldersPerRepo = intArg(args, 2, 5);
+        int runs = intArg(args, 3, 3);
+
+        // one zipball per repo
+        Map<String, byte[]> zipballs = new ConcurrentHashMap<>();
+        List<String> urls = new ArrayList<>();
+        for (int folder = 0; folder < folders; folder++) {
+            String repo = "repo" + (folder / foldersPerRepo);
+            urls.add("https://github.com/bench/" + repo + "/tree/main/services/svc" + folder);
+        }
+        for (int repo = 0; repo * foldersPerRepo < folders; repo++) {
+            zipballs.put("repo" + repo, zipball(repo, repo * foldersPerRepo, Math.min(folders, (repo + 1) * foldersPerRepo), filesPerFolder));
+        }
+
+        // local stand-in for the GH API
+        HttpServer server = serveZipballs(zipballs);
+
+        try {
+            URI base = URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+            System.out.printf("%d folders x %d files (%d folders per repo), best of %d runs%n%n",
+                    folders, filesPerFolder, foldersPerRepo, runs);
+            System.out.printf("%-12s %10s %12s %12s %10s%n", "parallelism", "wall ms", "folders/s", "files/s", "downloads");
+
+            for (int parallelism : new int[] {1, 2, 4, GHApiClient.MAX_CONCURRENCY}) {
+                long best = Long.MAX_VALUE;
+                int downloads = 0;
+                for (int run = 0; run < runs; run++) {
+                    GHOperations ghOperations = new GHOperations(null, new GHApiClient(base, null));
+                    Workspace workspace = new Workspace(ghOperations, parallelism);
+                    long start = System.nanoTime();
+                    List<Workspace.RepoResult> results = workspace.analyze(urls, null);
+                    long wall = System.nanoTime() - start;
+                    for (Workspace.RepoResult result : results) {
+                        if (!result.isOk()) { throw new IllegalStateException(result.url() + ": " + result.error()); }
+                    }
+                    if (wall < best) {
+                        best = wall;
+                        downloads = ghOperations.getArchiveDownloads();
+                    }
+                }
+                double seconds = best / 1e9;
+                System.out.printf("%-12d %10.1f %12.1f %12.0f %10d%n", parallelism, best / 1e6,
+                        folders / seconds, (double) folders * filesPerFolder / seconds, downloads);
+            }
+        } finally {
+            server.stop(0);
+        }
+
+    }
+
+    /**
+     * starts a local stand-in for the GH API that serves zipballs at /repos/bench/<repo>/zipball/<ref>
+     * (no GH token or rate budget needed; also used by AnalysisServerBenchmark)
+     * @param zipballs repo names mapped to zip bytes
+     * @return started server on a free local port
+     * @throws IOException if the server cannot start
+     */
+    static HttpServer serveZipballs(Map<String, byte[]> zipballs) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String[] routes = exchange.getRequestURI().getPath().split("/");
+            byte[] body = (routes.length > 3) ? zipballs.get(routes[3]) : null;
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) { out.write(body); }
+            }
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+
+    /**
+     * helper function to build a repo zipball with synthetic service folders
+     * @param repo repo number
+     * @param firstFolder first folder number in the repo
+     * @param endFolder folder number after the last one
+     * @param filesPerFolder classes per folder
+     * @return zip bytes (entries under bench-repo<n>-sha/ like a GH zipball)
+     * @throws IOException never (in-memory)
+     */
+    static byte[] zipball(int repo, int firstFolder, int endFolder, int filesPerFolder) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            String root = "bench-repo" + repo + "-0000000/";
+            zip.putNextEntry(new ZipEntry(root + "README.md"));
+            zip.write("benchmark repo\n".getBytes(StandardCharsets.UTF_8));
+            for (int folder = firstFolder; folder < endFolder; folder++) {
+                for (int file = 0; file < filesPerFolder; file++) {
+                    zip.putNextEntry(new ZipEntry(root + "services/svc" + folder + "/C" + file + ".java"));
+                    zip.write(source(folder, file, filesPerFolder).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * helper function to generate one class (fields, constructor, methods and references to its neighbours)
+     * @param folder folder number
+     * @param index class number in the folder
+     * @param classes classes in the folder
+     * @return Java source
+     */
+    private static String source(int folder, int index, int classes) {
+
+        String next = "C" + ((index + 1) % classes);
+        String other = "C" + ((index * 7 + 3) % classes);
+        StringBuilder out = new StringBuilder();
+        out.append("package svc").append(folder).append(";\n\nimport java.util.*;\n\n");
+        out.append("/**\n * generated class ").append(index).append("\n */\n");
+
+        // every 6th class is an interface, every 4th extends its neighbour
+        if (isInterface(index)) {
+            out.append("public interface C").append(index).append(" {\n");
+            out.append("    ").append(next).append(" get(String key);\n");
+            out.append("    void put(String key, ").append(other).append(" value);\n}\n");
+            return out.toString();
+        }
+        out.append("public class C").append(index);
+        if (index % 4 == 1 && !isInterface((index + 1) % classes)) { out.append(" extends ").append(next); }
+        out.append(" {\n\n");
+
+        out.append("    private final ").append(next).append(" next = new ").append(next).append("();\n");
+        out.append("    private final List<").append(other).append("> others;\n");
+        out.append("    private int count;\n\n");
+        out.append("    public C").append(index).append("(List<").append(other).append("> others) {\n");
+        out.append("        this.others = others;\n    }\n\n");
+
+        for (int method = 0; method < 6; method++) {
+            out.append("    public int work").append(method).append("(int limit) {\n");
+            out.append("        int total = 0; // running total\n");
+            out.append("        for (int i = 0; i < limit; i++) {\n");
+            out.append("            if (i % ").append(method + 2).append(" == 0 && count > 0) { total += i; }\n");
+            out.append("            else if (\"skip\".equals(String.valueOf(i))) { continue; }\n");
+            out.append("        }\n");
+            out.append("        count += others.size();\n");
+            out.append("        return total > 0 ? total : count;\n    }\n\n");
+        }
+        out.append("}\n");
+        return out.toString();
+
+    }
+
+    /**
+     * helper function to tell which generated classes are interfaces
+     * @param index class number in the folder
+     * @return true for every 6th class
+     */
+    private static boolean isInterface(int index) {
+        return index % 6 == 5;
+    }
+
+    /**
+     * helper function to read an optional int argument
+     * @param args arguments
+     * @param i position
+     * @param fallback value if missing
+     * @return value
+     */
+    private static int intArg(String[] args, int i, int fallback) {
+        return (args.length > i) ? Integer.parseInt(args[i]) : fallback;
+    }
+
+}